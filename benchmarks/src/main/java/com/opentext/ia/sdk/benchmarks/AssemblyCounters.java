@@ -0,0 +1,42 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.benchmarks;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+
+/**
+ * Secondary results that JMH reports as rates next to the primary result: AIUs per second and bytes per second.
+ */
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.OPERATIONS)
+public class AssemblyCounters {
+
+  private long numAius;
+  private long numBytes;
+
+  @Setup(Level.Iteration)
+  public void clear() {
+    numAius = 0;
+    numBytes = 0;
+  }
+
+  void add(long aius, long bytes) {
+    numAius += aius;
+    numBytes += bytes;
+  }
+
+  public long aius() {
+    return numAius;
+  }
+
+  public long bytes() {
+    return numBytes;
+  }
+
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.opentext.ia.sdk.sip.BatchSipAssembler;
+import com.opentext.ia.sdk.sip.FileGenerationMetrics;
+import com.opentext.ia.sdk.sip.SipAssembler;
+import com.opentext.ia.sdk.sip.SipMetrics;
+import com.opentext.ia.sdk.sip.SipSegmentationStrategy;
+
+
+/**
+ * Overhead of checking whether to start a new SIP in a {@linkplain BatchSipAssembler}. None of the strategies ever
+ * starts a new SIP, so differences with {@linkplain Segmentation#NONE} are due to the segmentation checks.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class BatchSegmentationBenchmark {
+
+  /**
+   * The strategy for segmenting domain objects into SIPs.
+   */
+  public enum Segmentation {
+
+    NONE {
+      @Override
+      SipSegmentationStrategy<Document> newStrategy() {
+        return (document, metrics) -> false;
+      }
+    },
+    BY_SIP_SIZE {
+      @Override
+      SipSegmentationStrategy<Document> newStrategy() {
+        return SipSegmentationStrategy.byMaxSipSize(Long.MAX_VALUE);
+      }
+    },
+    BY_SIP_FILE_SIZE {
+      @Override
+      SipSegmentationStrategy<Document> newStrategy() {
+        return SipSegmentationStrategy.byMaxSipFileSize(Long.MAX_VALUE);
+      }
+    },
+    COMBINED {
+      @Override
+      SipSegmentationStrategy<Document> newStrategy() {
+        return SipSegmentationStrategy.combining(SipSegmentationStrategy.byMaxAius(Long.MAX_VALUE),
+            SipSegmentationStrategy.byMaxDigitalObjectsSize(Long.MAX_VALUE),
+            SipSegmentationStrategy.byMaxPdiSize(Long.MAX_VALUE), SipSegmentationStrategy.byMaxSipSize(Long.MAX_VALUE));
+      }
+    };
+
+    abstract SipSegmentationStrategy<Document> newStrategy();
+
+  }
+
+
+  @Param({ "NONE", "BY_SIP_SIZE", "BY_SIP_FILE_SIZE", "COMBINED" })
+  public Segmentation segmentation;
+
+  @Param("10000")
+  public int numAius;
+
+  private List<Document> documents;
+  private File dir;
+
+  @Setup
+  public void prepare() throws IOException {
+    documents = Documents.random(numAius, 1);
+    dir = Files.createTempDirectory("sips")
+      .toFile();
+  }
+
+  @TearDown
+  public void cleanUp() throws IOException {
+    FileUtils.deleteDirectory(dir);
+  }
+
+  @Benchmark
+  public void assembleBatch(AssemblyCounters counters) throws IOException {
+    BatchSipAssembler<Document> batch = new BatchSipAssembler<>(
+        SipAssembler.forPdi(Benchmarks.packagingInformation(), new DocumentPdiAssembler()),
+        segmentation.newStrategy(), dir);
+    for (Document document : documents) {
+      batch.add(document);
+    }
+    batch.end();
+    for (FileGenerationMetrics sip : batch.getSipsMetrics()) {
+      counters.add(((SipMetrics)sip.getMetrics()).numAius(), sip.getFile()
+        .length());
+      Files.delete(sip.getFile()
+        .toPath());
+    }
+  }
+
+}
@@ -0,0 +1,30 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.benchmarks;
+
+import com.opentext.ia.sdk.sip.PackagingInformation;
+
+
+/**
+ * Fixtures shared by the benchmarks.
+ */
+final class Benchmarks {
+
+  private Benchmarks() {
+    // Utility class
+  }
+
+  static PackagingInformation packagingInformation() {
+    return PackagingInformation.builder()
+      .dss()
+        .application("benchmarks")
+        .holding("benchmarks")
+        .producer("SIP SDK")
+        .entity(DocumentPdiAssembler.ENTITY)
+        .schema(DocumentPdiAssembler.NAMESPACE.toString())
+      .end()
+      .build();
+  }
+
+}
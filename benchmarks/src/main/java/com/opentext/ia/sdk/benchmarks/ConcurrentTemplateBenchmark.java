@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.benchmarks;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.output.NullWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.opentext.ia.sdk.sip.Template;
+import com.opentext.ia.sip.assembly.stringtemplate.ConcurrentStringTemplate;
+import com.opentext.ia.sip.assembly.stringtemplate.StringTemplate;
+
+
+/**
+ * Rows per second written by a single template that is shared by a growing number of threads, as when many
+ * assemblers in the same JVM use the same row template.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ConcurrentTemplateBenchmark {
+
+  private static final String ROW
+      = "  <document><id>$model.id$</id><name>$model.name$</name><size>$model.size$</size></document>\n";
+  private static final int NUM_DOCUMENTS = 1000;
+
+  /**
+   * The template that the threads share.
+   */
+  public enum Engine {
+
+    STRING_TEMPLATE {
+      @Override
+      Template<Document> newTemplate() {
+        return new StringTemplate<>("", "", ROW);
+      }
+    },
+    CONCURRENT_STRING_TEMPLATE {
+      @Override
+      Template<Document> newTemplate() {
+        return new ConcurrentStringTemplate<>("", "", ROW);
+      }
+    };
+
+    abstract Template<Document> newTemplate();
+
+  }
+
+
+  /**
+   * The documents that a single thread renders, and where it renders them to.
+   */
+  @State(Scope.Thread)
+  public static class Rows {
+
+    private final PrintWriter writer = new PrintWriter(new NullWriter());
+    private List<Document> documents;
+    private int next;
+
+    @Setup
+    public void prepare() {
+      documents = Documents.random(NUM_DOCUMENTS, 1);
+    }
+
+    Document next() {
+      next = (next + 1) % documents.size();
+      return documents.get(next);
+    }
+
+  }
+
+
+  @Param({ "STRING_TEMPLATE", "CONCURRENT_STRING_TEMPLATE" })
+  public Engine engine;
+
+  private Template<Document> template;
+
+  @Setup
+  public void prepare() {
+    template = engine.newTemplate();
+  }
+
+  @Benchmark
+  @Threads(1)
+  public void rowsWith1Thread(Rows rows) throws IOException {
+    writeRow(rows);
+  }
+
+  private void writeRow(Rows rows) throws IOException {
+    template.writeRow(rows.next(), Collections.emptyMap(), rows.writer);
+  }
+
+  @Benchmark
+  @Threads(2)
+  public void rowsWith2Threads(Rows rows) throws IOException {
+    writeRow(rows);
+  }
+
+  @Benchmark
+  @Threads(4)
+  public void rowsWith4Threads(Rows rows) throws IOException {
+    writeRow(rows);
+  }
+
+  @Benchmark
+  @Threads(8)
+  public void rowsWith8Threads(Rows rows) throws IOException {
+    writeRow(rows);
+  }
+
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.benchmarks;
+
+import java.util.Collections;
+import java.util.Iterator;
+
+import com.opentext.ia.sdk.sip.DigitalObject;
+
+
+/**
+ * Synthetic domain object with a single digital object.
+ */
+public class Document {
+
+  private final String id;
+  private final String name;
+  private final String contentId;
+  private final byte[] content;
+
+  @SuppressWarnings("PMD.ArrayIsStoredDirectly") // Documents share content to allow deduplication
+  Document(String id, String name, String contentId, byte[] content) {
+    this.id = id;
+    this.name = name;
+    this.contentId = contentId;
+    this.content = content;
+  }
+
+  public String getId() {
+    return id;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public int getSize() {
+    return content.length;
+  }
+
+  /**
+   * Return the content of the document, referenced by the document's ID.
+   * @return The content of the document
+   */
+  public Iterator<DigitalObject> content() {
+    return digitalObject(id);
+  }
+
+  private Iterator<DigitalObject> digitalObject(String referenceInformation) {
+    return Collections.singleton(DigitalObject.fromBytes(referenceInformation, content))
+      .iterator();
+  }
+
+  /**
+   * Return the content of the document, referenced by the content ID. Documents with the same content ID have the same
+   * content.
+   * @return The content of the document
+   */
+  public Iterator<DigitalObject> sharedContent() {
+    return digitalObject(contentId);
+  }
+
+}
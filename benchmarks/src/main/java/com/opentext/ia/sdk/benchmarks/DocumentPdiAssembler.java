@@ -0,0 +1,39 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.benchmarks;
+
+import java.net.URI;
+import java.util.Map;
+
+import com.opentext.ia.sdk.sip.ContentInfo;
+import com.opentext.ia.sdk.sip.XmlPdiAssembler;
+
+
+/**
+ * Renders {@linkplain Document}s as PDI using an {@linkplain com.opentext.ia.sdk.support.xml.XmlBuilder}.
+ */
+class DocumentPdiAssembler extends XmlPdiAssembler<Document> {
+
+  static final URI NAMESPACE = URI.create("urn:com.opentext.ia.sdk.benchmarks:1.0");
+  static final String ENTITY = "document";
+
+  DocumentPdiAssembler() {
+    super(NAMESPACE, ENTITY);
+  }
+
+  @Override
+  protected void doAdd(Document document, Map<String, ContentInfo> contentInfo) {
+    getBuilder().element("id", document.getId())
+      .element("name", document.getName())
+      .element("size", Integer.toString(document.getSize()));
+    for (ContentInfo info : contentInfo.values()) {
+      getBuilder().elements("hashes", "hash", info.getContentHashes(), (hash, builder) -> {
+        builder.attribute("algorithm", hash.getHashFunction())
+          .attribute("encoding", hash.getEncoding())
+          .attribute("value", hash.getValue());
+      });
+    }
+  }
+
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+
+/**
+ * Generates synthetic {@linkplain Document}s, so that benchmarks don't depend on external data.
+ */
+final class Documents {
+
+  private static final long SEED = 313;
+  private static final int NAME_LENGTH = 32;
+  private static final int DOCUMENTS_PER_CONTENT = 4;
+
+  private Documents() {
+    // Utility class
+  }
+
+  /**
+   * Generate documents with random content. Every piece of content is shared by a number of documents, so that
+   * deduplication has something to do. The same parameters always result in the same documents.
+   * @param count The number of documents to generate
+   * @param maxContentSize The maximum size of the content of a document
+   * @return The generated documents
+   */
+  static List<Document> random(int count, int maxContentSize) {
+    Random random = new Random(SEED);
+    List<byte[]> contents = new ArrayList<>();
+    for (int i = 0; i < Math.max(1, count / DOCUMENTS_PER_CONTENT); i++) {
+      byte[] content = new byte[1 + random.nextInt(Math.max(1, maxContentSize))];
+      random.nextBytes(content);
+      contents.add(content);
+    }
+    List<Document> result = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      int contentIndex = random.nextInt(contents.size());
+      result.add(new Document(Integer.toString(i), randomName(random), "content-" + contentIndex,
+          contents.get(contentIndex)));
+    }
+    return result;
+  }
+
+  private static String randomName(Random random) {
+    StringBuilder result = new StringBuilder(NAME_LENGTH);
+    for (int i = 0; i < NAME_LENGTH; i++) {
+      result.append((char)('a' + random.nextInt(26)));
+    }
+    return result.toString();
+  }
+
+}
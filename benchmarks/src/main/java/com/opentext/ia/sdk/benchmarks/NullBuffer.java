@@ -0,0 +1,38 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.benchmarks;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import org.apache.commons.io.output.CountingOutputStream;
+import org.apache.commons.io.output.NullOutputStream;
+
+import com.opentext.ia.sdk.support.io.DataBuffer;
+
+
+/**
+ * {@linkplain DataBuffer} that only counts what's written to it, so that benchmarks measure assembly rather than I/O.
+ */
+class NullBuffer implements DataBuffer {
+
+  private CountingOutputStream output;
+
+  @Override
+  public InputStream openForReading() {
+    throw new UnsupportedOperationException("Can't read back discarded data");
+  }
+
+  @Override
+  public OutputStream openForWriting() {
+    output = new CountingOutputStream(new NullOutputStream());
+    return output;
+  }
+
+  @Override
+  public long length() {
+    return output == null ? 0 : output.getByteCount();
+  }
+
+}
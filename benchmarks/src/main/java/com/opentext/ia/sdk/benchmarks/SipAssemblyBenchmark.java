@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.benchmarks;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.opentext.ia.sdk.sip.ContentAssembler;
+import com.opentext.ia.sdk.sip.PackagingInformation;
+import com.opentext.ia.sdk.sip.SipAssembler;
+import com.opentext.ia.sdk.sip.SipMetrics;
+import com.opentext.ia.sdk.support.io.NoHashAssembler;
+import com.opentext.ia.sdk.support.io.SingleHashAssembler;
+
+
+/**
+ * Throughput of assembling a single SIP. Besides SIPs per second, JMH reports AIUs per second and bytes per second.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SipAssemblyBenchmark {
+
+  /**
+   * The way in which a SIP is assembled.
+   */
+  public enum Assembly {
+
+    PDI_ONLY {
+      @Override
+      SipAssembler<Document> newAssembler(PackagingInformation packagingInformation) {
+        return SipAssembler.forPdi(packagingInformation, new DocumentPdiAssembler());
+      }
+    },
+    PDI_AND_CONTENT {
+      @Override
+      SipAssembler<Document> newAssembler(PackagingInformation packagingInformation) {
+        return SipAssembler.forPdiAndContentWithContentHashing(packagingInformation, new DocumentPdiAssembler(),
+            Document::content, new SingleHashAssembler());
+      }
+    },
+    DEDUP_ON_HASH {
+      @Override
+      SipAssembler<Document> newAssembler(PackagingInformation packagingInformation) {
+        return SipAssembler.forPdiAndContentWithHashing(packagingInformation, new DocumentPdiAssembler(), new NoHashAssembler(),
+            ContentAssembler.withDedupOnHash(Document::content, new SingleHashAssembler()));
+      }
+    },
+    DEDUP_ON_RI {
+      @Override
+      SipAssembler<Document> newAssembler(PackagingInformation packagingInformation) {
+        return SipAssembler.forPdiAndContentWithHashing(packagingInformation, new DocumentPdiAssembler(), new NoHashAssembler(),
+            ContentAssembler.withDedupOnRi(Document::sharedContent, new SingleHashAssembler()));
+      }
+    };
+
+    abstract SipAssembler<Document> newAssembler(PackagingInformation packagingInformation);
+
+  }
+
+
+  @Param({ "PDI_ONLY", "PDI_AND_CONTENT", "DEDUP_ON_HASH", "DEDUP_ON_RI" })
+  public Assembly assembly;
+
+  @Param("1000")
+  public int numAius;
+
+  @Param("65536")
+  public int maxContentSize;
+
+  private PackagingInformation prototype;
+  private List<Document> documents;
+
+  @Setup
+  public void prepare() {
+    prototype = Benchmarks.packagingInformation();
+    documents = Documents.random(numAius, maxContentSize);
+  }
+
+  @Benchmark
+  public SipMetrics assembleSip(AssemblyCounters counters) throws IOException {
+    SipAssembler<Document> assembler = assembly.newAssembler(prototype);
+    assembler.start(new NullBuffer());
+    for (Document document : documents) {
+      assembler.add(document);
+    }
+    assembler.end();
+    SipMetrics result = assembler.getMetrics();
+    counters.add(result.numAius(), result.sipSize());
+    return result;
+  }
+
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.benchmarks;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.opentext.ia.sdk.sip.Assembler;
+import com.opentext.ia.sdk.sip.HashedContents;
+import com.opentext.ia.sdk.sip.TemplatePdiAssembler;
+import com.opentext.ia.sip.assembly.compiledtemplate.CompiledTemplate;
+import com.opentext.ia.sip.assembly.stringtemplate.StringTemplate;
+import com.opentext.ia.sip.assembly.velocity.VelocityTemplate;
+
+
+/**
+ * Throughput of rendering PDIs with each of the supported template engines.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class TemplateBenchmark {
+
+  private static final String HEADER = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<documents xmlns=\""
+      + DocumentPdiAssembler.NAMESPACE + "\">\n";
+  private static final String FOOTER = "</documents>\n";
+  private static final String STRING_TEMPLATE_ROW
+      = "  <document><id>$model.id$</id><name>$model.name$</name><size>$model.size$</size></document>\n";
+  private static final String VELOCITY_ROW
+      = "  <document><id>$model.id</id><name>$model.name</name><size>$model.size</size></document>\n";
+
+  /**
+   * The way in which the PDI is rendered.
+   */
+  public enum Engine {
+
+    XML_BUILDER {
+      @Override
+      Assembler<HashedContents<Document>> newAssembler() {
+        return new DocumentPdiAssembler();
+      }
+    },
+    STRING_TEMPLATE {
+      @Override
+      Assembler<HashedContents<Document>> newAssembler() {
+        return new TemplatePdiAssembler<>(new StringTemplate<Document>(HEADER, FOOTER, STRING_TEMPLATE_ROW));
+      }
+    },
+    COMPILED_STRING_TEMPLATE {
+      @Override
+      Assembler<HashedContents<Document>> newAssembler() {
+        return new TemplatePdiAssembler<>(CompiledTemplate.fromStringTemplate(HEADER, FOOTER, STRING_TEMPLATE_ROW));
+      }
+    },
+    VELOCITY {
+      @Override
+      Assembler<HashedContents<Document>> newAssembler() {
+        return new TemplatePdiAssembler<>(new VelocityTemplate<Document>(HEADER, FOOTER, VELOCITY_ROW));
+      }
+    },
+    COMPILED_VELOCITY {
+      @Override
+      Assembler<HashedContents<Document>> newAssembler() {
+        return new TemplatePdiAssembler<>(CompiledTemplate.fromVelocity(HEADER, FOOTER, VELOCITY_ROW));
+      }
+    };
+
+    abstract Assembler<HashedContents<Document>> newAssembler();
+
+  }
+
+
+  @Param({ "XML_BUILDER", "STRING_TEMPLATE", "COMPILED_STRING_TEMPLATE", "VELOCITY", "COMPILED_VELOCITY" })
+  public Engine engine;
+
+  @Param("1000")
+  public int numAius;
+
+  private List<Document> documents;
+  private Assembler<HashedContents<Document>> assembler;
+
+  @Setup
+  public void prepare() {
+    documents = Documents.random(numAius, 1);
+    assembler = engine.newAssembler();
+  }
+
+  @Benchmark
+  public long renderPdi(AssemblyCounters counters) throws IOException {
+    NullBuffer buffer = new NullBuffer();
+    assembler.start(buffer);
+    for (Document document : documents) {
+      assembler.add(new HashedContents<>(document, Collections.emptyMap()));
+    }
+    assembler.end();
+    counters.add(documents.size(), buffer.length());
+    return buffer.length();
+  }
+
+}
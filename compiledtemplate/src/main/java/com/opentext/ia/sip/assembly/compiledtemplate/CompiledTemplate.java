@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sip.assembly.compiledtemplate;
+
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.util.List;
+import java.util.Map;
+
+import com.opentext.ia.sdk.sip.ContentInfo;
+import com.opentext.ia.sdk.sip.DigitalObject;
+import com.opentext.ia.sdk.sip.FixedHeaderAndFooterTemplate;
+import com.opentext.ia.sdk.sip.Template;
+
+
+/**
+ * {@linkplain Template} that compiles its row template once into a list of instructions, so that writing a row doesn't
+ * interpret the template or allocate a context for it. Properties of domain objects are looked up once per type and
+ * then accessed directly.
+ * <p>
+ * Row templates are written in a subset of the syntax of the <a href="http://www.stringtemplate.org/">StringTemplate</a>
+ * or <a href="http://velocity.apache.org/">Apache Velocity</a> template engines, and produce the same output as the
+ * <code>StringTemplate</code> and <code>VelocityTemplate</code> classes do. Templates have access to the following
+ * objects:
+ * <dl>
+ * <dt><code>model</code></dt>
+ * <dd>The domain object (of type D)</dd>
+ * <dt><code>content</code></dt>
+ * <dd>The reference information and the encoded hashes of the {@linkplain DigitalObject}s associated with the domain
+ * object, if any</dd>
+ * <dt><code>isodate</code></dt>
+ * <dd>Velocity only: a utility to format a date in ISO 8601 format using the <code>format()</code> function</dd>
+ * </dl>
+ * Only references to (properties of) these objects are supported, not conditionals, loops, or other method calls.
+ * Unsupported syntax is rejected when the template is created. Instances are thread-safe.
+ * @param <D> The type of domain object to replace with text
+ */
+public final class CompiledTemplate<D> extends FixedHeaderAndFooterTemplate<D> {
+
+  private static final char DEFAULT_DELIMITER = '$';
+
+  private final Instruction[] instructions;
+
+  private CompiledTemplate(String header, String footer, List<Instruction> instructions) {
+    super(header, footer);
+    this.instructions = instructions.toArray(new Instruction[instructions.size()]);
+  }
+
+  /**
+   * Create an instance from a StringTemplate row template with the default delimiters.
+   * @param <D> The type of domain object to replace with text
+   * @param header The fixed header
+   * @param footer The fixed footer
+   * @param row The StringTemplate template for the rows
+   * @return The compiled template
+   */
+  public static <D> CompiledTemplate<D> fromStringTemplate(InputStream header, InputStream footer, InputStream row) {
+    return fromStringTemplate(toString(header), toString(footer), toString(row));
+  }
+
+  /**
+   * Create an instance from a StringTemplate row template with the default delimiters.
+   * @param <D> The type of domain object to replace with text
+   * @param header The fixed header
+   * @param footer The fixed footer
+   * @param row The StringTemplate template for the rows
+   * @return The compiled template
+   */
+  public static <D> CompiledTemplate<D> fromStringTemplate(String header, String footer, String row) {
+    return fromStringTemplate(header, footer, row, DEFAULT_DELIMITER, DEFAULT_DELIMITER);
+  }
+
+  /**
+   * Create an instance from a StringTemplate row template.
+   * @param <D> The type of domain object to replace with text
+   * @param header The fixed header
+   * @param footer The fixed footer
+   * @param row The StringTemplate template for the rows
+   * @param delimiterStart The character that starts a StringTemplate expression
+   * @param delimiterEnd The character that ends a StringTemplate expression
+   * @return The compiled template
+   */
+  public static <D> CompiledTemplate<D> fromStringTemplate(String header, String footer, String row,
+      char delimiterStart, char delimiterEnd) {
+    return new CompiledTemplate<>(header, footer, StringTemplateCompiler.compile(row, delimiterStart, delimiterEnd));
+  }
+
+  /**
+   * Create an instance from a Velocity row template.
+   * @param <D> The type of domain object to replace with text
+   * @param header The fixed header
+   * @param footer The fixed footer
+   * @param row The Velocity template for the rows
+   * @return The compiled template
+   */
+  public static <D> CompiledTemplate<D> fromVelocity(InputStream header, InputStream footer, InputStream row) {
+    return fromVelocity(toString(header), toString(footer), toString(row));
+  }
+
+  /**
+   * Create an instance from a Velocity row template.
+   * @param <D> The type of domain object to replace with text
+   * @param header The fixed header
+   * @param footer The fixed footer
+   * @param row The Velocity template for the rows
+   * @return The compiled template
+   */
+  public static <D> CompiledTemplate<D> fromVelocity(String header, String footer, String row) {
+    return new CompiledTemplate<>(header, footer, VelocityCompiler.compile(row));
+  }
+
+  @Override
+  public void writeRow(D domainObject, Map<String, ContentInfo> contentInfo, PrintWriter writer) {
+    int lineLength = 0;
+    for (Instruction instruction : instructions) {
+      lineLength = instruction.execute(domainObject, contentInfo, writer, lineLength);
+    }
+  }
+
+}
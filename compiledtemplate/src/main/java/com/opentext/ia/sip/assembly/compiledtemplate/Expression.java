@@ -0,0 +1,25 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sip.assembly.compiledtemplate;
+
+import java.util.Map;
+
+import com.opentext.ia.sdk.sip.ContentInfo;
+
+
+/**
+ * An expression in a row template that evaluates to a value.
+ */
+@FunctionalInterface
+interface Expression {
+
+  /**
+   * Evaluate the expression.
+   * @param model The domain object
+   * @param content The reference information and the encoded hashes of the content associated with the domain object
+   * @return The value of the expression, or <code>null</code> if it has no value
+   */
+  Object evaluate(Object model, Map<String, ContentInfo> content);
+
+}
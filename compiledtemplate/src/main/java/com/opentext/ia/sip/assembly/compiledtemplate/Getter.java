@@ -0,0 +1,26 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sip.assembly.compiledtemplate;
+
+
+/**
+ * Gets a property of an object.
+ */
+@FunctionalInterface
+interface Getter {
+
+  /**
+   * Getter for properties that objects don't have.
+   */
+  Getter NONE = target -> null;
+
+  /**
+   * Return the property of the given object.
+   * @param target The object to get the property of
+   * @return The value of the property
+   * @throws ReflectiveOperationException When the property can't be retrieved
+   */
+  Object get(Object target) throws ReflectiveOperationException;
+
+}
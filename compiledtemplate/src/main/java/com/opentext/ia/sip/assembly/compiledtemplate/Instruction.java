@@ -0,0 +1,28 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sip.assembly.compiledtemplate;
+
+import java.io.PrintWriter;
+import java.util.Map;
+
+import com.opentext.ia.sdk.sip.ContentInfo;
+
+
+/**
+ * A step in writing a row of a {@linkplain CompiledTemplate}.
+ */
+@FunctionalInterface
+interface Instruction {
+
+  /**
+   * Write part of a row.
+   * @param model The domain object
+   * @param content The reference information and the encoded hashes of the content associated with the domain object
+   * @param writer The writer to write to
+   * @param lineLength The number of characters written on the current line of the row
+   * @return The number of characters written on the current line of the row after this instruction
+   */
+  int execute(Object model, Map<String, ContentInfo> content, PrintWriter writer, int lineLength);
+
+}
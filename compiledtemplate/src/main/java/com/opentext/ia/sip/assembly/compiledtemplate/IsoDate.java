@@ -0,0 +1,42 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sip.assembly.compiledtemplate;
+
+import java.util.Calendar;
+import java.util.Date;
+import java.util.Map;
+
+import com.opentext.ia.sdk.sip.ContentInfo;
+import com.opentext.ia.sdk.support.datetime.Dates;
+
+
+/**
+ * {@linkplain Expression} that formats a date in ISO 8601 format, like the <code>isodate.format()</code> function of
+ * the <code>VelocityTemplate</code> class does. Dates, calendars, and numbers of milliseconds since the epoch are
+ * formatted. Other values, including strings, have no value.
+ */
+final class IsoDate implements Expression {
+
+  private final Expression date;
+
+  IsoDate(Expression date) {
+    this.date = date;
+  }
+
+  @Override
+  public Object evaluate(Object model, Map<String, ContentInfo> content) {
+    Object value = date.evaluate(model, content);
+    if (value instanceof Date) {
+      return Dates.toIso((Date)value);
+    }
+    if (value instanceof Calendar) {
+      return Dates.toIso(((Calendar)value).getTime());
+    }
+    if (value instanceof Number) {
+      return Dates.toIso(new Date(((Number)value).longValue()));
+    }
+    return null;
+  }
+
+}
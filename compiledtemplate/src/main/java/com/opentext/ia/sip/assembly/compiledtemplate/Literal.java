@@ -0,0 +1,38 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sip.assembly.compiledtemplate;
+
+import java.io.PrintWriter;
+import java.util.Map;
+
+import com.opentext.ia.sdk.sip.ContentInfo;
+
+
+/**
+ * {@linkplain Instruction} that writes fixed text.
+ */
+final class Literal implements Instruction {
+
+  private final char[] text;
+
+  Literal(String text) {
+    this.text = text.toCharArray();
+  }
+
+  /**
+   * Return a literal that writes this literal's text followed by more text.
+   * @param more The text to write after this literal's text
+   * @return The combined literal
+   */
+  Literal append(String more) {
+    return new Literal(new String(text) + more);
+  }
+
+  @Override
+  public int execute(Object model, Map<String, ContentInfo> content, PrintWriter writer, int lineLength) {
+    writer.write(text);
+    return lineLength + text.length;
+  }
+
+}
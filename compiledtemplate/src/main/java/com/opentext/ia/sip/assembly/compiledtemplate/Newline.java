@@ -0,0 +1,35 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sip.assembly.compiledtemplate;
+
+import java.io.PrintWriter;
+import java.util.Map;
+
+import com.opentext.ia.sdk.sip.ContentInfo;
+
+
+/**
+ * {@linkplain Instruction} that writes the platform's line separator, like StringTemplate does for line breaks in a
+ * template. A conditional line break is written only if something was written on the line, so that a line with only
+ * expressions that have no value disappears completely.
+ */
+final class Newline implements Instruction {
+
+  private static final char[] NL = System.lineSeparator().toCharArray();
+
+  private final boolean conditional;
+
+  Newline(boolean conditional) {
+    this.conditional = conditional;
+  }
+
+  @Override
+  public int execute(Object model, Map<String, ContentInfo> content, PrintWriter writer, int lineLength) {
+    if (!conditional || lineLength > 0) {
+      writer.write(NL);
+    }
+    return 0;
+  }
+
+}
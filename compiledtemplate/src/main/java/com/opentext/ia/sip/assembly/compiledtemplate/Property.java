@@ -0,0 +1,48 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sip.assembly.compiledtemplate;
+
+
+/**
+ * A named property of the objects in a row template. The way to get the property is looked up once per type of object
+ * and remembered for as long as the property is used on objects of that type. Instances are thread-safe.
+ */
+final class Property {
+
+  private final String name;
+  private final PropertyLookup lookup;
+  private volatile Accessor accessor;
+
+  Property(String name, PropertyLookup lookup) {
+    this.name = name;
+    this.lookup = lookup;
+  }
+
+  Object get(Object target) {
+    Accessor current = accessor;
+    if (current == null || current.type != target.getClass()) {
+      current = new Accessor(target.getClass(), lookup.find(target.getClass(), name));
+      accessor = current;
+    }
+    try {
+      return current.getter.get(target);
+    } catch (ReflectiveOperationException e) {
+      throw new IllegalStateException("Failed to get property " + name + " of " + current.type.getName(), e);
+    }
+  }
+
+
+  private static class Accessor {
+
+    private final Class<?> type;
+    private final Getter getter;
+
+    Accessor(Class<?> type, Getter getter) {
+      this.type = type;
+      this.getter = getter;
+    }
+
+  }
+
+}
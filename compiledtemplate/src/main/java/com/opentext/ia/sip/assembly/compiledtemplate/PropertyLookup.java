@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sip.assembly.compiledtemplate;
+
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Method;
+import java.util.Map;
+
+
+/**
+ * The ways in which template engines get properties of objects.
+ */
+enum PropertyLookup {
+
+  /**
+   * Like <a href="http://www.stringtemplate.org/">StringTemplate</a> with the adaptors of the
+   * <code>StringTemplate</code> class: maps are accessed by key, other objects through a <code>get</code>,
+   * <code>is</code>, or <code>has</code> method, or through a public field.
+   */
+  STRING_TEMPLATE {
+    @Override
+    Getter find(Class<?> type, String name) {
+      if (Map.class.isAssignableFrom(type)) {
+        return target -> ((Map<?, ?>)target).get(name);
+      }
+      String capitalized = Character.toUpperCase(name.charAt(0)) + name.substring(1);
+      for (String prefix : new String[] { GET, IS, "has" }) {
+        Method method = method(type, prefix + capitalized);
+        if (method != null) {
+          return method::invoke;
+        }
+      }
+      try {
+        return accessible(type.getField(name))::get;
+      } catch (NoSuchFieldException e) {
+        return Getter.NONE;
+      }
+    }
+  },
+
+  /**
+   * Like <a href="http://velocity.apache.org/">Apache Velocity</a>: through a <code>get</code> method, by key for maps,
+   * through a <code>get(String)</code> method, or through an <code>is</code> method that returns a boolean.
+   */
+  VELOCITY {
+    @Override
+    Getter find(Class<?> type, String name) {
+      String flipped = flipFirstCase(name);
+      Method method = firstMethod(type, GET + name, GET + flipped);
+      if (method != null) {
+        return method::invoke;
+      }
+      if (Map.class.isAssignableFrom(type)) {
+        return target -> ((Map<?, ?>)target).get(name);
+      }
+      Method get = method(type, GET, String.class);
+      if (get == null) {
+        get = method(type, GET, Object.class);
+      }
+      if (get != null) {
+        Method keyed = get;
+        return target -> keyed.invoke(target, name);
+      }
+      method = firstMethod(type, IS + name, IS + flipped);
+      if (method != null && (method.getReturnType() == boolean.class || method.getReturnType() == Boolean.class)) {
+        return method::invoke;
+      }
+      return Getter.NONE;
+    }
+
+    private String flipFirstCase(String name) {
+      char first = name.charAt(0);
+      char flipped = Character.isLowerCase(first) ? Character.toUpperCase(first) : Character.toLowerCase(first);
+      return flipped + name.substring(1);
+    }
+
+    private Method firstMethod(Class<?> type, String name, String alternativeName) {
+      Method result = method(type, name);
+      return result == null ? method(type, alternativeName) : result;
+    }
+  };
+
+  private static final String GET = "get";
+  private static final String IS = "is";
+
+  /**
+   * Find out how to get a property of objects of a given type.
+   * @param type The type of objects
+   * @param name The name of the property
+   * @return How to get the property, or {@linkplain Getter#NONE} if objects of the type don't have the property
+   */
+  abstract Getter find(Class<?> type, String name);
+
+  private static Method method(Class<?> type, String name, Class<?>... parameterTypes) {
+    try {
+      return accessible(type.getMethod(name, parameterTypes));
+    } catch (NoSuchMethodException e) {
+      return null;
+    }
+  }
+
+  private static <T extends AccessibleObject> T accessible(T member) {
+    try {
+      member.setAccessible(true);
+    } catch (SecurityException e) {
+      // Public members of public types are still accessible
+    }
+    return member;
+  }
+
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sip.assembly.compiledtemplate;
+
+import java.util.List;
+import java.util.Map;
+
+import com.opentext.ia.sdk.sip.ContentInfo;
+
+
+/**
+ * {@linkplain Expression} that navigates from one of the variables of a row template through a series of properties.
+ * A <code>null</code> value anywhere along the path makes the whole path <code>null</code>.
+ */
+final class PropertyPath implements Expression {
+
+  static final String MODEL = "model";
+  static final String CONTENT = "content";
+
+  private final String variable;
+  private final Property[] properties;
+
+  PropertyPath(String variable, List<String> propertyNames, PropertyLookup lookup) {
+    this.variable = variable;
+    this.properties = propertyNames.stream()
+      .map(name -> new Property(name, lookup))
+      .toArray(Property[]::new);
+  }
+
+  static boolean isVariable(String name) {
+    return MODEL.equals(name) || CONTENT.equals(name);
+  }
+
+  @Override
+  public Object evaluate(Object model, Map<String, ContentInfo> content) {
+    Object result = variable(model, content);
+    for (int i = 0; result != null && i < properties.length; i++) {
+      result = properties[i].get(result);
+    }
+    return result;
+  }
+
+  private Object variable(Object model, Map<String, ContentInfo> content) {
+    switch (variable) {
+      case MODEL:
+        return model;
+      case CONTENT:
+        return content;
+      default:
+        return null;
+    }
+  }
+
+}
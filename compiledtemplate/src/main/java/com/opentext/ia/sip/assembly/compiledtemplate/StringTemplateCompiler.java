@@ -0,0 +1,201 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sip.assembly.compiledtemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+
+
+/**
+ * Compiles StringTemplate row templates into {@linkplain Instruction}s. Supported are attribute expressions like
+ * <code>$model.name$</code> and <code>$content.foo.referenceInformation$</code>, comments, special characters like
+ * <code>$\n$</code>, and escaped delimiters. Other expressions are rejected.
+ * <p>
+ * Like StringTemplate, the compiled template leaves out a line break at the end of the template and indentation at the
+ * start of lines, and drops lines that contain only expressions without a value.
+ */
+final class StringTemplateCompiler {
+
+  private static final String NL = System.lineSeparator();
+  private static final Pattern PATH = Pattern.compile("[a-zA-Z_][a-zA-Z0-9_]*(\\.[a-zA-Z_][a-zA-Z0-9_]*)*");
+  private static final String IN_TEMPLATE = " in template: ";
+  private static final int UNICODE_DIGITS = 4;
+  private static final int HEX = 16;
+
+  private final String row;
+  private final char delimiterStart;
+  private final char delimiterEnd;
+  private final List<Instruction> instructions = new ArrayList<>();
+  private int index;
+  private boolean lineHasText;
+  private boolean afterLineBreakOrIndentation;
+
+  private StringTemplateCompiler(String row, char delimiterStart, char delimiterEnd) {
+    this.row = withoutFinalLineBreak(row);
+    this.delimiterStart = delimiterStart;
+    this.delimiterEnd = delimiterEnd;
+  }
+
+  private static String withoutFinalLineBreak(String row) {
+    if (row.endsWith("\r\n")) {
+      return row.substring(0, row.length() - 2);
+    }
+    if (row.endsWith("\n")) {
+      return row.substring(0, row.length() - 1);
+    }
+    return row;
+  }
+
+  static List<Instruction> compile(String row, char delimiterStart, char delimiterEnd) {
+    return new StringTemplateCompiler(row, delimiterStart, delimiterEnd).compile();
+  }
+
+  private List<Instruction> compile() {
+    skipIndentation();
+    while (index < row.length()) {
+      char c = row.charAt(index);
+      if (c == '\\') {
+        escape();
+      } else if (c == '\n' || row.startsWith("\r\n", index)) {
+        lineBreak();
+      } else if (c == delimiterStart) {
+        expressionOrComment();
+      } else {
+        plainText();
+      }
+    }
+    return instructions;
+  }
+
+  private void skipIndentation() {
+    int end = index;
+    while (end < row.length() && (row.charAt(end) == ' ' || row.charAt(end) == '\t')) {
+      end++;
+    }
+    if (end > index && end < row.length()) {
+      index = end;
+      afterLineBreakOrIndentation = true;
+    }
+  }
+
+  private void escape() {
+    char next = index + 1 < row.length() ? row.charAt(index + 1) : 0;
+    if (next == delimiterStart || next == '\\') {
+      text(String.valueOf(next));
+      index += 2;
+    } else {
+      text("\\");
+      index++;
+    }
+  }
+
+  private void lineBreak() {
+    instructions.add(new Newline(!afterLineBreakOrIndentation && !lineHasText));
+    index += row.charAt(index) == '\r' ? 2 : 1;
+    lineHasText = false;
+    afterLineBreakOrIndentation = true;
+    skipIndentation();
+  }
+
+  private void plainText() {
+    int end = index + 1;
+    while (end < row.length() && !isSpecial(row.charAt(end))) {
+      end++;
+    }
+    text(row.substring(index, end));
+    index = end;
+  }
+
+  private boolean isSpecial(char c) {
+    return c == '\\' || c == '\n' || c == '\r' || c == delimiterStart;
+  }
+
+  private void text(String text) {
+    int last = instructions.size() - 1;
+    if (last >= 0 && instructions.get(last) instanceof Literal) {
+      instructions.set(last, ((Literal)instructions.get(last)).append(text));
+    } else {
+      instructions.add(new Literal(text));
+    }
+    lineHasText = true;
+    afterLineBreakOrIndentation = false;
+  }
+
+  private void expressionOrComment() {
+    boolean comment = index + 1 < row.length() && row.charAt(index + 1) == '!';
+    String end = comment ? "!" + delimiterEnd : String.valueOf(delimiterEnd);
+    int endIndex = row.indexOf(end, index + 1);
+    if (endIndex < 0) {
+      throw new IllegalArgumentException("Unterminated " + (comment ? "comment" : "expression") + " at " + index
+          + IN_TEMPLATE + row);
+    }
+    if (!comment) {
+      expression(row.substring(index + 1, endIndex));
+    }
+    index = endIndex + end.length();
+  }
+
+  private void expression(String source) {
+    String expression = source.trim();
+    if (expression.startsWith("\\")) {
+      // Keep trailing whitespace, which is part of an escaped space
+      text(specialCharacters(source.substring(source.indexOf('\\'))));
+    } else if (PATH.matcher(expression).matches()) {
+      path(expression);
+    } else {
+      throw unsupported(expression);
+    }
+  }
+
+  private String specialCharacters(String expression) {
+    StringBuilder result = new StringBuilder();
+    int position = 0;
+    while (position < expression.length()) {
+      if (expression.charAt(position) != '\\' || position + 1 == expression.length()) {
+        throw unsupported(expression);
+      }
+      char c = expression.charAt(position + 1);
+      position += 2;
+      if (c == 'u' && position + UNICODE_DIGITS <= expression.length()) {
+        result.append((char)Integer.parseInt(expression.substring(position, position + UNICODE_DIGITS), HEX));
+        position += UNICODE_DIGITS;
+      } else {
+        result.append(specialCharacter(c, expression));
+      }
+    }
+    return result.toString();
+  }
+
+  private String specialCharacter(char c, String expression) {
+    switch (c) {
+      case 'n':
+        return NL;
+      case 't':
+        return "\t";
+      case ' ':
+        return " ";
+      default:
+        throw unsupported(expression);
+    }
+  }
+
+  private void path(String expression) {
+    List<String> names = Arrays.asList(expression.split("\\."));
+    String variable = names.get(0);
+    if (!PropertyPath.isVariable(variable)) {
+      throw new IllegalArgumentException("Unknown attribute " + variable + IN_TEMPLATE + row);
+    }
+    instructions.add(new StringTemplateValue(
+        new PropertyPath(variable, names.subList(1, names.size()), PropertyLookup.STRING_TEMPLATE)));
+    afterLineBreakOrIndentation = false;
+  }
+
+  private IllegalArgumentException unsupported(String expression) {
+    return new IllegalArgumentException("Unsupported expression " + delimiterStart + expression + delimiterEnd
+        + IN_TEMPLATE + row);
+  }
+
+}
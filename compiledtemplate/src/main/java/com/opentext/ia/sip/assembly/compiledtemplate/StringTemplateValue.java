@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sip.assembly.compiledtemplate;
+
+import java.io.PrintWriter;
+import java.lang.reflect.Array;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Enumeration;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import com.opentext.ia.sdk.sip.ContentInfo;
+import com.opentext.ia.sdk.support.datetime.Dates;
+
+
+/**
+ * {@linkplain Instruction} that writes the value of an expression the way StringTemplate does: nothing for
+ * <code>null</code>, dates in ISO 8601 format, and the elements of collections, arrays, and iterators one after the
+ * other. The keys of maps are written, just like StringTemplate iterates over maps. Line feeds are written as the
+ * platform's line separator.
+ */
+final class StringTemplateValue implements Instruction {
+
+  private static final String NL = System.lineSeparator();
+  private static final boolean CONVERT_NEW_LINES = !"\n".equals(NL);
+
+  private final Expression expression;
+
+  StringTemplateValue(Expression expression) {
+    this.expression = expression;
+  }
+
+  @Override
+  public int execute(Object model, Map<String, ContentInfo> content, PrintWriter writer, int lineLength) {
+    return lineLength + write(expression.evaluate(model, content), writer);
+  }
+
+  private static int write(Object value, PrintWriter writer) {
+    if (value == null) {
+      return 0;
+    }
+    if (value instanceof Date) {
+      return write(Dates.toIso((Date)value), writer);
+    }
+    Iterator<?> elements = elementsOf(value);
+    if (elements == null) {
+      return write(value.toString(), writer);
+    }
+    int result = 0;
+    while (elements.hasNext()) {
+      result += write(elements.next(), writer);
+    }
+    return result;
+  }
+
+  private static int write(String text, PrintWriter writer) {
+    writer.write(CONVERT_NEW_LINES ? text.replace("\n", NL) : text);
+    return text.length();
+  }
+
+  private static Iterator<?> elementsOf(Object value) {
+    if (value instanceof Iterable) {
+      return ((Iterable<?>)value).iterator();
+    }
+    if (value instanceof Map) {
+      return ((Map<?, ?>)value).keySet().iterator();
+    }
+    if (value instanceof Iterator) {
+      return (Iterator<?>)value;
+    }
+    if (value instanceof Enumeration) {
+      return Collections.list((Enumeration<?>)value).iterator();
+    }
+    if (value.getClass().isArray()) {
+      return IntStream.range(0, Array.getLength(value)).mapToObj(i -> Array.get(value, i)).iterator();
+    }
+    return null;
+  }
+
+}
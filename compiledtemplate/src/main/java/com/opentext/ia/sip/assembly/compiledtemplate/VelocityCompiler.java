@@ -0,0 +1,242 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sip.assembly.compiledtemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+
+
+/**
+ * Compiles Velocity row templates into {@linkplain Instruction}s. Supported are references like
+ * <code>$model.name</code>, <code>$!{content.foo.referenceInformation}</code>, and
+ * <code>$isodate.format($model.date)</code>, escaped references, and comments. Directives, other method calls, and
+ * index notation are rejected.
+ */
+final class VelocityCompiler {
+
+  private static final String ISO_DATE = "isodate";
+  private static final String FORMAT = "format";
+  private static final String IN_TEMPLATE = " in template: ";
+  private static final Collection<String> DIRECTIVES = new HashSet<>(Arrays.asList("set", "if", "elseif", "else",
+      "end", "foreach", "include", "parse", "macro", "stop", "break", "define", "evaluate"));
+
+  private final String row;
+  private final List<Instruction> instructions = new ArrayList<>();
+
+  private VelocityCompiler(String row) {
+    this.row = row;
+  }
+
+  static List<Instruction> compile(String row) {
+    return new VelocityCompiler(row).compile();
+  }
+
+  private List<Instruction> compile() {
+    int index = 0;
+    while (index < row.length()) {
+      char c = row.charAt(index);
+      if (c == '\\') {
+        index = escapedReference(index);
+      } else if (c == '$') {
+        index = reference(index);
+      } else if (c == '#') {
+        index = hash(index);
+      } else {
+        index = plainText(index);
+      }
+    }
+    return instructions;
+  }
+
+  private int plainText(int start) {
+    int end = start + 1;
+    while (end < row.length() && "\\$#".indexOf(row.charAt(end)) < 0) {
+      end++;
+    }
+    text(row.substring(start, end));
+    return end;
+  }
+
+  private void text(String text) {
+    int last = instructions.size() - 1;
+    if (last >= 0 && instructions.get(last) instanceof Literal) {
+      instructions.set(last, ((Literal)instructions.get(last)).append(text));
+    } else {
+      instructions.add(new Literal(text));
+    }
+  }
+
+  private int escapedReference(int start) {
+    int index = start;
+    while (index < row.length() && row.charAt(index) == '\\') {
+      index++;
+    }
+    Reference reference = index < row.length() ? parseReference(index) : null;
+    if (reference == null) {
+      text(row.substring(start, index));
+      return index;
+    }
+    add(reference, index - start);
+    return reference.end;
+  }
+
+  private int reference(int start) {
+    Reference reference = parseReference(start);
+    if (reference == null) {
+      text("$");
+      return start + 1;
+    }
+    add(reference, 0);
+    return reference.end;
+  }
+
+  private void add(Reference reference, int numBackslashes) {
+    instructions.add(new VelocityReference(reference.expression, row.substring(reference.start, reference.end),
+        reference.quiet, numBackslashes));
+  }
+
+  private Reference parseReference(int start) {
+    if (row.charAt(start) != '$') {
+      return null;
+    }
+    int index = start + 1;
+    boolean quiet = isAt(index, '!');
+    if (quiet) {
+      index++;
+    }
+    boolean formal = isAt(index, '{');
+    if (formal) {
+      index++;
+    }
+    int variableEnd = identifierEnd(index);
+    if (variableEnd == index) {
+      return null;
+    }
+    return end(parsePath(start, row.substring(index, variableEnd), variableEnd, quiet), formal);
+  }
+
+  private Reference end(Reference reference, boolean formal) {
+    if (isAt(reference.end, '[') || isAt(reference.end, '.') && reference.expression instanceof IsoDate) {
+      throw unsupported("reference", reference.start);
+    }
+    if (!formal) {
+      return reference;
+    }
+    if (!isAt(reference.end, '}')) {
+      throw unsupported("reference", reference.start);
+    }
+    return new Reference(reference.start, reference.end + 1, reference.quiet, reference.expression);
+  }
+
+  private boolean isAt(int index, char c) {
+    return index < row.length() && row.charAt(index) == c;
+  }
+
+  private Reference parsePath(int start, String variable, int variableEnd, boolean quiet) {
+    List<String> names = new ArrayList<>();
+    int index = variableEnd;
+    while (isAt(index, '.')) {
+      int nameEnd = identifierEnd(index + 1);
+      if (nameEnd == index + 1) {
+        break;
+      }
+      String name = row.substring(index + 1, nameEnd);
+      if (isAt(nameEnd, '(')) {
+        if (!ISO_DATE.equals(variable) || !names.isEmpty() || !FORMAT.equals(name)) {
+          throw unsupported("method call", start);
+        }
+        Reference date = parseArgument(nameEnd + 1);
+        return new Reference(start, date.end, quiet, new IsoDate(date.expression));
+      }
+      names.add(name);
+      index = nameEnd;
+    }
+    return new Reference(start, index, quiet, new PropertyPath(variable, names, PropertyLookup.VELOCITY));
+  }
+
+  private int identifierEnd(int start) {
+    if (start >= row.length() || !isIdentifierStart(row.charAt(start))) {
+      return start;
+    }
+    int result = start + 1;
+    while (result < row.length() && isIdentifierPart(row.charAt(result))) {
+      result++;
+    }
+    return result;
+  }
+
+  private static boolean isIdentifierStart(char c) {
+    return c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c == '_';
+  }
+
+  private static boolean isIdentifierPart(char c) {
+    return isIdentifierStart(c) || c >= '0' && c <= '9' || c == '-';
+  }
+
+  private Reference parseArgument(int start) {
+    int index = skipWhitespace(start);
+    Reference result = index < row.length() ? parseReference(index) : null;
+    if (result == null) {
+      throw unsupported("method argument", start);
+    }
+    index = skipWhitespace(result.end);
+    if (!isAt(index, ')')) {
+      throw unsupported("method call", start);
+    }
+    return new Reference(result.start, index + 1, result.quiet, result.expression);
+  }
+
+  private int skipWhitespace(int start) {
+    int result = start;
+    while (result < row.length() && Character.isWhitespace(row.charAt(result))) {
+      result++;
+    }
+    return result;
+  }
+
+  private int hash(int start) {
+    int next = start + 1;
+    if (isAt(next, '#')) {
+      int end = row.indexOf('\n', next);
+      return end < 0 ? row.length() : end + 1;
+    }
+    if (isAt(next, '*')) {
+      int end = row.indexOf("*#", next + 1);
+      if (end < 0) {
+        throw new IllegalArgumentException("Unterminated comment at " + start + IN_TEMPLATE + row);
+      }
+      return end + 2;
+    }
+    if (isAt(next, '{') || DIRECTIVES.contains(row.substring(next, identifierEnd(next)))) {
+      throw unsupported("directive", start);
+    }
+    text("#");
+    return next;
+  }
+
+  private IllegalArgumentException unsupported(String what, int start) {
+    return new IllegalArgumentException("Unsupported " + what + " at " + start + IN_TEMPLATE + row);
+  }
+
+
+  private static class Reference {
+
+    private final int start;
+    private final int end;
+    private final boolean quiet;
+    private final Expression expression;
+
+    Reference(int start, int end, boolean quiet, Expression expression) {
+      this.start = start;
+      this.end = end;
+      this.quiet = quiet;
+      this.expression = expression;
+    }
+
+  }
+
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sip.assembly.compiledtemplate;
+
+import java.io.PrintWriter;
+import java.util.Map;
+
+import com.opentext.ia.sdk.sip.ContentInfo;
+
+
+/**
+ * {@linkplain Instruction} that writes a reference the way Velocity does. A reference without a value is written as it
+ * appears in the template, unless it's a quiet reference (<code>$!</code>). Escaped references are written as they
+ * appear in the template, minus one of the escaping backslashes if the reference has a value.
+ */
+final class VelocityReference implements Instruction {
+
+  private final Expression expression;
+  private final String source;
+  private final boolean quiet;
+  private final int numBackslashes;
+
+  VelocityReference(Expression expression, String source, boolean quiet, int numBackslashes) {
+    this.expression = expression;
+    this.source = source;
+    this.quiet = quiet;
+    this.numBackslashes = numBackslashes;
+  }
+
+  @Override
+  public int execute(Object model, Map<String, ContentInfo> content, PrintWriter writer, int lineLength) {
+    Object value = expression.evaluate(model, content);
+    if (value == null) {
+      String text = quiet && numBackslashes == 0 ? "" : source;
+      return lineLength + writeBackslashes(numBackslashes, writer) + write(text, writer);
+    }
+    String text = numBackslashes % 2 == 0 ? String.valueOf(value) : source;
+    return lineLength + writeBackslashes(numBackslashes / 2, writer) + write(text, writer);
+  }
+
+  private static int writeBackslashes(int count, PrintWriter writer) {
+    for (int i = 0; i < count; i++) {
+      writer.write('\\');
+    }
+    return count;
+  }
+
+  private static int write(String text, PrintWriter writer) {
+    writer.write(text);
+    return text.length();
+  }
+
+}
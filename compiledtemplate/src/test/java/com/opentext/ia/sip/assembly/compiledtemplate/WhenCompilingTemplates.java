@@ -0,0 +1,237 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sip.assembly.compiledtemplate;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.opentext.ia.sdk.sip.ContentInfo;
+import com.opentext.ia.sdk.sip.Template;
+import com.opentext.ia.sdk.support.io.EncodedHash;
+import com.opentext.ia.sip.assembly.stringtemplate.StringTemplate;
+import com.opentext.ia.sip.assembly.velocity.VelocityTemplate;
+import com.opentext.ia.test.TestCase;
+
+
+public class WhenCompilingTemplates extends TestCase {
+
+  private static final String[] STRING_TEMPLATES = {
+    "",
+    "plain text",
+    "<name>$model.name$</name>",
+    "$model.name$$model.active$|$model.kids$|$model.field$|$model.nothing$|$model.missing$",
+    "<when>$model.when$</when> $model.tags$ $model.numbers$ $model.codes$",
+    "  <document>\r\n    <name>$ model.name $</name>\n  </document>\n",
+    "\\$model.name\\$ \\\\$model.name$ a\\b $! a comment !$ $\\n$$\\t$$\\ $$\\u0041$",
+    "<ri>$content.doc.referenceInformation$</ri><hashes>$content.doc.contentHashes$</hashes>$content.none.x$",
+    "$model.address.city$, $model.address.zip$ & $model.escaped$",
+    "\n  <a>\r\n\t$model.nothing$\n$model.nothing$$! comment !$\n\n  \n  $model.nothing$ \n  $model.name$\n  ",
+    "  \n",
+  };
+  private static final String[] VELOCITY_TEMPLATES = {
+    "",
+    "plain text",
+    "<name>$model.name</name>",
+    "$model.name|$model.active|$model.kids|$model.field|$model.nothing|$!model.nothing|$model.missing",
+    "<when>$model.when</when> $model.tags $model.numbers $isodate.format($model.when)",
+    "$isodate.format($model.calendar)|$isodate.format( $model.millis )|$isodate.format($model.nothing)"
+        + "|$!isodate.format($model.name)",
+    "${model.name}x $!{model.name}y $!{model.nothing}z $model.name. $model. $ 5 $model.first-name $unknown $!unknown",
+    "\\$model.name \\\\$model.name \\$model.nothing \\$!model.nothing a\\b",
+    "## comment\n<a>#* block *#$model.name</a> #ff0000 #1",
+    "<ri>$content.doc.referenceInformation</ri><hashes>$content.doc.contentHashes</hashes>$content.none.x",
+    "$model.address.city, $model.address.zip &amp; $model.escaped\n",
+  };
+  private static final String[] UNSUPPORTED_STRING_TEMPLATES = {
+    "$if(model.name)$x$endif$",
+    "$model.name; format=\"upper\"$",
+    "$model.names:{n | $n$}$",
+    "$other.name$",
+    "$model.name",
+    "$! comment",
+  };
+  private static final String[] UNSUPPORTED_VELOCITY_TEMPLATES = {
+    "#if($model.name)x#end",
+    "#foreach($tag in $model.tags)$tag#end",
+    "#{set}($x = 1)",
+    "$model.name.length()",
+    "$model.tags[0]",
+    "$isodate.format($model.when).length()",
+    "${model.name",
+    "#* unterminated",
+  };
+
+  private final Date date = new Date();
+  private final Map<String, ContentInfo> content = Collections.singletonMap("doc", new ContentInfo(randomString(),
+      Arrays.asList(new EncodedHash("SHA-256", "base64", randomString()), new EncodedHash("MD5", "hex", "abc"))));
+
+  @Test
+  public void shouldWriteSameRowsAsStringTemplate() throws IOException {
+    for (String row : STRING_TEMPLATES) {
+      for (Object model : models()) {
+        assertSameRow(row, model, new StringTemplate<>("", "", row), CompiledTemplate.fromStringTemplate("", "", row));
+      }
+    }
+  }
+
+  private List<Object> models() {
+    Map<String, Object> map = new HashMap<>();
+    map.put("name", randomString());
+    map.put("active", Boolean.TRUE);
+    map.put("when", date);
+    map.put("tags", Arrays.asList("a", null, "b"));
+    map.put("numbers", new int[] { 1, 2, 3 });
+    map.put("codes", new LinkedHashMap<>(Collections.singletonMap("key", "value")));
+    map.put("calendar", Calendar.getInstance());
+    map.put("millis", date.getTime());
+    map.put("first-name", randomString());
+    map.put("address", new Address());
+    map.put("escaped", "<&>\"'");
+    return Arrays.asList(new Person(randomString()), map, randomString());
+  }
+
+  private void assertSameRow(String row, Object model, Template<Object> expected, Template<Object> actual)
+      throws IOException {
+    assertEquals(row + " for " + model.getClass().getSimpleName(), writeRow(expected, model),
+        writeRow(actual, model));
+  }
+
+  private String writeRow(Template<Object> template, Object model) throws IOException {
+    StringWriter result = new StringWriter();
+    template.writeRow(model, content, new PrintWriter(result));
+    return result.toString();
+  }
+
+  @Test
+  public void shouldWriteSameRowsAsVelocity() throws IOException {
+    for (String row : VELOCITY_TEMPLATES) {
+      for (Object model : models()) {
+        assertSameRow(row, model, new VelocityTemplate<>("", "", row), CompiledTemplate.fromVelocity("", "", row));
+      }
+    }
+  }
+
+  @Test
+  public void shouldSupportCustomDelimiters() throws IOException {
+    String row = "\\<name><model.name>\\</name> $model.name$ \\\\";
+    Person person = new Person(randomString());
+
+    assertSameRow(row, person, new StringTemplate<>("", "", row, '<', '>'),
+        CompiledTemplate.fromStringTemplate("", "", row, '<', '>'));
+  }
+
+  @Test
+  public void shouldRejectUnsupportedSyntax() {
+    for (String row : UNSUPPORTED_STRING_TEMPLATES) {
+      assertRejected(() -> CompiledTemplate.fromStringTemplate("", "", row), row);
+    }
+    for (String row : UNSUPPORTED_VELOCITY_TEMPLATES) {
+      assertRejected(() -> CompiledTemplate.fromVelocity("", "", row), row);
+    }
+  }
+
+  private void assertRejected(Runnable compilation, String row) {
+    try {
+      compilation.run();
+      throw new AssertionError("Accepted unsupported template: " + row);
+    } catch (IllegalArgumentException e) {
+      // Expected
+    }
+  }
+
+  @Test
+  public void shouldWriteHeaderAndFooter() throws IOException {
+    String header = randomString();
+    String footer = randomString();
+    Template<Object> template = CompiledTemplate.fromVelocity(header, footer, "");
+    StringWriter output = new StringWriter();
+    PrintWriter writer = new PrintWriter(output);
+
+    template.writeHeader(writer);
+    template.writeFooter(writer);
+
+    assertEquals("Header and footer", header + System.lineSeparator() + footer + System.lineSeparator(),
+        output.toString());
+  }
+
+
+  public static class Person {
+
+    private final String name;
+
+    public Person(String name) {
+      this.name = name;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public boolean isActive() {
+      return true;
+    }
+
+    public boolean hasKids() {
+      return false;
+    }
+
+    public Object getNothing() {
+      return null;
+    }
+
+    public List<String> getTags() {
+      return Arrays.asList("x", "y");
+    }
+
+    public Date getWhen() {
+      return new Date(0);
+    }
+
+    public Address getAddress() {
+      return new Address();
+    }
+
+    public String getEscaped() {
+      return "a < b";
+    }
+
+    @Override
+    public String toString() {
+      return "Person " + name;
+    }
+
+  }
+
+
+  public static class Address {
+
+    public String getCity() {
+      return "Springfield";
+    }
+
+    public int getZip() {
+      return 12345;
+    }
+
+    @Override
+    public String toString() {
+      return "Address";
+    }
+
+  }
+
+}
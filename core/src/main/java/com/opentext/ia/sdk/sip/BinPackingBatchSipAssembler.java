@@ -0,0 +1,273 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.sip;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+import com.opentext.ia.sdk.support.io.FileSupplier;
+
+
+/**
+ * Assemble a batch of SIPs that are filled as much as possible, even when AIUs vary widely in size. Unlike a
+ * {@linkplain BatchSipAssembler}, which adds domain objects to SIPs in the order they arrive, this assembler holds back
+ * a <em>window</em> of domain objects and then distributes them over a number of open SIPs using the
+ * <em>first-fit-decreasing</em> heuristic: the biggest domain objects are placed first, each in the first open SIP
+ * that has room for it. A domain object that doesn't fit in any of the open SIPs goes into a new SIP, which replaces a
+ * full SIP or, when no more SIPs may be opened, the fullest one. This results in fewer, fuller SIPs at the cost of
+ * changing the order of domain objects, and of delaying them by up to the window size.
+ * <p>
+ * The size of a domain object is projected from the {@linkplain DigitalObject#getSizeHint() size hints} of its digital
+ * objects, plus the average size of the PDI per AIU so far. Digital objects without a size hint are assumed to be of
+ * average size. The given extraction of digital objects is therefore called once more for every domain object.
+ * <p>
+ * The window only holds on to domain objects. The content of their digital objects isn't read until they're added to
+ * a SIP, and the open SIPs are assembled in files, so a big window doesn't require much memory as long as domain
+ * objects themselves are small. Use {@linkplain #flush()} to distribute the window early, for instance to bound the
+ * time that domain objects are held back.
+ * <p>
+ * Each open SIP has its own {@linkplain SipAssembler}, which must not share state with the others. In particular,
+ * each open SIP is part of its own series of SIPs and therefore needs its own {@linkplain DataSubmissionSession DSS},
+ * for instance by using a {@linkplain OneSipPerDssPackagingInformationFactory} or a unique DSS ID per assembler.
+ * Full SIPs are only closed when they're replaced or the batch ends, so that the last SIP of each series is marked as
+ * the last one in its DSS.
+ * @param <D> The type of domain object to assemble SIPs from
+ */
+public class BinPackingBatchSipAssembler<D> {
+
+  private static final Comparator<Item<?>> BIGGEST_FIRST = Comparator.comparingLong((Item<?> item) -> item.size)
+    .reversed();
+
+  private final Supplier<SipAssembler<D>> assemblerSupplier;
+  private final DigitalObjectsExtraction<D> contentsExtraction;
+  private final long maxSipSize;
+  private final long maxAiusPerSip;
+  private final int maxOpenSips;
+  private final int windowSize;
+  private final Supplier<File> fileSupplier;
+  private final List<Bin> bins = new ArrayList<>();
+  private final List<Item<D>> window = new ArrayList<>();
+  private final Collection<FileGenerationMetrics> sipsMetrics = new ArrayList<>();
+  private long numAius;
+  private long pdiSize;
+  private long numDigitalObjects;
+  private long digitalObjectsSize;
+
+  /**
+   * Create an instance that assembles SIPs in a temporary directory.
+   * @param assemblerSupplier Supplier of assemblers that build up the SIPs in the batch, one per open SIP
+   * @param contentsExtraction The extraction of the digital objects of a domain object
+   * @param maxSipSize The maximum total size (uncompressed) of a SIP
+   * @param maxAiusPerSip The maximum number of AIUs that may go into a SIP
+   * @param maxOpenSips The maximum number of SIPs to fill at the same time
+   * @param windowSize The number of domain objects to hold back before distributing them over SIPs
+   */
+  public BinPackingBatchSipAssembler(Supplier<SipAssembler<D>> assemblerSupplier,
+      DigitalObjectsExtraction<D> contentsExtraction, long maxSipSize, long maxAiusPerSip, int maxOpenSips,
+      int windowSize) {
+    this(assemblerSupplier, contentsExtraction, maxSipSize, maxAiusPerSip, maxOpenSips, windowSize,
+        FileSupplier.fromTemporaryDirectory());
+  }
+
+  /**
+   * Create an instance that assembles SIPs in the given directory.
+   * @param assemblerSupplier Supplier of assemblers that build up the SIPs in the batch, one per open SIP
+   * @param contentsExtraction The extraction of the digital objects of a domain object
+   * @param maxSipSize The maximum total size (uncompressed) of a SIP
+   * @param maxAiusPerSip The maximum number of AIUs that may go into a SIP
+   * @param maxOpenSips The maximum number of SIPs to fill at the same time
+   * @param windowSize The number of domain objects to hold back before distributing them over SIPs
+   * @param dir Directory in which to generate SIP files
+   */
+  public BinPackingBatchSipAssembler(Supplier<SipAssembler<D>> assemblerSupplier,
+      DigitalObjectsExtraction<D> contentsExtraction, long maxSipSize, long maxAiusPerSip, int maxOpenSips,
+      int windowSize, File dir) {
+    this(assemblerSupplier, contentsExtraction, maxSipSize, maxAiusPerSip, maxOpenSips, windowSize,
+        FileSupplier.fromDirectory(dir));
+  }
+
+  /**
+   * Create an instance that assembles SIPs using the given supplier of SIP files.
+   * @param assemblerSupplier Supplier of assemblers that build up the SIPs in the batch, one per open SIP
+   * @param contentsExtraction The extraction of the digital objects of a domain object
+   * @param maxSipSize The maximum total size (uncompressed) of a SIP
+   * @param maxAiusPerSip The maximum number of AIUs that may go into a SIP
+   * @param maxOpenSips The maximum number of SIPs to fill at the same time
+   * @param windowSize The number of domain objects to hold back before distributing them over SIPs
+   * @param fileSupplier A supplier of files in which to store the SIPs
+   */
+  public BinPackingBatchSipAssembler(Supplier<SipAssembler<D>> assemblerSupplier,
+      DigitalObjectsExtraction<D> contentsExtraction, long maxSipSize, long maxAiusPerSip, int maxOpenSips,
+      int windowSize, Supplier<File> fileSupplier) {
+    this.assemblerSupplier = Objects.requireNonNull(assemblerSupplier, "Missing assembler supplier");
+    this.contentsExtraction = Objects.requireNonNull(contentsExtraction, "Missing digital objects extraction");
+    this.maxSipSize = requirePositive(maxSipSize, "maxSipSize");
+    this.maxAiusPerSip = requirePositive(maxAiusPerSip, "maxAiusPerSip");
+    this.maxOpenSips = (int)requirePositive(maxOpenSips, "maxOpenSips");
+    this.windowSize = (int)requirePositive(windowSize, "windowSize");
+    this.fileSupplier = Objects.requireNonNull(fileSupplier, "Missing file supplier");
+  }
+
+  private static long requirePositive(long value, String name) {
+    if (value <= 0) {
+      throw new IllegalArgumentException(name + " must be positive");
+    }
+    return value;
+  }
+
+  /**
+   * Add a domain object to the batch of SIPs. The domain object is held back until the window is full, at which point
+   * all domain objects in the window are distributed over SIPs.
+   * @param domainObject The domain object to add
+   * @throws IOException When an I/O error occurs
+   */
+  public synchronized void add(D domainObject) throws IOException {
+    long size = SizeHintSegmentationStrategy.digitalObjectsSize(contentsExtraction.apply(domainObject),
+        average(digitalObjectsSize, numDigitalObjects));
+    window.add(new Item<>(domainObject, size));
+    if (window.size() >= windowSize) {
+      flush();
+    }
+  }
+
+  private static long average(long total, long count) {
+    return count == 0 ? 0 : total / count;
+  }
+
+  /**
+   * Distribute the domain objects that are held back over SIPs, without waiting for the window to fill up.
+   * @throws IOException When an I/O error occurs
+   */
+  public synchronized void flush() throws IOException {
+    window.sort(BIGGEST_FIRST);
+    for (Item<D> item : window) {
+      place(item);
+    }
+    window.clear();
+  }
+
+  private void place(Item<D> item) throws IOException {
+    Bin bin = binFor(item.size + average(pdiSize, numAius));
+    bin.addAiu(item.domainObject);
+  }
+
+  private Bin binFor(long aiuSize) throws IOException {
+    for (Bin bin : bins) {
+      if (bin.isOpen() && bin.fits(aiuSize)) {
+        return bin;
+      }
+    }
+    for (Bin bin : bins) {
+      if (bin.isFull()) {
+        bin.closeSip();
+        return bin;
+      }
+    }
+    if (bins.size() < maxOpenSips) {
+      Bin result = new Bin(assemblerSupplier.get());
+      bins.add(result);
+      return result;
+    }
+    Bin result = Collections.max(bins, Comparator.comparingLong(Bin::sipSize));
+    result.closeSip();
+    return result;
+  }
+
+  protected void sipEnded(FileGenerationMetrics metrics) {
+    sipsMetrics.add(metrics);
+  }
+
+  /**
+   * End the batch assembly process. Any domain objects that are held back are distributed over SIPs first.
+   * @throws IOException When an I/O error occurs
+   */
+  public synchronized void end() throws IOException {
+    flush();
+    for (Bin bin : bins) {
+      bin.end();
+    }
+  }
+
+  /**
+   * Returns the files that were generated as part of this batch and metrics about the SIPs stored in them.
+   * @return The files that were generated as part of this batch and metrics about the SIPs stored in them
+   */
+  public Collection<FileGenerationMetrics> getSipsMetrics() {
+    return Collections.unmodifiableCollection(sipsMetrics);
+  }
+
+
+  private static class Item<D> {
+
+    private final D domainObject;
+    private final long size;
+
+    Item(D domainObject, long size) {
+      this.domainObject = domainObject;
+      this.size = size;
+    }
+
+  }
+
+
+  private class Bin extends BatchSipAssembler<D> {
+
+    private final SipAssembler<D> assembler;
+    private boolean open;
+
+    Bin(SipAssembler<D> assembler) {
+      super(assembler, (domainObject, metrics) -> false, fileSupplier);
+      this.assembler = assembler;
+    }
+
+    boolean isOpen() {
+      return open;
+    }
+
+    long sipSize() {
+      return open ? assembler.currentMetrics().sipSize() : 0;
+    }
+
+    boolean fits(long aiuSize) {
+      return assembler.currentMetrics().numAius() < maxAiusPerSip && sipSize() + aiuSize <= maxSipSize;
+    }
+
+    boolean isFull() {
+      return assembler.currentMetrics().numAius() >= maxAiusPerSip
+          || sipSize() + average(pdiSize, numAius) >= maxSipSize;
+    }
+
+    void addAiu(D domainObject) throws IOException {
+      SipMetrics metrics = assembler.currentMetrics();
+      long oldPdiSize = open ? metrics.pdiSize() : 0;
+      long oldNumDigitalObjects = open ? metrics.numDigitalObjects() : 0;
+      long oldDigitalObjectsSize = open ? metrics.digitalObjectsSize() : 0;
+      add(domainObject);
+      open = true;
+      numAius++;
+      pdiSize += metrics.pdiSize() - oldPdiSize;
+      numDigitalObjects += metrics.numDigitalObjects() - oldNumDigitalObjects;
+      digitalObjectsSize += metrics.digitalObjectsSize() - oldDigitalObjectsSize;
+    }
+
+    void closeSip() throws IOException {
+      closeCurrentSip();
+    }
+
+    @Override
+    protected void sipEnded(FileGenerationMetrics metrics) {
+      open = false;
+      BinPackingBatchSipAssembler.this.sipEnded(metrics);
+    }
+
+  }
+
+}
@@ -0,0 +1,32 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.sip;
+
+/**
+ * Estimate of how well data compresses, based on samples of similar data that were deflated. Until there are samples,
+ * the estimate is that data doesn't compress at all.
+ */
+class CompressionEstimate {
+
+  private long numBytesSampled;
+  private long numBytesCompressed;
+
+  void addSample(long uncompressedSize, long compressedSize) {
+    numBytesSampled += uncompressedSize;
+    numBytesCompressed += compressedSize;
+  }
+
+  /**
+   * Estimate the compressed size of data.
+   * @param size The uncompressed size of the data
+   * @return The estimated compressed size of the data
+   */
+  long compressedSize(long size) {
+    if (numBytesSampled == 0) {
+      return size;
+    }
+    return (long)Math.ceil((double)size * numBytesCompressed / numBytesSampled);
+  }
+
+}
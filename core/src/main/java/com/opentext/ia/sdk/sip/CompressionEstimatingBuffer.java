@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.sip;
+
+import java.io.Closeable;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+
+import org.apache.commons.io.IOUtils;
+
+import com.opentext.ia.sdk.support.io.DataBuffer;
+
+
+/**
+ * {@linkplain DataBuffer} that samples how well the data written to another buffer compresses, so that the size of the
+ * data in a ZIP file can be estimated before it's added to the ZIP. To keep the overhead low, only some of the data is
+ * deflated: the first block, and every so many blocks after that. The samples go into a {@linkplain CompressionEstimate}
+ * that may outlive this buffer.
+ */
+class CompressionEstimatingBuffer implements DataBuffer, Closeable {
+
+  private static final int BLOCK_SIZE = 64 * 1024;
+  private static final int SAMPLE_INTERVAL = 8;
+
+  private final DataBuffer buffer;
+  private final CompressionEstimate estimate;
+  private final byte[] compressed = new byte[BLOCK_SIZE];
+  private Deflater deflater;
+  private long numBytesSeen;
+
+  CompressionEstimatingBuffer(DataBuffer buffer, CompressionEstimate estimate) {
+    this.buffer = buffer;
+    this.estimate = estimate;
+  }
+
+  @Override
+  public InputStream openForReading() throws IOException {
+    return buffer.openForReading();
+  }
+
+  @Override
+  public OutputStream openForWriting() throws IOException {
+    endSampling();
+    deflater = new Deflater();
+    return new FilterOutputStream(buffer.openForWriting()) {
+      @Override
+      public void write(int b) throws IOException {
+        out.write(b);
+        numBytesSeen++;
+      }
+
+      @Override
+      public void write(byte[] data, int offset, int length) throws IOException {
+        out.write(data, offset, length);
+        sample(data, offset, length);
+      }
+
+      @Override
+      public void close() throws IOException {
+        try {
+          super.close();
+        } finally {
+          endSampling();
+        }
+      }
+    };
+  }
+
+  private void sample(byte[] data, int offset, int length) {
+    if (deflater != null && numBytesSeen / BLOCK_SIZE % SAMPLE_INTERVAL == 0) {
+      deflater.setInput(data, offset, length);
+      long numCompressed = 0;
+      int numDeflated;
+      do {
+        numDeflated = deflater.deflate(compressed, 0, compressed.length, Deflater.SYNC_FLUSH);
+        numCompressed += numDeflated;
+      } while (numDeflated == compressed.length);
+      estimate.addSample(length, numCompressed);
+    }
+    numBytesSeen += length;
+  }
+
+  private void endSampling() {
+    if (deflater != null) {
+      deflater.end();
+      deflater = null;
+    }
+  }
+
+  @Override
+  public long length() {
+    return buffer.length();
+  }
+
+  @Override
+  public void close() {
+    endSampling();
+    if (buffer instanceof Closeable) {
+      IOUtils.closeQuietly((Closeable)buffer);
+    }
+  }
+
+}
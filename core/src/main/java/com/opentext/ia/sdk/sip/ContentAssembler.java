@@ -17,6 +17,12 @@ import com.opentext.ia.sdk.support.io.ZipAssembler;
  */
 public interface ContentAssembler<D> {
 
+  /**
+   * The number of digital objects that deduplicating assemblers can handle without reallocating their internal buffers,
+   * when no estimate is given.
+   */
+  int DEFAULT_ESTIMATED_MAX_DIGITAL_OBJECTS = 64000;
+
   /**
    * Start the assembly process.
    * @param zip Container to add the digital objects to.
@@ -33,6 +39,14 @@ public interface ContentAssembler<D> {
    */
   Map<String, ContentInfo> addContentsOf(D domainObject) throws IOException;
 
+  /**
+   * End the assembly process. This is only called when the SIP was assembled successfully.
+   * @throws IOException If an exception occurs while ending the assembly process
+   */
+  default void end() throws IOException {
+    // Nothing to do
+  }
+
   /**
    * Do not deduplicate the digital objects but perform the specified hash calculations.
    * @param contentsExtraction Extraction of content from domain objects added to the SIP
@@ -71,7 +85,8 @@ public interface ContentAssembler<D> {
    * @return The newly created content assembler
    */
   static <D> ContentAssembler<D> withDedupOnRi(DigitalObjectsExtraction<D> contentsExtraction) {
-    return new ContentAssemblerWithDedupOnRi<>(contentsExtraction, new NoHashAssembler(), false, false, 64000);
+    return new ContentAssemblerWithDedupOnRi<>(contentsExtraction, new NoHashAssembler(), false, false,
+        DEFAULT_ESTIMATED_MAX_DIGITAL_OBJECTS);
   }
 
   /**
@@ -83,7 +98,8 @@ public interface ContentAssembler<D> {
    */
   static <D> ContentAssembler<D> withDedupOnRi(DigitalObjectsExtraction<D> contentsExtraction,
       HashAssembler contentHashAssembler) {
-    return new ContentAssemblerWithDedupOnRi<>(contentsExtraction, contentHashAssembler, false, false, 64000);
+    return new ContentAssemblerWithDedupOnRi<>(contentsExtraction, contentHashAssembler, false, false,
+        DEFAULT_ESTIMATED_MAX_DIGITAL_OBJECTS);
   }
 
   /**
@@ -124,7 +140,7 @@ public interface ContentAssembler<D> {
       HashAssembler contentHashAssembler, boolean errorWhenEqualRiAndNotEqualHash,
       boolean errorWhenEqualHashAndNotEqualRI) {
     return new ContentAssemblerWithDedupOnRi<>(contentsExtraction, contentHashAssembler,
-        errorWhenEqualRiAndNotEqualHash, errorWhenEqualHashAndNotEqualRI, 64000);
+        errorWhenEqualRiAndNotEqualHash, errorWhenEqualHashAndNotEqualRI, DEFAULT_ESTIMATED_MAX_DIGITAL_OBJECTS);
   }
 
   /**
@@ -165,7 +181,8 @@ public interface ContentAssembler<D> {
    */
   static <D> ContentAssembler<D> withDedupOnHash(DigitalObjectsExtraction<D> contentsExtraction,
       HashAssembler contentHashAssembler) {
-    return new ContentAssemblerWithDedupOnHash<>(contentsExtraction, contentHashAssembler, 64000);
+    return new ContentAssemblerWithDedupOnHash<>(contentsExtraction, contentHashAssembler,
+        DEFAULT_ESTIMATED_MAX_DIGITAL_OBJECTS);
   }
 
   /**
@@ -181,4 +198,18 @@ public interface ContentAssembler<D> {
       HashAssembler contentHashAssembler, int estimatedMaxDigitalObjects) {
     return new ContentAssemblerWithDedupOnHash<>(contentsExtraction, contentHashAssembler, estimatedMaxDigitalObjects);
   }
+
+  /**
+   * Deduplicate digital objects based on their hash value, across all SIPs that share the given index.
+   * @param contentsExtraction Extraction of content from domain objects added to the SIP
+   * @param contentHashAssembler Assembler that builds up an encoded hash for the extracted content
+   * @param index The index of content that was already added to this or other SIPs
+   * @param <D> The type of domain objects to assemble the SIP from
+   * @return The newly created content assembler
+   */
+  static <D> ContentAssembler<D> withDedupOnHash(DigitalObjectsExtraction<D> contentsExtraction,
+      HashAssembler contentHashAssembler, ContentDedupIndex index) {
+    return new ContentAssemblerWithDedupOnHash<>(contentsExtraction, contentHashAssembler, index);
+  }
+
 }
@@ -65,14 +65,16 @@ public class ContentAssemblerDefault<D> implements ContentAssembler<D> {
     Iterator<? extends DigitalObject> digitalObjects = contentsExtraction.apply(domainObject);
     while (digitalObjects.hasNext()) {
       DigitalObject digitalObject = digitalObjects.next();
-      incMetric(SipMetrics.NUM_DIGITAL_OBJECTS, 1);
+      incMetric(SipMetric.NUM_DIGITAL_OBJECTS, 1);
       String entry = digitalObject.getReferenceInformation();
+      long start = System.nanoTime();
       result.put(entry, addContent(entry, digitalObject));
+      metrics.record(SipMetric.TIME_DIGITAL_OBJECTS, System.nanoTime() - start);
     }
     return result;
   }
 
-  private synchronized void incMetric(String metric, long delta) {
+  private synchronized void incMetric(SipMetric metric, long delta) {
     if (metrics == null) {
       throw new IllegalStateException("Missing metrics; did youc call begin()?");
     }
@@ -83,12 +85,17 @@ public class ContentAssemblerDefault<D> implements ContentAssembler<D> {
     if (zip == null) {
       throw new IllegalStateException("Missing zip; did youc call begin()?");
     }
-    try (InputStream stream = digitalObject.get()) {
-      Collection<EncodedHash> hashes =
-          zip.addEntry(digitalObject.getReferenceInformation(), stream, contentHashAssembler);
-      incMetric(SipMetrics.SIZE_DIGITAL_OBJECTS, contentHashAssembler.numBytesHashed());
-      return new ContentInfo(ri, hashes);
+    Collection<EncodedHash> hashes;
+    if (digitalObject instanceof FileDigitalObject) {
+      hashes = zip.addEntry(digitalObject.getReferenceInformation(), ((FileDigitalObject)digitalObject).getPath(),
+          contentHashAssembler);
+    } else {
+      try (InputStream stream = digitalObject.get()) {
+        hashes = zip.addEntry(digitalObject.getReferenceInformation(), stream, contentHashAssembler);
+      }
     }
+    incMetric(SipMetric.SIZE_DIGITAL_OBJECTS, contentHashAssembler.numBytesHashed());
+    return new ContentInfo(ri, hashes);
   }
 
   protected Collection<EncodedHash> contentHashFor(InputStream stream) throws IOException {
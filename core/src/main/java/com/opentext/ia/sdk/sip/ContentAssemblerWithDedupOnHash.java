@@ -5,9 +5,13 @@ package com.opentext.ia.sdk.sip;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Objects;
 
 import com.opentext.ia.sdk.support.io.*;
 
@@ -15,20 +19,68 @@ import com.opentext.ia.sdk.support.io.*;
  * A ContentAssembler implementation which will perform deduplication based on the hash value of the content, i.e. a
  * digital object with a given hash is only included once in the SIP.
  * <p>
- * <b>Note</b>Important to note that this content assembler buffers the bytes that make up the digital object in memory
- * so it is not suitable to very large digital objects.
+ * The hash of a digital object must be known before it can be decided whether to add it to the SIP. Digital objects
+ * that are {@linkplain FileDigitalObject stored in files} are simply read twice. Other digital objects are read only
+ * once, while being hashed, into a {@linkplain SpillableBuffer} that keeps small objects in memory and moves large
+ * objects to a temporary file, so that large digital objects don't exhaust the heap.
+ * </p>
+ * <p>
+ * By default, deduplication only happens within a SIP. Use a {@linkplain ContentDedupIndex} to also deduplicate across
+ * SIPs, for instance all SIPs assembled by a {@linkplain BatchSipAssembler}, or, using a
+ * {@linkplain FileContentDedupIndex}, even across runs of the application. Content is only added to the index when
+ * the SIP it's in has {@linkplain #end() ended}, so that other SIPs never refer to content in a SIP that failed to
+ * assemble. The index can't know whether a SIP is ingested successfully, however, so an application that retries
+ * failed ingestions should do so with the same SIP file.
  * </p>
  * @param <D> The type of domain object to assemble SIPs from
  */
 public class ContentAssemblerWithDedupOnHash<D> extends ContentAssemblerDefault<D> {
 
+  private static final int BUFFER_SIZE = 64 * 1024;
+
   private final Map<Collection<EncodedHash>, ContentInfo> hashesToContentInfo;
   private final HashAssembler noHashAssembler = new NoHashAssembler();
+  private final long memoryThreshold;
+  private final ContentDedupIndex sharedIndex;
 
   public ContentAssemblerWithDedupOnHash(DigitalObjectsExtraction<D> contentsExtraction,
       HashAssembler contentHashAssembler, int estimatedMaxDigitalObjects) {
+    this(contentsExtraction, contentHashAssembler, estimatedMaxDigitalObjects, SpillableBuffer.DEFAULT_THRESHOLD);
+  }
+
+  /**
+   * Create an instance.
+   * @param contentsExtraction Extraction of content from domain objects added to the SIP
+   * @param contentHashAssembler Assembler that builds up an encoded hash for the extracted content
+   * @param estimatedMaxDigitalObjects A hint which will initialize the internal buffers to handle the specified number
+   *          of digital objects without reallocation
+   * @param memoryThreshold The maximum number of bytes of a digital object to buffer in memory; larger digital objects
+   *          are buffered in a temporary file
+   */
+  public ContentAssemblerWithDedupOnHash(DigitalObjectsExtraction<D> contentsExtraction,
+      HashAssembler contentHashAssembler, int estimatedMaxDigitalObjects, long memoryThreshold) {
+    this(contentsExtraction, contentHashAssembler, estimatedMaxDigitalObjects, memoryThreshold, null);
+  }
+
+  /**
+   * Create an instance that deduplicates across SIPs.
+   * @param contentsExtraction Extraction of content from domain objects added to the SIP
+   * @param contentHashAssembler Assembler that builds up an encoded hash for the extracted content
+   * @param sharedIndex The index of content that was already added to this or other SIPs
+   */
+  public ContentAssemblerWithDedupOnHash(DigitalObjectsExtraction<D> contentsExtraction,
+      HashAssembler contentHashAssembler, ContentDedupIndex sharedIndex) {
+    this(contentsExtraction, contentHashAssembler, DEFAULT_ESTIMATED_MAX_DIGITAL_OBJECTS,
+        SpillableBuffer.DEFAULT_THRESHOLD, Objects.requireNonNull(sharedIndex, "Missing dedup index"));
+  }
+
+  private ContentAssemblerWithDedupOnHash(DigitalObjectsExtraction<D> contentsExtraction,
+      HashAssembler contentHashAssembler, int estimatedMaxDigitalObjects, long memoryThreshold,
+      ContentDedupIndex sharedIndex) {
     super(contentsExtraction, contentHashAssembler);
     hashesToContentInfo = new HashMap<>(estimatedMaxDigitalObjects);
+    this.memoryThreshold = memoryThreshold;
+    this.sharedIndex = sharedIndex;
   }
 
   @Override
@@ -37,38 +89,76 @@ public class ContentAssemblerWithDedupOnHash<D> extends ContentAssemblerDefault<
     hashesToContentInfo.clear();
   }
 
+  /**
+   * Add the content of the SIP to the shared index, if any.
+   */
+  @Override
+  public void end() {
+    if (sharedIndex != null) {
+      hashesToContentInfo.values()
+        .forEach(sharedIndex::put);
+    }
+  }
+
   @Override
   protected ContentInfo addContent(String ri, DigitalObject digitalObject) throws IOException {
-    RepeatableInputStream memoryStream = memoryStreamOf(digitalObject);
-    // First compute hashes
-    Collection<EncodedHash> hashes = contentHashFor(memoryStream);
+    if (digitalObject instanceof FileDigitalObject) {
+      return addFileContent(ri, ((FileDigitalObject)digitalObject).getPath());
+    }
+    try (SpillableBuffer buffer = new SpillableBuffer(memoryThreshold)) {
+      // First compute hashes while buffering the content
+      Collection<EncodedHash> hashes = bufferAndHash(digitalObject, buffer);
+
+      // Check if contentInfo exist of the collection of hashes.
+      // If yes, skip adding the content and return existing content info.
+      ContentInfo contentInfo = alreadyAdded(hashes);
+      if (contentInfo != null) {
+        return contentInfo;
+      }
 
-    // Check if contentInfo exist of the collection of hashes.
-    // If yes, skip adding the content and return existing content info.
-    ContentInfo contentInfo = hashesToContentInfo.get(hashes);
+      try (InputStream stream = buffer.openForReading()) {
+        getZip().addEntry(ri, stream, noHashAssembler);
+      }
+      return contentAdded(ri, hashes);
+    }
+  }
+
+  private ContentInfo addFileContent(String ri, Path path) throws IOException {
+    Collection<EncodedHash> hashes;
+    try (InputStream stream = Files.newInputStream(path)) {
+      hashes = contentHashFor(stream);
+    }
+    ContentInfo contentInfo = alreadyAdded(hashes);
     if (contentInfo != null) {
       return contentInfo;
     }
+    getZip().addEntry(ri, path, noHashAssembler);
+    return contentAdded(ri, hashes);
+  }
 
-    try (InputStream stream = memoryStream.get()) {
-      getZip().addEntry(ri, stream, noHashAssembler);
-      getMetrics().inc(SipMetrics.SIZE_DIGITAL_OBJECTS, getContentHashAssembler().numBytesHashed());
-      contentInfo = new ContentInfo(ri, hashes);
-      hashesToContentInfo.put(hashes, contentInfo);
+  private ContentInfo alreadyAdded(Collection<EncodedHash> hashes) {
+    ContentInfo result = hashesToContentInfo.get(hashes);
+    if (result == null && sharedIndex != null) {
+      result = sharedIndex.get(hashes)
+        .orElse(null);
     }
-    return contentInfo;
+    return result;
   }
 
-  private RepeatableInputStream memoryStreamOf(DigitalObject digitalObject) throws IOException {
-    try (InputStream raw = digitalObject.get()) {
-      return new RepeatableInputStream(raw);
+  private Collection<EncodedHash> bufferAndHash(DigitalObject digitalObject, DataBuffer buffer) throws IOException {
+    HashAssembler hashAssembler = getContentHashAssembler();
+    hashAssembler.initialize();
+    try (InputStream stream = digitalObject.get(); OutputStream output = buffer.openForWriting()) {
+      IOStreams.copy(stream, output, BUFFER_SIZE, hashAssembler);
     }
+    return hashAssembler.get();
   }
 
-  private Collection<EncodedHash> contentHashFor(RepeatableInputStream memoryStream) throws IOException {
-    try (InputStream stream = memoryStream.get()) {
-      return contentHashFor(stream);
-    }
+  private ContentInfo contentAdded(String ri, Collection<EncodedHash> hashes) {
+    getMetrics().inc(SipMetric.SIZE_DIGITAL_OBJECTS, getContentHashAssembler().numBytesHashed());
+    ContentInfo result = new ContentInfo(ri, hashes);
+    hashesToContentInfo.put(hashes, result);
+    return result;
   }
 
 }
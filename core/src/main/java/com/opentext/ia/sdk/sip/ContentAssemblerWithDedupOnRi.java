@@ -6,8 +6,6 @@ package com.opentext.ia.sdk.sip;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Collection;
-import java.util.HashMap;
-import java.util.Map;
 
 import com.opentext.ia.sdk.support.io.EncodedHash;
 import com.opentext.ia.sdk.support.io.HashAssembler;
@@ -18,41 +16,86 @@ import com.opentext.ia.sdk.support.io.ZipAssembler;
  * That is a digital object with a given reference information is only included once in the SIP. Optionally can also
  * validate that the same reference information is not used to reference different digital objects and that the same
  * digital object is not included twice with different reference information.
+ * <p>
+ * The included digital objects are tracked in compact {@linkplain FingerprintTable fingerprint tables} rather than in
+ * maps, and their {@linkplain ContentInfo}s are kept serialized in a {@linkplain ContentInfoArena byte arena} rather
+ * than as objects, so that tracking a digital object costs little more than the bytes of its reference information and
+ * hashes. By default, the
+ * tracked digital objects are forgotten at the start of each SIP. They can instead be kept for multiple SIPs, for
+ * instance all SIPs in a DSS, and {@linkplain #reset() forgotten} explicitly.
  * @param <D> The type of domain object to assemble SIPs from
  */
 public class ContentAssemblerWithDedupOnRi<D> extends ContentAssemblerDefault<D> {
 
-  private final Map<String, ContentInfo> riToContentInfo;
-  private final Map<Collection<EncodedHash>, String> hashesToRi;
+  private final ContentInfoArena contentInfos = new ContentInfoArena();
+  private final FingerprintTable riToContentInfo;
+  private final FingerprintTable hashesToContentInfo;
   private final boolean errorWhenEqualHashAndNotEqualRI;
   private final boolean errorWhenEqualRiAndNotEqualHash;
+  private final boolean resetOnBegin;
 
   public ContentAssemblerWithDedupOnRi(DigitalObjectsExtraction<D> contentsExtraction,
       HashAssembler contentHashAssembler, boolean errorWhenEqualRiAndNotEqualHash,
       boolean errorWhenEqualHashAndNotEqualRI, int estimatedMaxDigitalObjects) {
+    this(contentsExtraction, contentHashAssembler, errorWhenEqualRiAndNotEqualHash, errorWhenEqualHashAndNotEqualRI,
+        estimatedMaxDigitalObjects, true);
+  }
+
+  /**
+   * Create an instance.
+   * @param contentsExtraction Extraction of content from domain objects added to the SIP
+   * @param contentHashAssembler Assembler that builds up an encoded hash for the extracted content
+   * @param errorWhenEqualRiAndNotEqualHash Throw an exception when the same reference information is used but the
+   *          actual content is different.
+   * @param errorWhenEqualHashAndNotEqualRI Throw an exception when the same content is included twice but using
+   *          different reference informations.
+   * @param estimatedMaxDigitalObjects A hint which will initialize the internal buffers to handle the specified number
+   *          of digital objects without reallocation
+   * @param resetOnBegin Whether to forget the included digital objects at the start of each SIP. If
+   *          <code>false</code>, call {@linkplain #reset()} to forget them
+   */
+  public ContentAssemblerWithDedupOnRi(DigitalObjectsExtraction<D> contentsExtraction,
+      HashAssembler contentHashAssembler, boolean errorWhenEqualRiAndNotEqualHash,
+      boolean errorWhenEqualHashAndNotEqualRI, int estimatedMaxDigitalObjects, boolean resetOnBegin) {
     super(contentsExtraction, contentHashAssembler);
-    riToContentInfo = new HashMap<>(estimatedMaxDigitalObjects);
-    hashesToRi = new HashMap<>(estimatedMaxDigitalObjects);
+    riToContentInfo = new FingerprintTable(estimatedMaxDigitalObjects);
+    hashesToContentInfo = errorWhenEqualHashAndNotEqualRI ? new FingerprintTable(estimatedMaxDigitalObjects) : null;
     this.errorWhenEqualHashAndNotEqualRI = errorWhenEqualHashAndNotEqualRI;
     this.errorWhenEqualRiAndNotEqualHash = errorWhenEqualRiAndNotEqualHash;
+    this.resetOnBegin = resetOnBegin;
   }
 
   @Override
   public void begin(ZipAssembler zip, Counters metrics) {
     super.begin(zip, metrics);
+    if (resetOnBegin) {
+      reset();
+    }
+  }
+
+  /**
+   * Forget all included digital objects.
+   */
+  public final synchronized void reset() {
+    contentInfos.clear();
     riToContentInfo.clear();
+    if (hashesToContentInfo != null) {
+      hashesToContentInfo.clear();
+    }
   }
 
   @Override
-  protected ContentInfo addContent(String ri, DigitalObject digitalObject) throws IOException {
-    ContentInfo contentInfo = riToContentInfo.get(ri);
-    if (contentInfo == null) {
+  protected synchronized ContentInfo addContent(String ri, DigitalObject digitalObject) throws IOException {
+    long offset = riToContentInfo.find(FingerprintTable.fingerprint(ri),
+        candidate -> contentInfos.getReferenceInformation((int)candidate)
+          .equals(ri));
+    if (offset == FingerprintTable.NOT_FOUND) {
       ContentInfo newContentInfo = super.addContent(ri, digitalObject);
       checkNotAlreadyIncluded(newContentInfo);
-      riToContentInfo.put(ri, newContentInfo);
-      hashesToRi.put(newContentInfo.getContentHashes(), ri);
+      track(newContentInfo);
       return newContentInfo;
     } else {
+      ContentInfo contentInfo = contentInfos.get((int)offset);
       checkSameRIMeansSameContent(ri, digitalObject, contentInfo.getContentHashes());
       return contentInfo;
     }
@@ -60,13 +103,26 @@ public class ContentAssemblerWithDedupOnRi<D> extends ContentAssemblerDefault<D>
 
   private void checkNotAlreadyIncluded(ContentInfo newContentInfo) {
     if (errorWhenEqualHashAndNotEqualRI) {
-      String ri = hashesToRi.get(newContentInfo.getContentHashes());
-      if (ri != null && !ri.equals(newContentInfo.getReferenceInformation())) {
+      Collection<EncodedHash> hashes = newContentInfo.getContentHashes();
+      long offset = hashesToContentInfo.find(FingerprintTable.fingerprint(hashes),
+          candidate -> contentInfos.get((int)candidate)
+            .getContentHashes()
+            .equals(hashes));
+      if (offset != FingerprintTable.NOT_FOUND && !contentInfos.getReferenceInformation((int)offset)
+        .equals(newContentInfo.getReferenceInformation())) {
         throw new IllegalStateException("Content already included with a different ri.");
       }
     }
   }
 
+  private void track(ContentInfo contentInfo) {
+    int offset = contentInfos.add(contentInfo);
+    riToContentInfo.put(FingerprintTable.fingerprint(contentInfo.getReferenceInformation()), offset);
+    if (hashesToContentInfo != null) {
+      hashesToContentInfo.put(FingerprintTable.fingerprint(contentInfo.getContentHashes()), offset);
+    }
+  }
+
   private void checkSameRIMeansSameContent(String ri, DigitalObject digitalObject,
       Collection<EncodedHash> existingHashes) throws IOException {
     if (errorWhenEqualRiAndNotEqualHash) {
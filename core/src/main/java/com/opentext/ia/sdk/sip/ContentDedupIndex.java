@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.sip;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.opentext.ia.sdk.support.io.EncodedHash;
+
+/**
+ * Index of content that has already been archived, keyed by the hashes of that content. Sharing an index between
+ * SIPs allows {@linkplain ContentAssemblerWithDedupOnHash} to add identical content only once, to the first SIP that
+ * contains it; later SIPs refer to that content using the {@linkplain ContentInfo} stored in the index.
+ * <p>
+ * Implementations must be thread-safe.
+ * @see FileContentDedupIndex
+ */
+public interface ContentDedupIndex {
+
+  /**
+   * Return the content with the given hashes, if it has been archived before.
+   * @param hashes The hashes of the content
+   * @return The content info of the archived content, if any
+   */
+  Optional<ContentInfo> get(Collection<EncodedHash> hashes);
+
+  /**
+   * Record that content has been archived.
+   * @param contentInfo The content info of the archived content
+   */
+  void put(ContentInfo contentInfo);
+
+  /**
+   * Return a {@linkplain ContentDedupIndex} that keeps its entries in memory. Such an index can be shared between
+   * SIPs, but not between JVMs.
+   * @return A {@linkplain ContentDedupIndex} that keeps its entries in memory
+   */
+  static ContentDedupIndex inMemory() {
+    Map<Collection<EncodedHash>, ContentInfo> contentInfoByHashes = new ConcurrentHashMap<>();
+    return new ContentDedupIndex() {
+
+      @Override
+      public Optional<ContentInfo> get(Collection<EncodedHash> hashes) {
+        return Optional.ofNullable(contentInfoByHashes.get(hashes));
+      }
+
+      @Override
+      public void put(ContentInfo contentInfo) {
+        contentInfoByHashes.putIfAbsent(contentInfo.getContentHashes(), contentInfo);
+      }
+    };
+  }
+
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.sip;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import com.opentext.ia.sdk.support.io.EncodedHash;
+
+
+/**
+ * Append-only store of {@linkplain ContentInfo}s in a single growable byte array. A content info is identified by its
+ * offset in the array, and is only turned back into objects when it's {@linkplain #get(int) read}. Reference
+ * information and hash values are stored as UTF-8 and lengths as variable-length integers, while the names of hash
+ * functions and encodings, which are the same for most content, are stored once. A content info therefore takes
+ * little more than the bytes of its reference information and hash values, compared to the hundreds of bytes of a
+ * {@linkplain ContentInfo} with its strings and collections.
+ * <p>
+ * This class isn't thread-safe.
+ */
+final class ContentInfoArena {
+
+  private static final int INITIAL_CAPACITY = 4096;
+  private static final int VAR_INT_MASK = 0x7F;
+  private static final int VAR_INT_CONTINUE = 0x80;
+  private static final int VAR_INT_SHIFT = 7;
+
+  private final List<String> names = new ArrayList<>();
+  private byte[] bytes = new byte[INITIAL_CAPACITY];
+  private int size;
+
+  /**
+   * Add a content info.
+   * @param contentInfo The content info to add
+   * @return The offset at which the content info is stored
+   */
+  int add(ContentInfo contentInfo) {
+    int result = size;
+    writeString(contentInfo.getReferenceInformation());
+    Collection<EncodedHash> hashes = contentInfo.getContentHashes();
+    writeVarInt(hashes.size());
+    for (EncodedHash hash : hashes) {
+      writeVarInt(nameIndex(hash.getHashFunction()));
+      writeVarInt(nameIndex(hash.getEncoding()));
+      writeString(hash.getValue());
+    }
+    return result;
+  }
+
+  private int nameIndex(String name) {
+    int result = names.indexOf(name);
+    if (result < 0) {
+      result = names.size();
+      names.add(name);
+    }
+    return result;
+  }
+
+  private void writeString(String value) {
+    byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+    writeVarInt(utf8.length);
+    ensureCapacity(utf8.length);
+    System.arraycopy(utf8, 0, bytes, size, utf8.length);
+    size += utf8.length;
+  }
+
+  private void writeVarInt(int value) {
+    ensureCapacity(Integer.BYTES + 1);
+    int remaining = value;
+    while (remaining > VAR_INT_MASK) {
+      bytes[size++] = (byte)(remaining & VAR_INT_MASK | VAR_INT_CONTINUE);
+      remaining >>>= VAR_INT_SHIFT;
+    }
+    bytes[size++] = (byte)remaining;
+  }
+
+  private void ensureCapacity(int numBytes) {
+    if (size + numBytes > bytes.length) {
+      bytes = Arrays.copyOf(bytes, Math.max(size + numBytes, bytes.length + (bytes.length >> 1)));
+    }
+  }
+
+  /**
+   * Return the content info stored at an offset.
+   * @param offset The offset returned when the content info was {@linkplain #add(ContentInfo) added}
+   * @return The content info
+   */
+  ContentInfo get(int offset) {
+    Reader reader = new Reader(offset);
+    String referenceInformation = reader.readString();
+    int numHashes = reader.readVarInt();
+    List<EncodedHash> hashes = new ArrayList<>(numHashes);
+    for (int i = 0; i < numHashes; i++) {
+      String hashFunction = names.get(reader.readVarInt());
+      String encoding = names.get(reader.readVarInt());
+      hashes.add(new EncodedHash(hashFunction, encoding, reader.readString()));
+    }
+    return new ContentInfo(referenceInformation, hashes);
+  }
+
+  /**
+   * Return the reference information of the content info stored at an offset.
+   * @param offset The offset returned when the content info was {@linkplain #add(ContentInfo) added}
+   * @return The reference information of the content info
+   */
+  String getReferenceInformation(int offset) {
+    return new Reader(offset).readString();
+  }
+
+  /**
+   * Return the number of bytes used to store the content infos.
+   * @return The number of bytes used to store the content infos
+   */
+  int size() {
+    return size;
+  }
+
+  /**
+   * Return the number of bytes allocated to store content infos.
+   * @return The number of bytes allocated to store content infos
+   */
+  int capacity() {
+    return bytes.length;
+  }
+
+  /**
+   * Remove all content infos.
+   */
+  void clear() {
+    size = 0;
+  }
+
+
+  private class Reader {
+
+    private int position;
+
+    Reader(int position) {
+      this.position = position;
+    }
+
+    int readVarInt() {
+      int result = 0;
+      int shift = 0;
+      byte value;
+      do {
+        value = bytes[position++];
+        result |= (value & VAR_INT_MASK) << shift;
+        shift += VAR_INT_SHIFT;
+      } while ((value & VAR_INT_CONTINUE) != 0);
+      return result;
+    }
+
+    String readString() {
+      int length = readVarInt();
+      String result = new String(bytes, position, length, StandardCharsets.UTF_8);
+      position += length;
+      return result;
+    }
+
+  }
+
+}
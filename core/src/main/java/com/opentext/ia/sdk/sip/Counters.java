@@ -6,23 +6,122 @@ package com.opentext.ia.sdk.sip;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 /**
  * Set of related counters.
+ * <p>
+ * Counters for {@linkplain SipMetric SIP metrics} are stored in an array indexed by the metric, so that updating them
+ * is lock-free and doesn't allocate memory. Other counters are identified by name.
+ * <p>
+ * For {@linkplain SipMetric#isTimer() timers}, the counters also keep the distribution of the
+ * {@linkplain #record(SipMetric, long) recorded} durations in a {@linkplain LatencyHistogram}.
  */
 public class Counters {
 
+  private static final int NUM_METRICS = SipMetric.values().length;
+
+  private final AtomicLongArray metrics;
+  private final LatencyHistogram[] histograms;
   private final Map<String, Long> values;
+  private final boolean readOnly;
 
   public Counters() {
-    this(new HashMap<>());
+    this(new AtomicLongArray(NUM_METRICS), newHistograms(), new HashMap<>(), false);
   }
 
-  Counters(Map<String, Long> values) {
+  @SuppressWarnings("PMD.ArrayIsStoredDirectly") // Shared between views of the same counters
+  private Counters(AtomicLongArray metrics, LatencyHistogram[] histograms, Map<String, Long> values,
+      boolean readOnly) {
+    this.metrics = metrics;
+    this.histograms = histograms;
     this.values = values;
+    this.readOnly = readOnly;
+  }
+
+  private static LatencyHistogram[] newHistograms() {
+    LatencyHistogram[] result = new LatencyHistogram[NUM_METRICS];
+    for (SipMetric metric : SipMetric.values()) {
+      if (metric.isTimer()) {
+        result[metric.ordinal()] = new LatencyHistogram();
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Return the value of the given metric.
+   * @param metric The metric
+   * @return The value of the metric
+   */
+  public long get(SipMetric metric) {
+    return metrics.get(metric.ordinal());
+  }
+
+  /**
+   * Increase the given metric by one.
+   * @param metric The metric
+   */
+  public void inc(SipMetric metric) {
+    inc(metric, 1);
+  }
+
+  /**
+   * Increase the given metric by the given amount.
+   * @param metric The metric
+   * @param delta The amount to increase the metric with
+   */
+  public void inc(SipMetric metric, long delta) {
+    assertWritable();
+    metrics.addAndGet(metric.ordinal(), delta);
+  }
+
+  private void assertWritable() {
+    if (readOnly) {
+      throw new UnsupportedOperationException("Counters are read-only");
+    }
+  }
+
+  /**
+   * Set the given metric to the given value.
+   * @param metric The metric
+   * @param value The value to set the metric to
+   */
+  public void set(SipMetric metric, long value) {
+    assertWritable();
+    metrics.set(metric.ordinal(), value);
+  }
+
+  /**
+   * Record a duration for the given timer. This increases the timer's total and adds the duration to its
+   * {@linkplain #histogram(SipMetric) histogram}.
+   * @param timer The timer
+   * @param nanos The duration in nanoseconds
+   */
+  public void record(SipMetric timer, long nanos) {
+    LatencyHistogram histogram = histogram(timer);
+    inc(timer, nanos);
+    histogram.record(nanos);
+  }
+
+  /**
+   * Return the distribution of the durations recorded for the given timer.
+   * @param timer The timer
+   * @return The distribution of the recorded durations
+   */
+  public LatencyHistogram histogram(SipMetric timer) {
+    LatencyHistogram result = histograms[timer.ordinal()];
+    if (result == null) {
+      throw new IllegalArgumentException("Not a timer: " + timer);
+    }
+    return result;
   }
 
   public long get(String name) {
+    SipMetric metric = SipMetric.named(name);
+    if (metric != null) {
+      return get(metric);
+    }
     return values.containsKey(name) ? values.get(name) : 0;
   }
 
@@ -40,7 +139,12 @@ public class Counters {
    * @param delta The amount to increase the metric with
    */
   public void inc(String name, long delta) {
-    set(name, get(name) + delta);
+    SipMetric metric = SipMetric.named(name);
+    if (metric == null) {
+      set(name, get(name) + delta);
+    } else {
+      inc(metric, delta);
+    }
   }
 
   /**
@@ -49,23 +153,66 @@ public class Counters {
    * @param value The value to set the metric to
    */
   public void set(String name, long value) {
-    values.put(name, value);
+    SipMetric metric = SipMetric.named(name);
+    if (metric == null) {
+      assertWritable();
+      values.put(name, value);
+    } else {
+      set(metric, value);
+    }
   }
 
   /**
    * Reset all metrics to zero.
    */
   public void reset() {
+    assertWritable();
+    for (int i = 0; i < NUM_METRICS; i++) {
+      metrics.set(i, 0);
+      if (histograms[i] != null) {
+        histograms[i].reset();
+      }
+    }
     values.clear();
   }
 
+  /**
+   * Return a read-only copy of these counters that doesn't change when these counters change.
+   * @return A read-only copy of these counters
+   */
   public Counters forReading() {
-    return new Counters(Collections.unmodifiableMap(new HashMap<String, Long>(values)));
+    long[] copy = new long[NUM_METRICS];
+    LatencyHistogram[] histogramsCopy = new LatencyHistogram[NUM_METRICS];
+    for (int i = 0; i < NUM_METRICS; i++) {
+      copy[i] = metrics.get(i);
+      if (histograms[i] != null) {
+        histogramsCopy[i] = histograms[i].copy();
+      }
+    }
+    Map<String, Long> valuesCopy = values.isEmpty() ? Collections.emptyMap()
+        : Collections.unmodifiableMap(new HashMap<>(values));
+    return new Counters(new AtomicLongArray(copy), histogramsCopy, valuesCopy, true);
+  }
+
+  /**
+   * Return a read-only view of these counters that reflects any changes to these counters. Unlike
+   * {@linkplain #forReading()}, this doesn't copy any values.
+   * @return A read-only view of these counters
+   */
+  public Counters view() {
+    return new Counters(metrics, histograms, Collections.unmodifiableMap(values), true);
   }
 
   @Override
   public String toString() {
-    return values.toString();
+    Map<String, Long> result = new HashMap<>(values);
+    for (SipMetric metric : SipMetric.values()) {
+      long value = get(metric);
+      if (value != 0) {
+        result.put(metric.toString(), value);
+      }
+    }
+    return result.toString();
   }
 
 }
@@ -5,21 +5,19 @@ package com.opentext.ia.sdk.sip;
 
 import java.io.ByteArrayInputStream;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.InputStream;
 import java.nio.charset.Charset;
 import java.nio.file.Path;
 import java.util.Objects;
+import java.util.OptionalLong;
 import java.util.function.Supplier;
 
-import com.opentext.ia.sdk.support.io.RuntimeIoException;
-
 /**
  * Digital Object (an object composed of a set of bit sequences) that is the original target of
  * <a href="http://public.ccsds.org/publications/archive/650x0m2.pdf">Long Term Preservation</a> in an Archive.
  * The object is identified by {@linkplain #getReferenceInformation() Reference Information} and its bits are accessed
- * through an {@linkplain #get() InputStream}.
+ * through an {@linkplain #get() InputStream}. The size of the object may be known in advance, which allows
+ * {@linkplain SipSegmentationStrategy segmentation strategies} to take it into account before the object is added.
  */
 public interface DigitalObject extends Supplier<InputStream> {
 
@@ -29,6 +27,14 @@ public interface DigitalObject extends Supplier<InputStream> {
    */
   String getReferenceInformation();
 
+  /**
+   * The number of bytes in this object, if that is known without reading the object.
+   * @return The number of bytes in this object, or nothing if the size isn't known in advance
+   */
+  default OptionalLong getSizeHint() {
+    return OptionalLong.empty();
+  }
+
   /**
    * Create a {@linkplain DigitalObject} from a file.
    * @param referenceInformation The unique identifier to use as Reference Information
@@ -36,13 +42,7 @@ public interface DigitalObject extends Supplier<InputStream> {
    * @return The newly created {@linkplain DigitalObject}
    */
   static DigitalObject fromFile(String referenceInformation, File file) {
-    return fromSupplier(referenceInformation, () -> {
-      try {
-        return new FileInputStream(file);
-      } catch (FileNotFoundException e) {
-        throw new RuntimeIoException(e);
-      }
-    });
+    return FileDigitalObject.of(referenceInformation, file.toPath());
   }
 
   /**
@@ -52,7 +52,31 @@ public interface DigitalObject extends Supplier<InputStream> {
    * @return The newly created {@linkplain DigitalObject}
    */
   static DigitalObject fromSupplier(String referenceInformation, Supplier<InputStream> supplier) {
+    return fromSupplier(referenceInformation, supplier, OptionalLong.empty());
+  }
+
+  /**
+   * Create a {@linkplain DigitalObject} of a known size from a supplier.
+   * @param referenceInformation The unique identifier to use as Reference Information
+   * @param supplier The supplier of the content of the {@linkplain DigitalObject}
+   * @param size The number of bytes that the supplier supplies
+   * @return The newly created {@linkplain DigitalObject}
+   */
+  static DigitalObject fromSupplier(String referenceInformation, Supplier<InputStream> supplier, long size) {
+    return fromSupplier(referenceInformation, supplier, OptionalLong.of(size));
+  }
+
+  /**
+   * Create a {@linkplain DigitalObject} from a supplier.
+   * @param referenceInformation The unique identifier to use as Reference Information
+   * @param supplier The supplier of the content of the {@linkplain DigitalObject}
+   * @param sizeHint The number of bytes that the supplier supplies, if known
+   * @return The newly created {@linkplain DigitalObject}
+   */
+  static DigitalObject fromSupplier(String referenceInformation, Supplier<InputStream> supplier,
+      OptionalLong sizeHint) {
     Objects.requireNonNull(referenceInformation, "Missing reference information");
+    Objects.requireNonNull(sizeHint, "Missing size hint");
     return new DigitalObject() {
 
       @Override
@@ -64,6 +88,11 @@ public interface DigitalObject extends Supplier<InputStream> {
       public String getReferenceInformation() {
         return referenceInformation;
       }
+
+      @Override
+      public OptionalLong getSizeHint() {
+        return sizeHint;
+      }
     };
   }
 
@@ -74,7 +103,7 @@ public interface DigitalObject extends Supplier<InputStream> {
    * @return The newly created {@linkplain DigitalObject}
    */
   static DigitalObject fromPath(String referenceInformation, Path path) {
-    return fromFile(referenceInformation, path.toFile());
+    return FileDigitalObject.of(referenceInformation, path);
   }
 
   /**
@@ -84,7 +113,7 @@ public interface DigitalObject extends Supplier<InputStream> {
    * @return The newly created {@linkplain DigitalObject}
    */
   static DigitalObject fromBytes(String referenceInformation, byte[] bytes) {
-    return fromSupplier(referenceInformation, () -> new ByteArrayInputStream(bytes));
+    return fromSupplier(referenceInformation, () -> new ByteArrayInputStream(bytes), bytes.length);
   }
 
   /**
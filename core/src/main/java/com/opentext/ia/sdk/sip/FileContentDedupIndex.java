@@ -0,0 +1,198 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.sip;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import com.opentext.ia.sdk.support.io.EncodedHash;
+import com.opentext.ia.sdk.support.io.RuntimeIoException;
+
+/**
+ * {@linkplain ContentDedupIndex} that persists its entries in a file, so that it can be shared across JVM restarts.
+ * <p>
+ * The file is an append-only log of entries. In memory, the index only keeps a 64-bit fingerprint of the hashes of each
+ * entry and the position of the entry in the file, in an open addressing hash table of primitive values. Lookups
+ * therefore take constant time and a single read from the file, while tens of millions of entries take only a few
+ * hundred megabytes of memory. When the index is opened, the log is read once to rebuild the in-memory table. The log
+ * is truncated after the last valid entry, so that an incomplete or corrupt entry, as might be left by a crash, is
+ * discarded along with anything after it.
+ * <p>
+ * Only one instance at a time should open a given file.
+ */
+public class FileContentDedupIndex implements ContentDedupIndex, Closeable {
+
+  private static final int INITIAL_CAPACITY = 1024;
+  private static final int RECORD_HEADER_SIZE = Integer.BYTES;
+
+  private final FileChannel channel;
+  private final FingerprintTable positions = new FingerprintTable(INITIAL_CAPACITY);
+  private long end;
+
+  /**
+   * Open the index stored in the given file, creating the file if it doesn't exist.
+   * @param file The file that holds the index
+   * @throws IOException When the index can't be read
+   */
+  public FileContentDedupIndex(File file) throws IOException {
+    channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ,
+        StandardOpenOption.WRITE);
+    try {
+      load();
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  private void load() throws IOException {
+    long size = channel.size();
+    InputStream input = new BufferedInputStream(Channels.newInputStream(channel.position(0)));
+    DataInputStream data = new DataInputStream(input);
+    end = 0;
+    boolean valid = true;
+    while (valid && end < size) {
+      valid = loadRecord(data, size - end);
+    }
+    channel.truncate(end);
+  }
+
+  private boolean loadRecord(DataInputStream data, long remaining) throws IOException {
+    if (remaining < RECORD_HEADER_SIZE) {
+      return false;
+    }
+    int length = data.readInt();
+    if (length < 0 || length > remaining - RECORD_HEADER_SIZE) {
+      return false;
+    }
+    byte[] record = new byte[length];
+    data.readFully(record);
+    ContentInfo contentInfo;
+    try {
+      contentInfo = parse(record);
+    } catch (IOException e) {
+      return false;
+    }
+    positions.put(FingerprintTable.fingerprint(contentInfo.getContentHashes()), end);
+    end += RECORD_HEADER_SIZE + length;
+    return true;
+  }
+
+  private ContentInfo parse(byte[] record) throws IOException {
+    try (DataInputStream data = new DataInputStream(new ByteArrayInputStream(record))) {
+      int numHashes = data.readInt();
+      if (numHashes < 0 || numHashes > record.length) {
+        throw new IOException("Invalid number of hashes in dedup index: " + numHashes);
+      }
+      List<EncodedHash> hashes = new ArrayList<>(numHashes);
+      for (int i = 0; i < numHashes; i++) {
+        hashes.add(new EncodedHash(data.readUTF(), data.readUTF(), data.readUTF()));
+      }
+      return new ContentInfo(data.readUTF(), hashes);
+    }
+  }
+
+  @Override
+  public synchronized Optional<ContentInfo> get(Collection<EncodedHash> hashes) {
+    ContentInfo[] result = new ContentInfo[1];
+    long position = positions.find(FingerprintTable.fingerprint(hashes), candidate -> {
+      result[0] = read(candidate);
+      return result[0].getContentHashes()
+        .equals(hashes);
+    });
+    return position == FingerprintTable.NOT_FOUND ? Optional.empty() : Optional.of(result[0]);
+  }
+
+  private ContentInfo read(long position) {
+    try {
+      ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_SIZE);
+      readFully(header, position);
+      ByteBuffer record = ByteBuffer.allocate(header.getInt(0));
+      readFully(record, position + RECORD_HEADER_SIZE);
+      return parse(record.array());
+    } catch (IOException e) {
+      throw new RuntimeIoException(e);
+    }
+  }
+
+  private void readFully(ByteBuffer buffer, long position) throws IOException {
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer, position + buffer.position()) < 0) {
+        throw new EOFException("Unexpected end of dedup index");
+      }
+    }
+  }
+
+  @Override
+  public synchronized void put(ContentInfo contentInfo) {
+    if (get(contentInfo.getContentHashes()).isPresent()) {
+      return;
+    }
+    try {
+      byte[] record = toRecord(contentInfo);
+      ByteBuffer buffer = ByteBuffer.allocate(RECORD_HEADER_SIZE + record.length);
+      buffer.putInt(record.length)
+        .put(record)
+        .flip();
+      long position = end;
+      while (buffer.hasRemaining()) {
+        channel.write(buffer, position + buffer.position());
+      }
+      end += buffer.limit();
+      positions.put(FingerprintTable.fingerprint(contentInfo.getContentHashes()), position);
+    } catch (IOException e) {
+      throw new RuntimeIoException(e);
+    }
+  }
+
+  private byte[] toRecord(ContentInfo contentInfo) throws IOException {
+    ByteArrayOutputStream result = new ByteArrayOutputStream();
+    try (DataOutputStream data = new DataOutputStream(result)) {
+      data.writeInt(contentInfo.getContentHashes()
+        .size());
+      for (EncodedHash hash : contentInfo.getContentHashes()) {
+        data.writeUTF(hash.getHashFunction());
+        data.writeUTF(hash.getEncoding());
+        data.writeUTF(hash.getValue());
+      }
+      data.writeUTF(contentInfo.getReferenceInformation());
+    }
+    return result.toByteArray();
+  }
+
+  /**
+   * Return the number of entries in the index.
+   * @return The number of entries in the index
+   */
+  public synchronized int size() {
+    return positions.size();
+  }
+
+  /**
+   * Force any entries to disk and close the file.
+   * @throws IOException When an I/O error occurs
+   */
+  @Override
+  public synchronized void close() throws IOException {
+    channel.force(false);
+    channel.close();
+  }
+
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.sip;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Objects;
+import java.util.OptionalLong;
+
+import com.opentext.ia.sdk.support.io.RuntimeIoException;
+
+/**
+ * {@linkplain DigitalObject} whose bits are stored in a file. This allows the bits to be added to a SIP through the
+ * file's {@linkplain java.nio.channels.FileChannel channel} rather than through an {@linkplain InputStream}, which is
+ * more efficient for large objects.
+ */
+public interface FileDigitalObject extends DigitalObject {
+
+  /**
+   * The path to the file that holds the bits of this object.
+   * @return The path to the file that holds the bits of this object
+   */
+  Path getPath();
+
+  @Override
+  default InputStream get() {
+    try {
+      return Files.newInputStream(getPath());
+    } catch (IOException e) {
+      throw new RuntimeIoException(e);
+    }
+  }
+
+  /**
+   * The size of the file, if it can be determined.
+   * @return The number of bytes in the file, or nothing if the size of the file can't be determined
+   */
+  @Override
+  default OptionalLong getSizeHint() {
+    try {
+      return OptionalLong.of(Files.size(getPath()));
+    } catch (IOException e) {
+      return OptionalLong.empty();
+    }
+  }
+
+  /**
+   * Create a {@linkplain FileDigitalObject} from a path to a file.
+   * @param referenceInformation The unique identifier to use as Reference Information
+   * @param path The path to the file that holds the content of the {@linkplain DigitalObject}
+   * @return The newly created {@linkplain FileDigitalObject}
+   */
+  static FileDigitalObject of(String referenceInformation, Path path) {
+    Objects.requireNonNull(referenceInformation, "Missing reference information");
+    Objects.requireNonNull(path, "Missing path");
+    return new FileDigitalObject() {
+
+      @Override
+      public Path getPath() {
+        return path;
+      }
+
+      @Override
+      public String getReferenceInformation() {
+        return referenceInformation;
+      }
+    };
+  }
+
+}
@@ -27,7 +27,8 @@ public class FileGenerationMetrics {
   }
 
   /**
-   * Return metrics about the file generation process.
+   * Return metrics about the file generation process. For SIPs, these are {@linkplain SipMetrics}, which include the
+   * time spent in each phase of the assembly process.
    * @return Metrics about the file generation process
    */
   public Metrics getMetrics() {
@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.sip;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.function.LongPredicate;
+
+import com.opentext.ia.sdk.support.io.EncodedHash;
+
+
+/**
+ * Compact hash table that maps 64-bit fingerprints of keys to non-negative <code>long</code> values, like positions in
+ * a file or indexes in a list. Keys and values are stored in primitive arrays using open addressing, which takes 16
+ * bytes per entry at most half full, compared to the hundreds of bytes of a {@linkplain java.util.HashMap} entry with
+ * its key objects.
+ * <p>
+ * Since different keys may have the same fingerprint, a fingerprint can be mapped to multiple values. Callers
+ * {@linkplain #find(long, LongPredicate) find} the value for their key by checking whether each candidate value belongs
+ * to that key.
+ * <p>
+ * This class isn't thread-safe.
+ */
+final class FingerprintTable {
+
+  /**
+   * Value returned by {@linkplain #find(long, LongPredicate)} when no value is found.
+   */
+  static final long NOT_FOUND = -1;
+  private static final int MIN_CAPACITY = 16;
+  private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+  private static final long FNV_PRIME = 0x100000001b3L;
+
+  private long[] fingerprints;
+  private long[] values;
+  private int size;
+
+  /**
+   * Create an instance.
+   * @param expectedSize The number of entries to allocate room for
+   */
+  FingerprintTable(int expectedSize) {
+    allocate(Math.max(MIN_CAPACITY, Integer.highestOneBit(Math.max(1, 2 * expectedSize - 1)) << 1));
+  }
+
+  private void allocate(int capacity) {
+    fingerprints = new long[capacity];
+    values = new long[capacity];
+  }
+
+  /**
+   * Return the fingerprint of a string.
+   * @param value The string to fingerprint
+   * @return The fingerprint
+   */
+  static long fingerprint(String value) {
+    return fingerprint(FNV_OFFSET_BASIS, value);
+  }
+
+  private static long fingerprint(long seed, String value) {
+    long result = seed;
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      result = (result ^ (c & 0xFF)) * FNV_PRIME;
+      result = (result ^ (c >>> 8)) * FNV_PRIME;
+    }
+    return result;
+  }
+
+  /**
+   * Return the fingerprint of a collection of hashes.
+   * @param hashes The hashes to fingerprint
+   * @return The fingerprint
+   */
+  static long fingerprint(Collection<EncodedHash> hashes) {
+    long result = FNV_OFFSET_BASIS;
+    for (EncodedHash hash : hashes) {
+      result = fingerprint(result, hash.getHashFunction());
+      result = fingerprint(result, hash.getEncoding());
+      result = fingerprint(result, hash.getValue());
+    }
+    return result;
+  }
+
+  /**
+   * Add an entry.
+   * @param fingerprint The fingerprint of the entry's key
+   * @param value The non-negative value of the entry
+   */
+  void put(long fingerprint, long value) {
+    if (value < 0) {
+      throw new IllegalArgumentException("Value must not be negative");
+    }
+    if (2 * (size + 1) > fingerprints.length) {
+      rehash();
+    }
+    int slot = slotFor(fingerprint);
+    while (values[slot] != 0) {
+      slot = nextSlot(slot);
+    }
+    fingerprints[slot] = fingerprint;
+    values[slot] = value + 1; // 0 marks an empty slot
+    size++;
+  }
+
+  private void rehash() {
+    long[] oldFingerprints = fingerprints;
+    long[] oldValues = values;
+    allocate(2 * oldFingerprints.length);
+    size = 0;
+    for (int i = 0; i < oldValues.length; i++) {
+      if (oldValues[i] != 0) {
+        put(oldFingerprints[i], oldValues[i] - 1);
+      }
+    }
+  }
+
+  private int slotFor(long fingerprint) {
+    return (int)(fingerprint ^ fingerprint >>> 32) & (fingerprints.length - 1);
+  }
+
+  private int nextSlot(int slot) {
+    return (slot + 1) & (fingerprints.length - 1);
+  }
+
+  /**
+   * Find the value for a key.
+   * @param fingerprint The fingerprint of the key
+   * @param matches Whether a candidate value with the same fingerprint belongs to the key
+   * @return The value for the key, or {@linkplain #NOT_FOUND} if there is none
+   */
+  long find(long fingerprint, LongPredicate matches) {
+    for (int slot = slotFor(fingerprint); values[slot] != 0; slot = nextSlot(slot)) {
+      if (fingerprints[slot] == fingerprint && matches.test(values[slot] - 1)) {
+        return values[slot] - 1;
+      }
+    }
+    return NOT_FOUND;
+  }
+
+  /**
+   * Return the number of entries.
+   * @return The number of entries
+   */
+  int size() {
+    return size;
+  }
+
+  /**
+   * Remove all entries.
+   */
+  void clear() {
+    Arrays.fill(values, 0);
+    size = 0;
+  }
+
+}
@@ -15,7 +15,7 @@ import com.opentext.ia.sdk.support.xml.XmlBuilder;
 public class InfoArchivePackagingInformationAssembler extends PrintWriterAssembler<PackagingInformation> {
 
   public InfoArchivePackagingInformationAssembler() {
-    super(new XmlSchemaValidator(InfoArchivePackagingInformationAssembler.class.getResourceAsStream("/sip.xsd")));
+    super(new XmlSchemaValidator(InfoArchivePackagingInformationAssembler.class.getResource("/sip.xsd")));
   }
 
   @Override
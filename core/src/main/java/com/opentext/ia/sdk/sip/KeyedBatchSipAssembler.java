@@ -0,0 +1,306 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.sip;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import com.opentext.ia.sdk.support.datetime.Clock;
+import com.opentext.ia.sdk.support.datetime.DefaultClock;
+import com.opentext.ia.sdk.support.datetime.Timer;
+import com.opentext.ia.sdk.support.io.FileSupplier;
+
+
+/**
+ * Assemble batches of SIPs for domain objects that belong to different series of SIPs, for instance because they go
+ * into different holdings or have different retention classes. Each domain object is routed by a key to a
+ * {@linkplain BatchSipAssembler} for that key, which is created the first time the key is seen. Domain objects for
+ * different keys are assembled concurrently when they are {@linkplain #add(Object) added} from multiple threads.
+ * <p>
+ * To limit resources like open files, there is a maximum to the number of keys that have an open SIP. When a domain
+ * object arrives for a new key while the maximum is reached, the key that was used least recently is evicted. Keys
+ * that haven't seen any domain objects for some time are evicted as well, so that their SIPs don't stay open
+ * indefinitely, unless the maximum idle time is zero. Idle keys are evicted on a timer thread, which keeps running
+ * until the batch has {@linkplain #end() ended}; any failure to evict them is thrown from the next call to
+ * {@linkplain #add(Object)} or {@linkplain #end()}. Evicting a key ends its batch, and the next domain object for that key starts a new batch with a new
+ * {@linkplain SipAssembler}. Each batch should therefore be its own {@linkplain DataSubmissionSession DSS}, for
+ * instance by using a {@linkplain OneSipPerDssPackagingInformationFactory} or a unique DSS ID per assembler.
+ * @param <K> The type of key by which domain objects are routed
+ * @param <D> The type of domain object to assemble SIPs from
+ */
+public class KeyedBatchSipAssembler<K, D> {
+
+  private final Function<? super D, ? extends K> keyFunction;
+  private final Function<? super K, SipAssembler<D>> assemblerFactory;
+  private final SipSegmentationStrategy<D> segmentationStrategy;
+  private final int maxOpenSips;
+  private final long maxIdleMillis;
+  private final Supplier<File> fileSupplier;
+  private final Clock clock;
+  private final Timer idleTimer;
+  private final AtomicReference<IOException> evictionFailure = new AtomicReference<>();
+  private final Map<K, KeyedAssembler> assemblers = new LinkedHashMap<>(16, 0.75f, true);
+  private final Collection<FileGenerationMetrics> sipsMetrics = new ArrayList<>();
+  private boolean ended;
+
+  /**
+   * Create an instance that assembles SIPs in a temporary directory.
+   * @param keyFunction Function that determines the key of a domain object
+   * @param assemblerFactory Factory for the assembler that builds up the SIPs for a key
+   * @param segmentationStrategy A strategy that determines when to start new SIPs for a key
+   * @param maxOpenSips The maximum number of keys that may have an open SIP at the same time
+   * @param maxIdleMillis The time after which a key that hasn't seen any domain objects is evicted, or zero to never
+   *          evict idle keys
+   */
+  public KeyedBatchSipAssembler(Function<? super D, ? extends K> keyFunction,
+      Function<? super K, SipAssembler<D>> assemblerFactory, SipSegmentationStrategy<D> segmentationStrategy,
+      int maxOpenSips, long maxIdleMillis) {
+    this(keyFunction, assemblerFactory, segmentationStrategy, maxOpenSips, maxIdleMillis,
+        FileSupplier.fromTemporaryDirectory());
+  }
+
+  /**
+   * Create an instance that assembles SIPs in the given directory.
+   * @param keyFunction Function that determines the key of a domain object
+   * @param assemblerFactory Factory for the assembler that builds up the SIPs for a key
+   * @param segmentationStrategy A strategy that determines when to start new SIPs for a key
+   * @param maxOpenSips The maximum number of keys that may have an open SIP at the same time
+   * @param maxIdleMillis The time after which a key that hasn't seen any domain objects is evicted, or zero to never
+   *          evict idle keys
+   * @param dir Directory in which to generate SIP files
+   */
+  public KeyedBatchSipAssembler(Function<? super D, ? extends K> keyFunction,
+      Function<? super K, SipAssembler<D>> assemblerFactory, SipSegmentationStrategy<D> segmentationStrategy,
+      int maxOpenSips, long maxIdleMillis, File dir) {
+    this(keyFunction, assemblerFactory, segmentationStrategy, maxOpenSips, maxIdleMillis,
+        FileSupplier.fromDirectory(dir));
+  }
+
+  /**
+   * Create an instance that assembles SIPs using the given supplier of SIP files.
+   * @param keyFunction Function that determines the key of a domain object
+   * @param assemblerFactory Factory for the assembler that builds up the SIPs for a key
+   * @param segmentationStrategy A strategy that determines when to start new SIPs for a key
+   * @param maxOpenSips The maximum number of keys that may have an open SIP at the same time
+   * @param maxIdleMillis The time after which a key that hasn't seen any domain objects is evicted, or zero to never
+   *          evict idle keys
+   * @param fileSupplier A supplier of files in which to store the SIPs. This supplier is shared between keys, but
+   *          doesn't need to be thread-safe
+   */
+  public KeyedBatchSipAssembler(Function<? super D, ? extends K> keyFunction,
+      Function<? super K, SipAssembler<D>> assemblerFactory, SipSegmentationStrategy<D> segmentationStrategy,
+      int maxOpenSips, long maxIdleMillis, Supplier<File> fileSupplier) {
+    this(keyFunction, assemblerFactory, segmentationStrategy, maxOpenSips, maxIdleMillis, fileSupplier,
+        new DefaultClock());
+  }
+
+  /**
+   * Create an instance that assembles SIPs using the given supplier of SIP files and clock.
+   * @param keyFunction Function that determines the key of a domain object
+   * @param assemblerFactory Factory for the assembler that builds up the SIPs for a key
+   * @param segmentationStrategy A strategy that determines when to start new SIPs for a key
+   * @param maxOpenSips The maximum number of keys that may have an open SIP at the same time
+   * @param maxIdleMillis The time after which a key that hasn't seen any domain objects is evicted, or zero to never
+   *          evict idle keys
+   * @param fileSupplier A supplier of files in which to store the SIPs. This supplier is shared between keys, but
+   *          doesn't need to be thread-safe
+   * @param clock The clock to use for evicting idle keys
+   */
+  public KeyedBatchSipAssembler(Function<? super D, ? extends K> keyFunction,
+      Function<? super K, SipAssembler<D>> assemblerFactory, SipSegmentationStrategy<D> segmentationStrategy,
+      int maxOpenSips, long maxIdleMillis, Supplier<File> fileSupplier, Clock clock) {
+    if (maxOpenSips <= 0) {
+      throw new IllegalArgumentException("maxOpenSips must be positive");
+    }
+    if (maxIdleMillis < 0) {
+      throw new IllegalArgumentException("maxIdleMillis must not be negative");
+    }
+    this.keyFunction = Objects.requireNonNull(keyFunction, "Missing key function");
+    this.assemblerFactory = Objects.requireNonNull(assemblerFactory, "Missing assembler factory");
+    this.segmentationStrategy = Objects.requireNonNull(segmentationStrategy, "Missing segmentation strategy");
+    this.maxOpenSips = maxOpenSips;
+    this.maxIdleMillis = maxIdleMillis;
+    this.fileSupplier = synchronizedSupplier(Objects.requireNonNull(fileSupplier, "Missing file supplier"));
+    this.clock = Objects.requireNonNull(clock, "Missing clock");
+    this.idleTimer = maxIdleMillis == 0 ? null : new Timer(maxIdleMillis, this::evictIdleKeys, clock);
+  }
+
+  private static Supplier<File> synchronizedSupplier(Supplier<File> fileSupplier) {
+    return () -> {
+      synchronized (fileSupplier) {
+        return fileSupplier.get();
+      }
+    };
+  }
+
+  /**
+   * Add a domain object to the batch of SIPs for its key.
+   * @param domainObject The domain object to add
+   * @throws IOException When an I/O error occurs, including while evicting idle keys since the previous call
+   * @throws IllegalStateException When the batch has already {@linkplain #end() ended}
+   */
+  public void add(D domainObject) throws IOException {
+    throwEvictionFailure();
+    K key = keyFunction.apply(domainObject);
+    KeyedAssembler assembler;
+    do {
+      // The assembler may be evicted between looking it up and adding to it, in which case we need a new one
+      assembler = assemblerFor(key);
+    } while (!assembler.tryAdd(domainObject));
+  }
+
+  private KeyedAssembler assemblerFor(K key) {
+    synchronized (assemblers) {
+      if (ended) {
+        throw new IllegalStateException("Batch has ended");
+      }
+      KeyedAssembler result = assemblers.get(key);
+      if (result == null) {
+        KeyedAssembler evicted = null;
+        if (assemblers.size() >= maxOpenSips) {
+          Iterator<KeyedAssembler> leastRecentlyUsed = assemblers.values()
+            .iterator();
+          evicted = leastRecentlyUsed.next();
+          leastRecentlyUsed.remove();
+        }
+        result = new KeyedAssembler(assemblerFactory.apply(key), evicted);
+        assemblers.put(key, result);
+      }
+      return result;
+    }
+  }
+
+  private void evictIdleKeys() {
+    long idleSince = clock.time() - maxIdleMillis;
+    Collection<KeyedAssembler> idle = new ArrayList<>();
+    synchronized (assemblers) {
+      Iterator<KeyedAssembler> iterator = assemblers.values()
+        .iterator();
+      while (iterator.hasNext()) {
+        KeyedAssembler assembler = iterator.next();
+        if (assembler.lastUsed() <= idleSince) {
+          iterator.remove();
+          idle.add(assembler);
+        }
+      }
+    }
+    try {
+      close(idle);
+    } catch (IOException e) {
+      // There is no caller on the timer thread to report the failure to, so keep it for the next one
+      evictionFailure.compareAndSet(null, e);
+    }
+  }
+
+  private void throwEvictionFailure() throws IOException {
+    IOException failure = evictionFailure.getAndSet(null);
+    if (failure != null) {
+      throw new IOException("Failed to evict idle keys", failure);
+    }
+  }
+
+  private void close(Collection<KeyedAssembler> evicted) throws IOException {
+    for (KeyedAssembler assembler : evicted) {
+      assembler.close();
+    }
+  }
+
+  protected void sipEnded(FileGenerationMetrics metrics) {
+    synchronized (sipsMetrics) {
+      sipsMetrics.add(metrics);
+    }
+  }
+
+  /**
+   * End the batch assembly process for all keys. This method blocks until all keys have finished adding domain
+   * objects. No domain objects can be added after the batch has ended.
+   * @throws IOException When an I/O error occurs, including while evicting idle keys since the last domain object was
+   *           added
+   */
+  public void end() throws IOException {
+    if (idleTimer != null) {
+      idleTimer.stop();
+    }
+    Collection<KeyedAssembler> ending;
+    synchronized (assemblers) {
+      ended = true;
+      ending = new ArrayList<>(assemblers.values());
+      assemblers.clear();
+    }
+    close(ending);
+    throwEvictionFailure();
+  }
+
+  /**
+   * Returns the files that were generated for all keys as part of this batch and metrics about the SIPs stored in
+   * them.
+   * @return The files that were generated as part of this batch and metrics about the SIPs stored in them
+   */
+  public Collection<FileGenerationMetrics> getSipsMetrics() {
+    synchronized (sipsMetrics) {
+      return Collections.unmodifiableCollection(new ArrayList<>(sipsMetrics));
+    }
+  }
+
+
+  private class KeyedAssembler extends BatchSipAssembler<D> {
+
+    private KeyedAssembler evicted;
+    private boolean closed;
+    private volatile long lastUsed;
+
+    KeyedAssembler(SipAssembler<D> assembler, KeyedAssembler evicted) {
+      super(assembler, segmentationStrategy, fileSupplier);
+      this.evicted = evicted;
+      this.lastUsed = clock.time();
+    }
+
+    long lastUsed() {
+      return lastUsed;
+    }
+
+    synchronized boolean tryAdd(D domainObject) throws IOException {
+      if (closed) {
+        return false;
+      }
+      // Close the SIP of the evicted key before opening a new one, to stay within the maximum number of open SIPs
+      closeEvicted();
+      add(domainObject);
+      lastUsed = clock.time();
+      return true;
+    }
+
+    private void closeEvicted() throws IOException {
+      if (evicted != null) {
+        evicted.close();
+        evicted = null;
+      }
+    }
+
+    synchronized void close() throws IOException {
+      if (!closed) {
+        closed = true;
+        closeEvicted();
+        end();
+      }
+    }
+
+    @Override
+    protected void sipEnded(FileGenerationMetrics metrics) {
+      KeyedBatchSipAssembler.this.sipEnded(metrics);
+    }
+
+  }
+
+}
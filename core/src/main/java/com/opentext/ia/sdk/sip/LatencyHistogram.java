@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.sip;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Distribution of latencies in nanoseconds.
+ * <p>
+ * Latencies are recorded in buckets whose width grows with their magnitude, like in an HDR histogram: each power of
+ * two is split into {@value #NUM_SUB_BUCKETS} equally sized buckets, so that percentiles are accurate to within about
+ * 6%, while the histogram takes a fixed amount of memory regardless of the range of latencies. Recording a latency is
+ * lock-free and doesn't allocate memory.
+ */
+public final class LatencyHistogram {
+
+  private static final int SUB_BUCKET_BITS = 4;
+  private static final int NUM_SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  private static final int NUM_BUCKETS = (Long.SIZE - SUB_BUCKET_BITS) * NUM_SUB_BUCKETS;
+  private static final double MAX_PERCENTILE = 100.0;
+
+  private final AtomicLongArray counts;
+  private final AtomicLong count;
+  private final AtomicLong total;
+  private final AtomicLong min;
+  private final AtomicLong max;
+
+  /**
+   * Create an instance.
+   */
+  public LatencyHistogram() {
+    this(new AtomicLongArray(NUM_BUCKETS), 0, 0, Long.MAX_VALUE, 0);
+  }
+
+  private LatencyHistogram(AtomicLongArray counts, long count, long total, long min, long max) {
+    this.counts = counts;
+    this.count = new AtomicLong(count);
+    this.total = new AtomicLong(total);
+    this.min = new AtomicLong(min);
+    this.max = new AtomicLong(max);
+  }
+
+  /**
+   * Record a latency.
+   * @param nanos The latency in nanoseconds. Negative values, which may result from a clock adjustment, are
+   *          recorded as zero
+   */
+  public void record(long nanos) {
+    long value = Math.max(0, nanos);
+    counts.incrementAndGet(indexOf(value));
+    count.incrementAndGet();
+    total.addAndGet(value);
+    min.accumulateAndGet(value, Math::min);
+    max.accumulateAndGet(value, Math::max);
+  }
+
+  private static int indexOf(long value) {
+    if (value < NUM_SUB_BUCKETS) {
+      return (int)value;
+    }
+    int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+    int subBucket = (int)(value >>> (exponent - SUB_BUCKET_BITS)) & (NUM_SUB_BUCKETS - 1);
+    return (exponent - SUB_BUCKET_BITS + 1) * NUM_SUB_BUCKETS + subBucket;
+  }
+
+  private static long highestValueIn(int index) {
+    if (index < NUM_SUB_BUCKETS) {
+      return index;
+    }
+    int shift = index / NUM_SUB_BUCKETS - 1;
+    long lowest = (long)(NUM_SUB_BUCKETS + index % NUM_SUB_BUCKETS) << shift;
+    return lowest + (1L << shift) - 1;
+  }
+
+  /**
+   * Return the number of recorded latencies.
+   * @return The number of recorded latencies
+   */
+  public long getCount() {
+    return count.get();
+  }
+
+  /**
+   * Return the sum of all recorded latencies.
+   * @return The sum of all recorded latencies in nanoseconds
+   */
+  public long getTotal() {
+    return total.get();
+  }
+
+  /**
+   * Return the smallest recorded latency.
+   * @return The smallest recorded latency in nanoseconds, or 0 if no latencies were recorded
+   */
+  public long getMin() {
+    return getCount() == 0 ? 0 : min.get();
+  }
+
+  /**
+   * Return the largest recorded latency.
+   * @return The largest recorded latency in nanoseconds
+   */
+  public long getMax() {
+    return max.get();
+  }
+
+  /**
+   * Return the average of all recorded latencies.
+   * @return The average latency in nanoseconds, or 0 if no latencies were recorded
+   */
+  public double getMean() {
+    long n = getCount();
+    return n == 0 ? 0 : (double)getTotal() / n;
+  }
+
+  /**
+   * Return the latency below which the given percentage of recorded latencies fall.
+   * @param percentile The percentage, between 0 and 100
+   * @return The latency at the given percentile in nanoseconds, or 0 if no latencies were recorded
+   */
+  public long getValueAtPercentile(double percentile) {
+    if (percentile < 0 || percentile > MAX_PERCENTILE) {
+      throw new IllegalArgumentException("Percentile must be between 0 and 100: " + percentile);
+    }
+    long n = getCount();
+    if (n == 0) {
+      return 0;
+    }
+    long rank = Math.max(1, (long)Math.ceil(percentile / MAX_PERCENTILE * n));
+    long seen = 0;
+    for (int i = 0; i < NUM_BUCKETS; i++) {
+      seen += counts.get(i);
+      if (seen >= rank) {
+        return Math.min(highestValueIn(i), getMax());
+      }
+    }
+    return getMax();
+  }
+
+  /**
+   * Forget all recorded latencies.
+   */
+  public void reset() {
+    for (int i = 0; i < NUM_BUCKETS; i++) {
+      counts.set(i, 0);
+    }
+    count.set(0);
+    total.set(0);
+    min.set(Long.MAX_VALUE);
+    max.set(0);
+  }
+
+  /**
+   * Return a copy of this histogram that doesn't change when this histogram changes.
+   * @return A copy of this histogram
+   */
+  public LatencyHistogram copy() {
+    long[] copy = new long[NUM_BUCKETS];
+    for (int i = 0; i < NUM_BUCKETS; i++) {
+      copy[i] = counts.get(i);
+    }
+    return new LatencyHistogram(new AtomicLongArray(copy), count.get(), total.get(), min.get(), max.get());
+  }
+
+  @Override
+  public String toString() {
+    return String.format("count=%d, mean=%.0fns, p50=%dns, p90=%dns, p99=%dns, max=%dns", getCount(), getMean(),
+        getValueAtPercentile(50), getValueAtPercentile(90), getValueAtPercentile(99), getMax());
+  }
+
+}
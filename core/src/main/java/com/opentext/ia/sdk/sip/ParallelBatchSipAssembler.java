@@ -0,0 +1,176 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.sip;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.Supplier;
+
+import com.opentext.ia.sdk.support.io.FileSupplier;
+
+
+/**
+ * Assemble a batch of SIPs using multiple {@linkplain SipAssembler}s in parallel. Each of these <em>shards</em>
+ * builds up its own SIP files, using a {@linkplain SipSegmentationStrategy segmentation strategy} just like a
+ * {@linkplain BatchSipAssembler}. Domain objects {@linkplain #add(Object) added} to this assembler are routed to
+ * whichever shard is idle, so that multiple producer threads can keep multiple cores busy.
+ * <p>
+ * Since shards run concurrently, each shard must have its own {@linkplain SipAssembler} that doesn't share state with
+ * the others. In particular, each shard builds up its own series of SIPs and therefore needs its own
+ * {@linkplain DataSubmissionSession DSS}, for instance by using a {@linkplain OneSipPerDssPackagingInformationFactory}.
+ * <p>
+ * Note that the order of domain objects across SIPs is not preserved.
+ * <p>
+ * @param <D> The type of domain object to assemble SIPs from
+ */
+public class ParallelBatchSipAssembler<D> {
+
+  private final Collection<Shard> shards = new ArrayList<>();
+  private final BlockingQueue<Shard> idleShards;
+  private final Collection<FileGenerationMetrics> sipsMetrics = new ArrayList<>();
+
+  /**
+   * Create an instance that assembles SIPs in a temporary directory using one shard per available processor.
+   * @param assemblerSupplier Supplier of assemblers that build up the SIPs in the batch, one per shard
+   * @param segmentationStrategy A strategy that determines when to start new SIPs
+   */
+  public ParallelBatchSipAssembler(Supplier<SipAssembler<D>> assemblerSupplier,
+      SipSegmentationStrategy<D> segmentationStrategy) {
+    this(assemblerSupplier, segmentationStrategy, Runtime.getRuntime()
+      .availableProcessors());
+  }
+
+  /**
+   * Create an instance that assembles SIPs in a temporary directory.
+   * @param assemblerSupplier Supplier of assemblers that build up the SIPs in the batch, one per shard
+   * @param segmentationStrategy A strategy that determines when to start new SIPs
+   * @param numShards The number of SIPs to assemble in parallel
+   */
+  public ParallelBatchSipAssembler(Supplier<SipAssembler<D>> assemblerSupplier,
+      SipSegmentationStrategy<D> segmentationStrategy, int numShards) {
+    this(assemblerSupplier, segmentationStrategy, numShards, FileSupplier.fromTemporaryDirectory());
+  }
+
+  /**
+   * Create an instance that assembles SIPs in the given directory.
+   * @param assemblerSupplier Supplier of assemblers that build up the SIPs in the batch, one per shard
+   * @param segmentationStrategy A strategy that determines when to start new SIPs
+   * @param numShards The number of SIPs to assemble in parallel
+   * @param dir Directory in which to generate SIP files
+   */
+  public ParallelBatchSipAssembler(Supplier<SipAssembler<D>> assemblerSupplier,
+      SipSegmentationStrategy<D> segmentationStrategy, int numShards, File dir) {
+    this(assemblerSupplier, segmentationStrategy, numShards, FileSupplier.fromDirectory(dir));
+  }
+
+  /**
+   * Create an instance that assembles SIPs using the given supplier of SIP files.
+   * @param assemblerSupplier Supplier of assemblers that build up the SIPs in the batch, one per shard
+   * @param segmentationStrategy A strategy that determines when to start new SIPs
+   * @param numShards The number of SIPs to assemble in parallel
+   * @param fileSupplier A supplier of files in which to store the SIPs. This supplier is shared between shards, but
+   *          doesn't need to be thread-safe
+   */
+  public ParallelBatchSipAssembler(Supplier<SipAssembler<D>> assemblerSupplier,
+      SipSegmentationStrategy<D> segmentationStrategy, int numShards, Supplier<File> fileSupplier) {
+    if (numShards <= 0) {
+      throw new IllegalArgumentException("numShards must be positive");
+    }
+    Supplier<File> sharedFileSupplier = synchronizedSupplier(fileSupplier);
+    idleShards = new ArrayBlockingQueue<>(numShards);
+    for (int i = 0; i < numShards; i++) {
+      Shard shard = new Shard(assemblerSupplier.get(), segmentationStrategy, sharedFileSupplier);
+      shards.add(shard);
+      idleShards.add(shard);
+    }
+  }
+
+  private static Supplier<File> synchronizedSupplier(Supplier<File> fileSupplier) {
+    return () -> {
+      synchronized (fileSupplier) {
+        return fileSupplier.get();
+      }
+    };
+  }
+
+  /**
+   * Add a domain object to the batch of SIPs. This method blocks until a shard is available to accept the domain
+   * object.
+   * @param domainObject The domain object to add
+   * @throws IOException When an I/O error occurs
+   */
+  public void add(D domainObject) throws IOException {
+    Shard shard = takeIdleShard();
+    try {
+      shard.add(domainObject);
+    } finally {
+      idleShards.add(shard);
+    }
+  }
+
+  private Shard takeIdleShard() throws IOException {
+    try {
+      return idleShards.take();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while waiting for an idle shard", e);
+    }
+  }
+
+  protected void sipEnded(FileGenerationMetrics metrics) {
+    synchronized (sipsMetrics) {
+      sipsMetrics.add(metrics);
+    }
+  }
+
+  /**
+   * End the batch assembly process. This method blocks until all shards have finished adding domain objects.
+   * @throws IOException When an I/O error occurs
+   */
+  public void end() throws IOException {
+    Collection<Shard> ending = new ArrayList<>();
+    try {
+      while (ending.size() < shards.size()) {
+        ending.add(takeIdleShard());
+      }
+      for (Shard shard : ending) {
+        shard.end();
+      }
+    } finally {
+      idleShards.addAll(ending);
+    }
+  }
+
+  /**
+   * Returns the files that were generated by all shards as part of this batch and metrics about the SIPs stored in
+   * them.
+   * @return The files that were generated as part of this batch and metrics about the SIPs stored in them
+   */
+  public Collection<FileGenerationMetrics> getSipsMetrics() {
+    synchronized (sipsMetrics) {
+      return Collections.unmodifiableCollection(new ArrayList<>(sipsMetrics));
+    }
+  }
+
+
+  private class Shard extends BatchSipAssembler<D> {
+
+    Shard(SipAssembler<D> assembler, SipSegmentationStrategy<D> segmentationStrategy,
+        Supplier<File> fileSupplier) {
+      super(assembler, segmentationStrategy, fileSupplier);
+    }
+
+    @Override
+    protected void sipEnded(FileGenerationMetrics metrics) {
+      ParallelBatchSipAssembler.this.sipEnded(metrics);
+    }
+
+  }
+
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.sip;
+
+import java.io.CharArrayWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+import com.opentext.ia.sdk.support.io.DataBuffer;
+import com.opentext.ia.sdk.support.io.RuntimeIoException;
+
+
+/**
+ * Assemble a PDI by rendering the fragments for the domain objects on multiple threads.
+ * <p>
+ * Each domain object is rendered on a {@linkplain ForkJoinPool} into a fragment of its own, by one of several
+ * {@linkplain PrintWriterAssembler}s obtained from a supplier. The fragments are appended to the PDI in the order in
+ * which the domain objects were {@linkplain #add(HashedContents) added}, so the PDI is exactly the same as when a
+ * single assembler renders all domain objects. The header and footer of the PDI are rendered, and the PDI is validated,
+ * by the first assembler obtained from the supplier. Its {@linkplain #getMetrics() metrics} are the metrics of this
+ * assembler.
+ * <p>
+ * Since the assemblers render concurrently, they must not share state. To bound memory use, at most two domain objects
+ * per thread in the pool are rendered at any time. Fragments are appended to the PDI while new domain objects are added
+ * and when the assembly ends, so an error that occurs while rendering a domain object may be reported when a later
+ * domain object is added. For the same reason, the size of the PDI during assembly lags behind the domain objects
+ * added.
+ * <p>
+ * Only the PDI is rendered in parallel. The {@linkplain SipAssembler} still adds content to the SIP sequentially.
+ * @param <D> The type of domain objects to assemble the PDI from
+ */
+public class ParallelPdiAssembler<D> implements Assembler<HashedContents<D>> {
+
+  private static final int RENDERS_PER_THREAD = 2;
+
+  private final Supplier<? extends PrintWriterAssembler<HashedContents<D>>> assemblerSupplier;
+  private final ForkJoinPool pool;
+  private final PrintWriterAssembler<HashedContents<D>> frame;
+  private final Queue<Renderer> idleRenderers = new ConcurrentLinkedQueue<>();
+  private final Deque<Future<char[]>> pending = new ArrayDeque<>();
+
+  /**
+   * Create an instance that renders using the common {@linkplain ForkJoinPool}.
+   * @param assemblerSupplier Supplier of assemblers that render the PDI, one per thread in the pool plus one
+   */
+  public ParallelPdiAssembler(Supplier<? extends PrintWriterAssembler<HashedContents<D>>> assemblerSupplier) {
+    this(assemblerSupplier, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Create an instance.
+   * @param assemblerSupplier Supplier of assemblers that render the PDI, one per thread in the pool plus one
+   * @param pool The pool of threads to render with. The pool isn't shut down when the assembly ends
+   */
+  public ParallelPdiAssembler(Supplier<? extends PrintWriterAssembler<HashedContents<D>>> assemblerSupplier,
+      ForkJoinPool pool) {
+    this.assemblerSupplier = Objects.requireNonNull(assemblerSupplier, "Missing assembler supplier");
+    this.pool = Objects.requireNonNull(pool, "Missing pool");
+    this.frame = Objects.requireNonNull(assemblerSupplier.get(), "Missing assembler");
+  }
+
+  @Override
+  public void start(DataBuffer buffer) throws IOException {
+    cancelPending();
+    frame.start(buffer);
+  }
+
+  @Override
+  public void add(HashedContents<D> hashedContents) throws IOException {
+    pending.add(CompletableFuture.supplyAsync(() -> render(hashedContents), pool));
+    int maxPending = RENDERS_PER_THREAD * pool.getParallelism();
+    while (!pending.isEmpty() && (pending.size() >= maxPending || pending.peekFirst().isDone())) {
+      appendNext();
+    }
+  }
+
+  private char[] render(HashedContents<D> hashedContents) {
+    Renderer renderer = idleRenderers.poll();
+    if (renderer == null) {
+      renderer = new Renderer(assemblerSupplier.get());
+    }
+    try {
+      return renderer.render(hashedContents);
+    } catch (IOException e) {
+      throw new RuntimeIoException(e);
+    } finally {
+      idleRenderers.add(renderer);
+    }
+  }
+
+  private void appendNext() throws IOException {
+    Future<char[]> next = pending.removeFirst();
+    char[] fragment;
+    try {
+      fragment = next.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      cancelPending();
+      throw new IOException("Interrupted while rendering PDI", e);
+    } catch (ExecutionException e) {
+      cancelPending();
+      throw unwrap(e);
+    }
+    frame.addRendered(fragment);
+  }
+
+  private static IOException unwrap(ExecutionException e) {
+    Throwable cause = e.getCause();
+    if (cause instanceof RuntimeIoException) {
+      return ((RuntimeIoException)cause).getCause();
+    }
+    if (cause instanceof RuntimeException) {
+      throw (RuntimeException)cause;
+    }
+    if (cause instanceof Error) {
+      throw (Error)cause;
+    }
+    return new IOException(cause);
+  }
+
+  private void cancelPending() {
+    pending.forEach(future -> future.cancel(false));
+    pending.clear();
+  }
+
+  @Override
+  public void end() throws IOException {
+    while (!pending.isEmpty()) {
+      appendNext();
+    }
+    frame.end();
+  }
+
+  /**
+   * Return the number of bytes of the PDI written so far. This doesn't include fragments that are still being rendered.
+   * @return The number of bytes written
+   */
+  long numBytesWritten() {
+    return frame.numBytesWritten();
+  }
+
+  @Override
+  public PrintWriterMetrics getMetrics() {
+    return frame.getMetrics();
+  }
+
+
+  private class Renderer {
+
+    private final PrintWriterAssembler<HashedContents<D>> assembler;
+    private final CharArrayWriter fragment = new CharArrayWriter();
+    private final PrintWriter writer = new PrintWriter(fragment);
+
+    Renderer(PrintWriterAssembler<HashedContents<D>> assembler) {
+      this.assembler = Objects.requireNonNull(assembler, "Missing assembler");
+    }
+
+    char[] render(HashedContents<D> hashedContents) throws IOException {
+      fragment.reset();
+      assembler.add(hashedContents, writer);
+      writer.flush();
+      return fragment.toCharArray();
+    }
+
+  }
+
+}
@@ -5,8 +5,8 @@ package com.opentext.ia.sdk.sip;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
+import java.io.Writer;
 import java.nio.charset.StandardCharsets;
 import java.util.Objects;
 
@@ -15,16 +15,30 @@ import javax.validation.ValidationException;
 import org.apache.commons.io.IOUtils;
 
 import com.opentext.ia.sdk.support.io.DataBuffer;
+import com.opentext.ia.sdk.support.io.Utf8Writer;
 
 /**
- * Base class for assembling a product from domain objects by writing to a {@linkplain PrintWriter}.
+ * Base class for assembling a product from domain objects by writing to a {@linkplain PrintWriter}. The time spent
+ * writing and validating the product is available from {@linkplain #getMetrics()}.
+ * <p>
+ * The product is encoded as UTF-8 by a {@linkplain Utf8Writer} that hands it to the buffer in large chunks. Flushing
+ * the writer therefore doesn't make the written content available in the buffer; ending the assembly does.
+ * <p>
+ * The product is validated after it's completely written, unless the validator is a {@linkplain StreamingValidator}.
+ * In that case, the product is validated while it's being written and assembly fails as soon as an invalid domain
+ * object is added. A {@linkplain SamplingValidator} decides for every product whether it's validated at all.
  * @param <D> The type of domain objects to assemble the product from
  */
 public abstract class PrintWriterAssembler<D> implements Assembler<D> {
 
   private final Validator validator;
+  private Validator productValidator;
   private PrintWriter printWriter;
+  private Utf8Writer utf8Writer;
   private DataBuffer buffer;
+  private StreamingValidation streamingValidation;
+  private long writingTime;
+  private long validationTime;
 
   /**
    * Start the assembly process.
@@ -65,33 +79,102 @@ public abstract class PrintWriterAssembler<D> implements Assembler<D> {
 
   @Override
   public final void start(DataBuffer dataBuffer) throws IOException {
+    long startTime = System.nanoTime();
     buffer = dataBuffer;
-    printWriter = new PrintWriter(new OutputStreamWriter(buffer.openForWriting(), StandardCharsets.UTF_8));
+    writingTime = 0;
+    validationTime = 0;
+    utf8Writer = new Utf8Writer(buffer.openForWriting(), Utf8Writer.DEFAULT_CHUNK_SIZE, true);
+    Writer writer = utf8Writer;
+    productValidator = validator instanceof SamplingValidator ? ((SamplingValidator)validator).next() : validator;
+    IOUtils.closeQuietly(streamingValidation);
+    streamingValidation = null;
+    if (productValidator instanceof StreamingValidator) {
+      streamingValidation = ((StreamingValidator)productValidator).startValidation();
+      writer = new TeeWriter(writer, streamingValidation.getWriter());
+    }
+    printWriter = new PrintWriter(writer);
     start(printWriter);
+    writingTime += System.nanoTime() - startTime;
   }
 
   @Override
   public final void add(D domainObject) throws IOException {
     Objects.requireNonNull(printWriter, "Should call start() first");
-    add(domainObject, printWriter);
+    long startTime = System.nanoTime();
+    if (streamingValidation == null) {
+      add(domainObject, printWriter);
+    } else {
+      addValidated(() -> add(domainObject, printWriter));
+    }
+    writingTime += System.nanoTime() - startTime;
+  }
+
+  /**
+   * Add a part of the product that was rendered by another instance, as if the domain object it was rendered from was
+   * added to this instance.
+   * @param fragment The rendered part of the product
+   * @throws IOException When an I/O error occurs
+   */
+  void addRendered(char[] fragment) throws IOException {
+    Objects.requireNonNull(printWriter, "Should call start() first");
+    long startTime = System.nanoTime();
+    if (streamingValidation == null) {
+      printWriter.write(fragment);
+    } else {
+      addValidated(() -> printWriter.write(fragment));
+    }
+    writingTime += System.nanoTime() - startTime;
+  }
+
+  private void addValidated(ItemWriter itemWriter) throws IOException {
+    try {
+      streamingValidation.startItem();
+      itemWriter.write();
+      streamingValidation.endItem();
+    } catch (ValidationException e) {
+      IOUtils.closeQuietly(streamingValidation);
+      streamingValidation = null;
+      throw new IOException(e.getMessage(), e);
+    }
   }
 
   @Override
   public final void end() throws IOException {
     Objects.requireNonNull(printWriter, "Should call start() first");
+    long startTime = System.nanoTime();
     end(printWriter);
     printWriter.flush();
     printWriter.close();
     printWriter = null;
-    if (validator != null) {
-      validate();
+    writingTime += System.nanoTime() - startTime;
+    if (productValidator != null) {
+      startTime = System.nanoTime();
+      try {
+        if (streamingValidation == null) {
+          validate();
+        } else {
+          endValidation();
+        }
+      } finally {
+        validationTime = System.nanoTime() - startTime;
+      }
+    }
+  }
+
+  private void endValidation() throws IOException {
+    try {
+      streamingValidation.end();
+    } catch (ValidationException e) {
+      throw new IOException(e.getMessage(), e);
+    } finally {
+      streamingValidation = null;
     }
   }
 
   private void validate() throws IOException {
     try (InputStream output = buffer.openForReading()) {
       try {
-        validator.validate(output);
+        productValidator.validate(output);
       } catch (ValidationException e) {
         try (InputStream actual = buffer.openForReading()) {
           throw new IOException("Invalid content:" + System.lineSeparator()
@@ -101,10 +184,66 @@ public abstract class PrintWriterAssembler<D> implements Assembler<D> {
     }
   }
 
+  /**
+   * Return the number of bytes of the product written so far. Unlike the length of the buffer, this includes bytes that
+   * are not yet handed to the buffer.
+   * @return The number of bytes written
+   */
+  long numBytesWritten() {
+    return utf8Writer == null ? 0 : utf8Writer.numBytesWritten();
+  }
+
   @Override
-  @SuppressWarnings("PMD.EmptyMethodInAbstractClassShouldBeAbstract") // This *is* the real implementation
-  public Metrics getMetrics() {
-    return null;
+  public PrintWriterMetrics getMetrics() {
+    return new PrintWriterMetrics(writingTime, validationTime, productValidator != null);
+  }
+
+
+  @FunctionalInterface
+  private interface ItemWriter {
+
+    void write() throws IOException;
+
+  }
+
+
+  private static class TeeWriter extends Writer {
+
+    private final Writer first;
+    private final Writer second;
+
+    TeeWriter(Writer first, Writer second) {
+      this.first = first;
+      this.second = second;
+    }
+
+    @Override
+    public void write(char[] buffer, int offset, int length) throws IOException {
+      first.write(buffer, offset, length);
+      second.write(buffer, offset, length);
+    }
+
+    @Override
+    public void write(String text, int offset, int length) throws IOException {
+      first.write(text, offset, length);
+      second.write(text, offset, length);
+    }
+
+    @Override
+    public void flush() throws IOException {
+      first.flush();
+      second.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+      try {
+        first.close();
+      } finally {
+        second.close();
+      }
+    }
+
   }
 
 }
@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.sip;
+
+/**
+ * Metrics about the {@linkplain PrintWriterAssembler assembly process} of a product that is written to a
+ * {@linkplain java.io.PrintWriter}.
+ */
+public class PrintWriterMetrics implements Metrics {
+
+  private final long writingTime;
+  private final long validationTime;
+  private final boolean validated;
+
+  PrintWriterMetrics(long writingTime, long validationTime, boolean validated) {
+    this.writingTime = writingTime;
+    this.validationTime = validationTime;
+    this.validated = validated;
+  }
+
+  /**
+   * Return the time spent writing the product.
+   * @return The time spent writing the product in nanoseconds
+   */
+  public long writingTime() {
+    return writingTime;
+  }
+
+  /**
+   * Return the time spent validating the product.
+   * @return The time spent validating the product in nanoseconds
+   */
+  public long validationTime() {
+    return validationTime;
+  }
+
+  /**
+   * Return whether the product was validated. It isn't when there is no validator, or when a
+   * {@linkplain SamplingValidator} left it out of the sample.
+   * @return Whether the product was validated
+   */
+  public boolean isValidated() {
+    return validated;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("writing=%dns, validation=%dns, validated=%b", writingTime, validationTime, validated);
+  }
+
+}
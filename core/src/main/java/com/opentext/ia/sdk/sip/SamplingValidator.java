@@ -0,0 +1,258 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.sip;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongPredicate;
+
+import javax.validation.ValidationException;
+
+import com.opentext.ia.sdk.support.io.EncodedHash;
+
+
+/**
+ * {@linkplain Validator} decorator that validates only a sample of the products, to trade validation time for
+ * throughput when the products are known to be almost always valid. Once a validation fails, all subsequent products
+ * are validated.
+ * <p>
+ * A {@linkplain PrintWriterAssembler} asks this validator for every product whether to validate it. Sampled products
+ * are validated by the decorated validator, so that a {@linkplain StreamingValidator} still validates while writing. The
+ * assembler's {@linkplain PrintWriterMetrics metrics} report whether a product was validated, and so do the
+ * {@linkplain SipMetrics#numPdisValidated() SIP metrics}. The statistics of this validator cover all products.
+ * <p>
+ * Instances are thread-safe, so they can be shared between assemblers that run in parallel.
+ */
+public final class SamplingValidator implements Validator {
+
+  private static final double MAX_PERCENTAGE = 100.0;
+
+  private final Validator validator;
+  private final LongPredicate sample;
+  private final AtomicBoolean firstInDss;
+  private final AtomicLong numProducts = new AtomicLong();
+  private final AtomicLong numValidated = new AtomicLong();
+  private final AtomicLong numFailed = new AtomicLong();
+  private volatile boolean validatingAll;
+
+  private SamplingValidator(Validator validator, LongPredicate sample) {
+    this(validator, sample, new AtomicBoolean(true));
+  }
+
+  private SamplingValidator(Validator validator, LongPredicate sample, AtomicBoolean firstInDss) {
+    this.validator = Objects.requireNonNull(validator, "Missing validator");
+    this.sample = sample;
+    this.firstInDss = firstInDss;
+  }
+
+  /**
+   * Return a validator that validates every n-th product, starting with the first.
+   * @param validator The validator to use for products in the sample
+   * @param n The distance between validated products
+   * @return A validator that validates every n-th product
+   */
+  public static SamplingValidator everyNth(Validator validator, long n) {
+    if (n < 1) {
+      throw new IllegalArgumentException("Distance between validated products must be positive: " + n);
+    }
+    return new SamplingValidator(validator, index -> index % n == 0);
+  }
+
+  /**
+   * Return a validator that validates a random percentage of the products.
+   * @param validator The validator to use for products in the sample
+   * @param percentage The percentage of products to validate, between 0 and 100
+   * @return A validator that validates a random percentage of the products
+   */
+  public static SamplingValidator randomPercentage(Validator validator, double percentage) {
+    if (percentage < 0 || percentage > MAX_PERCENTAGE) {
+      throw new IllegalArgumentException("Percentage must be between 0 and 100: " + percentage);
+    }
+    return new SamplingValidator(validator,
+        index -> ThreadLocalRandom.current().nextDouble() * MAX_PERCENTAGE < percentage);
+  }
+
+  /**
+   * Return a validator that validates the PDI of the first SIP of every Data Submission Session (DSS). This validator
+   * learns where DSSs end from the packaging information of the SIPs, so the {@linkplain SipAssembler} must use a
+   * factory that is {@linkplain #observing(PackagingInformationFactory) observed} by this validator.
+   * @param validator The validator to use for products in the sample
+   * @return A validator that validates the first PDI in every DSS
+   */
+  public static SamplingValidator firstSipInDss(Validator validator) {
+    AtomicBoolean firstInDss = new AtomicBoolean(true);
+    return new SamplingValidator(validator, index -> firstInDss.getAndSet(false), firstInDss);
+  }
+
+  /**
+   * Decorate a factory so that this validator learns where Data Submission Sessions end.
+   * @param factory The factory to decorate
+   * @return A factory that creates the same packaging information as the given factory
+   * @see #firstSipInDss(Validator)
+   */
+  public PackagingInformationFactory observing(PackagingInformationFactory factory) {
+    Objects.requireNonNull(factory, "Missing factory");
+    return new PackagingInformationFactory() {
+      @Override
+      public PackagingInformation newInstance(long aiuCount, Optional<EncodedHash> pdiHash) {
+        PackagingInformation result = factory.newInstance(aiuCount, pdiHash);
+        if (result.isLast()) {
+          firstInDss.set(true);
+        }
+        return result;
+      }
+
+      @Override
+      public void setFinalSipInDss(boolean finalSipInDss) {
+        factory.setFinalSipInDss(finalSipInDss);
+      }
+    };
+  }
+
+  /**
+   * Decide whether the next product should be validated.
+   * @return The validator to validate the next product with, or <code>null</code> if the product shouldn't be
+   *         validated
+   */
+  Validator next() {
+    long index = numProducts.getAndIncrement();
+    if (!sample.test(index) && !validatingAll) {
+      return null;
+    }
+    numValidated.incrementAndGet();
+    return validator instanceof StreamingValidator ? new FailureTrackingStreamingValidator() : this::validateSampled;
+  }
+
+  private void validateSampled(InputStream stream) {
+    try {
+      validator.validate(stream);
+    } catch (ValidationException e) {
+      failed();
+      throw e;
+    }
+  }
+
+  private void failed() {
+    numFailed.incrementAndGet();
+    validatingAll = true;
+  }
+
+  @Override
+  public void validate(InputStream stream) {
+    Validator sampled = next();
+    if (sampled != null) {
+      sampled.validate(stream);
+    }
+  }
+
+  /**
+   * Return the number of products that this validator was asked to validate.
+   * @return The number of products that this validator was asked to validate
+   */
+  public long numProducts() {
+    return numProducts.get();
+  }
+
+  /**
+   * Return the number of products that were validated.
+   * @return The number of products that were validated
+   */
+  public long numValidated() {
+    return numValidated.get();
+  }
+
+  /**
+   * Return the number of products that were not validated.
+   * @return The number of products that were not validated
+   */
+  public long numSkipped() {
+    return numProducts() - numValidated();
+  }
+
+  /**
+   * Return the number of products that failed validation.
+   * @return The number of products that failed validation
+   */
+  public long numFailed() {
+    return numFailed.get();
+  }
+
+  /**
+   * Return whether this validator validates all products, because a validation failed.
+   * @return Whether this validator validates all products
+   */
+  public boolean isValidatingAll() {
+    return validatingAll;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("validated=%d, skipped=%d, failed=%d", numValidated(), numSkipped(), numFailed());
+  }
+
+
+  private class FailureTrackingStreamingValidator implements StreamingValidator {
+
+    @Override
+    public void validate(InputStream stream) {
+      validateSampled(stream);
+    }
+
+    @Override
+    public StreamingValidation startValidation() {
+      StreamingValidation result = ((StreamingValidator)validator).startValidation();
+      return new StreamingValidation() {
+        @Override
+        public Writer getWriter() {
+          return result.getWriter();
+        }
+
+        @Override
+        public void startItem() throws IOException {
+          track(result::startItem);
+        }
+
+        @Override
+        public void endItem() throws IOException {
+          track(result::endItem);
+        }
+
+        @Override
+        public void end() throws IOException {
+          track(result::end);
+        }
+
+        @Override
+        public void close() {
+          result.close();
+        }
+      };
+    }
+
+    private void track(ValidationStep step) throws IOException {
+      try {
+        step.run();
+      } catch (ValidationException e) {
+        failed();
+        throw e;
+      }
+    }
+
+  }
+
+
+  @FunctionalInterface
+  private interface ValidationStep {
+
+    void run() throws IOException;
+
+  }
+
+}
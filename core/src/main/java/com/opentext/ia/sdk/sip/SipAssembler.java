@@ -3,6 +3,7 @@
  */
 package com.opentext.ia.sdk.sip;
 
+import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Map;
@@ -20,6 +21,7 @@ import com.opentext.ia.sdk.support.io.HashAssembler;
 import com.opentext.ia.sdk.support.io.MemoryBuffer;
 import com.opentext.ia.sdk.support.io.NoHashAssembler;
 import com.opentext.ia.sdk.support.io.RuntimeIoException;
+import com.opentext.ia.sdk.support.io.SpillableBuffer;
 import com.opentext.ia.sdk.support.io.ZipAssembler;
 
 /**
@@ -44,7 +46,9 @@ import com.opentext.ia.sdk.support.io.ZipAssembler;
  * {@linkplain ZipAssembler}. Each domain object may also contain zero or more {@linkplain DigitalObject}s, which are
  * extracted from the domain object using a {@linkplain DigitalObjectsExtraction} and added to the ZIP. The PDI is
  * written to a {@linkplain DataBuffer} until it is complete. For small PDIs, you can use a {@linkplain MemoryBuffer} to
- * hold this data, but for larger PDIs you should use a {@linkplain FileBuffer} to prevent running out of memory.
+ * hold this data, but for larger PDIs you should use a {@linkplain FileBuffer} to prevent running out of memory. The
+ * factory methods use a {@linkplain SpillableBuffer}, which keeps small PDIs in memory and moves larger ones to a
+ * temporary file.
  * <p>
  * Use the following steps to assemble a SIP:
  * <ol>
@@ -53,6 +57,13 @@ import com.opentext.ia.sdk.support.io.ZipAssembler;
  * <li>Finish the process by calling the {@linkplain #end()} method</li>
  * </ol>
  * You can optionally get metrics about the SIP assembly process by calling {@linkplain #getMetrics()} at any time.
+ * Use {@linkplain #currentMetrics()} instead if you need to inspect the metrics often, e.g. for every domain object.
+ * Besides counts and sizes, the metrics contain the time spent in each phase of the assembly process and the
+ * distribution of the time it took to add individual AIUs and digital objects.
+ * While the SIP is being assembled, the size of the SIP file is an estimate based on the bytes written to the ZIP so
+ * far and the expected compressed size of the PDI, which is sampled while the PDI is written. Until the first part of
+ * the PDI has been sampled, which may not happen before the end of the first SIP, the estimate is on the high side.
+ * After {@linkplain #end()}, the size of the SIP file is the actual size.
  * <p>
  * If the number of domain objects is small and each individual domain object is also small, you can wrap a
  * {@linkplain SipAssembler} in a {@linkplain Generator} to reduce the above code to a single call.
@@ -66,17 +77,21 @@ public class SipAssembler<D> implements Assembler<D> {
   private static final String PACKAGING_INFORMATION_ENTRY = "eas_sip.xml";
   private static final String PDI_ENTRY = "eas_pdi.xml";
 
-  private final ZipAssembler zip;
+  private final SizeTrackingZipAssembler zip;
   private final Assembler<PackagingInformation> packagingInformationAssembler;
   private final Assembler<HashedContents<D>> pdiAssembler;
   private final HashAssembler pdiHashAssembler;
   private final Supplier<? extends DataBuffer> pdiBufferSupplier;
   private final PackagingInformationFactory packagingInformationFactory;
   private final Counters metrics = new Counters();
+  private final CompressionEstimate pdiCompression = new CompressionEstimate();
+  private final SipMetrics currentMetrics = new SipMetrics(metrics.view());
   private final ContentAssembler<D> contentAssembler;
+  private boolean estimatingSipFileSize;
   private DataBuffer pdiBuffer;
   private DataBuffer sipFileBuffer;
   private Optional<EncodedHash> pdiHash;
+  private long packagingInformationSize;
 
   /**
    * Assemble a SIP that contains only structured data and is the only SIP in its DSS.
@@ -230,7 +245,7 @@ public class SipAssembler<D> implements Assembler<D> {
       Assembler<HashedContents<D>> pdiAssembler, HashAssembler pdiHashAssembler,
       DigitalObjectsExtraction<D> contentsExtraction, HashAssembler contentHashAssembler) {
     return new SipAssembler<>(new DefaultPackagingInformationFactory(prototype), pdiAssembler, pdiHashAssembler,
-        new DataBufferSupplier<>(MemoryBuffer.class),
+        new DataBufferSupplier<>(SpillableBuffer.class),
         new ContentAssemblerDefault<D>(contentsExtraction, contentHashAssembler));
   }
 
@@ -246,7 +261,7 @@ public class SipAssembler<D> implements Assembler<D> {
   public static <D> SipAssembler<D> forPdiAndContentWithHashing(PackagingInformation prototype,
       Assembler<HashedContents<D>> pdiAssembler, HashAssembler pdiHashAssembler, ContentAssembler<D> contentAssembler) {
     return new SipAssembler<>(new DefaultPackagingInformationFactory(prototype), pdiAssembler, pdiHashAssembler,
-        new DataBufferSupplier<>(MemoryBuffer.class), contentAssembler);
+        new DataBufferSupplier<>(SpillableBuffer.class), contentAssembler);
   }
 
   /**
@@ -260,7 +275,7 @@ public class SipAssembler<D> implements Assembler<D> {
    */
   public static <D> SipAssembler<D> forPdiAndContentWithHashing(PackagingInformationFactory factory,
       Assembler<HashedContents<D>> pdiAssembler, HashAssembler pdiHashAssembler, ContentAssembler<D> contentAssembler) {
-    return new SipAssembler<>(factory, pdiAssembler, pdiHashAssembler, new DataBufferSupplier<>(MemoryBuffer.class),
+    return new SipAssembler<>(factory, pdiAssembler, pdiHashAssembler, new DataBufferSupplier<>(SpillableBuffer.class),
         contentAssembler);
   }
 
@@ -279,6 +294,24 @@ public class SipAssembler<D> implements Assembler<D> {
         pdiBufferSupplier, new DefaultZipAssembler(), contentAssembler);
   }
 
+  /**
+   * Create a new instance that uses a specific ZIP assembler, for instance a {@linkplain DefaultZipAssembler} with a
+   * {@linkplain com.opentext.ia.sdk.support.io.ZipCompressionPolicy compression policy}.
+   * @param packagingInformationFactory Factory for creating the Packaging Information
+   * @param pdiAssembler Assembler that builds up the PDI
+   * @param pdiHashAssembler Assembler that builds up an encoded hash for the PDI and the unstructured data
+   * @param pdiBufferSupplier Supplier for a data buffer to store the PDI
+   * @param contentAssembler ContentAssembler that adds the digital objects to the SIP
+   * @param zipAssembler Assembler that builds up the SIP's ZIP file
+   */
+  public SipAssembler(PackagingInformationFactory packagingInformationFactory,
+      Assembler<HashedContents<D>> pdiAssembler, HashAssembler pdiHashAssembler,
+      Supplier<? extends DataBuffer> pdiBufferSupplier, ContentAssembler<D> contentAssembler,
+      ZipAssembler zipAssembler) {
+    this(packagingInformationFactory, new InfoArchivePackagingInformationAssembler(), pdiAssembler, pdiHashAssembler,
+        pdiBufferSupplier, zipAssembler, contentAssembler);
+  }
+
   SipAssembler(PackagingInformationFactory packagingInformationFactory,
       Assembler<PackagingInformation> packagingInformationAssembler, Assembler<HashedContents<D>> pdiAssembler,
       HashAssembler pdiHashAssembler, Supplier<? extends DataBuffer> pdiBufferSupplier, ZipAssembler zipAssembler,
@@ -289,7 +322,7 @@ public class SipAssembler<D> implements Assembler<D> {
     this.pdiHashAssembler = pdiHashAssembler;
     this.pdiBufferSupplier = pdiBufferSupplier;
     this.contentAssembler = contentAssembler;
-    this.zip = zipAssembler;
+    this.zip = new SizeTrackingZipAssembler(zipAssembler, metrics);
   }
 
   @Override
@@ -297,7 +330,7 @@ public class SipAssembler<D> implements Assembler<D> {
     this.sipFileBuffer = buffer;
     pdiHash = Optional.empty();
     metrics.reset();
-    metrics.set(SipMetrics.ASSEMBLY_TIME, System.currentTimeMillis());
+    metrics.set(SipMetric.ASSEMBLY_TIME, System.currentTimeMillis());
     zip.begin(sipFileBuffer.openForWriting());
     contentAssembler.begin(zip, metrics);
     startPdi();
@@ -305,25 +338,52 @@ public class SipAssembler<D> implements Assembler<D> {
 
   private synchronized void startPdi() throws IOException {
     pdiBuffer = pdiBufferSupplier.get();
+    if (estimatingSipFileSize) {
+      pdiBuffer = new CompressionEstimatingBuffer(pdiBuffer, pdiCompression);
+    }
     pdiAssembler.start(pdiBuffer);
   }
 
   @Override
   public synchronized void add(D domainObject) {
     try {
+      long startTime = System.nanoTime();
       Map<String, ContentInfo> contentInfo;
       contentInfo = contentAssembler.addContentsOf(domainObject);
+      long renderingStartTime = System.nanoTime();
       pdiAssembler.add(new HashedContents<>(domainObject, contentInfo));
-      metrics.inc(SipMetrics.NUM_AIUS);
-      setPdiSize(pdiBuffer.length()); // Approximate PDI size until the end, when we know for sure
+      long endTime = System.nanoTime();
+      metrics.record(SipMetric.TIME_PDI_RENDERING, endTime - renderingStartTime);
+      metrics.record(SipMetric.TIME_AIUS, endTime - startTime);
+      metrics.inc(SipMetric.NUM_AIUS);
+      setPdiSize(currentPdiSize()); // Approximate PDI size until the end, when we know for sure
+      if (estimatingSipFileSize) {
+        metrics.set(SipMetric.SIZE_SIP_FILE, estimateSipFileSize());
+      }
     } catch (IOException e) {
       throw new RuntimeIoException(e);
     }
   }
 
+  private long currentPdiSize() {
+    if (pdiAssembler instanceof PrintWriterAssembler) {
+      return ((PrintWriterAssembler<?>)pdiAssembler).numBytesWritten();
+    }
+    if (pdiAssembler instanceof ParallelPdiAssembler) {
+      return ((ParallelPdiAssembler<?>)pdiAssembler).numBytesWritten();
+    }
+    return pdiBuffer.length();
+  }
+
   private void setPdiSize(long pdiSize) {
-    metrics.set(SipMetrics.SIZE_PDI, pdiSize);
-    metrics.set(SipMetrics.SIZE_SIP, metrics.get(SipMetrics.SIZE_DIGITAL_OBJECTS) + metrics.get(SipMetrics.SIZE_PDI));
+    metrics.set(SipMetric.SIZE_PDI, pdiSize);
+    metrics.set(SipMetric.SIZE_SIP, metrics.get(SipMetric.SIZE_DIGITAL_OBJECTS) + metrics.get(SipMetric.SIZE_PDI));
+  }
+
+  private long estimateSipFileSize() {
+    // Assume the Packaging Information is about as big as in the previous SIP, since it's not known until the end
+    long compressedSize = pdiCompression.compressedSize(metrics.get(SipMetric.SIZE_PDI)) + packagingInformationSize;
+    return zip.estimateSize(compressedSize, PDI_ENTRY, PACKAGING_INFORMATION_ENTRY);
   }
 
   @Override
@@ -331,20 +391,46 @@ public class SipAssembler<D> implements Assembler<D> {
     try {
       endPdi();
       addPackagingInformation();
+      contentAssembler.end();
     } finally {
       IOUtils.closeQuietly(zip);
-      metrics.set(SipMetrics.ASSEMBLY_TIME, System.currentTimeMillis() - metrics.get(SipMetrics.ASSEMBLY_TIME));
-      metrics.set(SipMetrics.SIZE_SIP_FILE, sipFileBuffer.length());
+      metrics.set(SipMetric.ASSEMBLY_TIME, System.currentTimeMillis() - metrics.get(SipMetric.ASSEMBLY_TIME));
+      metrics.set(SipMetric.SIZE_SIP_FILE, sipFileBuffer.length());
     }
   }
 
   private synchronized void endPdi() throws IOException {
     try {
+      long startTime = System.nanoTime();
       pdiAssembler.end();
+      long zipStartTime = System.nanoTime();
+      recordPdiEnd(zipStartTime - startTime);
       addPdiToZip();
+      metrics.record(SipMetric.TIME_PDI_ZIP, System.nanoTime() - zipStartTime);
     } finally {
-      pdiBuffer = null;
+      releasePdiBuffer();
+    }
+  }
+
+  private void recordPdiEnd(long nanos) {
+    Metrics pdiMetrics = pdiAssembler.getMetrics();
+    long validationTime = 0;
+    if (pdiMetrics instanceof PrintWriterMetrics) {
+      PrintWriterMetrics printWriterMetrics = (PrintWriterMetrics)pdiMetrics;
+      validationTime = printWriterMetrics.validationTime();
+      if (printWriterMetrics.isValidated()) {
+        metrics.inc(SipMetric.NUM_PDIS_VALIDATED);
+      }
+    }
+    metrics.record(SipMetric.TIME_PDI_END, nanos - validationTime);
+    metrics.record(SipMetric.TIME_PDI_VALIDATION, validationTime);
+  }
+
+  private void releasePdiBuffer() {
+    if (pdiBuffer instanceof Closeable) {
+      IOUtils.closeQuietly((Closeable)pdiBuffer);
     }
+    pdiBuffer = null;
   }
 
   void addPdiToZip() throws IOException {
@@ -362,16 +448,16 @@ public class SipAssembler<D> implements Assembler<D> {
     packagingInformationAssembler.start(buffer);
     packagingInformationAssembler.add(packagingInformation());
     packagingInformationAssembler.end();
-    long packagingInformationSize = buffer.length();
+    packagingInformationSize = buffer.length();
     try (InputStream stream = buffer.openForReading()) {
       zip.addEntry(PACKAGING_INFORMATION_ENTRY, stream, new NoHashAssembler());
     }
-    metrics.set(SipMetrics.SIZE_SIP,
-        metrics.get(SipMetrics.SIZE_DIGITAL_OBJECTS) + metrics.get(SipMetrics.SIZE_PDI) + packagingInformationSize);
+    metrics.set(SipMetric.SIZE_SIP,
+        metrics.get(SipMetric.SIZE_DIGITAL_OBJECTS) + metrics.get(SipMetric.SIZE_PDI) + packagingInformationSize);
   }
 
   private PackagingInformation packagingInformation() {
-    return packagingInformationFactory.newInstance(metrics.get(SipMetrics.NUM_AIUS), pdiHash);
+    return packagingInformationFactory.newInstance(metrics.get(SipMetric.NUM_AIUS), pdiHash);
   }
 
   @Override
@@ -379,6 +465,27 @@ public class SipAssembler<D> implements Assembler<D> {
     return new SipMetrics(metrics.forReading());
   }
 
+  /**
+   * Returns a live view of the metrics of the SIP that is currently being assembled. Unlike {@linkplain #getMetrics()},
+   * this doesn't copy the metrics, so it's cheap enough to call for every domain object. The returned metrics change
+   * when the SIP assembly progresses, so don't hold on to them.
+   * @return A read-only view of the current metrics
+   */
+  public SipMetrics currentMetrics() {
+    return currentMetrics;
+  }
+
+  /**
+   * Set whether to estimate the size of the SIP file while assembling, so that {@linkplain SipMetrics#sipFileSize()}
+   * is meaningful before the SIP ends. This samples how well the PDI compresses and updates the estimate for every
+   * domain object, so it's off by default. A {@linkplain BatchSipAssembler} turns it on when its segmentation strategy
+   * {@linkplain SipSegmentationStrategy#needsSipFileSize() needs} it. Change this setting only between SIPs.
+   * @param estimatingSipFileSize Whether to estimate the size of the SIP file while assembling
+   */
+  public synchronized void setEstimatingSipFileSize(boolean estimatingSipFileSize) {
+    this.estimatingSipFileSize = estimatingSipFileSize;
+  }
+
   public PackagingInformationFactory getPackagingInformationFactory() {
     return packagingInformationFactory;
   }
@@ -0,0 +1,33 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.sip;
+
+
+/**
+ * {@linkplain SipSegmentationStrategy} that keeps the size of the SIP file below a maximum. A new SIP is started when
+ * adding another AIU of average size would make the {@linkplain SipMetrics#sipFileSize() estimated size} of the SIP
+ * file exceed the maximum.
+ * @param <D> The type of domain objects to segment into different SIPs
+ */
+class SipFileSizeSegmentationStrategy<D> implements SipSegmentationStrategy<D> {
+
+  private final long maxSize;
+
+  SipFileSizeSegmentationStrategy(long maxSize) {
+    this.maxSize = maxSize;
+  }
+
+  @Override
+  public boolean shouldStartNewSip(D domainObject, SipMetrics metrics) {
+    long numAius = metrics.numAius();
+    long sipFileSize = metrics.sipFileSize();
+    return numAius > 0 && sipFileSize + sipFileSize / numAius > maxSize;
+  }
+
+  @Override
+  public boolean needsSipFileSize() {
+    return true;
+  }
+
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.sip;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A metric about the SIP assembly process that is tracked in {@linkplain Counters}.
+ * @see SipMetrics
+ */
+public enum SipMetric {
+
+  NUM_AIUS("# AIUs"),
+  NUM_DIGITAL_OBJECTS("# digitial objects"),
+  SIZE_DIGITAL_OBJECTS("size of digital objects"),
+  SIZE_PDI("size of PDI"),
+  SIZE_SIP("size of SIP"),
+  SIZE_SIP_FILE("size of SIP file"),
+  NUM_PDIS_VALIDATED("# validated PDIs"),
+  ASSEMBLY_TIME("time to assemble (ms)"),
+  TIME_AIUS("time to add AIUs (ns)", true),
+  TIME_DIGITAL_OBJECTS("time to add digital objects (ns)", true),
+  TIME_PDI_RENDERING("time to render PDI (ns)", true),
+  TIME_PDI_END("time to end PDI (ns)", true),
+  TIME_PDI_VALIDATION("time to validate PDI (ns)", true),
+  TIME_PDI_ZIP("time to add PDI to SIP (ns)", true),
+  TIME_ZIP_READ("time to read ZIP entries (ns)", true),
+  TIME_ZIP_HASH("time to hash ZIP entries (ns)", true),
+  TIME_ZIP_WRITE("time to deflate and write ZIP entries (ns)", true);
+
+  private static final Map<String, SipMetric> METRICS_BY_NAME = new HashMap<>();
+
+  static {
+    for (SipMetric metric : values()) {
+      METRICS_BY_NAME.put(metric.name, metric);
+    }
+  }
+
+  private final String name;
+  private final boolean timer;
+
+  SipMetric(String name) {
+    this(name, false);
+  }
+
+  SipMetric(String name, boolean timer) {
+    this.name = name;
+    this.timer = timer;
+  }
+
+  /**
+   * Return whether this metric is the total of a number of measured durations, whose distribution is kept in a
+   * {@linkplain LatencyHistogram}.
+   * @return Whether this metric is a timer
+   */
+  public boolean isTimer() {
+    return timer;
+  }
+
+  /**
+   * Return the metric with the given human-readable name.
+   * @param name The human-readable name of the metric
+   * @return The metric with the given name, or <code>null</code> if there is no such metric
+   */
+  static SipMetric named(String name) {
+    return METRICS_BY_NAME.get(name);
+  }
+
+  /**
+   * Return the human-readable name of the metric.
+   * @return The human-readable name of the metric
+   */
+  @Override
+  public String toString() {
+    return name;
+  }
+
+}
@@ -8,14 +8,6 @@ package com.opentext.ia.sdk.sip;
  */
 public class SipMetrics implements Metrics {
 
-  static final String NUM_AIUS = "# AIUs";
-  static final String NUM_DIGITAL_OBJECTS = "# digitial objects";
-  static final String SIZE_DIGITAL_OBJECTS = "size of digital objects";
-  static final String SIZE_PDI = "size of PDI";
-  static final String SIZE_SIP = "size of SIP";
-  static final String SIZE_SIP_FILE = "size of SIP file";
-  static final String ASSEMBLY_TIME = "time to assemble (ms)";
-
   private final Counters counters;
 
   SipMetrics(Counters metrics) {
@@ -23,31 +15,140 @@ public class SipMetrics implements Metrics {
   }
 
   public long numAius() {
-    return counters.get(NUM_AIUS);
+    return counters.get(SipMetric.NUM_AIUS);
   }
 
   public long numDigitalObjects() {
-    return counters.get(NUM_DIGITAL_OBJECTS);
+    return counters.get(SipMetric.NUM_DIGITAL_OBJECTS);
   }
 
   public long digitalObjectsSize() {
-    return counters.get(SIZE_DIGITAL_OBJECTS);
+    return counters.get(SipMetric.SIZE_DIGITAL_OBJECTS);
   }
 
   public long pdiSize() {
-    return counters.get(SIZE_PDI);
+    return counters.get(SipMetric.SIZE_PDI);
   }
 
   public long sipSize() {
-    return counters.get(SIZE_SIP);
+    return counters.get(SipMetric.SIZE_SIP);
   }
 
   public long sipFileSize() {
-    return counters.get(SIZE_SIP_FILE);
+    return counters.get(SipMetric.SIZE_SIP_FILE);
+  }
+
+  /**
+   * Return the number of PDIs that were validated. For a single SIP, this is 1 when its PDI was validated and 0 when
+   * it wasn't, for instance because a {@linkplain SamplingValidator} left it out of the sample.
+   * @return The number of validated PDIs
+   */
+  public long numPdisValidated() {
+    return counters.get(SipMetric.NUM_PDIS_VALIDATED);
   }
 
   public long assemblyTime() {
-    return counters.get(ASSEMBLY_TIME);
+    return counters.get(SipMetric.ASSEMBLY_TIME);
+  }
+
+  /**
+   * Return the total time spent adding AIUs, including their digital objects.
+   * @return The total time spent adding AIUs in nanoseconds
+   */
+  public long aiusTime() {
+    return counters.get(SipMetric.TIME_AIUS);
+  }
+
+  /**
+   * Return the distribution of the time it took to add individual AIUs, including their digital objects.
+   * @return The distribution of the time it took to add an AIU
+   */
+  public LatencyHistogram aiuLatency() {
+    return counters.histogram(SipMetric.TIME_AIUS);
+  }
+
+  /**
+   * Return the total time spent reading, hashing and compressing digital objects.
+   * @return The total time spent adding digital objects in nanoseconds
+   */
+  public long digitalObjectsTime() {
+    return counters.get(SipMetric.TIME_DIGITAL_OBJECTS);
+  }
+
+  /**
+   * Return the distribution of the time it took to read, hash, and compress individual digital objects.
+   * @return The distribution of the time it took to add a digital object
+   */
+  public LatencyHistogram digitalObjectLatency() {
+    return counters.histogram(SipMetric.TIME_DIGITAL_OBJECTS);
+  }
+
+  /**
+   * Return the total time spent rendering the PDI for AIUs.
+   * @return The total time spent rendering the PDI for AIUs in nanoseconds
+   */
+  public long pdiRenderingTime() {
+    return counters.get(SipMetric.TIME_PDI_RENDERING);
+  }
+
+  /**
+   * Return the distribution of the time spent rendering the PDI for individual AIUs.
+   * @return The distribution of the time spent rendering the PDI per AIU
+   */
+  public LatencyHistogram pdiRenderingLatency() {
+    return counters.histogram(SipMetric.TIME_PDI_RENDERING);
+  }
+
+  /**
+   * Return the time spent ending the PDI after the last AIU, for instance to write its closing elements, excluding
+   * validation.
+   * @return The time spent ending the PDI in nanoseconds
+   */
+  public long pdiEndTime() {
+    return counters.get(SipMetric.TIME_PDI_END);
+  }
+
+  /**
+   * Return the time spent validating the PDI.
+   * @return The time spent validating the PDI in nanoseconds
+   */
+  public long pdiValidationTime() {
+    return counters.get(SipMetric.TIME_PDI_VALIDATION);
+  }
+
+  /**
+   * Return the time spent copying the PDI into the SIP.
+   * @return The time spent adding the PDI to the SIP in nanoseconds
+   */
+  public long pdiZipTime() {
+    return counters.get(SipMetric.TIME_PDI_ZIP);
+  }
+
+  /**
+   * Return the total time spent reading the content of ZIP entries. This is only measured by a
+   * {@linkplain com.opentext.ia.sdk.support.io.DefaultZipAssembler}.
+   * @return The total time spent reading the content of ZIP entries in nanoseconds
+   */
+  public long zipReadTime() {
+    return counters.get(SipMetric.TIME_ZIP_READ);
+  }
+
+  /**
+   * Return the total time spent hashing the content of ZIP entries. This is only measured by a
+   * {@linkplain com.opentext.ia.sdk.support.io.DefaultZipAssembler}.
+   * @return The total time spent hashing the content of ZIP entries in nanoseconds
+   */
+  public long zipHashTime() {
+    return counters.get(SipMetric.TIME_ZIP_HASH);
+  }
+
+  /**
+   * Return the total time spent deflating and writing the content of ZIP entries. This is only measured by a
+   * {@linkplain com.opentext.ia.sdk.support.io.DefaultZipAssembler}.
+   * @return The total time spent deflating and writing the content of ZIP entries in nanoseconds
+   */
+  public long zipWriteTime() {
+    return counters.get(SipMetric.TIME_ZIP_WRITE);
   }
 
   @Override
@@ -21,6 +21,17 @@ public interface SipSegmentationStrategy<D> {
    */
   boolean shouldStartNewSip(D domainObject, SipMetrics metrics);
 
+  /**
+   * Determine whether this strategy uses the {@linkplain SipMetrics#sipFileSize() size of the SIP file} while the SIP
+   * is being assembled. Estimating that size takes extra work for every domain object, so
+   * {@linkplain BatchSipAssembler}s only have their {@linkplain SipAssembler} do it for strategies that need it.
+   * @return <code>true</code> if this strategy needs an estimate of the SIP file size, or <code>false</code> if it
+   *         doesn't
+   */
+  default boolean needsSipFileSize() {
+    return false;
+  }
+
   /**
    * Return a {@linkplain SipSegmentationStrategy} that allows a maximum number of AIUs per SIP.
    * @param <D> The type of domain objects to segment into different SIPs
@@ -72,6 +83,35 @@ public interface SipSegmentationStrategy<D> {
     return (domainObject, metrics) -> metrics.sipSize() >= maxSize;
   }
 
+  /**
+   * Return a {@linkplain SipSegmentationStrategy} that keeps the total size (uncompressed) of the SIP below a maximum
+   * by looking ahead at the domain object that is about to be added. Unlike {@linkplain #byMaxSipSize(long)}, which
+   * only considers what is already in the SIP, this starts a new SIP <em>before</em> a large domain object would make
+   * the SIP overflow. The size of the domain object is projected from the {@linkplain DigitalObject#getSizeHint() size
+   * hints} of its digital objects, so the given extraction is called once more for every domain object. A domain
+   * object that is bigger than the maximum by itself still goes into a SIP of its own.
+   * @param <D> The type of domain objects to segment into different SIPs
+   * @param maxSize The maximum size of the SIP
+   * @param contentsExtraction The extraction of the digital objects of a domain object
+   * @return A {@linkplain SipSegmentationStrategy} that keeps the total size of the SIP below a maximum
+   */
+  static <D> SipSegmentationStrategy<D> byMaxSipSize(long maxSize, DigitalObjectsExtraction<D> contentsExtraction) {
+    return new SizeHintSegmentationStrategy<>(maxSize, contentsExtraction);
+  }
+
+  /**
+   * Return a {@linkplain SipSegmentationStrategy} that keeps the size of the SIP file below a maximum. While a SIP is
+   * being assembled, its file size is estimated from the bytes written to it so far and the expected compressed size of
+   * the PDI. A new SIP is started when adding another AIU of average size would make the SIP file exceed the maximum.
+   * This packs SIPs close to the maximum as long as AIUs don't vary much in size.
+   * @param <D> The type of domain objects to segment into different SIPs
+   * @param maxSize The maximum size of the SIP file
+   * @return A {@linkplain SipSegmentationStrategy} that keeps the size of the SIP file below a maximum
+   */
+  static <D> SipSegmentationStrategy<D> byMaxSipFileSize(long maxSize) {
+    return new SipFileSizeSegmentationStrategy<>(maxSize);
+  }
+
   /**
    * Return a {@linkplain SipSegmentationStrategy} that combines a number of partial strategies.
    * @param <D> The type of domain objects to segment into different SIPs
@@ -81,8 +121,19 @@ public interface SipSegmentationStrategy<D> {
   @SafeVarargs
   @SuppressWarnings("varargs")
   static <D> SipSegmentationStrategy<D> combining(SipSegmentationStrategy<D>... partialStrategies) {
-    return (domainObject, metrics) -> Arrays.stream(partialStrategies)
-      .anyMatch(s -> s.shouldStartNewSip(domainObject, metrics));
+    return new SipSegmentationStrategy<D>() {
+      @Override
+      public boolean shouldStartNewSip(D domainObject, SipMetrics metrics) {
+        return Arrays.stream(partialStrategies)
+          .anyMatch(s -> s.shouldStartNewSip(domainObject, metrics));
+      }
+
+      @Override
+      public boolean needsSipFileSize() {
+        return Arrays.stream(partialStrategies)
+          .anyMatch(SipSegmentationStrategy::needsSipFileSize);
+      }
+    };
   }
 
 }
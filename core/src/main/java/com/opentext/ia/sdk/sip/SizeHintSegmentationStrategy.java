@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.sip;
+
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.OptionalLong;
+
+
+/**
+ * {@linkplain SipSegmentationStrategy} that looks ahead at the size of the domain object that is about to be added. The
+ * projected size of the AIU is the sum of the {@linkplain DigitalObject#getSizeHint() size hints} of its digital
+ * objects, plus the average size of the PDI per AIU so far. Digital objects without a size hint are assumed to be of
+ * average size. A new SIP is started when adding the AIU would make the SIP exceed its maximum size, unless the SIP is
+ * still empty.
+ * @param <D> The type of domain objects to segment into different SIPs
+ */
+class SizeHintSegmentationStrategy<D> implements SipSegmentationStrategy<D> {
+
+  private final long maxSize;
+  private final DigitalObjectsExtraction<D> contentsExtraction;
+
+  SizeHintSegmentationStrategy(long maxSize, DigitalObjectsExtraction<D> contentsExtraction) {
+    this.maxSize = maxSize;
+    this.contentsExtraction = Objects.requireNonNull(contentsExtraction, "Missing digital objects extraction");
+  }
+
+  @Override
+  public boolean shouldStartNewSip(D domainObject, SipMetrics metrics) {
+    long numAius = metrics.numAius();
+    return numAius > 0 && metrics.sipSize() + projectedSize(domainObject, metrics) > maxSize;
+  }
+
+  private long projectedSize(D domainObject, SipMetrics metrics) {
+    long numDigitalObjects = metrics.numDigitalObjects();
+    long averageDigitalObjectSize = numDigitalObjects == 0 ? 0 : metrics.digitalObjectsSize() / numDigitalObjects;
+    return metrics.pdiSize() / metrics.numAius()
+        + digitalObjectsSize(contentsExtraction.apply(domainObject), averageDigitalObjectSize);
+  }
+
+  /**
+   * Project the total size of some digital objects from their size hints.
+   * @param digitalObjects The digital objects to project the size of
+   * @param defaultSize The size to assume for digital objects without a size hint
+   * @return The projected total size of the digital objects
+   */
+  static long digitalObjectsSize(Iterator<? extends DigitalObject> digitalObjects, long defaultSize) {
+    long result = 0;
+    while (digitalObjects.hasNext()) {
+      OptionalLong sizeHint = digitalObjects.next().getSizeHint();
+      result += sizeHint.orElse(defaultSize);
+    }
+    return result;
+  }
+
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.sip;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Collection;
+
+import org.apache.commons.io.output.CountingOutputStream;
+
+import com.opentext.ia.sdk.support.io.DefaultZipAssembler;
+import com.opentext.ia.sdk.support.io.EncodedHash;
+import com.opentext.ia.sdk.support.io.HashAssembler;
+import com.opentext.ia.sdk.support.io.ZipAssembler;
+
+
+/**
+ * {@linkplain ZipAssembler} that keeps track of the size of the ZIP file while another ZIP assembler builds it up. It
+ * counts the bytes that the other assembler actually writes, and the size of the central directory that will be
+ * written when the ZIP is closed. Since the other assembler may buffer some of its output, estimates include the
+ * bytes it {@linkplain ZipAssembler#numBytesBuffered() buffered}.
+ * <p>
+ * When the other assembler is a {@linkplain DefaultZipAssembler}, the time it spent reading, hashing, and writing each
+ * entry is recorded in the given {@linkplain Counters}.
+ */
+class SizeTrackingZipAssembler implements ZipAssembler {
+
+  private static final int LOCAL_HEADER_SIZE = 30;
+  private static final int DATA_DESCRIPTOR_SIZE = 16;
+  private static final int CENTRAL_HEADER_SIZE = 46;
+  private static final int END_OF_CENTRAL_DIRECTORY_SIZE = 22;
+
+  private final ZipAssembler zip;
+  private final Counters metrics;
+  private CountingOutputStream output;
+  private long centralDirectorySize;
+
+  SizeTrackingZipAssembler(ZipAssembler zip, Counters metrics) {
+    this.zip = zip;
+    this.metrics = metrics;
+  }
+
+  @Override
+  public void begin(OutputStream stream) throws IOException {
+    output = new CountingOutputStream(stream);
+    centralDirectorySize = END_OF_CENTRAL_DIRECTORY_SIZE;
+    zip.begin(output);
+  }
+
+  @Override
+  public Collection<EncodedHash> addEntry(String name, InputStream content, HashAssembler hashAssembler)
+      throws IOException {
+    Collection<EncodedHash> result = zip.addEntry(name, content, hashAssembler);
+    entryAdded(name);
+    return result;
+  }
+
+  private void entryAdded(String name) {
+    centralDirectorySize += CENTRAL_HEADER_SIZE + nameSize(name);
+    if (zip instanceof DefaultZipAssembler) {
+      DefaultZipAssembler defaultZip = (DefaultZipAssembler)zip;
+      metrics.record(SipMetric.TIME_ZIP_READ, defaultZip.readTime());
+      metrics.record(SipMetric.TIME_ZIP_HASH, defaultZip.hashTime());
+      metrics.record(SipMetric.TIME_ZIP_WRITE, defaultZip.writeTime());
+    }
+  }
+
+  private static int nameSize(String name) {
+    return name.getBytes(StandardCharsets.UTF_8).length;
+  }
+
+  @Override
+  public Collection<EncodedHash> addEntry(String name, Path content, HashAssembler hashAssembler)
+      throws IOException {
+    Collection<EncodedHash> result = zip.addEntry(name, content, hashAssembler);
+    entryAdded(name);
+    return result;
+  }
+
+  @Override
+  public long numBytesBuffered() {
+    return zip.numBytesBuffered();
+  }
+
+  @Override
+  public void close() throws IOException {
+    zip.close();
+  }
+
+  /**
+   * Return the number of bytes written to the ZIP file so far.
+   * @return The number of bytes written
+   */
+  long numBytesWritten() {
+    return output == null ? 0 : output.getByteCount();
+  }
+
+  /**
+   * Estimate the size of the ZIP file when it's closed after adding some more entries.
+   * @param compressedSize The total compressed size of the entries that are still to be added
+   * @param names The names of the entries that are still to be added
+   * @return The estimated size of the ZIP file
+   */
+  long estimateSize(long compressedSize, String... names) {
+    long result = numBytesWritten() + numBytesBuffered() + centralDirectorySize + compressedSize;
+    for (String name : names) {
+      int nameSize = nameSize(name);
+      result += LOCAL_HEADER_SIZE + nameSize + DATA_DESCRIPTOR_SIZE + CENTRAL_HEADER_SIZE + nameSize;
+    }
+    return result;
+  }
+
+}
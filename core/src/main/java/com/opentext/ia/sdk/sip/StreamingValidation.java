@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.sip;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+
+import javax.validation.ValidationException;
+
+
+/**
+ * Validation of content while it's being written, started by a {@linkplain StreamingValidator}. The content consists
+ * of items, like the AIUs in a PDI, possibly surrounded by a header and footer.
+ */
+public interface StreamingValidation extends Closeable {
+
+  /**
+   * Return the writer to write the content to validate to.
+   * @return The writer to write the content to validate to
+   */
+  Writer getWriter();
+
+  /**
+   * Mark the start of the next item. Any content written from now on until the next call to {@linkplain #endItem()}
+   * belongs to this item.
+   * @throws IOException When an I/O error occurs
+   * @throws ValidationException When the content written so far was found to be invalid
+   */
+  void startItem() throws IOException;
+
+  /**
+   * Mark the end of the current item.
+   * @throws IOException When an I/O error occurs
+   * @throws ValidationException When the content written so far was found to be invalid
+   */
+  void endItem() throws IOException;
+
+  /**
+   * Wait until all content is validated.
+   * @throws IOException When an I/O error occurs
+   * @throws ValidationException When the content is invalid
+   */
+  void end() throws IOException;
+
+  /**
+   * Stop validating without waiting for the result, e.g. because writing the content failed.
+   */
+  @Override
+  void close();
+
+}
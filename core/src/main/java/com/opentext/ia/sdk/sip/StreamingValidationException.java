@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.sip;
+
+import javax.validation.ValidationException;
+
+
+/**
+ * Thrown when a {@linkplain StreamingValidation} finds invalid content.
+ */
+public class StreamingValidationException extends ValidationException {
+
+  private static final long serialVersionUID = -4189125437017460372L;
+
+  private final long itemIndex;
+  private final String snippet;
+
+  /**
+   * Create an instance.
+   * @param message The message describing the problem
+   * @param itemIndex The zero-based index of the item that contains the invalid content, or -1 if the invalid content
+   *          isn't in any item
+   * @param snippet The content surrounding the invalid content
+   * @param cause The underlying cause
+   */
+  public StreamingValidationException(String message, long itemIndex, String snippet, Throwable cause) {
+    super(message, cause);
+    this.itemIndex = itemIndex;
+    this.snippet = snippet;
+  }
+
+  /**
+   * Return the zero-based index of the item that contains the invalid content.
+   * @return The index of the invalid item, or -1 if the invalid content isn't in any item, e.g. when it's in a
+   *         header or footer, or when it couldn't be determined
+   */
+  public long getItemIndex() {
+    return itemIndex;
+  }
+
+  /**
+   * Return the content surrounding the invalid content. This snippet is limited in size.
+   * @return The content surrounding the invalid content
+   */
+  public String getSnippet() {
+    return snippet;
+  }
+
+}
@@ -0,0 +1,20 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.sip;
+
+
+/**
+ * {@linkplain Validator} that can also validate content while it's being written, rather than after it's complete.
+ * {@linkplain PrintWriterAssembler}s use this to fail as soon as an invalid item is written, without parsing the
+ * assembled product a second time.
+ */
+public interface StreamingValidator extends Validator {
+
+  /**
+   * Start validating content that will be written incrementally.
+   * @return The validation to write the content to
+   */
+  StreamingValidation startValidation();
+
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.sip;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.InputStream;
+import java.net.URL;
+
+
+/**
+ * Validate an XML instance against an XML Schema while it's being written. Use this instead of
+ * {@linkplain XmlSchemaValidator} for large PDIs, to avoid parsing the entire PDI a second time after it's written and
+ * to find out about invalid AIUs as soon as they're written.
+ * <p>
+ * Validation runs on a separate thread, so the writer is only slowed down when validation can't keep up.
+ */
+public class StreamingXmlSchemaValidator extends XmlSchemaValidator implements StreamingValidator {
+
+  /**
+   * Create an instance.
+   * @param xmlSchema The XML Schema to use for validation
+   * @throws FileNotFoundException When the schema could not be found
+   */
+  public StreamingXmlSchemaValidator(File xmlSchema) throws FileNotFoundException {
+    super(xmlSchema);
+  }
+
+  /**
+   * Create an instance.
+   * @param xmlSchema The XML Schema to use for validation
+   */
+  public StreamingXmlSchemaValidator(InputStream xmlSchema) {
+    super(xmlSchema);
+  }
+
+  /**
+   * Create an instance.
+   * @param xmlSchema The location of the XML Schema to use for validation
+   */
+  public StreamingXmlSchemaValidator(URL xmlSchema) {
+    super(xmlSchema);
+  }
+
+  @Override
+  public StreamingValidation startValidation() {
+    return new XmlStreamingValidation(getValidators());
+  }
+
+}
@@ -12,13 +12,14 @@ import java.util.Optional;
 
 import org.atteo.evo.inflector.English;
 
-import com.opentext.ia.sdk.support.xml.DomXmlBuilder;
+import com.opentext.ia.sdk.support.xml.WriterXmlBuilder;
 import com.opentext.ia.sdk.support.xml.XmlBuilder;
 import com.opentext.ia.sdk.support.xml.XmlUtil;
 
 
 /**
- * Base class for assembling XML documents from domain objects using an {@linkplain DomXmlBuilder}.
+ * Base class for assembling XML documents from domain objects using an {@linkplain XmlBuilder}. Domain objects are
+ * written directly to the output using a {@linkplain WriterXmlBuilder} that is reused for all of them.
  * @param <D> The type of domain objects to assemble the XML document from
  */
 public abstract class XmlPdiAssembler<D> extends PdiAssembler<D> {
@@ -26,6 +27,8 @@ public abstract class XmlPdiAssembler<D> extends PdiAssembler<D> {
   private final Optional<URI> namespace;
   private final Optional<String> documentElementName;
   private final String domainObjectName;
+  private PrintWriter builderWriter;
+  private WriterXmlBuilder writerBuilder;
   private XmlBuilder<Void> builder;
 
   /**
@@ -114,7 +117,11 @@ public abstract class XmlPdiAssembler<D> extends PdiAssembler<D> {
 
   @Override
   public final void add(D domainObject, Map<String, ContentInfo> contentInfo, PrintWriter writer) {
-    builder = XmlBuilder.newDocument(writer, "  ");
+    if (builderWriter != writer) {
+      builderWriter = writer;
+      writerBuilder = new WriterXmlBuilder(writer, "  ");
+    }
+    builder = writerBuilder;
     try {
       builder.element(domainObjectName);
       doAdd(domainObject, contentInfo);
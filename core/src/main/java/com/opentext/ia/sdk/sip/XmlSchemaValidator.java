@@ -4,21 +4,27 @@
 package com.opentext.ia.sdk.sip;
 
 import java.io.*;
+import java.net.URL;
+import java.util.Objects;
 
 import javax.validation.ValidationException;
 import javax.xml.transform.stream.StreamSource;
 
 import org.xml.sax.SAXException;
 
-import com.opentext.ia.sdk.support.xml.XmlUtil;
+import com.opentext.ia.sdk.support.xml.ValidatorPool;
+import com.opentext.ia.sdk.support.xml.XmlSchemas;
 
 
 /**
  * Validate an XML instance against an XML Schema.
+ * <p>
+ * The compiled XML Schema is {@linkplain XmlSchemas cached} and shared with all other instances that validate against
+ * the same schema, so creating an instance is cheap after the first one. Instances are thread-safe.
  */
 public class XmlSchemaValidator implements Validator {
 
-  private final javax.xml.validation.Validator validator;
+  private final ValidatorPool validators;
 
   /**
    * Create an instance.
@@ -34,13 +40,37 @@ public class XmlSchemaValidator implements Validator {
    * @param xmlSchema The XML Schema to use for validation
    */
   public XmlSchemaValidator(InputStream xmlSchema) {
-    validator = XmlUtil.newXmlSchemaValidator(xmlSchema);
+    this(XmlSchemas.validatorsFor(xmlSchema));
+  }
+
+  /**
+   * Create an instance.
+   * @param xmlSchema The location of the XML Schema to use for validation
+   */
+  public XmlSchemaValidator(URL xmlSchema) {
+    this(XmlSchemas.validatorsFor(xmlSchema));
+  }
+
+  /**
+   * Create an instance.
+   * @param validators The pool of validators for the XML Schema to use for validation
+   */
+  public XmlSchemaValidator(ValidatorPool validators) {
+    this.validators = Objects.requireNonNull(validators, "Missing validators");
+  }
+
+  /**
+   * Return the pool of underlying XML Schema validators.
+   * @return The pool of underlying XML Schema validators
+   */
+  protected ValidatorPool getValidators() {
+    return validators;
   }
 
   @Override
   public void validate(InputStream xmlInstance) {
     try {
-      validator.validate(new StreamSource(xmlInstance));
+      validators.validate(new StreamSource(xmlInstance));
     } catch (SAXException | IOException e) {
       throw new ValidationException(e);
     }
@@ -0,0 +1,344 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.sip;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import javax.xml.transform.stream.StreamSource;
+
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXParseException;
+
+import com.opentext.ia.sdk.support.xml.ValidatorPool;
+
+
+/**
+ * Validates an XML document against an XML Schema on a separate thread while the document is being written.
+ * <p>
+ * Written characters are handed to the validation thread in chunks through a bounded queue, so that the writer is
+ * slowed down rather than memory filling up when validation can't keep up. The validation thread keeps the most
+ * recently validated characters around, so that it can show the invalid content in its error message. The writing
+ * thread keeps track of where the most recent items start and end, so that it can tell which item is invalid.
+ */
+final class XmlStreamingValidation implements StreamingValidation {
+
+  private static final int CHUNK_SIZE = 8 * 1024;
+  private static final int MAX_CHUNKS_IN_FLIGHT = 8;
+  private static final char[] END_OF_CONTENT = new char[0];
+  private static final int HISTORY_SIZE = 64 * 1024;
+  private static final int MAX_TRACKED_LINES = 4 * 1024;
+  private static final int INITIAL_TRACKED_ITEMS = 1024;
+  private static final int SNIPPET_SIZE = 512;
+
+  private final ValidatorPool validators;
+  private final BlockingQueue<char[]> chunks = new ArrayBlockingQueue<>(MAX_CHUNKS_IN_FLIGHT);
+  private final Writer writer = new ChunkWriter();
+  private final Thread thread;
+  private volatile Failure failure;
+  private char[] chunk = new char[CHUNK_SIZE];
+  private int chunkLength;
+  private long numWritten;
+  private volatile long numRead;
+  private final ItemTracker items = new ItemTracker();
+  private boolean ended;
+
+  XmlStreamingValidation(ValidatorPool validators) {
+    this.validators = validators;
+    this.thread = new Thread(this::validate, "pdi-validation");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  private void validate() {
+    ChunkReader reader = new ChunkReader();
+    try {
+      validators.validate(new StreamSource(reader));
+    } catch (SAXParseException e) {
+      failure = reader.failureAt(e);
+    } catch (SAXException | IOException | RuntimeException e) {
+      failure = new Failure(e, numRead, "");
+    } finally {
+      reader.drain();
+    }
+  }
+
+  @Override
+  public Writer getWriter() {
+    return writer;
+  }
+
+  @Override
+  public void startItem() throws IOException {
+    assertValid();
+    items.start(numWritten);
+  }
+
+  private void assertValid() {
+    Failure current = failure;
+    if (current != null) {
+      long itemIndex = items.indexAt(current.offset);
+      String location = itemIndex < 0 ? "" : String.format(" in item #%d", itemIndex);
+      throw new StreamingValidationException(String.format("Invalid content%s: %s%n%s", location,
+          current.cause.getMessage(), current.snippet), itemIndex, current.snippet, current.cause);
+    }
+  }
+
+  @Override
+  public void endItem() throws IOException {
+    items.end(numWritten);
+    // Errors are reported at most a parser buffer before what has been read, and snippets can only show the history
+    items.forgetEndingBefore(numRead - HISTORY_SIZE);
+    assertValid();
+  }
+
+  @Override
+  public void end() throws IOException {
+    finishWriting();
+    try {
+      thread.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while waiting for validation", e);
+    }
+    assertValid();
+  }
+
+  private void finishWriting() throws IOException {
+    if (!ended) {
+      ended = true;
+      flushChunk();
+      put(END_OF_CONTENT);
+    }
+  }
+
+  private void flushChunk() throws IOException {
+    if (chunkLength > 0) {
+      char[] full = chunkLength == chunk.length ? chunk : Arrays.copyOf(chunk, chunkLength);
+      put(full);
+      chunk = new char[CHUNK_SIZE];
+      chunkLength = 0;
+    }
+  }
+
+  private void put(char[] content) throws IOException {
+    try {
+      chunks.put(content);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while handing content to validation", e);
+    }
+  }
+
+  @Override
+  public void close() {
+    try {
+      chunkLength = 0;
+      finishWriting();
+    } catch (IOException e) {
+      // Nothing we can do, and the validation thread is a daemon anyway
+    }
+  }
+
+
+  private class ChunkWriter extends Writer {
+
+    @Override
+    public void write(char[] buffer, int offset, int length) throws IOException {
+      if (ended) {
+        throw new IOException("Validation ended");
+      }
+      int start = offset;
+      int remaining = length;
+      while (remaining > 0) {
+        int numCopied = Math.min(remaining, chunk.length - chunkLength);
+        System.arraycopy(buffer, start, chunk, chunkLength, numCopied);
+        chunkLength += numCopied;
+        start += numCopied;
+        remaining -= numCopied;
+        if (chunkLength == chunk.length) {
+          flushChunk();
+        }
+      }
+      numWritten += length;
+    }
+
+    @Override
+    public void flush() {
+      // Content is handed over in full chunks for efficiency; the remainder follows at the end
+    }
+
+    @Override
+    public void close() throws IOException {
+      finishWriting();
+    }
+
+  }
+
+
+  /**
+   * Reads the chunks that the writer hands over, while keeping the most recent characters and line starts around.
+   */
+  private class ChunkReader extends Reader {
+
+    private final char[] history = new char[HISTORY_SIZE];
+    private final long[] lineStarts = new long[MAX_TRACKED_LINES];
+    private char[] current = new char[0];
+    private int position;
+    private long numLines = 1;
+    private boolean atEnd;
+
+    @Override
+    public int read(char[] buffer, int offset, int length) throws IOException {
+      if (!nextChunk()) {
+        return -1;
+      }
+      int result = Math.min(length, current.length - position);
+      System.arraycopy(current, position, buffer, offset, result);
+      long count = numRead;
+      for (int i = 0; i < result; i++) {
+        char c = current[position + i];
+        history[(int)(count & (HISTORY_SIZE - 1))] = c;
+        count++;
+        if (c == '\n') {
+          lineStarts[(int)(numLines % MAX_TRACKED_LINES)] = count;
+          numLines++;
+        }
+      }
+      numRead = count;
+      position += result;
+      return result;
+    }
+
+    private boolean nextChunk() throws IOException {
+      while (!atEnd && position == current.length) {
+        try {
+          current = chunks.take();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new IOException("Interrupted while waiting for content", e);
+        }
+        position = 0;
+        atEnd = current.length == 0;
+      }
+      return !atEnd;
+    }
+
+    Failure failureAt(SAXParseException e) {
+      long line = e.getLineNumber();
+      long offset = numRead;
+      if (line > 0 && line <= numLines && line > numLines - MAX_TRACKED_LINES) {
+        long lineStart = line == 1 ? 0 : lineStarts[(int)((line - 1) % MAX_TRACKED_LINES)];
+        offset = Math.min(numRead, lineStart + Math.max(0, e.getColumnNumber() - 1));
+      }
+      return new Failure(e, offset, snippetAround(offset));
+    }
+
+    private String snippetAround(long offset) {
+      long from = Math.max(Math.max(0, numRead - HISTORY_SIZE), offset - SNIPPET_SIZE / 2);
+      long to = Math.min(numRead, from + SNIPPET_SIZE);
+      StringBuilder result = new StringBuilder((int)(to - from));
+      for (long i = from; i < to; i++) {
+        result.append(history[(int)(i & (HISTORY_SIZE - 1))]);
+      }
+      return result.toString();
+    }
+
+    void drain() {
+      try {
+        while (nextChunk()) {
+          position = current.length;
+        }
+      } catch (IOException e) {
+        // Interrupted, so stop draining
+      }
+    }
+
+    @Override
+    public void close() {
+      // The writer decides when the content ends
+    }
+
+  }
+
+
+  /**
+   * Keeps track of where the items start and end that validation may still report errors in.
+   */
+  private static class ItemTracker {
+
+    private long[] starts = new long[INITIAL_TRACKED_ITEMS];
+    private long[] ends = new long[INITIAL_TRACKED_ITEMS];
+    private int head;
+    private int tail;
+    private long headIndex;
+    private boolean inItem;
+
+    void start(long offset) {
+      if (tail == starts.length) {
+        makeRoom();
+      }
+      starts[tail] = offset;
+      inItem = true;
+    }
+
+    private void makeRoom() {
+      int numTracked = tail - head;
+      int capacity = numTracked < starts.length / 2 ? starts.length : 2 * starts.length;
+      long[] newStarts = new long[capacity];
+      long[] newEnds = new long[capacity];
+      System.arraycopy(starts, head, newStarts, 0, numTracked);
+      System.arraycopy(ends, head, newEnds, 0, numTracked);
+      starts = newStarts;
+      ends = newEnds;
+      head = 0;
+      tail = numTracked;
+    }
+
+    void end(long offset) {
+      ends[tail++] = offset;
+      inItem = false;
+    }
+
+    void forgetEndingBefore(long offset) {
+      while (head < tail && ends[head] <= offset) {
+        head++;
+        headIndex++;
+      }
+    }
+
+    long indexAt(long offset) {
+      for (int i = inItem ? tail : tail - 1; i >= head; i--) {
+        if (i < tail && offset >= ends[i]) {
+          return -1;
+        }
+        if (offset >= starts[i]) {
+          return headIndex + i - head;
+        }
+      }
+      return -1;
+    }
+
+  }
+
+
+  private static class Failure {
+
+    private final Exception cause;
+    private final long offset;
+    private final String snippet;
+
+    Failure(Exception cause, long offset, String snippet) {
+      this.cause = cause;
+      this.offset = offset;
+      this.snippet = snippet;
+    }
+
+  }
+
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.support.io;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
+
+/**
+ * Recognize well-known file formats that are already compressed.
+ */
+final class CompressedFormats {
+
+  static final int PROBE_SIZE = 8 * 1024;
+
+  private static final Set<String> EXTENSIONS = new HashSet<>(Arrays.asList("7z", "avi", "bz2", "docx", "gif", "gz",
+      "jar", "jp2", "jpeg", "jpg", "m4a", "mkv", "mov", "mp3", "mp4", "mpeg", "mpg", "ogg", "pdf", "png", "pptx",
+      "rar", "tgz", "tif", "tiff", "webm", "webp", "xlsx", "xz", "zip"));
+  private static final byte[][] SIGNATURES = {
+    { (byte)0xFF, (byte)0xD8, (byte)0xFF }, // JPEG
+    { (byte)0x89, 'P', 'N', 'G' }, // PNG
+    { 'G', 'I', 'F', '8' }, // GIF
+    { 'I', 'I', '*', 0 }, // TIFF, little endian
+    { 'M', 'M', 0, '*' }, // TIFF, big endian
+    { '%', 'P', 'D', 'F' }, // PDF
+    { 'P', 'K', 3, 4 }, // ZIP
+    { 0x1F, (byte)0x8B }, // GZIP
+    { 'B', 'Z', 'h' }, // BZIP2
+    { '7', 'z', (byte)0xBC, (byte)0xAF }, // 7-Zip
+    { 'R', 'a', 'r', '!' }, // RAR
+    { (byte)0xFD, '7', 'z', 'X', 'Z' }, // XZ
+  };
+
+  private CompressedFormats() {
+    // Utility class
+  }
+
+  static boolean isCompressed(String name, byte[] sample, int length) {
+    return EXTENSIONS.contains(extensionOf(name)) || hasSignature(sample, length);
+  }
+
+  static String extensionOf(String name) {
+    int index = name.lastIndexOf('.');
+    if (index < 0 || index < name.lastIndexOf('/')) {
+      return "";
+    }
+    return name.substring(index + 1)
+      .toLowerCase(Locale.ENGLISH);
+  }
+
+  private static boolean hasSignature(byte[] sample, int length) {
+    for (byte[] signature : SIGNATURES) {
+      if (startsWith(sample, length, signature)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static boolean startsWith(byte[] sample, int length, byte[] signature) {
+    if (length < signature.length) {
+      return false;
+    }
+    for (int i = 0; i < signature.length; i++) {
+      if (sample[i] != signature[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+}
@@ -0,0 +1,32 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.support.io;
+
+import java.io.BufferedOutputStream;
+import java.io.OutputStream;
+
+
+/**
+ * {@linkplain BufferedOutputStream} that tells how many bytes it holds that haven't been written to the underlying
+ * stream yet.
+ */
+class CountingBufferedOutputStream extends BufferedOutputStream {
+
+  CountingBufferedOutputStream(OutputStream out) {
+    super(out);
+  }
+
+  CountingBufferedOutputStream(OutputStream out, int size) {
+    super(out, size);
+  }
+
+  /**
+   * Return the number of bytes that haven't been written to the underlying stream yet.
+   * @return The number of buffered bytes
+   */
+  synchronized int numBytesBuffered() {
+    return count;
+  }
+
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.support.io;
+
+
+/**
+ * Combine the CRC-32 checksums of two consecutive blocks of data into the checksum of their concatenation, without
+ * access to the data itself. This is a port of zlib's <code>crc32_combine()</code>.
+ */
+final class Crc32Combiner {
+
+  private static final int NUM_BITS = 32;
+  private static final long POLYNOMIAL = 0xEDB88320L;
+
+  private Crc32Combiner() {
+    // Utility class
+  }
+
+  /**
+   * Combine two checksums.
+   * @param crc1 The checksum of the first block
+   * @param crc2 The checksum of the second block
+   * @param length2 The length of the second block
+   * @return The checksum of the first block followed by the second block
+   */
+  static long combine(long crc1, long crc2, long length2) {
+    if (length2 <= 0) {
+      return crc1;
+    }
+    long[] odd = oneZeroBitOperator();
+    long[] even = new long[NUM_BITS];
+    square(even, odd);
+    square(odd, even);
+
+    // Apply the operator for 2^n zero bytes for every bit n that is set in the length of the second block
+    long[] operator = even;
+    long[] other = odd;
+    long result = crc1;
+    for (long remaining = length2; remaining != 0; remaining >>= 1) {
+      square(operator, other);
+      if ((remaining & 1) != 0) {
+        result = times(operator, result);
+      }
+      long[] swap = operator;
+      operator = other;
+      other = swap;
+    }
+    return result ^ crc2;
+  }
+
+  private static long[] oneZeroBitOperator() {
+    long[] result = new long[NUM_BITS];
+    result[0] = POLYNOMIAL;
+    long row = 1;
+    for (int i = 1; i < NUM_BITS; i++) {
+      result[i] = row;
+      row <<= 1;
+    }
+    return result;
+  }
+
+  private static long times(long[] matrix, long vector) {
+    long result = 0;
+    long remaining = vector;
+    for (int i = 0; remaining != 0; i++) {
+      if ((remaining & 1) != 0) {
+        result ^= matrix[i];
+      }
+      remaining >>>= 1;
+    }
+    return result;
+  }
+
+  private static void square(long[] result, long[] matrix) {
+    for (int i = 0; i < NUM_BITS; i++) {
+      result[i] = times(matrix, matrix[i]);
+    }
+  }
+
+}
@@ -4,41 +4,241 @@
 package com.opentext.ia.sdk.support.io;
 
 import java.io.BufferedInputStream;
-import java.io.BufferedOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.Collection;
+import java.util.Objects;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
+import org.apache.commons.io.IOUtils;
+
 /**
  * Default implementation of {@linkplain ZipAssembler}.
+ * <p>
+ * A {@linkplain ZipCompressionPolicy} determines for each entry whether it's deflated or stored. Stored entries must
+ * have their size and CRC known up front, so their content is held in memory while computing the CRC and hashes, and
+ * then copied into the ZIP without any further processing. Content that is too big to hold in memory isn't spooled to
+ * disk; instead, it's written without compression as a deflated entry, whose size and CRC follow the content in a
+ * data descriptor. Such an entry takes up only a few bytes more than a stored one. Either way, the content is read only
+ * once.
+ * <p>
+ * The time spent {@linkplain #readTime() reading}, {@linkplain #hashTime() hashing}, and
+ * {@linkplain #writeTime() deflating and writing} the content of the last added entry is measured separately.
  */
 public class DefaultZipAssembler implements ZipAssembler {
 
   private static final int BUFFER_SIZE = 64 * 1024;
+  static final int MAX_BUFFERED_SIZE = 1024 * 1024;
 
+  private final ZipCompressionPolicy compressionPolicy;
+  private final byte[] buffer = new byte[BUFFER_SIZE];
+  private int level;
+  private CountingBufferedOutputStream zipOutput;
   private ZipOutputStream zip;
+  private long readTime;
+  private long hashTime;
+  private long writeTime;
+
+  /**
+   * Create an instance that deflates all entries using the default compression level.
+   */
+  public DefaultZipAssembler() {
+    this(ZipCompressionPolicy.always());
+  }
+
+  /**
+   * Create an instance that uses the default compression level for entries that are deflated.
+   * @param compressionPolicy The policy that determines which entries to deflate
+   */
+  public DefaultZipAssembler(ZipCompressionPolicy compressionPolicy) {
+    this(compressionPolicy, Deflater.DEFAULT_COMPRESSION);
+  }
+
+  /**
+   * Create an instance.
+   * @param compressionPolicy The policy that determines which entries to deflate
+   * @param level The compression level (0-9) for entries that are deflated
+   */
+  public DefaultZipAssembler(ZipCompressionPolicy compressionPolicy, int level) {
+    this.compressionPolicy = Objects.requireNonNull(compressionPolicy, "Missing compression policy");
+    setLevel(level);
+  }
+
+  /**
+   * Set the compression level for entries that are deflated. The new level applies to subsequently added entries,
+   * which allows different levels for different ZIPs.
+   * @param level The compression level (0-9)
+   */
+  public final void setLevel(int level) {
+    if ((level < Deflater.BEST_SPEED - 1 || level > Deflater.BEST_COMPRESSION)
+        && level != Deflater.DEFAULT_COMPRESSION) {
+      throw new IllegalArgumentException("Invalid compression level: " + level);
+    }
+    this.level = level;
+    if (zip != null) {
+      zip.setLevel(level);
+    }
+  }
 
   @Override
   public void begin(OutputStream stream) {
-    zip = new ZipOutputStream(new BufferedOutputStream(stream));
+    zipOutput = new CountingBufferedOutputStream(stream);
+    zip = new ZipOutputStream(zipOutput);
+    zip.setLevel(level);
   }
 
   @Override
   public Collection<EncodedHash> addEntry(String name, InputStream stream, HashAssembler hashAssembler)
       throws IOException {
-    hashAssembler.initialize();
+    startEntry(hashAssembler);
+    try (InputStream input = new BufferedInputStream(stream, BUFFER_SIZE)) {
+      long start = System.nanoTime();
+      int length = IOUtils.read(input, buffer, 0, CompressedFormats.PROBE_SIZE);
+      readTime += System.nanoTime() - start;
+      if (compressionPolicy.shouldCompress(name, buffer, length)) {
+        deflateEntry(name, input, length, hashAssembler);
+      } else {
+        storeEntry(name, input, length, hashAssembler);
+      }
+    }
+    return hashAssembler.get();
+  }
+
+  private void deflateEntry(String name, InputStream input, int sampleLength, HashAssembler hashAssembler)
+      throws IOException {
     zip.putNextEntry(new ZipEntry(name));
     try {
-      try (InputStream input = new BufferedInputStream(stream)) {
-        IOStreams.copy(input, zip, BUFFER_SIZE, hashAssembler);
+      copy(input, sampleLength, zip, hashAssembler);
+    } finally {
+      closeEntry();
+    }
+  }
+
+  private void closeEntry() throws IOException {
+    long start = System.nanoTime();
+    zip.closeEntry();
+    writeTime += System.nanoTime() - start;
+  }
+
+  private void startEntry(HashAssembler hashAssembler) {
+    hashAssembler.initialize();
+    readTime = 0;
+    hashTime = 0;
+    writeTime = 0;
+  }
+
+  private void copy(InputStream input, int sampleLength, OutputStream output, HashAssembler hashAssembler)
+      throws IOException {
+    int numRead = sampleLength;
+    while (numRead > 0) {
+      write(output, numRead);
+      hash(hashAssembler, null, numRead);
+      numRead = read(input);
+    }
+  }
+
+  private int read(InputStream input) throws IOException {
+    long start = System.nanoTime();
+    int result = input.read(buffer);
+    readTime += System.nanoTime() - start;
+    return result;
+  }
+
+  private void hash(HashAssembler hashAssembler, CRC32 crc, int length) {
+    long start = System.nanoTime();
+    hashAssembler.add(buffer, length);
+    if (crc != null) {
+      crc.update(buffer, 0, length);
+    }
+    hashTime += System.nanoTime() - start;
+  }
+
+  private void write(OutputStream output, int length) throws IOException {
+    long start = System.nanoTime();
+    output.write(buffer, 0, length);
+    writeTime += System.nanoTime() - start;
+  }
+
+  private void storeEntry(String name, InputStream input, int sampleLength, HashAssembler hashAssembler)
+      throws IOException {
+    CRC32 crc = new CRC32();
+    ByteArrayInputOutputStream content = new ByteArrayInputOutputStream();
+    int numRead = sampleLength;
+    while (numRead > 0 && content.size() < MAX_BUFFERED_SIZE) {
+      write(content, numRead);
+      hash(hashAssembler, crc, numRead);
+      numRead = read(input);
+    }
+    if (numRead > 0) {
+      writeUncompressed(name, content, input, numRead, hashAssembler);
+      return;
+    }
+    ZipEntry entry = new ZipEntry(name);
+    entry.setMethod(ZipEntry.STORED);
+    entry.setSize(content.size());
+    entry.setCompressedSize(content.size());
+    entry.setCrc(crc.getValue());
+    zip.putNextEntry(entry);
+    long start = System.nanoTime();
+    try {
+      content.writeTo(zip);
+    } finally {
+      writeTime += System.nanoTime() - start;
+      closeEntry();
+    }
+  }
+
+  private void writeUncompressed(String name, ByteArrayInputOutputStream head, InputStream tail, int numRead,
+      HashAssembler hashAssembler) throws IOException {
+    zip.setLevel(Deflater.NO_COMPRESSION);
+    try {
+      zip.putNextEntry(new ZipEntry(name));
+      long start = System.nanoTime();
+      try {
+        head.writeTo(zip);
+        writeTime += System.nanoTime() - start;
+        copy(tail, numRead, zip, hashAssembler);
+      } finally {
+        closeEntry();
       }
     } finally {
-      zip.closeEntry();
+      zip.setLevel(level);
     }
-    return hashAssembler.get();
+  }
+
+  @Override
+  public long numBytesBuffered() {
+    // Entries are deflated completely before the next one starts, so between entries all output is in this buffer
+    return zipOutput == null ? 0 : zipOutput.numBytesBuffered();
+  }
+
+  /**
+   * Return the time spent reading the content of the last added entry.
+   * @return The time spent reading the content of the last added entry in nanoseconds
+   */
+  public long readTime() {
+    return readTime;
+  }
+
+  /**
+   * Return the time spent computing the hashes and, for stored entries, the CRC of the last added entry.
+   * @return The time spent hashing the content of the last added entry in nanoseconds
+   */
+  public long hashTime() {
+    return hashTime;
+  }
+
+  /**
+   * Return the time spent deflating and writing the content of the last added entry. For stored entries that are
+   * small enough to hold in memory, this includes copying the content into memory.
+   * @return The time spent deflating and writing the content of the last added entry in nanoseconds
+   */
+  public long writeTime() {
+    return writeTime;
   }
 
   /**
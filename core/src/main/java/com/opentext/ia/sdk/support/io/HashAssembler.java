@@ -3,6 +3,7 @@
  */
 package com.opentext.ia.sdk.support.io;
 
+import java.nio.ByteBuffer;
 import java.util.Collection;
 import java.util.function.Supplier;
 
@@ -28,6 +29,19 @@ public interface HashAssembler extends Supplier<Collection<EncodedHash>> {
    */
   void add(byte[] buffer, int length);
 
+  /**
+   * Add data to be hashed. The data is consumed, i.e. the buffer's position is advanced to its limit.
+   * @param buffer The buffer of data to hash
+   */
+  default void add(ByteBuffer buffer) {
+    byte[] bytes = new byte[Math.min(buffer.remaining(), 64 * 1024)];
+    while (buffer.hasRemaining()) {
+      int length = Math.min(buffer.remaining(), bytes.length);
+      buffer.get(bytes, 0, length);
+      add(bytes, length);
+    }
+  }
+
   /**
    * Return the number of bytes hashed.
    * @return The number of bytes hashed
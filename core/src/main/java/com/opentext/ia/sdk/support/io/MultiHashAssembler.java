@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.support.io;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
+
+/**
+ * Assemble multiple hashes in a single pass over the data, for instance when both SHA-256 and MD5 hashes are required.
+ * <p>
+ * Each hash function is computed in its own lane. For large buffers, the lanes run in parallel on a
+ * {@linkplain ForkJoinPool}; small buffers are hashed on the calling thread, since the overhead of running tasks would
+ * outweigh the gain.
+ */
+public class MultiHashAssembler extends NoHashAssembler {
+
+  /**
+   * The default minimum number of bytes that are hashed in parallel lanes.
+   */
+  public static final int DEFAULT_PARALLEL_THRESHOLD = 64 * 1024;
+
+  private final Encoding encoding;
+  private final List<MessageDigest> digesters = new ArrayList<>();
+  private final ForkJoinPool pool;
+  private final int parallelThreshold;
+
+  /**
+   * Assemble hashes using the given hash functions and encoding.
+   * @param encoding The encoding used to encode the assembled hashes
+   * @param hashFunctions The hash functions used to assemble the hashes
+   */
+  public MultiHashAssembler(Encoding encoding, HashFunction... hashFunctions) {
+    this(ForkJoinPool.commonPool(), DEFAULT_PARALLEL_THRESHOLD, encoding, hashFunctions);
+  }
+
+  /**
+   * Assemble hashes using the given hash functions and encoding.
+   * @param pool The pool of threads in which to run the lanes
+   * @param parallelThreshold The minimum number of bytes that are hashed in parallel lanes
+   * @param encoding The encoding used to encode the assembled hashes
+   * @param hashFunctions The hash functions used to assemble the hashes
+   */
+  public MultiHashAssembler(ForkJoinPool pool, int parallelThreshold, Encoding encoding,
+      HashFunction... hashFunctions) {
+    if (hashFunctions.length == 0) {
+      throw new IllegalArgumentException("Missing hash functions");
+    }
+    this.pool = Objects.requireNonNull(pool, "Missing pool");
+    this.parallelThreshold = parallelThreshold;
+    this.encoding = Objects.requireNonNull(encoding, "Missing encoding");
+    for (HashFunction hashFunction : hashFunctions) {
+      try {
+        digesters.add(MessageDigest.getInstance(hashFunction.toString()));
+      } catch (NoSuchAlgorithmException e) {
+        throw new IllegalStateException("Missing message digest " + hashFunction, e);
+      }
+    }
+  }
+
+  @Override
+  public void initialize() {
+    super.initialize();
+    digesters.forEach(MessageDigest::reset);
+  }
+
+  @Override
+  public void add(byte[] buffer, int length) {
+    super.add(buffer, length);
+    update(length, digester -> digester.update(buffer, 0, length));
+  }
+
+  private void update(int length, Consumer<MessageDigest> update) {
+    if (length < parallelThreshold || digesters.size() == 1) {
+      digesters.forEach(update);
+      return;
+    }
+    List<ForkJoinTask<?>> lanes = new ArrayList<>(digesters.size() - 1);
+    for (MessageDigest digester : digesters.subList(1, digesters.size())) {
+      lanes.add(pool.submit(() -> update.accept(digester)));
+    }
+    update.accept(digesters.get(0));
+    lanes.forEach(ForkJoinTask::join);
+  }
+
+  @Override
+  public void add(ByteBuffer buffer) {
+    ByteBuffer data = buffer.duplicate();
+    super.add(buffer);
+    update(data.remaining(), digester -> digester.update(data.duplicate()));
+  }
+
+  @Override
+  public Collection<EncodedHash> get() {
+    List<EncodedHash> result = new ArrayList<>(digesters.size());
+    for (MessageDigest digester : digesters) {
+      result.add(new EncodedHash(digester.getAlgorithm(), encoding.toString(), encoding.encode(digester.digest())));
+    }
+    return result;
+  }
+
+}
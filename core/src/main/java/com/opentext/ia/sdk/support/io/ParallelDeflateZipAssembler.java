@@ -0,0 +1,220 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.support.io;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+import org.apache.commons.io.IOUtils;
+
+
+/**
+ * {@linkplain ZipAssembler} that deflates large entries using multiple threads.
+ * <p>
+ * The content of each entry is split into blocks that are deflated independently on a {@linkplain ForkJoinPool}. Each
+ * block is primed with the last 32KB of the previous block, so that the compression ratio is close to that of a single
+ * {@linkplain Deflater}. The compressed blocks are concatenated into a single deflate stream and their CRCs are
+ * combined, resulting in a standard ZIP file. Entries that fit in a single block are deflated on the calling thread.
+ * <p>
+ * Hashes are calculated on the calling thread while the blocks are being deflated. To bound memory use, at most two
+ * blocks per thread in the pool are in flight at any time.
+ */
+public class ParallelDeflateZipAssembler implements ZipAssembler {
+
+  /**
+   * The default number of bytes of uncompressed content in a block.
+   */
+  public static final int DEFAULT_BLOCK_SIZE = 128 * 1024;
+  private static final int DICTIONARY_SIZE = 32 * 1024;
+  private static final int BLOCKS_PER_THREAD = 2;
+
+  private final ForkJoinPool pool;
+  private final int level;
+  private final int blockSize;
+  private ZipFileWriter zip;
+  private long entryCrc;
+  private long entryCompressedSize;
+
+  /**
+   * Create an instance that deflates using the common {@linkplain ForkJoinPool} and the default compression level.
+   */
+  public ParallelDeflateZipAssembler() {
+    this(ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Create an instance that deflates using the default compression level.
+   * @param pool The pool of threads to deflate with
+   */
+  public ParallelDeflateZipAssembler(ForkJoinPool pool) {
+    this(pool, Deflater.DEFAULT_COMPRESSION, DEFAULT_BLOCK_SIZE);
+  }
+
+  /**
+   * Create an instance.
+   * @param pool The pool of threads to deflate with. The pool isn't shut down when the ZIP is closed
+   * @param level The compression level (0-9)
+   * @param blockSize The number of bytes of uncompressed content in a block that is deflated independently
+   */
+  public ParallelDeflateZipAssembler(ForkJoinPool pool, int level, int blockSize) {
+    this.pool = Objects.requireNonNull(pool, "Missing pool");
+    if ((level < Deflater.NO_COMPRESSION || level > Deflater.BEST_COMPRESSION)
+        && level != Deflater.DEFAULT_COMPRESSION) {
+      throw new IllegalArgumentException("Invalid compression level: " + level);
+    }
+    if (blockSize < DICTIONARY_SIZE) {
+      throw new IllegalArgumentException("Block size must be at least " + DICTIONARY_SIZE);
+    }
+    this.level = level;
+    this.blockSize = blockSize;
+  }
+
+  @Override
+  public void begin(OutputStream output) {
+    zip = new ZipFileWriter(output);
+  }
+
+  @Override
+  public Collection<EncodedHash> addEntry(String name, InputStream stream, HashAssembler hashAssembler)
+      throws IOException {
+    return addEntry(name, stream, false, hashAssembler);
+  }
+
+  @Override
+  public Collection<EncodedHash> addEntry(String name, Path content, HashAssembler hashAssembler) throws IOException {
+    try (InputStream stream = Files.newInputStream(content)) {
+      return addEntry(name, stream, ZipFileWriter.isLarge(Files.size(content)), hashAssembler);
+    }
+  }
+
+  @Override
+  public long numBytesBuffered() {
+    return zip == null ? 0 : zip.numBytesBuffered();
+  }
+
+  private Collection<EncodedHash> addEntry(String name, InputStream stream, boolean large,
+      HashAssembler hashAssembler) throws IOException {
+    hashAssembler.initialize();
+    zip.beginEntry(name, large);
+    Deque<ForkJoinTask<Block>> pending = new ArrayDeque<>();
+    int maxPending = BLOCKS_PER_THREAD * pool.getParallelism();
+    entryCrc = 0;
+    entryCompressedSize = 0;
+    long size = 0;
+    byte[] previous = null;
+    boolean last = false;
+    while (!last) {
+      byte[] data = new byte[blockSize];
+      int length = IOUtils.read(stream, data);
+      last = length < blockSize;
+      hashAssembler.add(data, length);
+      size += length;
+      BlockDeflater deflater = new BlockDeflater(previous, data, length, last);
+      if (last && pending.isEmpty()) {
+        write(deflater.call());
+      } else {
+        pending.add(pool.submit(deflater));
+      }
+      previous = data;
+      while (pending.size() >= maxPending || last && !pending.isEmpty()) {
+        write(pending.removeFirst().join());
+      }
+    }
+    zip.endEntry(entryCrc, entryCompressedSize, size);
+    return hashAssembler.get();
+  }
+
+  private void write(Block block) throws IOException {
+    zip.write(block.compressed, 0, block.compressed.length);
+    entryCompressedSize += block.compressed.length;
+    entryCrc = Crc32Combiner.combine(entryCrc, block.crc, block.length);
+  }
+
+  /**
+   * Close the ZIP to make it available for use.
+   */
+  @Override
+  public void close() throws IOException {
+    zip.close();
+  }
+
+
+  private static class Block {
+
+    private final byte[] compressed;
+    private final long crc;
+    private final int length;
+
+    @SuppressWarnings("PMD.ArrayIsStoredDirectly") // Private class
+    Block(byte[] compressed, long crc, int length) {
+      this.compressed = compressed;
+      this.crc = crc;
+      this.length = length;
+    }
+
+  }
+
+
+  private class BlockDeflater implements Callable<Block> {
+
+    private final byte[] previous;
+    private final byte[] data;
+    private final int length;
+    private final boolean last;
+
+    @SuppressWarnings("PMD.ArrayIsStoredDirectly") // Blocks aren't modified after they're read
+    BlockDeflater(byte[] previous, byte[] data, int length, boolean last) {
+      this.previous = previous;
+      this.data = data;
+      this.length = length;
+      this.last = last;
+    }
+
+    @Override
+    public Block call() {
+      CRC32 crc = new CRC32();
+      crc.update(data, 0, length);
+      Deflater deflater = new Deflater(level, true);
+      try {
+        if (previous != null) {
+          deflater.setDictionary(previous, previous.length - DICTIONARY_SIZE, DICTIONARY_SIZE);
+        }
+        deflater.setInput(data, 0, length);
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(length / 2 + 64);
+        byte[] buffer = new byte[Math.max(length / 2, 64)];
+        if (last) {
+          deflater.finish();
+          while (!deflater.finished()) {
+            compressed.write(buffer, 0, deflater.deflate(buffer));
+          }
+        } else {
+          // Sync flush ends the block's output on a byte boundary, so the next block's output can be appended
+          int numDeflated;
+          do {
+            numDeflated = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+            compressed.write(buffer, 0, numDeflated);
+          } while (numDeflated == buffer.length);
+        }
+        return new Block(compressed.toByteArray(), crc.getValue(), length);
+      } finally {
+        deflater.end();
+      }
+    }
+
+  }
+
+}
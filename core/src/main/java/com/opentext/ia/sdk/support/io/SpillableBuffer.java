@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.support.io;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+
+/**
+ * Buffer that stores data in memory until it grows beyond a given threshold, after which it moves the data to a
+ * temporary file. This combines the speed of a {@linkplain MemoryBuffer} for small amounts of data with the bounded
+ * memory use of a {@linkplain FileBuffer} for large amounts.
+ * <p>
+ * {@linkplain #close() Closing} the buffer releases its memory and deletes the temporary file, if any.
+ */
+public class SpillableBuffer implements DataBuffer, Closeable {
+
+  /**
+   * The default number of bytes to keep in memory before moving to a temporary file.
+   */
+  public static final long DEFAULT_THRESHOLD = FileSize.of(4).megaBytes();
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private final long threshold;
+  private final File dir;
+  private ByteArrayInputOutputStream memory;
+  private File file;
+  private long length;
+
+  /**
+   * Store data in memory up to the {@linkplain #DEFAULT_THRESHOLD default threshold}.
+   */
+  public SpillableBuffer() {
+    this(DEFAULT_THRESHOLD);
+  }
+
+  /**
+   * Store data in memory up to the given threshold.
+   * @param threshold The maximum number of bytes to keep in memory
+   */
+  public SpillableBuffer(long threshold) {
+    this(threshold, null);
+  }
+
+  /**
+   * Store data in memory up to the given threshold, and in a temporary file in the given directory after that.
+   * @param threshold The maximum number of bytes to keep in memory
+   * @param dir The directory in which to create the temporary file, or <code>null</code> to use the default temporary
+   *          directory
+   */
+  public SpillableBuffer(long threshold, File dir) {
+    if (threshold < 0) {
+      throw new IllegalArgumentException("threshold must not be negative");
+    }
+    this.threshold = threshold;
+    this.dir = dir;
+  }
+
+  @Override
+  public OutputStream openForWriting() throws IOException {
+    close();
+    memory = new ByteArrayInputOutputStream();
+    return new SpillingOutputStream();
+  }
+
+  @Override
+  public InputStream openForReading() throws IOException {
+    if (file != null) {
+      return new FileInputStream(file);
+    }
+    if (memory == null) {
+      return new ByteArrayInputOutputStream().getInputStream();
+    }
+    return memory.getInputStream();
+  }
+
+  @Override
+  public long length() {
+    return length;
+  }
+
+  /**
+   * Return whether the data has been moved from memory to a temporary file.
+   * @return <code>true</code> if the data is stored in a temporary file, <code>false</code> if it's stored in memory
+   */
+  public boolean isSpilled() {
+    return file != null;
+  }
+
+  /**
+   * Release the memory and delete the temporary file, if any.
+   * @throws IOException When the temporary file can't be deleted
+   */
+  @Override
+  public void close() throws IOException {
+    memory = null;
+    length = 0;
+    if (file != null) {
+      Files.deleteIfExists(file.toPath());
+      file = null;
+    }
+  }
+
+  private OutputStream spill() throws IOException {
+    file = (dir == null ? Files.createTempFile(null, null) : Files.createTempFile(dir.toPath(), null, null)).toFile();
+    OutputStream result = new BufferedOutputStream(new FileOutputStream(file), BUFFER_SIZE);
+    memory.writeTo(result);
+    memory = null;
+    return result;
+  }
+
+
+  private class SpillingOutputStream extends OutputStream {
+
+    private OutputStream target = memory;
+
+    @Override
+    public void write(int b) throws IOException {
+      ensureCapacity(1);
+      target.write(b);
+      length++;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      ensureCapacity(len);
+      target.write(b, off, len);
+      length += len;
+    }
+
+    private void ensureCapacity(int numBytes) throws IOException {
+      if (file == null && length + numBytes > threshold) {
+        target = spill();
+      }
+    }
+
+    @Override
+    public void flush() throws IOException {
+      target.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+      target.close();
+    }
+
+  }
+
+}
@@ -0,0 +1,202 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.support.io;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.Objects;
+
+
+/**
+ * {@linkplain Writer} that encodes characters as UTF-8 directly into a reusable byte array, which it writes to an
+ * output stream in large chunks.
+ * <p>
+ * Unlike an {@linkplain java.io.OutputStreamWriter}, this writer doesn't go through a charset encoder, doesn't lock,
+ * and copies ASCII characters, which make up the bulk of XML, without any further processing. Malformed surrogate
+ * characters are written as <code>?</code>, like an {@linkplain java.io.OutputStreamWriter} does. Instances are not
+ * thread-safe.
+ * <p>
+ * When chunks are forced, calls to {@linkplain #flush()} are ignored, so that callers that flush often don't cause
+ * small writes to the output stream. All characters are written when the writer is {@linkplain #close() closed}.
+ */
+public final class Utf8Writer extends Writer {
+
+  /**
+   * The default number of bytes to collect before writing them to the output stream.
+   */
+  public static final int DEFAULT_CHUNK_SIZE = 64 * 1024;
+  private static final int MAX_BYTES_PER_CHAR = 4;
+  private static final int MAX_ONE_BYTE = 0x7F;
+  private static final int MAX_TWO_BYTES = 0x7FF;
+  private static final int CONTINUATION = 0x80;
+  private static final int CONTINUATION_BITS = 6;
+  private static final int CONTINUATION_MASK = 0x3F;
+  private static final int TWO_BYTES = 0xC0;
+  private static final int THREE_BYTES = 0xE0;
+  private static final int FOUR_BYTES = 0xF0;
+  private static final byte REPLACEMENT = '?';
+
+  private final OutputStream out;
+  private final byte[] chunk;
+  private final boolean forceChunks;
+  private int length;
+  private long numWritten;
+  private char highSurrogate;
+  private boolean closed;
+
+  /**
+   * Create an instance that writes chunks of the {@linkplain #DEFAULT_CHUNK_SIZE default size}, or less when flushed.
+   * @param out The output stream to write the UTF-8 bytes to
+   */
+  public Utf8Writer(OutputStream out) {
+    this(out, DEFAULT_CHUNK_SIZE, false);
+  }
+
+  /**
+   * Create an instance.
+   * @param out The output stream to write the UTF-8 bytes to
+   * @param chunkSize The number of bytes to collect before writing them to the output stream
+   * @param forceChunks Whether to ignore {@linkplain #flush()}, so that the output stream only sees full chunks
+   */
+  public Utf8Writer(OutputStream out, int chunkSize, boolean forceChunks) {
+    if (chunkSize < MAX_BYTES_PER_CHAR) {
+      throw new IllegalArgumentException("Chunk size must be at least " + MAX_BYTES_PER_CHAR + ": " + chunkSize);
+    }
+    this.out = Objects.requireNonNull(out, "Missing output stream");
+    this.chunk = new byte[chunkSize];
+    this.forceChunks = forceChunks;
+  }
+
+  /**
+   * Return the number of UTF-8 bytes written so far, including those that are not yet written to the output stream.
+   * @return The number of bytes written
+   */
+  public long numBytesWritten() {
+    return numWritten + length;
+  }
+
+  @Override
+  public void write(int c) throws IOException {
+    ensureOpen();
+    encode((char)c);
+  }
+
+  @Override
+  public void write(char[] text, int offset, int count) throws IOException {
+    ensureOpen();
+    int end = offset + count;
+    for (int i = offset; i < end; i++) {
+      char c = text[i];
+      if (c <= MAX_ONE_BYTE && highSurrogate == 0) {
+        if (length == chunk.length) {
+          writeChunk();
+        }
+        chunk[length++] = (byte)c;
+      } else {
+        encode(c);
+      }
+    }
+  }
+
+  @Override
+  public void write(String text, int offset, int count) throws IOException {
+    ensureOpen();
+    int end = offset + count;
+    for (int i = offset; i < end; i++) {
+      char c = text.charAt(i);
+      if (c <= MAX_ONE_BYTE && highSurrogate == 0) {
+        if (length == chunk.length) {
+          writeChunk();
+        }
+        chunk[length++] = (byte)c;
+      } else {
+        encode(c);
+      }
+    }
+  }
+
+  private void ensureOpen() throws IOException {
+    if (closed) {
+      throw new IOException("Writer closed");
+    }
+  }
+
+  private void encode(char c) throws IOException {
+    if (length > chunk.length - MAX_BYTES_PER_CHAR) {
+      writeChunk();
+    }
+    if (highSurrogate != 0) {
+      char high = highSurrogate;
+      highSurrogate = 0;
+      if (Character.isLowSurrogate(c)) {
+        encodeFourBytes(Character.toCodePoint(high, c));
+        return;
+      }
+      chunk[length++] = REPLACEMENT;
+    }
+    if (c <= MAX_ONE_BYTE) {
+      chunk[length++] = (byte)c;
+    } else if (c <= MAX_TWO_BYTES) {
+      chunk[length++] = (byte)(TWO_BYTES | c >> CONTINUATION_BITS);
+      chunk[length++] = continuation(c);
+    } else if (Character.isHighSurrogate(c)) {
+      highSurrogate = c;
+    } else if (Character.isLowSurrogate(c)) {
+      chunk[length++] = REPLACEMENT;
+    } else {
+      chunk[length++] = (byte)(THREE_BYTES | c >> 2 * CONTINUATION_BITS);
+      chunk[length++] = continuation(c >> CONTINUATION_BITS);
+      chunk[length++] = continuation(c);
+    }
+  }
+
+  private void encodeFourBytes(int codePoint) {
+    chunk[length++] = (byte)(FOUR_BYTES | codePoint >> 3 * CONTINUATION_BITS);
+    chunk[length++] = continuation(codePoint >> 2 * CONTINUATION_BITS);
+    chunk[length++] = continuation(codePoint >> CONTINUATION_BITS);
+    chunk[length++] = continuation(codePoint);
+  }
+
+  private static byte continuation(int bits) {
+    return (byte)(CONTINUATION | bits & CONTINUATION_MASK);
+  }
+
+  private void writeChunk() throws IOException {
+    if (length > 0) {
+      out.write(chunk, 0, length);
+      numWritten += length;
+      length = 0;
+    }
+  }
+
+  @Override
+  public void flush() throws IOException {
+    if (!forceChunks && !closed) {
+      writeChunk();
+      out.flush();
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (closed) {
+      return;
+    }
+    try {
+      if (highSurrogate != 0) {
+        highSurrogate = 0;
+        if (length == chunk.length) {
+          writeChunk();
+        }
+        chunk[length++] = REPLACEMENT;
+      }
+      writeChunk();
+    } finally {
+      closed = true;
+      out.close();
+    }
+  }
+
+}
@@ -7,6 +7,8 @@ import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Collection;
 
 /**
@@ -36,4 +38,29 @@ public interface ZipAssembler extends Closeable {
    */
   Collection<EncodedHash> addEntry(String name, InputStream content, HashAssembler hashAssembler) throws IOException;
 
+  /**
+   * Add an entry whose content is in a file to the ZIP. Implementations may override this method to access the file
+   * more efficiently than through an {@linkplain InputStream}.
+   * @param name The name of the entry to add
+   * @param content The file that holds the content of the entry to add
+   * @param hashAssembler The hasher that will calculate the hash of the entry's content
+   * @return Any calculated hashes
+   * @throws IOException When an I/O error occurs
+   */
+  default Collection<EncodedHash> addEntry(String name, Path content, HashAssembler hashAssembler) throws IOException {
+    try (InputStream stream = Files.newInputStream(content)) {
+      return addEntry(name, stream, hashAssembler);
+    }
+  }
+
+  /**
+   * Return the number of bytes of the ZIP that this assembler has produced, but not yet written to the output stream
+   * it was {@linkplain #begin(OutputStream) given}. Implementations that buffer their output should override this
+   * method, so that callers can tell how big the ZIP is so far.
+   * @return The number of bytes buffered
+   */
+  default long numBytesBuffered() {
+    return 0;
+  }
+
 }
@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.support.io;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.zip.Deflater;
+
+/**
+ * Policy that determines whether a ZIP entry should be compressed (deflated) or stored as is. Storing entries saves
+ * CPU cycles when their content is already compressed, like for JPEG images or ZIP files.
+ */
+@FunctionalInterface
+public interface ZipCompressionPolicy {
+
+  /**
+   * Determine whether to compress an entry.
+   * @param name The name of the entry
+   * @param sample The first bytes of the entry's content
+   * @param length The number of bytes in the sample
+   * @return <code>true</code> if the entry should be deflated, or <code>false</code> if it should be stored
+   */
+  boolean shouldCompress(String name, byte[] sample, int length);
+
+  /**
+   * Return a {@linkplain ZipCompressionPolicy} that compresses all entries.
+   * @return A {@linkplain ZipCompressionPolicy} that compresses all entries
+   */
+  static ZipCompressionPolicy always() {
+    return (name, sample, length) -> true;
+  }
+
+  /**
+   * Return a {@linkplain ZipCompressionPolicy} that stores all entries without compressing them.
+   * @return A {@linkplain ZipCompressionPolicy} that stores all entries
+   */
+  static ZipCompressionPolicy never() {
+    return (name, sample, length) -> false;
+  }
+
+  /**
+   * Return a {@linkplain ZipCompressionPolicy} that stores entries whose name has one of the given extensions and
+   * compresses all others.
+   * @param extensions The file extensions (without dot) of entries to store
+   * @return A {@linkplain ZipCompressionPolicy} that stores entries with the given extensions
+   */
+  static ZipCompressionPolicy exceptForExtensions(String... extensions) {
+    Set<String> stored = Arrays.stream(extensions)
+      .map(extension -> extension.toLowerCase(Locale.ENGLISH))
+      .collect(Collectors.toSet());
+    return (name, sample, length) -> !stored.contains(CompressedFormats.extensionOf(name));
+  }
+
+  /**
+   * Return a {@linkplain ZipCompressionPolicy} that stores entries that are in a well-known compressed format, like
+   * JPEG, PNG, GIF, TIFF, PDF, ZIP, GZIP, or MP4, and compresses all others. The format is recognized from either the
+   * extension of the entry's name or the signature at the start of its content.
+   * @return A {@linkplain ZipCompressionPolicy} that stores entries in well-known compressed formats
+   */
+  static ZipCompressionPolicy exceptForCompressedFormats() {
+    return (name, sample, length) -> !CompressedFormats.isCompressed(name, sample, length);
+  }
+
+  /**
+   * Return a {@linkplain ZipCompressionPolicy} that compresses a sample of each entry's content and only compresses
+   * the entry if the sample shrinks by at least the given fraction.
+   * @param minSavings The minimum fraction (between 0 and 1) by which the sample must shrink
+   * @return A {@linkplain ZipCompressionPolicy} that compresses entries that are compressible enough
+   */
+  static ZipCompressionPolicy byCompressibility(double minSavings) {
+    if (minSavings < 0 || minSavings > 1) {
+      throw new IllegalArgumentException("minSavings must be between 0 and 1");
+    }
+    return (name, sample, length) -> {
+      int probeLength = Math.min(length, CompressedFormats.PROBE_SIZE);
+      if (probeLength == 0) {
+        return false;
+      }
+      Deflater deflater = new Deflater(Deflater.BEST_SPEED, true);
+      try {
+        deflater.setInput(sample, 0, probeLength);
+        deflater.finish();
+        byte[] output = new byte[probeLength];
+        int compressedLength = 0;
+        while (!deflater.finished() && compressedLength < probeLength) {
+          compressedLength += deflater.deflate(output, 0, output.length);
+        }
+        return compressedLength <= probeLength * (1 - minSavings);
+      } finally {
+        deflater.end();
+      }
+    };
+  }
+
+  /**
+   * Return a {@linkplain ZipCompressionPolicy} that compresses an entry only if both this policy and the given one
+   * want to compress it.
+   * @param other The other policy
+   * @return A {@linkplain ZipCompressionPolicy} that combines this policy and the given one
+   */
+  default ZipCompressionPolicy and(ZipCompressionPolicy other) {
+    return (name, sample, length) -> shouldCompress(name, sample, length)
+        && other.shouldCompress(name, sample, length);
+  }
+
+}
@@ -0,0 +1,275 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.support.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.io.output.CountingOutputStream;
+
+
+/**
+ * Low-level writer of ZIP files whose entries contain data that is already deflated. Unlike
+ * {@linkplain java.util.zip.ZipOutputStream}, this writer doesn't compress the data itself, which allows callers to
+ * compress it in any way they see fit. The CRC and sizes of each entry are written in a data descriptor after the
+ * entry's data, and ZIP64 extensions are used when sizes, offsets, or the number of entries require them. Since the
+ * sizes of an entry aren't known when its local header is written, the caller has to indicate whether the entry may be
+ * {@linkplain #beginEntry(String, boolean) large}: only then does the local header get a ZIP64 extra field, which in
+ * turn requires 8-byte sizes in the data descriptor.
+ */
+final class ZipFileWriter implements Closeable {
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+  private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+  private static final int DATA_DESCRIPTOR_SIGNATURE = 0x08074b50;
+  private static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+  private static final int ZIP64_END_SIGNATURE = 0x06064b50;
+  private static final int ZIP64_LOCATOR_SIGNATURE = 0x07064b50;
+  private static final int END_SIGNATURE = 0x06054b50;
+  private static final int VERSION = 20;
+  private static final int ZIP64_VERSION = 45;
+  private static final int FLAG_DATA_DESCRIPTOR = 0x0008;
+  private static final int FLAG_UTF8 = 0x0800;
+  private static final int METHOD_DEFLATED = 8;
+  private static final int ZIP64_EXTRA_ID = 0x0001;
+  private static final int ZIP64_LOCAL_EXTRA_SIZE = 16;
+  private static final int ZIP64_END_SIZE = 44;
+  private static final long MAX_INT = 0xFFFFFFFFL;
+  private static final int MAX_SHORT = 0xFFFF;
+
+  private final CountingBufferedOutputStream buffer;
+  private final CountingOutputStream output;
+  private final List<Entry> entries = new ArrayList<>();
+  private Entry current;
+
+  ZipFileWriter(OutputStream output) {
+    this.buffer = new CountingBufferedOutputStream(output, BUFFER_SIZE);
+    this.output = new CountingOutputStream(buffer);
+  }
+
+  /**
+   * Start a new entry whose data is deflated and whose size is less than 4GB.
+   * @param name The name of the entry
+   * @throws IOException When an I/O error occurs
+   */
+  void beginEntry(String name) throws IOException {
+    beginEntry(name, false);
+  }
+
+  /**
+   * Start a new entry whose data is deflated.
+   * @param name The name of the entry
+   * @param large Whether the entry may hold 4GB or more
+   * @throws IOException When an I/O error occurs
+   */
+  void beginEntry(String name, boolean large) throws IOException {
+    if (current != null) {
+      throw new IllegalStateException("Entry " + new String(current.name, StandardCharsets.UTF_8) + " not ended");
+    }
+    current = new Entry(name.getBytes(StandardCharsets.UTF_8), output.getByteCount(), large);
+    writeInt(LOCAL_HEADER_SIGNATURE);
+    writeShort(large ? ZIP64_VERSION : VERSION);
+    writeShort(FLAG_DATA_DESCRIPTOR | FLAG_UTF8);
+    writeShort(METHOD_DEFLATED);
+    writeShort(current.time);
+    writeShort(current.date);
+    writeInt(0);
+    writeInt(0);
+    writeInt(0);
+    writeShort(current.name.length);
+    writeShort(large ? ZIP64_LOCAL_EXTRA_SIZE + 4 : 0);
+    output.write(current.name);
+    if (large) {
+      // The sizes aren't known yet; they follow in the data descriptor
+      writeShort(ZIP64_EXTRA_ID);
+      writeShort(ZIP64_LOCAL_EXTRA_SIZE);
+      writeLong(0);
+      writeLong(0);
+    }
+  }
+
+  /**
+   * Determine whether an entry of the given size is large, i.e. requires ZIP64 extensions.
+   * @param size The number of bytes in the entry
+   * @return Whether an entry of the given size is large
+   */
+  static boolean isLarge(long size) {
+    return size >= MAX_INT;
+  }
+
+  /**
+   * Write deflated data for the current entry.
+   * @param data The buffer that holds the data to write
+   * @param offset The offset in the buffer of the data to write
+   * @param length The number of bytes to write
+   * @throws IOException When an I/O error occurs
+   */
+  void write(byte[] data, int offset, int length) throws IOException {
+    output.write(data, offset, length);
+  }
+
+  /**
+   * End the current entry.
+   * @param crc The CRC-32 of the uncompressed data
+   * @param compressedSize The number of bytes of deflated data written
+   * @param size The number of bytes of uncompressed data
+   * @throws IOException When an I/O error occurs
+   */
+  void endEntry(long crc, long compressedSize, long size) throws IOException {
+    current.crc = crc;
+    current.compressedSize = compressedSize;
+    current.size = size;
+    writeInt(DATA_DESCRIPTOR_SIGNATURE);
+    writeInt(crc);
+    if (current.large || isLarge(compressedSize) || isLarge(size)) {
+      writeLong(compressedSize);
+      writeLong(size);
+    } else {
+      writeInt(compressedSize);
+      writeInt(size);
+    }
+    entries.add(current);
+    current = null;
+  }
+
+  /**
+   * Return the number of bytes that haven't been written to the underlying stream yet.
+   * @return The number of buffered bytes
+   */
+  int numBytesBuffered() {
+    return buffer.numBytesBuffered();
+  }
+
+  /**
+   * Write the central directory and close the ZIP.
+   */
+  @Override
+  public void close() throws IOException {
+    long centralDirectoryOffset = output.getByteCount();
+    for (Entry entry : entries) {
+      writeCentralHeader(entry);
+    }
+    long centralDirectorySize = output.getByteCount() - centralDirectoryOffset;
+    boolean zip64 = entries.size() >= MAX_SHORT || centralDirectoryOffset >= MAX_INT
+        || centralDirectorySize >= MAX_INT;
+    if (zip64) {
+      writeZip64End(centralDirectoryOffset, centralDirectorySize);
+    }
+    writeInt(END_SIGNATURE);
+    writeShort(0);
+    writeShort(0);
+    writeShort(Math.min(entries.size(), MAX_SHORT));
+    writeShort(Math.min(entries.size(), MAX_SHORT));
+    writeInt(Math.min(centralDirectorySize, MAX_INT));
+    writeInt(Math.min(centralDirectoryOffset, MAX_INT));
+    writeShort(0);
+    output.close();
+  }
+
+  private void writeCentralHeader(Entry entry) throws IOException {
+    boolean zip64Size = entry.size >= MAX_INT;
+    boolean zip64CompressedSize = entry.compressedSize >= MAX_INT;
+    boolean zip64Offset = entry.offset >= MAX_INT;
+    int extraLength = 8 * (count(zip64Size) + count(zip64CompressedSize) + count(zip64Offset));
+    int version = extraLength > 0 ? ZIP64_VERSION : VERSION;
+    writeInt(CENTRAL_HEADER_SIGNATURE);
+    writeShort(version);
+    writeShort(version);
+    writeShort(FLAG_DATA_DESCRIPTOR | FLAG_UTF8);
+    writeShort(METHOD_DEFLATED);
+    writeShort(entry.time);
+    writeShort(entry.date);
+    writeInt(entry.crc);
+    writeInt(Math.min(entry.compressedSize, MAX_INT));
+    writeInt(Math.min(entry.size, MAX_INT));
+    writeShort(entry.name.length);
+    writeShort(extraLength > 0 ? extraLength + 4 : 0);
+    writeShort(0);
+    writeShort(0);
+    writeShort(0);
+    writeInt(0);
+    writeInt(Math.min(entry.offset, MAX_INT));
+    output.write(entry.name);
+    if (extraLength > 0) {
+      writeShort(ZIP64_EXTRA_ID);
+      writeShort(extraLength);
+      writeZip64Value(zip64Size, entry.size);
+      writeZip64Value(zip64CompressedSize, entry.compressedSize);
+      writeZip64Value(zip64Offset, entry.offset);
+    }
+  }
+
+  private void writeZip64Value(boolean needed, long value) throws IOException {
+    if (needed) {
+      writeLong(value);
+    }
+  }
+
+  private static int count(boolean value) {
+    return value ? 1 : 0;
+  }
+
+  private void writeZip64End(long centralDirectoryOffset, long centralDirectorySize) throws IOException {
+    long zip64EndOffset = output.getByteCount();
+    writeInt(ZIP64_END_SIGNATURE);
+    writeLong(ZIP64_END_SIZE);
+    writeShort(ZIP64_VERSION);
+    writeShort(ZIP64_VERSION);
+    writeInt(0);
+    writeInt(0);
+    writeLong(entries.size());
+    writeLong(entries.size());
+    writeLong(centralDirectorySize);
+    writeLong(centralDirectoryOffset);
+    writeInt(ZIP64_LOCATOR_SIGNATURE);
+    writeInt(0);
+    writeLong(zip64EndOffset);
+    writeInt(1);
+  }
+
+  private void writeShort(int value) throws IOException {
+    output.write(value & 0xFF);
+    output.write((value >>> 8) & 0xFF);
+  }
+
+  private void writeInt(long value) throws IOException {
+    writeShort((int)(value & MAX_SHORT));
+    writeShort((int)((value >>> 16) & MAX_SHORT));
+  }
+
+  private void writeLong(long value) throws IOException {
+    writeInt(value & MAX_INT);
+    writeInt(value >>> 32);
+  }
+
+
+  private static class Entry {
+
+    private final byte[] name;
+    private final long offset;
+    private final int time;
+    private final int date;
+    private final boolean large;
+    private long crc;
+    private long compressedSize;
+    private long size;
+
+    @SuppressWarnings("PMD.ArrayIsStoredDirectly") // Private class
+    Entry(byte[] name, long offset, boolean large) {
+      this.name = name;
+      this.offset = offset;
+      this.large = large;
+      LocalDateTime now = LocalDateTime.now();
+      this.time = now.getHour() << 11 | now.getMinute() << 5 | now.getSecond() >> 1;
+      this.date = (now.getYear() - 1980) << 9 | now.getMonthValue() << 5 | now.getDayOfMonth();
+    }
+
+  }
+
+}
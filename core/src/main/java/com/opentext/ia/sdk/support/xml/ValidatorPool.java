@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.support.xml;
+
+import java.io.IOException;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import javax.xml.transform.Source;
+import javax.xml.validation.Schema;
+import javax.xml.validation.Validator;
+
+import org.xml.sax.SAXException;
+
+
+/**
+ * Pool of {@linkplain Validator}s for a compiled XML Schema.
+ * <p>
+ * A {@linkplain Schema} is thread-safe, but the {@linkplain Validator}s it creates aren't. This pool hands out a
+ * validator to one thread at a time, and keeps a limited number of released validators around for reuse, so that
+ * concurrent validations against the same schema neither block each other nor create a new validator every time.
+ */
+public final class ValidatorPool {
+
+  private static final int MAX_IDLE = 2 * Runtime.getRuntime().availableProcessors();
+
+  private final Schema schema;
+  private final BlockingQueue<Validator> idle = new ArrayBlockingQueue<>(MAX_IDLE);
+
+  /**
+   * Create an instance.
+   * @param schema The compiled XML Schema to create validators for
+   */
+  public ValidatorPool(Schema schema) {
+    this.schema = Objects.requireNonNull(schema, "Missing XML Schema");
+  }
+
+  /**
+   * Return the compiled XML Schema.
+   * @return The compiled XML Schema
+   */
+  public Schema getSchema() {
+    return schema;
+  }
+
+  /**
+   * Take a validator from the pool, or create a new one if none is available. The validator must be
+   * {@linkplain #release(Validator) released} when the caller is done with it.
+   * @return A validator that no other thread uses
+   */
+  public Validator acquire() {
+    Validator result = idle.poll();
+    return result == null ? schema.newValidator() : result;
+  }
+
+  /**
+   * Return a validator to the pool.
+   * @param validator The validator to return, which must have been {@linkplain #acquire() acquired} from this pool
+   */
+  public void release(Validator validator) {
+    validator.reset();
+    idle.offer(validator);
+  }
+
+  /**
+   * Validate an XML instance using a pooled validator.
+   * @param xmlInstance The XML instance to validate
+   * @throws SAXException When the XML instance is invalid
+   * @throws IOException When an I/O error occurs
+   */
+  public void validate(Source xmlInstance) throws SAXException, IOException {
+    Validator validator = acquire();
+    try {
+      validator.validate(xmlInstance);
+    } finally {
+      release(validator);
+    }
+  }
+
+}
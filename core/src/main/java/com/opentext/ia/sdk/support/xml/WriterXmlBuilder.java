@@ -0,0 +1,351 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.support.xml;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.Objects;
+
+import com.opentext.ia.sdk.support.io.RuntimeIoException;
+
+
+/**
+ * Fluent API for building XML documents by writing them to a {@linkplain Writer}, optimized for speed.
+ * <p>
+ * This builder produces the same output as {@linkplain PrintingXmlBuilder}, but doesn't allocate memory once its
+ * internal arrays have grown to the depth of the document: indentation is written from a cached array, open elements
+ * are kept in arrays rather than objects, and text is escaped while it's written. Optionally, the document is written
+ * without indentation and line breaks. An instance can build any number of documents (fragments) in sequence, since
+ * {@linkplain #build()} leaves it ready for the next one.
+ * <p>
+ * I/O errors of the underlying writer are thrown as {@linkplain RuntimeIoException}s.
+ */
+public class WriterXmlBuilder implements XmlBuilder<Void> {
+
+  private static final String NL = System.lineSeparator();
+  private static final int INITIAL_DEPTH = 16;
+  private static final String INDENT = "  ";
+
+  private final Writer writer;
+  private final boolean indenting;
+  private final int indentLength;
+  private char[] indentation;
+  private String[] names = new String[INITIAL_DEPTH];
+  private String[] namespaces = new String[INITIAL_DEPTH];
+  private boolean[] open = new boolean[INITIAL_DEPTH];
+  private boolean[] hanging = new boolean[INITIAL_DEPTH];
+  private int depth;
+  private final Prefixes prefixes = new Prefixes();
+  private String namespaceUri;
+
+  /**
+   * Create an instance that indents nested elements.
+   * @param writer The writer to write the XML document to
+   */
+  public WriterXmlBuilder(Writer writer) {
+    this(writer, "");
+  }
+
+  /**
+   * Create an instance that indents nested elements.
+   * @param writer The writer to write the XML document to
+   * @param indent The indentation for the document (fragment)
+   */
+  public WriterXmlBuilder(Writer writer, String indent) {
+    this(writer, Objects.requireNonNull(indent, "Missing indent"), true);
+  }
+
+  private WriterXmlBuilder(Writer writer, String indent, boolean indenting) {
+    this.writer = Objects.requireNonNull(writer, "Missing writer");
+    this.indenting = indenting;
+    this.indentLength = indent.length();
+    this.indentation = indentationFor(indent, INITIAL_DEPTH);
+  }
+
+  private static char[] indentationFor(String indent, int maxDepth) {
+    StringBuilder result = new StringBuilder(indent.length() + maxDepth * INDENT.length()).append(indent);
+    for (int i = 0; i < maxDepth; i++) {
+      result.append(INDENT);
+    }
+    return result.toString().toCharArray();
+  }
+
+  /**
+   * Create an instance that writes the XML document without indentation and line breaks.
+   * @param writer The writer to write the XML document to
+   * @return A builder for an empty document
+   */
+  public static WriterXmlBuilder unindented(Writer writer) {
+    return new WriterXmlBuilder(writer, "", false);
+  }
+
+  @Override
+  public XmlBuilder<Void> namespace(String uri) {
+    this.namespaceUri = uri;
+    return this;
+  }
+
+  @Override
+  public XmlBuilder<Void> element(String name) {
+    int parent = depth - 1;
+    if (parent >= 0) {
+      close(parent, ElementContent.ELEMENT);
+    }
+    writeIndentation();
+    write('<');
+    write(name);
+    if (namespaceUri != null && (parent < 0 || !namespaceUri.equals(namespaces[parent]))) {
+      write(" xmlns=\"");
+      write(namespaceUri);
+      write('"');
+    }
+    push(name);
+    namespaceUri = null;
+    return this;
+  }
+
+  private void push(String name) {
+    if (depth == names.length) {
+      int capacity = 2 * depth;
+      names = Arrays.copyOf(names, capacity);
+      namespaces = Arrays.copyOf(namespaces, capacity);
+      open = Arrays.copyOf(open, capacity);
+      hanging = Arrays.copyOf(hanging, capacity);
+    }
+    names[depth] = name;
+    namespaces[depth] = namespaceUri;
+    open[depth] = true;
+    hanging[depth] = false;
+    depth++;
+  }
+
+  private void close(int element, ElementContent followedBy) {
+    boolean wasHanging = hanging[element];
+    hanging[element] = false;
+    if (wasHanging && followedBy != ElementContent.EMPTY) {
+      writeNewLine();
+    }
+    if (open[element]) {
+      open[element] = false;
+      write(followedBy.text);
+      if (followedBy.needsNewLine) {
+        writeNewLine();
+      }
+    } else if (followedBy == ElementContent.EMPTY) {
+      if (!wasHanging) {
+        writeIndentation();
+      }
+      write("</");
+      write(names[element]);
+      write('>');
+      writeNewLine();
+    }
+  }
+
+  private void writeIndentation() {
+    if (indenting) {
+      int length = indentLength + depth * INDENT.length();
+      if (length > indentation.length) {
+        indentation = indentationFor(new String(indentation, 0, indentLength), 2 * depth);
+      }
+      write(indentation, length);
+    }
+  }
+
+  private void writeNewLine() {
+    if (indenting) {
+      write(NL);
+    }
+  }
+
+  @Override
+  public XmlBuilder<Void> end() {
+    if (depth == 0) {
+      throw new IllegalStateException("No element to end");
+    }
+    depth--;
+    prefixes.forgetFrom(depth);
+    close(depth, ElementContent.EMPTY);
+    names[depth] = null;
+    namespaces[depth] = null;
+    return this;
+  }
+
+  @Override
+  public XmlBuilder<Void> attribute(String name, String value, String namespace) {
+    write(' ');
+    if (namespace != null) {
+      write(namespaceToPrefix(namespace));
+      write(':');
+    }
+    write(name);
+    write("=\"");
+    writeEscaped(value);
+    write('"');
+    return this;
+  }
+
+  private String namespaceToPrefix(String namespace) {
+    String result = prefixes.get(namespace);
+    if (result == null) {
+      result = prefixes.add(namespace, depth - 1);
+      write("xmlns:");
+      write(result);
+      write("=\"");
+      write(namespace);
+      write("\" ");
+    }
+    return result;
+  }
+
+  @Override
+  public XmlBuilder<Void> text(String text) {
+    int element = depth - 1;
+    close(element, ElementContent.TEXT);
+    writeEscaped(text);
+    hanging[element] = true;
+    return this;
+  }
+
+  @Override
+  public Void build() {
+    while (depth > 0) {
+      end();
+    }
+    prefixes.reset();
+    try {
+      writer.flush();
+    } catch (IOException e) {
+      throw new RuntimeIoException(e);
+    }
+    return null;
+  }
+
+  private void writeEscaped(String text) {
+    int start = 0;
+    int length = text.length();
+    for (int i = 0; i < length; i++) {
+      String escaped = escape(text.charAt(i));
+      if (escaped != null) {
+        write(text, start, i - start);
+        write(escaped);
+        start = i + 1;
+      }
+    }
+    write(text, start, length - start);
+  }
+
+  private static String escape(char c) {
+    switch (c) {
+      case '&':
+        return "&amp;";
+      case '<':
+        return "&lt;";
+      case '>':
+        return "&gt;";
+      case '\'':
+        return "&apos;";
+      case '"':
+        return "&quot;";
+      default:
+        return null;
+    }
+  }
+
+  private void write(char c) {
+    try {
+      writer.write(c);
+    } catch (IOException e) {
+      throw new RuntimeIoException(e);
+    }
+  }
+
+  private void write(String text) {
+    write(text, 0, text.length());
+  }
+
+  private void write(String text, int offset, int length) {
+    if (length > 0) {
+      try {
+        writer.write(text, offset, length);
+      } catch (IOException e) {
+        throw new RuntimeIoException(e);
+      }
+    }
+  }
+
+  private void write(char[] text, int length) {
+    try {
+      writer.write(text, 0, length);
+    } catch (IOException e) {
+      throw new RuntimeIoException(e);
+    }
+  }
+
+
+  /**
+   * Namespace prefixes declared on the open elements.
+   */
+  private static class Prefixes {
+
+    private String[] namespaces = new String[INITIAL_DEPTH];
+    private String[] names = new String[INITIAL_DEPTH];
+    private int[] depths = new int[INITIAL_DEPTH];
+    private int size;
+    private int nextIndex = 1;
+
+    String get(String namespace) {
+      for (int i = size - 1; i >= 0; i--) {
+        if (namespaces[i].equals(namespace)) {
+          return names[i];
+        }
+      }
+      return null;
+    }
+
+    String add(String namespace, int depth) {
+      if (size == names.length) {
+        int capacity = 2 * size;
+        namespaces = Arrays.copyOf(namespaces, capacity);
+        names = Arrays.copyOf(names, capacity);
+        depths = Arrays.copyOf(depths, capacity);
+      }
+      String result = "ns" + nextIndex++;
+      namespaces[size] = namespace;
+      names[size] = result;
+      depths[size] = depth;
+      size++;
+      return result;
+    }
+
+    void forgetFrom(int depth) {
+      while (size > 0 && depths[size - 1] >= depth) {
+        size--;
+        namespaces[size] = null;
+        names[size] = null;
+      }
+    }
+
+    void reset() {
+      nextIndex = 1;
+    }
+
+  }
+
+
+  private enum ElementContent {
+    EMPTY("/>", true), TEXT(">", false), ELEMENT(">", true);
+
+    private final String text;
+    private final boolean needsNewLine;
+
+    ElementContent(String text, boolean needsNewLine) {
+      this.text = text;
+      this.needsNewLine = needsNewLine;
+    }
+
+  }
+
+}
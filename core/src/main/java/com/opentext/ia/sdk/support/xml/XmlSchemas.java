@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.support.xml;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.validation.ValidationException;
+import javax.xml.XMLConstants;
+import javax.xml.transform.Source;
+import javax.xml.transform.stream.StreamSource;
+import javax.xml.validation.Schema;
+import javax.xml.validation.SchemaFactory;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.IOUtils;
+import org.xml.sax.SAXException;
+
+import com.opentext.ia.sdk.support.io.RuntimeIoException;
+
+
+/**
+ * Process-wide cache of compiled XML Schemas.
+ * <p>
+ * Compiling an XML Schema is expensive compared to validating a typical document against it, while the compiled
+ * {@linkplain Schema} is immutable and thread-safe. This cache compiles every schema only once, and shares a
+ * {@linkplain ValidatorPool} for it between all its users. Schemas read from a stream are identified by a hash of their
+ * content, so that the same schema read from different places is compiled only once. Schemas at a URL are identified by
+ * that URL, so that they can include or import other schemas relative to their location.
+ */
+public final class XmlSchemas {
+
+  private static final Map<String, ValidatorPool> VALIDATORS = new ConcurrentHashMap<>();
+
+  private XmlSchemas() {
+    // Utility class
+  }
+
+  /**
+   * Return the pool of validators for an XML Schema, compiling the schema if this is the first time it's seen.
+   * @param xmlSchema The XML Schema. The stream is closed after reading
+   * @return The pool of validators for the given XML Schema
+   * @throws ValidationException When the XML Schema is missing or invalid
+   */
+  public static ValidatorPool validatorsFor(InputStream xmlSchema) {
+    if (xmlSchema == null) {
+      throw new ValidationException("Missing XML Schema");
+    }
+    byte[] content;
+    try {
+      content = IOUtils.toByteArray(xmlSchema);
+    } catch (IOException e) {
+      throw new RuntimeIoException(e);
+    } finally {
+      IOUtils.closeQuietly(xmlSchema);
+    }
+    return VALIDATORS.computeIfAbsent("sha256:" + DigestUtils.sha256Hex(content),
+        key -> new ValidatorPool(compile(new StreamSource(new ByteArrayInputStream(content)))));
+  }
+
+  private static Schema compile(Source xmlSchema) {
+    try {
+      return SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI).newSchema(xmlSchema);
+    } catch (SAXException e) {
+      throw new ValidationException("Invalid XML Schema", e);
+    }
+  }
+
+  /**
+   * Return the pool of validators for an XML Schema, compiling the schema if this is the first time it's seen.
+   * @param xmlSchema The location of the XML Schema
+   * @return The pool of validators for the given XML Schema
+   * @throws ValidationException When the XML Schema is missing or invalid
+   */
+  public static ValidatorPool validatorsFor(URL xmlSchema) {
+    if (xmlSchema == null) {
+      throw new ValidationException("Missing XML Schema");
+    }
+    String location = xmlSchema.toExternalForm();
+    return VALIDATORS.computeIfAbsent(location, key -> new ValidatorPool(compile(new StreamSource(location))));
+  }
+
+  /**
+   * Return the number of cached XML Schemas.
+   * @return The number of cached XML Schemas
+   */
+  public static int size() {
+    return VALIDATORS.size();
+  }
+
+  /**
+   * Forget all cached XML Schemas, for instance because a schema at a URL has changed.
+   */
+  public static void clear() {
+    VALIDATORS.clear();
+  }
+
+}
@@ -13,15 +13,12 @@ import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
 import javax.validation.ValidationException;
-import javax.xml.XMLConstants;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.transform.stream.StreamSource;
-import javax.xml.validation.SchemaFactory;
 import javax.xml.validation.Validator;
 
-import org.apache.commons.io.IOUtils;
 import org.w3c.dom.Attr;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
@@ -445,23 +442,21 @@ public final class XmlUtil {
   public static void validate(InputStream xml, InputStream xmlSchema, String humanFriendlyDocumentType)
       throws IOException {
     try {
-      newXmlSchemaValidator(xmlSchema).validate(new StreamSource(Objects.requireNonNull(xml)));
+      XmlSchemas.validatorsFor(xmlSchema).validate(new StreamSource(Objects.requireNonNull(xml)));
     } catch (SAXException e) {
       throw new ValidationException("Invalid " + humanFriendlyDocumentType, e);
     }
   }
 
-  @SuppressWarnings("PMD.AvoidCatchingNPE") // Want better error message
+  /**
+   * Return a new validator for an XML Schema. The compiled schema is {@linkplain XmlSchemas cached}.
+   * @param xmlSchema The XML Schema to validate against
+   * @return A new validator for the given XML Schema
+   */
   public static Validator newXmlSchemaValidator(InputStream xmlSchema) {
-    try {
-      return SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI)
-        .newSchema(new StreamSource(xmlSchema))
-        .newValidator();
-    } catch (SAXException | NullPointerException e) {
-      throw new ValidationException("Invalid XML Schema", e);
-    } finally {
-      IOUtils.closeQuietly(xmlSchema);
-    }
+    return XmlSchemas.validatorsFor(xmlSchema)
+      .getSchema()
+      .newValidator();
   }
 
   private static final class DefaultErrorHandler implements ErrorHandler {
@@ -86,15 +86,30 @@ public class WhenAssemblingSips extends XmlTestCase {
     }
 
     SipMetrics metrics = sipAssembler.getMetrics();
-    assertEquals(SipMetrics.NUM_AIUS.toString(), 2, metrics.numAius());
-    assertEquals(SipMetrics.NUM_DIGITAL_OBJECTS.toString(), 3, metrics.numDigitalObjects());
-    assertEquals(SipMetrics.ASSEMBLY_TIME.toString(), time, metrics.assemblyTime(), DELTA_MS);
-    assertEquals(SipMetrics.SIZE_DIGITAL_OBJECTS.toString(), 3 * digitalObjectSize, metrics.digitalObjectsSize());
-    assertEquals(SipMetrics.SIZE_PDI.toString(), pdiSize, metrics.pdiSize());
+    assertEquals(SipMetric.NUM_AIUS.toString(), 2, metrics.numAius());
+    assertEquals(SipMetric.NUM_DIGITAL_OBJECTS.toString(), 3, metrics.numDigitalObjects());
+    assertEquals(SipMetric.ASSEMBLY_TIME.toString(), time, metrics.assemblyTime(), DELTA_MS);
+    assertEquals(SipMetric.SIZE_DIGITAL_OBJECTS.toString(), 3 * digitalObjectSize, metrics.digitalObjectsSize());
+    assertEquals(SipMetric.SIZE_PDI.toString(), pdiSize, metrics.pdiSize());
     long packagingInformationSize = getPackagingInformationSize(packagingInformationPrototype, 2, Optional.of(hash));
-    assertEquals(SipMetrics.SIZE_SIP.toString(), pdiSize + 3 * digitalObjectSize + packagingInformationSize,
+    assertEquals(SipMetric.SIZE_SIP.toString(), pdiSize + 3 * digitalObjectSize + packagingInformationSize,
         metrics.sipSize());
-    assertEquals(SipMetrics.SIZE_SIP_FILE.toString(), buffer.length(), metrics.sipFileSize());
+    assertEquals(SipMetric.SIZE_SIP_FILE.toString(), buffer.length(), metrics.sipFileSize());
+    assertEquals("# AIU latencies", 2, metrics.aiuLatency()
+      .getCount());
+    assertEquals("# digital object latencies", 3, metrics.digitalObjectLatency()
+      .getCount());
+    assertEquals(SipMetric.TIME_AIUS.toString(), metrics.aiusTime(), metrics.aiuLatency()
+      .getTotal());
+    assertTrue("Content time included in AIU time", metrics.digitalObjectsTime() <= metrics.aiusTime());
+    assertTrue(SipMetric.TIME_PDI_ZIP.toString(), metrics.pdiZipTime() > 0);
+    assertEquals("# PDI rendering latencies", 2, metrics.pdiRenderingLatency()
+      .getCount());
+    assertEquals(SipMetric.TIME_PDI_RENDERING.toString(), metrics.pdiRenderingTime(), metrics.pdiRenderingLatency()
+      .getTotal());
+    assertTrue(SipMetric.TIME_ZIP_READ.toString(), metrics.zipReadTime() > 0);
+    assertTrue(SipMetric.TIME_ZIP_HASH.toString(), metrics.zipHashTime() > 0);
+    assertTrue(SipMetric.TIME_ZIP_WRITE.toString(), metrics.zipWriteTime() > 0);
   }
 
   private long getPackagingInformationSize(PackagingInformation packagingInformationPrototype, long numAius,
@@ -205,7 +220,7 @@ public class WhenAssemblingSips extends XmlTestCase {
     sipAssembler.add(new Object());
 
     SipMetrics metrics = sipAssembler.getMetrics();
-    assertEquals(SipMetrics.SIZE_PDI.toString(), pdiSize, metrics.pdiSize());
+    assertEquals(SipMetric.SIZE_PDI.toString(), pdiSize, metrics.pdiSize());
   }
 
 }
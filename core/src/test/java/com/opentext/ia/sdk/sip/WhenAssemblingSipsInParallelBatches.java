@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.sip;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.opentext.ia.test.TestCase;
+
+
+public class WhenAssemblingSipsInParallelBatches extends TestCase {
+
+  private static final int NUM_THREADS = 8;
+  private static final int NUM_OBJECTS_PER_THREAD = 50;
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @SuppressWarnings("unchecked")
+  private SipAssembler<String> newSipAssembler() {
+    PackagingInformation prototype = PackagingInformation.builder()
+      .dss()
+      .holding(randomString(64))
+      .schema(randomString(64))
+      .entity(randomString(64))
+      .producer(randomString(64))
+      .end()
+      .build();
+    return SipAssembler.forPdi(prototype, (Assembler<HashedContents<String>>)mock(Assembler.class));
+  }
+
+  @Test
+  public void shouldAssembleAllDomainObjectsIntoSeparateSips() throws Exception {
+    int numShards = randomInt(2, 4);
+    int maxAius = randomInt(3, 7);
+    File dir = folder.newFolder();
+    ParallelBatchSipAssembler<String> batcher = new ParallelBatchSipAssembler<>(this::newSipAssembler,
+        SipSegmentationStrategy.byMaxAius(maxAius), numShards, dir);
+
+    ExecutorService executor = Executors.newFixedThreadPool(NUM_THREADS);
+    try {
+      Collection<Future<Void>> producers = new ArrayList<>();
+      for (int i = 0; i < NUM_THREADS; i++) {
+        producers.add(executor.submit(() -> {
+          for (int j = 0; j < NUM_OBJECTS_PER_THREAD; j++) {
+            batcher.add(randomString());
+          }
+          return null;
+        }));
+      }
+      for (Future<Void> producer : producers) {
+        producer.get();
+      }
+    } finally {
+      executor.shutdown();
+      executor.awaitTermination(1, TimeUnit.MINUTES);
+    }
+    batcher.end();
+    Collection<FileGenerationMetrics> sips = batcher.getSipsMetrics();
+
+    long numAius = sips.stream()
+      .mapToLong(sip -> ((SipMetrics)sip.getMetrics()).numAius())
+      .sum();
+    assertEquals("# AIUs", NUM_THREADS * NUM_OBJECTS_PER_THREAD, numAius);
+    sips.forEach(sip -> {
+      assertTrue("Too many AIUs in SIP", ((SipMetrics)sip.getMetrics()).numAius() <= maxAius);
+      assertEquals("SIP directory", dir, sip.getFile()
+        .getParentFile());
+      assertTrue("Missing SIP file", sip.getFile()
+        .isFile());
+    });
+    Set<File> files = sips.stream()
+      .map(FileGenerationMetrics::getFile)
+      .collect(Collectors.toSet());
+    assertEquals("# distinct SIP files", sips.size(), files.size());
+  }
+
+  @Test
+  public void shouldEndAllShards() throws IOException {
+    int numShards = randomInt(2, 4);
+    ParallelBatchSipAssembler<String> batcher = new ParallelBatchSipAssembler<>(this::newSipAssembler,
+        SipSegmentationStrategy.byMaxAius(Long.MAX_VALUE), numShards, folder.newFolder());
+
+    batcher.add(randomString());
+    batcher.end();
+
+    assertEquals("# SIPs", 1, batcher.getSipsMetrics()
+      .size());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldRequireAtLeastOneShard() {
+    new ParallelBatchSipAssembler<>(this::newSipAssembler, SipSegmentationStrategy.byMaxAius(1), 0);
+  }
+
+}
@@ -0,0 +1,241 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.sip;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.*;
+import static org.mockito.Mockito.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.ArgumentCaptor;
+
+import com.opentext.ia.sdk.support.datetime.Clock;
+import com.opentext.ia.sdk.support.io.FileSupplier;
+import com.opentext.ia.test.TestCase;
+
+
+public class WhenAssemblingSipsPerKey extends TestCase {
+
+  private static final int NUM_THREADS = 8;
+  private static final int NUM_OBJECTS_PER_THREAD = 50;
+  private static final String FAILING_KEY = "x";
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+  private final Clock clock = mock(Clock.class);
+  private long maxIdleMillis;
+  private File dir;
+
+  @Before
+  public void init() throws IOException {
+    maxIdleMillis = randomInt(37, 313);
+    dir = folder.newFolder();
+  }
+
+  private SipAssembler<String> newSipAssembler(String key) {
+    PackagingInformation prototype = PackagingInformation.builder()
+      .dss()
+      .holding(key)
+      .schema(randomString(64))
+      .entity(randomString(64))
+      .producer(randomString(64))
+      .end()
+      .build();
+    return SipAssembler.forPdi(prototype, newPdiAssembler(key));
+  }
+
+  @SuppressWarnings("unchecked")
+  private Assembler<HashedContents<String>> newPdiAssembler(String key) {
+    Assembler<HashedContents<String>> result = mock(Assembler.class);
+    if (FAILING_KEY.equals(key)) {
+      try {
+        doThrow(new IOException(randomString())).when(result).end();
+      } catch (IOException e) {
+        throw new IllegalStateException(e);
+      }
+    }
+    return result;
+  }
+
+  private KeyedBatchSipAssembler<String, String> newBatcher(int maxOpenSips) {
+    return new KeyedBatchSipAssembler<>(domainObject -> domainObject.substring(0, 1), this::newSipAssembler,
+        (domainObject, metrics) -> false, maxOpenSips, maxIdleMillis, FileSupplier.fromDirectory(dir), clock);
+  }
+
+  @Test
+  public void shouldAssembleSipsPerKey() throws IOException {
+    KeyedBatchSipAssembler<String, String> batcher = newBatcher(2);
+
+    for (String domainObject : new String[] { "a1", "b1", "a2", "a3", "b2" }) {
+      batcher.add(domainObject);
+    }
+    batcher.end();
+
+    assertEquals("# AIUs per SIP", Arrays.asList(2L, 3L), sorted(numAius(batcher)));
+  }
+
+  private List<Long> numAius(KeyedBatchSipAssembler<?, ?> batcher) {
+    return batcher.getSipsMetrics()
+      .stream()
+      .map(sip -> ((SipMetrics)sip.getMetrics()).numAius())
+      .collect(Collectors.toList());
+  }
+
+  private List<Long> sorted(List<Long> values) {
+    List<Long> result = new ArrayList<>(values);
+    Collections.sort(result);
+    return result;
+  }
+
+  @Test
+  public void shouldCloseSipOfLeastRecentlyUsedKeyWhenTooManyAreOpen() throws IOException {
+    KeyedBatchSipAssembler<String, String> batcher = newBatcher(2);
+
+    batcher.add("a1");
+    batcher.add("b1");
+    batcher.add("a2");
+    batcher.add("c1");
+
+    assertEquals("Closed SIPs", Collections.singletonList(1L), numAius(batcher));
+    batcher.end();
+    assertEquals("All SIPs", Arrays.asList(1L, 1L, 2L), sorted(numAius(batcher)));
+  }
+
+  @Test
+  public void shouldCloseSipsOfIdleKeys() throws IOException {
+    KeyedBatchSipAssembler<String, String> batcher = newBatcher(2);
+    Runnable alarm = idleAlarm();
+    when(clock.time()).thenReturn(0L);
+    batcher.add("a1");
+    when(clock.time()).thenReturn(maxIdleMillis / 2);
+    batcher.add("b1");
+    when(clock.time()).thenReturn(maxIdleMillis);
+
+    alarm.run();
+
+    assertEquals("Closed SIPs", Collections.singletonList(1L), numAius(batcher));
+    batcher.add("a2");
+    batcher.end();
+    assertEquals("All SIPs", Arrays.asList(1L, 1L, 1L), numAius(batcher));
+  }
+
+  private Runnable idleAlarm() {
+    ArgumentCaptor<Runnable> alarm = ArgumentCaptor.forClass(Runnable.class);
+    verify(clock).schedule(anyString(), eq(maxIdleMillis), eq(TimeUnit.MILLISECONDS), alarm.capture());
+    return alarm.getValue();
+  }
+
+  @Test(expected = IOException.class)
+  public void shouldThrowFailureToCloseSipsOfIdleKeysOnNextAdd() throws IOException {
+    KeyedBatchSipAssembler<String, String> batcher = failToCloseSipOfIdleKey();
+
+    batcher.add("a1");
+  }
+
+  private KeyedBatchSipAssembler<String, String> failToCloseSipOfIdleKey() throws IOException {
+    KeyedBatchSipAssembler<String, String> result = newBatcher(2);
+    Runnable alarm = idleAlarm();
+    when(clock.time()).thenReturn(0L);
+    result.add(FAILING_KEY + 1);
+    when(clock.time()).thenReturn(maxIdleMillis);
+
+    alarm.run();
+
+    return result;
+  }
+
+  @Test(expected = IOException.class)
+  public void shouldThrowFailureToCloseSipsOfIdleKeysOnEnd() throws IOException {
+    KeyedBatchSipAssembler<String, String> batcher = failToCloseSipOfIdleKey();
+
+    batcher.end();
+  }
+
+  @Test
+  public void shouldNotCloseSipsOfIdleKeysWithoutMaxIdleTime() throws IOException {
+    maxIdleMillis = 0;
+    KeyedBatchSipAssembler<String, String> batcher = newBatcher(2);
+
+    batcher.add("a1");
+    batcher.end();
+
+    verify(clock, never()).schedule(anyString(), anyLong(), any(TimeUnit.class), any(Runnable.class));
+    assertEquals("All SIPs", Collections.singletonList(1L), numAius(batcher));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldRejectNegativeMaxIdleTime() {
+    maxIdleMillis = -1;
+    newBatcher(2);
+  }
+
+  @Test
+  public void shouldAssembleKeysConcurrently() throws Exception {
+    int numKeys = randomInt(4, 8);
+    KeyedBatchSipAssembler<String, String> batcher = newBatcher(numKeys / 2);
+
+    ExecutorService executor = Executors.newFixedThreadPool(NUM_THREADS);
+    try {
+      Collection<Future<Void>> producers = new ArrayList<>();
+      for (int i = 0; i < NUM_THREADS; i++) {
+        producers.add(executor.submit(() -> {
+          for (int j = 0; j < NUM_OBJECTS_PER_THREAD; j++) {
+            batcher.add((char)('a' + randomInt(0, numKeys - 1)) + randomString());
+          }
+          return null;
+        }));
+      }
+      for (Future<Void> producer : producers) {
+        producer.get();
+      }
+    } finally {
+      executor.shutdown();
+      executor.awaitTermination(1, TimeUnit.MINUTES);
+    }
+    batcher.end();
+
+    assertEquals("# AIUs", NUM_THREADS * NUM_OBJECTS_PER_THREAD, numAius(batcher).stream()
+      .mapToLong(Long::longValue)
+      .sum());
+    Set<File> files = batcher.getSipsMetrics()
+      .stream()
+      .map(FileGenerationMetrics::getFile)
+      .collect(Collectors.toSet());
+    assertEquals("# distinct SIP files", batcher.getSipsMetrics()
+      .size(), files.size());
+    files.forEach(file -> assertTrue("Missing SIP file", file.isFile()));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldRequireAtLeastOneOpenSip() {
+    newBatcher(0);
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void shouldNotAcceptDomainObjectsAfterEnd() throws IOException {
+    KeyedBatchSipAssembler<String, String> batcher = newBatcher(2);
+    batcher.add("a1");
+    batcher.end();
+
+    batcher.add("a2");
+  }
+
+}
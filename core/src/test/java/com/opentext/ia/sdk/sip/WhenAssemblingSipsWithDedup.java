@@ -7,6 +7,9 @@ import static java.util.Objects.requireNonNull;
 
 import java.io.IOException;
 import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -211,6 +214,36 @@ public class WhenAssemblingSipsWithDedup extends XmlTestCase {
     sipAssembler.add(object2);
   }
 
+  @Test
+  public void withDedupOnRiAndValidationShouldForgetContentOfPreviousSips() throws IOException {
+    contentIdToResourceName.put(OBJECT_ID_2, CONTENT_1);
+    ContentAssembler<TestObject> contentAssembler =
+        ContentAssembler.withDedupOnRiAndValidation(contentsExtraction, new SingleHashAssembler(), false, true);
+
+    domainObjects = objects(OBJECT_ID_1);
+    sip(contentAssembler).assertFileCount(2 + 1);
+    domainObjects = objects(OBJECT_ID_2);
+    sip(contentAssembler).assertFileCount(2 + 1)
+      .assertContentFileIdenticalTo(OBJECT_ID_2, CONTENT_1);
+  }
+
+  @Test
+  public void withDedupOnRiShouldIncludeOnlyUniqueRiAcrossSipsWhenNotReset() throws IOException {
+    ContentAssemblerWithDedupOnRi<TestObject> contentAssembler =
+        new ContentAssemblerWithDedupOnRi<>(contentsExtraction, new SingleHashAssembler(), false, false, 10, false);
+
+    domainObjects = objects(OBJECT_ID_1, OBJECT_ID_2);
+    sip(contentAssembler).assertFileCount(2 + 2);
+    domainObjects = objects(object(OBJECT_ID_3, OBJECT_ID_1), object(OBJECT_ID_4));
+    sip(contentAssembler).assertFileCount(2 + 1)
+      .assertContentFileIdenticalTo(OBJECT_ID_4, CONTENT_4);
+
+    contentAssembler.reset();
+    domainObjects = objects(object(OBJECT_ID_5, OBJECT_ID_1));
+    sip(contentAssembler).assertFileCount(2 + 1)
+      .assertContentFileIdenticalTo(OBJECT_ID_1, CONTENT_1);
+  }
+
   @Test
   public void withDedupOnHashShouldIncludeOnlyUniqueContent() throws IOException {
     domainObjects = objects(OBJECT_ID_1, OBJECT_ID_2, OBJECT_ID_3, OBJECT_ID_4, OBJECT_ID_5);
@@ -223,4 +256,75 @@ public class WhenAssemblingSipsWithDedup extends XmlTestCase {
       .assertContentFileIdenticalTo(OBJECT_ID_2, CONTENT_2)
       .assertContentFileIdenticalTo(OBJECT_ID_4, CONTENT_4);
   }
+
+  @Test
+  public void withDedupOnHashShouldIncludeOnlyUniqueContentWhenBufferingInFiles() throws IOException {
+    domainObjects = objects(OBJECT_ID_1, OBJECT_ID_2, OBJECT_ID_3, OBJECT_ID_4, OBJECT_ID_5);
+    contentIdToResourceName.put(OBJECT_ID_3, CONTENT_1);
+    contentIdToResourceName.put(OBJECT_ID_5, CONTENT_1);
+
+    sip(new ContentAssemblerWithDedupOnHash<>(contentsExtraction, new SingleHashAssembler(), 5, 1))
+      .assertFileCount(2 + 3)
+      .assertPackagingInformation(5)
+      .assertContentFileIdenticalTo(OBJECT_ID_1, CONTENT_1)
+      .assertContentFileIdenticalTo(OBJECT_ID_2, CONTENT_2)
+      .assertContentFileIdenticalTo(OBJECT_ID_4, CONTENT_4);
+  }
+
+  @Test
+  public void withDedupOnHashShouldIncludeOnlyUniqueContentFromFiles() throws IOException {
+    domainObjects = objects(OBJECT_ID_1, OBJECT_ID_2, OBJECT_ID_3, OBJECT_ID_4, OBJECT_ID_5);
+    contentIdToResourceName.put(OBJECT_ID_3, CONTENT_1);
+    contentIdToResourceName.put(OBJECT_ID_5, CONTENT_1);
+    contentsExtraction = t -> t.getContentId()
+      .stream()
+      .map(cid -> DigitalObject.fromPath(cid, resourcePath(contentIdToResourceName.get(cid))))
+      .collect(Collectors.toList())
+      .iterator();
+
+    sip(ContentAssembler.withDedupOnHash(contentsExtraction, new SingleHashAssembler())).assertFileCount(2 + 3)
+      .assertPackagingInformation(5)
+      .assertContentFileIdenticalTo(OBJECT_ID_1, CONTENT_1)
+      .assertContentFileIdenticalTo(OBJECT_ID_2, CONTENT_2)
+      .assertContentFileIdenticalTo(OBJECT_ID_4, CONTENT_4);
+  }
+
+  @Test
+  public void withDedupOnHashAndSharedIndexShouldIncludeContentOnlyInFirstSip() throws IOException {
+    contentIdToResourceName.put(OBJECT_ID_3, CONTENT_1);
+    ContentDedupIndex index = ContentDedupIndex.inMemory();
+
+    domainObjects = objects(OBJECT_ID_1, OBJECT_ID_2);
+    sip(ContentAssembler.withDedupOnHash(contentsExtraction, new SingleHashAssembler(), index)).assertFileCount(2 + 2)
+      .assertContentFileIdenticalTo(OBJECT_ID_1, CONTENT_1)
+      .assertContentFileIdenticalTo(OBJECT_ID_2, CONTENT_2);
+
+    domainObjects = objects(OBJECT_ID_3, OBJECT_ID_4);
+    sip(ContentAssembler.withDedupOnHash(contentsExtraction, new SingleHashAssembler(), index)).assertFileCount(2 + 1)
+      .assertPackagingInformation(2)
+      .assertContentFileIdenticalTo(OBJECT_ID_4, CONTENT_4);
+  }
+
+  @Test
+  public void withDedupOnHashAndSharedIndexShouldOnlyIndexContentOfEndedSips() throws IOException {
+    ContentDedupIndex index = ContentDedupIndex.inMemory();
+    SipAssembler<TestObject> failed = sipAssembler(
+        ContentAssembler.withDedupOnHash(contentsExtraction, new SingleHashAssembler(), index));
+    failed.start(new MemoryBuffer());
+    failed.add(object(OBJECT_ID_1));
+
+    domainObjects = objects(OBJECT_ID_1);
+    sip(ContentAssembler.withDedupOnHash(contentsExtraction, new SingleHashAssembler(), index)).assertFileCount(2 + 1)
+      .assertContentFileIdenticalTo(OBJECT_ID_1, CONTENT_1);
+  }
+
+  private Path resourcePath(String resourceName) {
+    try {
+      return Paths.get(getClass().getResource(resourceName)
+        .toURI());
+    } catch (URISyntaxException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
 }
@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.sip;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.opentext.ia.sdk.support.io.MemoryBuffer;
+import com.opentext.ia.test.TestCase;
+
+
+public class WhenEstimatingSipFileSize extends TestCase {
+
+  private static final int MAX_ERROR = 16 * 1024;
+  private static final int MAX_SIP_FILE_SIZE = 256 * 1024;
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+  private final Random random = new Random();
+
+  @Test
+  public void shouldEstimateSipFileSizeWhileAssembling() throws IOException {
+    SipAssembler<Record> assembler = newAssembler();
+    assembler.setEstimatingSipFileSize(true);
+    MemoryBuffer buffer = new MemoryBuffer();
+
+    assembler.start(buffer);
+    for (int i = 0; i < 2000; i++) {
+      assembler.add(new Record(i, bytes(randomInt(0, 1024))));
+    }
+    long estimated = assembler.currentMetrics().sipFileSize();
+    assembler.end();
+
+    long actual = buffer.length();
+    assertTrue(String.format("Estimated %d but was %d", estimated, actual), Math.abs(estimated - actual) < MAX_ERROR);
+    assertEquals("Size after end", actual, assembler.getMetrics().sipFileSize());
+  }
+
+  @Test
+  public void shouldNotEstimateSipFileSizeUnlessAsked() throws IOException {
+    SipAssembler<Record> assembler = newAssembler();
+    MemoryBuffer buffer = new MemoryBuffer();
+
+    assembler.start(buffer);
+    assembler.add(new Record(1, bytes(randomInt(0, 1024))));
+    long estimated = assembler.currentMetrics().sipFileSize();
+    assembler.end();
+
+    assertEquals("Size while assembling", 0, estimated);
+    assertEquals("Size after end", buffer.length(), assembler.getMetrics().sipFileSize());
+  }
+
+  private byte[] bytes(int size) {
+    byte[] result = new byte[size];
+    random.nextBytes(result);
+    return result;
+  }
+
+  private SipAssembler<Record> newAssembler() {
+    PackagingInformation prototype = PackagingInformation.builder()
+      .dss()
+        .holding(randomString(8))
+        .schema(RecordPdiAssembler.NAMESPACE.toString())
+        .entity(randomString(8))
+        .producer(randomString(8))
+      .end()
+      .build();
+    return SipAssembler.forPdiAndContent(prototype, new RecordPdiAssembler(),
+        record -> Collections.singleton(DigitalObject.fromBytes(record.id(), record.content)).iterator());
+  }
+
+  @Test
+  public void shouldKeepSipFilesCloseToButBelowMaximumSize() throws IOException {
+    BatchSipAssembler<Record> batcher = new BatchSipAssembler<>(newAssembler(),
+        SipSegmentationStrategy.byMaxSipFileSize(MAX_SIP_FILE_SIZE), folder.getRoot());
+
+    // The strategy projects the next AIU to be of average size, so keep AIUs close to that
+    for (int i = 0; i < 1000; i++) {
+      batcher.add(new Record(i, bytes(randomInt(2 * 1024 - 64, 2 * 1024 + 64))));
+    }
+    batcher.end();
+
+    List<FileGenerationMetrics> sips = new ArrayList<>(batcher.getSipsMetrics());
+    assertTrue("# SIPs", sips.size() > 2);
+    for (int i = 0; i < sips.size(); i++) {
+      long size = sips.get(i).getFile().length();
+      assertTrue("SIP #" + i + " too big: " + size, size <= MAX_SIP_FILE_SIZE);
+      // The first SIP's PDI isn't sampled until it ends, so its size is overestimated
+      if (i > 0 && i < sips.size() - 1) {
+        assertTrue("SIP #" + i + " too small: " + size, size > MAX_SIP_FILE_SIZE - MAX_ERROR);
+      }
+    }
+  }
+
+
+  private static class Record {
+
+    private final int number;
+    private final byte[] content;
+
+    @SuppressWarnings("PMD.ArrayIsStoredDirectly")
+    Record(int number, byte[] content) {
+      this.number = number;
+      this.content = content;
+    }
+
+    String id() {
+      return "record-" + number;
+    }
+
+  }
+
+
+  private static class RecordPdiAssembler extends XmlPdiAssembler<Record> {
+
+    static final URI NAMESPACE = URI.create("urn:test:records");
+
+    RecordPdiAssembler() {
+      super(NAMESPACE, "records", "record");
+    }
+
+    @Override
+    protected void doAdd(Record record, Map<String, ContentInfo> contentInfo) {
+      getBuilder()
+          .element("id", record.id())
+          .element("description", "Record number " + record.number + " with " + record.content.length + " bytes")
+          .element("ri", contentInfo.get(record.id()).getReferenceInformation());
+    }
+
+  }
+
+}
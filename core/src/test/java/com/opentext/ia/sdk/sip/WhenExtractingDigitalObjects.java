@@ -5,9 +5,12 @@ package com.opentext.ia.sdk.sip;
 
 import static org.junit.Assert.*;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.OptionalLong;
 
 import org.apache.commons.io.IOUtils;
 import org.junit.Rule;
@@ -34,6 +37,7 @@ public class WhenExtractingDigitalObjects extends TestCase {
     try (InputStream stream = actual.get()) {
       assertArrayEquals("Content", content, IOUtils.toByteArray(stream));
     }
+    assertEquals("Size hint", OptionalLong.of(content.length), actual.getSizeHint());
   }
 
   @Test
@@ -41,6 +45,16 @@ public class WhenExtractingDigitalObjects extends TestCase {
     assertDigitalObject(DigitalObject.fromPath(referenceInformation, file(folder, content).toPath()));
   }
 
+  @Test
+  public void shouldExposePathOfFile() throws IOException {
+    Path path = file(folder, content).toPath();
+
+    DigitalObject actual = DigitalObject.fromPath(referenceInformation, path);
+
+    assertTrue("Not a file digital object", actual instanceof FileDigitalObject);
+    assertEquals("Path", path, ((FileDigitalObject)actual).getPath());
+  }
+
   @Test
   public void shouldExtractFromBytes() throws IOException {
     assertDigitalObject(DigitalObject.fromBytes(referenceInformation, content));
@@ -52,4 +66,26 @@ public class WhenExtractingDigitalObjects extends TestCase {
         StandardCharsets.UTF_16));
   }
 
+  @Test
+  public void shouldExtractFromSupplierOfKnownSize() throws IOException {
+    assertDigitalObject(DigitalObject.fromSupplier(referenceInformation, () -> new ByteArrayInputStream(content),
+        content.length));
+  }
+
+  @Test
+  public void shouldNotHintAtSizeOfSupplierOfUnknownSize() {
+    DigitalObject actual = DigitalObject.fromSupplier(referenceInformation, () -> new ByteArrayInputStream(content));
+
+    assertFalse("Size hint", actual.getSizeHint().isPresent());
+  }
+
+  @Test
+  public void shouldNotHintAtSizeOfMissingFile() {
+    Path missing = folder.getRoot().toPath().resolve(randomString());
+
+    DigitalObject actual = DigitalObject.fromPath(referenceInformation, missing);
+
+    assertFalse("Size hint", actual.getSizeHint().isPresent());
+  }
+
 }
@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.sip;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.opentext.ia.sdk.support.io.EncodedHash;
+import com.opentext.ia.test.TestCase;
+
+
+public class WhenIndexingContentForDedupInFile extends TestCase {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void shouldFindIndexedContent() throws IOException {
+    ContentInfo contentInfo = someContentInfo();
+    try (FileContentDedupIndex index = new FileContentDedupIndex(folder.newFile())) {
+      assertFalse("Found before put", index.get(contentInfo.getContentHashes())
+        .isPresent());
+
+      index.put(contentInfo);
+
+      assertEquals("Content info", contentInfo, index.get(contentInfo.getContentHashes())
+        .get());
+      assertFalse("Found other content", index.get(someContentInfo().getContentHashes())
+        .isPresent());
+    }
+  }
+
+  private ContentInfo someContentInfo() {
+    return new ContentInfo(randomString(), Arrays.asList(someHash(), someHash()));
+  }
+
+  private EncodedHash someHash() {
+    return new EncodedHash("SHA-256", "base64", randomString());
+  }
+
+  @Test
+  public void shouldKeepFirstContentInfoForSameHashes() throws IOException {
+    ContentInfo first = someContentInfo();
+    ContentInfo second = new ContentInfo(randomString(), first.getContentHashes());
+    try (FileContentDedupIndex index = new FileContentDedupIndex(folder.newFile())) {
+      index.put(first);
+      index.put(second);
+
+      assertEquals("Size", 1, index.size());
+      assertEquals("Content info", first, index.get(second.getContentHashes())
+        .get());
+    }
+  }
+
+  @Test
+  public void shouldPersistContent() throws IOException {
+    File file = folder.newFile();
+    ContentInfo[] contentInfos = new ContentInfo[5000];
+    try (FileContentDedupIndex index = new FileContentDedupIndex(file)) {
+      for (int i = 0; i < contentInfos.length; i++) {
+        contentInfos[i] = new ContentInfo("ri" + i, Collections.singletonList(someHash()));
+        index.put(contentInfos[i]);
+      }
+    }
+
+    try (FileContentDedupIndex index = new FileContentDedupIndex(file)) {
+      assertEquals("Size", contentInfos.length, index.size());
+      for (ContentInfo contentInfo : contentInfos) {
+        assertEquals("Content info", contentInfo, index.get(contentInfo.getContentHashes())
+          .get());
+      }
+    }
+  }
+
+  @Test
+  public void shouldDiscardIncompleteEntry() throws IOException {
+    File file = folder.newFile();
+    ContentInfo complete = someContentInfo();
+    ContentInfo incomplete = someContentInfo();
+    try (FileContentDedupIndex index = new FileContentDedupIndex(file)) {
+      index.put(complete);
+      index.put(incomplete);
+    }
+    try (RandomAccessFile raw = new RandomAccessFile(file, "rw")) {
+      raw.setLength(raw.length() - 3);
+    }
+
+    try (FileContentDedupIndex index = new FileContentDedupIndex(file)) {
+      Collection<EncodedHash> hashes = incomplete.getContentHashes();
+      assertEquals("Size", 1, index.size());
+      assertTrue("Complete entry not found", index.get(complete.getContentHashes())
+        .isPresent());
+      assertFalse("Incomplete entry found", index.get(hashes)
+        .isPresent());
+
+      index.put(incomplete);
+
+      assertEquals("Re-added entry", incomplete, index.get(hashes)
+        .get());
+    }
+  }
+
+  @Test
+  public void shouldDiscardCorruptEntryAndAnythingAfterIt() throws IOException {
+    File file = folder.newFile();
+    ContentInfo valid = someContentInfo();
+    ContentInfo corrupt = someContentInfo();
+    ContentInfo later = someContentInfo();
+    long validLength;
+    try (FileContentDedupIndex index = new FileContentDedupIndex(file)) {
+      index.put(valid);
+      validLength = file.length();
+      index.put(corrupt);
+      index.put(later);
+    }
+    try (RandomAccessFile raw = new RandomAccessFile(file, "rw")) {
+      raw.seek(validLength);
+      raw.writeInt(Integer.MAX_VALUE);
+    }
+
+    try (FileContentDedupIndex index = new FileContentDedupIndex(file)) {
+      assertEquals("# entries", 1, index.size());
+      assertTrue("Valid entry not found", index.get(valid.getContentHashes())
+        .isPresent());
+      assertFalse("Later entry found", index.get(later.getContentHashes())
+        .isPresent());
+    }
+    assertEquals("File length", validLength, file.length());
+  }
+
+  @Test
+  public void shouldDiscardEntryWithNegativeLength() throws IOException {
+    File file = folder.newFile();
+    try (FileContentDedupIndex index = new FileContentDedupIndex(file)) {
+      index.put(someContentInfo());
+    }
+    try (RandomAccessFile raw = new RandomAccessFile(file, "rw")) {
+      raw.writeInt(-1);
+    }
+
+    try (FileContentDedupIndex index = new FileContentDedupIndex(file)) {
+      assertEquals("# entries", 0, index.size());
+    }
+    assertEquals("File length", 0, file.length());
+  }
+
+}
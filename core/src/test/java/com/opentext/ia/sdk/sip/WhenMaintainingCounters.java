@@ -4,6 +4,7 @@
 package com.opentext.ia.sdk.sip;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 import org.junit.Test;
 
@@ -31,4 +32,56 @@ public class WhenMaintainingCounters {
     assertEquals("Reset bar", 0, counters.get(TestMetrics.BAR));
   }
 
+  @Test
+  public void shouldMaintainSipMetrics() {
+    counters.inc(SipMetric.NUM_AIUS);
+    counters.inc(SipMetric.SIZE_PDI.toString(), 42);
+
+    assertEquals("# AIUs", 1, counters.get(SipMetric.NUM_AIUS.toString()));
+    assertEquals("PDI size", 42, counters.get(SipMetric.SIZE_PDI));
+  }
+
+  @Test
+  public void shouldNotChangeCopyForReading() {
+    counters.inc(SipMetric.NUM_AIUS);
+    counters.inc(TestMetrics.FOO);
+
+    Counters copy = counters.forReading();
+    counters.inc(SipMetric.NUM_AIUS);
+    counters.inc(TestMetrics.FOO);
+
+    assertEquals("# AIUs", 1, copy.get(SipMetric.NUM_AIUS));
+    assertEquals("Foo", 1, copy.get(TestMetrics.FOO));
+  }
+
+  @Test
+  public void shouldReflectChangesInView() {
+    Counters view = counters.view();
+
+    counters.inc(SipMetric.NUM_AIUS);
+    counters.inc(TestMetrics.FOO);
+
+    assertEquals("# AIUs", 1, view.get(SipMetric.NUM_AIUS));
+    assertEquals("Foo", 1, view.get(TestMetrics.FOO));
+  }
+
+  @Test
+  public void shouldNotAllowChangesToView() {
+    Counters view = counters.view();
+
+    assertReadOnly(() -> view.inc(SipMetric.NUM_AIUS));
+    assertReadOnly(() -> view.set(TestMetrics.FOO, 1));
+    assertReadOnly(view::reset);
+  }
+
+  private void assertReadOnly(Runnable change) {
+    try {
+      change.run();
+    } catch (UnsupportedOperationException e) {
+      assertTrue("Message", e.getMessage().contains("read-only"));
+      return;
+    }
+    throw new AssertionError("Missing exception");
+  }
+
 }
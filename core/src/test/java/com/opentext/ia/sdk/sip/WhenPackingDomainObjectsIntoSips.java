@@ -0,0 +1,190 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.sip;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.opentext.ia.sdk.support.io.EncodedHash;
+import com.opentext.ia.test.TestCase;
+
+
+public class WhenPackingDomainObjectsIntoSips extends TestCase {
+
+  private static final int MAX_SIP_SIZE = 100;
+  private static final DigitalObjectsExtraction<Blob> EXTRACTION = blob -> Collections.singleton(
+      DigitalObject.fromBytes(blob.id, blob.content)).iterator();
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+  private final List<List<PackagingInformation>> dsses = new ArrayList<>();
+
+  private SipAssembler<Blob> newSipAssembler() {
+    return SipAssembler.forPdiAndContent(newPrototype(), newPdiAssembler(), EXTRACTION);
+  }
+
+  private PackagingInformation newPrototype() {
+    return PackagingInformation.builder()
+      .dss()
+      .holding(randomString(64))
+      .schema(randomString(64))
+      .entity(randomString(64))
+      .producer(randomString(64))
+      .end()
+      .build();
+  }
+
+  @SuppressWarnings("unchecked")
+  private Assembler<HashedContents<Blob>> newPdiAssembler() {
+    return mock(Assembler.class);
+  }
+
+  private SipAssembler<Blob> newSipAssemblerWithOwnDss() {
+    List<PackagingInformation> dss = new ArrayList<>();
+    dsses.add(dss);
+    PackagingInformationFactory factory = new DefaultPackagingInformationFactory(newPrototype()) {
+      @Override
+      public PackagingInformation newInstance(long aiuCount, Optional<EncodedHash> pdiHash) {
+        PackagingInformation result = super.newInstance(aiuCount, pdiHash);
+        dss.add(result);
+        return result;
+      }
+    };
+    return SipAssembler.forPdiAndContent(factory, newPdiAssembler(), EXTRACTION);
+  }
+
+  @Test
+  public void shouldFillSipsRegardlessOfArrivalOrder() throws IOException {
+    int numSips = randomInt(2, 5);
+    List<Blob> domainObjects = new ArrayList<>();
+    for (int i = 0; i < numSips; i++) {
+      domainObjects.add(blob(60));
+      domainObjects.add(blob(40));
+    }
+    Collections.shuffle(domainObjects);
+
+    List<SipMetrics> sips = pack(domainObjects, Long.MAX_VALUE, numSips, domainObjects.size());
+
+    assertEquals("# SIPs", numSips, sips.size());
+    sips.forEach(sip -> {
+      assertEquals("# AIUs", 2, sip.numAius());
+      assertEquals("Size of digital objects", MAX_SIP_SIZE, sip.digitalObjectsSize());
+    });
+  }
+
+  private List<SipMetrics> pack(List<Blob> domainObjects, long maxAiusPerSip, int maxOpenSips, int windowSize)
+      throws IOException {
+    BinPackingBatchSipAssembler<Blob> packer = new BinPackingBatchSipAssembler<>(this::newSipAssembler, EXTRACTION,
+        MAX_SIP_SIZE, maxAiusPerSip, maxOpenSips, windowSize, folder.newFolder());
+    for (Blob domainObject : domainObjects) {
+      packer.add(domainObject);
+    }
+    packer.end();
+    return packer.getSipsMetrics()
+      .stream()
+      .map(sip -> (SipMetrics)sip.getMetrics())
+      .collect(Collectors.toList());
+  }
+
+  @Test
+  public void shouldEndEveryDssWithLastSip() throws IOException {
+    int maxOpenSips = 2;
+    BinPackingBatchSipAssembler<Blob> packer = new BinPackingBatchSipAssembler<>(this::newSipAssemblerWithOwnDss,
+        EXTRACTION, MAX_SIP_SIZE, Long.MAX_VALUE, maxOpenSips, 4, folder.newFolder());
+    // Makes the fullest SIP room for a new one, replaces a full SIP, and ends with full SIPs
+    for (Blob domainObject : sizes(60, 60, 60, 40, 60, 60, 40, 40)) {
+      packer.add(domainObject);
+    }
+    packer.end();
+
+    assertEquals("# DSSs", maxOpenSips, dsses.size());
+    for (List<PackagingInformation> dss : dsses) {
+      assertFalse("Empty DSS", dss.isEmpty());
+      for (int i = 0; i < dss.size(); i++) {
+        assertEquals("Last SIP #" + (i + 1), i == dss.size() - 1, dss.get(i).isLast());
+        assertEquals("Sequence number", i + 1, dss.get(i).getSequenceNumber());
+      }
+    }
+    assertEquals("# SIPs", packer.getSipsMetrics().size(), dsses.stream().mapToInt(List::size).sum());
+  }
+
+  @Test
+  public void shouldMakeRoomForNewSipByClosingFullestOne() throws IOException {
+    List<SipMetrics> sips = pack(sizes(60, 40, 60, 40), Long.MAX_VALUE, 1, 4);
+
+    assertEquals("Sizes of digital objects", Arrays.asList(60L, 100L, 40L), sips.stream()
+      .map(SipMetrics::digitalObjectsSize)
+      .collect(Collectors.toList()));
+  }
+
+  private Blob blob(int size) {
+    return new Blob(randomString(), new byte[size]);
+  }
+
+  private List<Blob> sizes(int... sizes) {
+    List<Blob> result = new ArrayList<>();
+    for (int size : sizes) {
+      result.add(blob(size));
+    }
+    return result;
+  }
+
+  @Test
+  public void shouldRespectMaximumNumberOfAius() throws IOException {
+    int maxAius = randomInt(2, 4);
+    int numDomainObjects = randomInt(10, 20);
+    List<Blob> domainObjects = new ArrayList<>();
+    for (int i = 0; i < numDomainObjects; i++) {
+      domainObjects.add(blob(randomInt(1, 10)));
+    }
+
+    List<SipMetrics> sips = pack(domainObjects, maxAius, 2, 5);
+
+    assertEquals("# AIUs", numDomainObjects, sips.stream()
+      .mapToLong(SipMetrics::numAius)
+      .sum());
+    sips.forEach(sip -> assertTrue("Too many AIUs", sip.numAius() <= maxAius));
+  }
+
+  @Test
+  public void shouldDistributeHeldBackDomainObjectsAtEnd() throws IOException {
+    List<SipMetrics> sips = pack(sizes(10, 20, 30), Long.MAX_VALUE, 2, 100);
+
+    assertEquals("# SIPs", 1, sips.size());
+    assertEquals("# AIUs", 3, sips.get(0)
+      .numAius());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldRequirePositiveWindowSize() {
+    new BinPackingBatchSipAssembler<>(this::newSipAssembler, EXTRACTION, MAX_SIP_SIZE, 1, 1, 0);
+  }
+
+
+  private static class Blob {
+
+    private final String id;
+    private final byte[] content;
+
+    @SuppressWarnings("PMD.ArrayIsStoredDirectly")
+    Blob(String id, byte[] content) {
+      this.id = id;
+      this.content = content;
+    }
+
+  }
+
+}
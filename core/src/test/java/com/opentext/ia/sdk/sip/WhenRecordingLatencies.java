@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.sip;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import com.opentext.ia.test.TestCase;
+
+
+public class WhenRecordingLatencies extends TestCase {
+
+  private static final double MAX_RELATIVE_ERROR = 1.0 / 16;
+
+  private final LatencyHistogram histogram = new LatencyHistogram();
+
+  @Test
+  public void shouldSummarizeRecordedLatencies() {
+    for (long nanos = 1; nanos <= 1000; nanos++) {
+      histogram.record(nanos * 1000);
+    }
+
+    assertEquals("Count", 1000, histogram.getCount());
+    assertEquals("Min", 1000, histogram.getMin());
+    assertEquals("Max", 1_000_000, histogram.getMax());
+    assertEquals("Mean", 500_500, histogram.getMean(), 0.1);
+    assertPercentile(50, 500_000);
+    assertPercentile(90, 900_000);
+    assertPercentile(99, 990_000);
+    assertEquals("p100", histogram.getMax(), histogram.getValueAtPercentile(100));
+  }
+
+  private void assertPercentile(double percentile, long expected) {
+    assertEquals("p" + percentile, expected, histogram.getValueAtPercentile(percentile),
+        expected * MAX_RELATIVE_ERROR);
+  }
+
+  @Test
+  public void shouldRecordSmallLatenciesExactly() {
+    histogram.record(3);
+    histogram.record(-5);
+
+    assertEquals("Min", 0, histogram.getMin());
+    assertEquals("p50", 0, histogram.getValueAtPercentile(50));
+    assertEquals("p100", 3, histogram.getValueAtPercentile(100));
+  }
+
+  @Test
+  public void shouldNotChangeCopy() {
+    histogram.record(randomInt(1, 1000));
+
+    LatencyHistogram copy = histogram.copy();
+    histogram.record(randomInt(1, 1000));
+    histogram.reset();
+
+    assertEquals("Count of copy", 1, copy.getCount());
+    assertEquals("Count after reset", 0, histogram.getCount());
+    assertEquals("p50 after reset", 0, histogram.getValueAtPercentile(50));
+  }
+
+  @Test
+  public void shouldTrackTimersInCounters() {
+    Counters counters = new Counters();
+
+    counters.record(SipMetric.TIME_AIUS, 42);
+    counters.record(SipMetric.TIME_AIUS, 313);
+
+    assertEquals("Total", 355, counters.get(SipMetric.TIME_AIUS));
+    assertEquals("Count", 2, counters.histogram(SipMetric.TIME_AIUS)
+      .getCount());
+    assertEquals("Count in copy", 2, counters.forReading()
+      .histogram(SipMetric.TIME_AIUS)
+      .getCount());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldRejectHistogramForNonTimer() {
+    new Counters().histogram(SipMetric.NUM_AIUS);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldRejectInvalidPercentile() {
+    histogram.getValueAtPercentile(101);
+  }
+
+}
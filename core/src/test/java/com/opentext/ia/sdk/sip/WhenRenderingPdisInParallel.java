@@ -0,0 +1,197 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.sip;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Test;
+
+import com.opentext.ia.sdk.support.io.MemoryBuffer;
+import com.opentext.ia.test.TestCase;
+
+
+public class WhenRenderingPdisInParallel extends TestCase {
+
+  private static final int NUM_THREADS = 4;
+  private static final URI NAMESPACE = URI.create("urn:test:parallel");
+  private static final String INVALID = "invalid";
+
+  private final ForkJoinPool pool = new ForkJoinPool(NUM_THREADS);
+  private final List<String> domainObjects = new ArrayList<>();
+
+  @After
+  public void shutdownPool() {
+    pool.shutdownNow();
+  }
+
+  @Test
+  public void shouldRenderSamePdiAsSingleAssembler() throws IOException {
+    for (int i = 0; i < 100; i++) {
+      domainObjects.add(randomString(randomInt(1, 200)) + " & <" + i + ">");
+    }
+    Supplier<PrintWriterAssembler<HashedContents<String>>> assemblers = TestPdiAssembler::new;
+
+    String expected = assemble(assemblers.get());
+    String actual = assemble(new ParallelPdiAssembler<>(assemblers, pool));
+
+    assertEquals("PDI", expected, actual);
+  }
+
+  private String assemble(Assembler<HashedContents<String>> assembler) throws IOException {
+    MemoryBuffer buffer = new MemoryBuffer();
+    assembler.start(buffer);
+    for (String domainObject : domainObjects) {
+      assembler.add(new HashedContents<>(domainObject, Collections.emptyMap()));
+    }
+    assembler.end();
+    try (InputStream pdi = buffer.openForReading()) {
+      return IOUtils.toString(pdi, StandardCharsets.UTF_8);
+    }
+  }
+
+  @Test
+  public void shouldRenderSamePdiFromTemplate() throws IOException {
+    for (int i = 0; i < 50; i++) {
+      domainObjects.add(randomString());
+    }
+    Template<String> template = new FixedHeaderAndFooterTemplate<String>("<rows>", "</rows>") {
+      @Override
+      public void writeRow(String domainObject, Map<String, ContentInfo> contentInfo, PrintWriter writer) {
+        writer.println("  <row>" + domainObject + "</row>");
+      }
+    };
+    Supplier<PrintWriterAssembler<HashedContents<String>>> assemblers = () -> new TemplatePdiAssembler<>(template);
+
+    assertEquals("PDI", assemble(assemblers.get()), assemble(new ParallelPdiAssembler<>(assemblers, pool)));
+  }
+
+  @Test
+  public void shouldReportRenderingErrors() throws IOException {
+    domainObjects.add(randomString());
+    ParallelPdiAssembler<String> assembler = new ParallelPdiAssembler<>(() -> new PdiAssembler<String>(null) {
+      @Override
+      protected void start(PrintWriter writer) {
+        // Nothing to do
+      }
+
+      @Override
+      protected void add(String domainObject, Map<String, ContentInfo> contentInfo, PrintWriter writer)
+          throws IOException {
+        throw new IOException(domainObject);
+      }
+
+      @Override
+      protected void end(PrintWriter writer) {
+        // Nothing to do
+      }
+    }, pool);
+
+    try {
+      assemble(assembler);
+      fail("Missing exception");
+    } catch (IOException e) {
+      assertEquals("Message", domainObjects.get(0), e.getMessage());
+    }
+  }
+
+  @Test
+  public void shouldValidateRenderedFragmentsAsItems() throws IOException {
+    int numAius = randomInt(10, 100);
+    int invalidAiu = randomInt(0, numAius - 1);
+    for (int i = 0; i < numAius; i++) {
+      domainObjects.add(i == invalidAiu ? INVALID : Integer.toString(i));
+    }
+
+    try {
+      assemble(new ParallelPdiAssembler<>(() -> new TestPdiAssembler(new ItemValidator()), pool));
+      fail("Missing exception");
+    } catch (IOException e) {
+      assertTrue("Cause", e.getCause() instanceof StreamingValidationException);
+      assertEquals("AIU index", invalidAiu, ((StreamingValidationException)e.getCause()).getItemIndex());
+    }
+  }
+
+
+  private static class TestPdiAssembler extends XmlPdiAssembler<String> {
+
+    TestPdiAssembler() {
+      this(null);
+    }
+
+    TestPdiAssembler(Validator validator) {
+      super(NAMESPACE, "values", "value", validator);
+    }
+
+    @Override
+    protected void doAdd(String domainObject, Map<String, ContentInfo> contentInfo) {
+      getBuilder().element("text", domainObject);
+    }
+
+  }
+
+
+  private static class ItemValidator implements StreamingValidator {
+
+    @Override
+    public void validate(InputStream stream) {
+      // Not used
+    }
+
+    @Override
+    public StreamingValidation startValidation() {
+      StringWriter writer = new StringWriter();
+      return new StreamingValidation() {
+        private int numItems;
+        private int itemStart;
+
+        @Override
+        public Writer getWriter() {
+          return writer;
+        }
+
+        @Override
+        public void startItem() {
+          itemStart = writer.getBuffer().length();
+        }
+
+        @Override
+        public void endItem() {
+          String item = writer.getBuffer().substring(itemStart);
+          if (item.contains(INVALID)) {
+            throw new StreamingValidationException(INVALID, numItems, item, null);
+          }
+          numItems++;
+        }
+
+        @Override
+        public void end() {
+          // Nothing to do
+        }
+
+        @Override
+        public void close() {
+          // Nothing to do
+        }
+      };
+    }
+
+  }
+
+}
@@ -0,0 +1,232 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.sip;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.validation.ValidationException;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+import com.opentext.ia.sdk.support.io.MemoryBuffer;
+import com.opentext.ia.sdk.support.io.RuntimeIoException;
+import com.opentext.ia.test.TestCase;
+
+
+public class WhenSamplingPdiValidation extends TestCase {
+
+  private static final String INVALID = "invalid";
+
+  private final AtomicInteger numValidations = new AtomicInteger();
+  private final Validator validator = stream -> {
+    numValidations.incrementAndGet();
+    try {
+      if (IOUtils.toString(stream, StandardCharsets.UTF_8).contains(INVALID)) {
+        throw new ValidationException(INVALID);
+      }
+    } catch (IOException e) {
+      throw new RuntimeIoException(e);
+    }
+  };
+
+  @Test
+  public void shouldValidateEveryNthProduct() throws IOException {
+    int n = randomInt(2, 5);
+    int numProducts = 3 * n;
+    SamplingValidator samplingValidator = SamplingValidator.everyNth(validator, n);
+    TestAssembler assembler = new TestAssembler(samplingValidator);
+
+    for (int i = 0; i < numProducts; i++) {
+      assembler.assemble(randomString());
+      assertEquals("Validated #" + i, i % n == 0, assembler.getMetrics().isValidated());
+    }
+
+    assertEquals("# validations", 3, numValidations.get());
+    assertEquals("# products", numProducts, samplingValidator.numProducts());
+    assertEquals("# validated", 3, samplingValidator.numValidated());
+    assertEquals("# skipped", numProducts - 3, samplingValidator.numSkipped());
+    assertEquals("# failed", 0, samplingValidator.numFailed());
+  }
+
+  @Test
+  public void shouldValidateRandomPercentageOfProducts() throws IOException {
+    assertNumValidations(SamplingValidator.randomPercentage(validator, 0), 0);
+    assertNumValidations(SamplingValidator.randomPercentage(validator, 100), 10);
+  }
+
+  private void assertNumValidations(SamplingValidator samplingValidator, int expected) throws IOException {
+    numValidations.set(0);
+    TestAssembler assembler = new TestAssembler(samplingValidator);
+    for (int i = 0; i < 10; i++) {
+      assembler.assemble(randomString());
+    }
+    assertEquals("# validations", expected, numValidations.get());
+  }
+
+  @Test
+  public void shouldValidateEverythingAfterFailure() throws IOException {
+    SamplingValidator samplingValidator = SamplingValidator.everyNth(validator, Long.MAX_VALUE);
+    TestAssembler assembler = new TestAssembler(samplingValidator);
+    try {
+      assembler.assemble(INVALID);
+      fail("Missing exception");
+    } catch (IOException e) {
+      assertTrue("Cause", e.getCause() instanceof ValidationException);
+    }
+    assertTrue("Validating all", samplingValidator.isValidatingAll());
+
+    assembler.assemble(randomString());
+    assembler.assemble(randomString());
+
+    assertEquals("# validations", 3, numValidations.get());
+    assertEquals("# failed", 1, samplingValidator.numFailed());
+  }
+
+  @Test
+  public void shouldValidateFirstSipInDss() throws IOException {
+    SamplingValidator samplingValidator = SamplingValidator.firstSipInDss(validator);
+    PackagingInformationFactory factory = samplingValidator.observing(
+        new DefaultPackagingInformationFactory(PackagingInformation.builder()
+          .dss()
+              .holding(randomString(64))
+              .schema(randomString(64))
+              .entity(randomString(64))
+              .producer(randomString(64))
+          .end()
+          .build()));
+    SipAssembler<String> sipAssembler = SipAssembler.forPdi(factory, new TestPdiAssembler(samplingValidator));
+
+    assertPdiValidated(sipAssembler, false, true);
+    assertPdiValidated(sipAssembler, true, false);
+    assertPdiValidated(sipAssembler, true, true);
+    assertPdiValidated(sipAssembler, false, true);
+    assertPdiValidated(sipAssembler, false, false);
+  }
+
+  private void assertPdiValidated(SipAssembler<String> sipAssembler, boolean lastSipInDss, boolean expected)
+      throws IOException {
+    sipAssembler.getPackagingInformationFactory().setFinalSipInDss(lastSipInDss);
+    sipAssembler.start(new MemoryBuffer());
+    sipAssembler.add(randomString());
+    sipAssembler.end();
+    assertEquals("# validated PDIs", expected ? 1 : 0, sipAssembler.getMetrics().numPdisValidated());
+  }
+
+  @Test
+  public void shouldTrackFailuresOfStreamingValidation() throws IOException {
+    SamplingValidator samplingValidator = SamplingValidator.everyNth(new FailingStreamingValidator(), 1);
+    TestAssembler assembler = new TestAssembler(samplingValidator);
+    try {
+      assembler.assemble(randomString());
+      fail("Missing exception");
+    } catch (IOException e) {
+      assertEquals("# failed", 1, samplingValidator.numFailed());
+    }
+  }
+
+
+  private static class TestAssembler extends PrintWriterAssembler<String> {
+
+    TestAssembler(Validator validator) {
+      super(validator);
+    }
+
+    void assemble(String text) throws IOException {
+      start(new MemoryBuffer());
+      add(text);
+      end();
+    }
+
+    @Override
+    protected void start(PrintWriter writer) {
+      // Nothing to do
+    }
+
+    @Override
+    protected void add(String text, PrintWriter writer) {
+      writer.print(text);
+    }
+
+    @Override
+    protected void end(PrintWriter writer) {
+      // Nothing to do
+    }
+
+  }
+
+
+  private static class TestPdiAssembler extends PdiAssembler<String> {
+
+    TestPdiAssembler(Validator validator) {
+      super(validator);
+    }
+
+    @Override
+    protected void start(PrintWriter writer) {
+      // Nothing to do
+    }
+
+    @Override
+    protected void add(String domainObject, Map<String, ContentInfo> contentInfo, PrintWriter writer) {
+      writer.print(domainObject);
+    }
+
+    @Override
+    protected void end(PrintWriter writer) {
+      // Nothing to do
+    }
+
+  }
+
+
+  private static class FailingStreamingValidator implements StreamingValidator {
+
+    @Override
+    public void validate(InputStream stream) {
+      throw new ValidationException(INVALID);
+    }
+
+    @Override
+    public StreamingValidation startValidation() {
+      return new StreamingValidation() {
+        @Override
+        public Writer getWriter() {
+          return new StringWriter();
+        }
+
+        @Override
+        public void startItem() {
+          // Nothing to do
+        }
+
+        @Override
+        public void endItem() {
+          throw new ValidationException(INVALID);
+        }
+
+        @Override
+        public void end() {
+          // Nothing to do
+        }
+
+        @Override
+        public void close() {
+          // Nothing to do
+        }
+      };
+    }
+
+  }
+
+}
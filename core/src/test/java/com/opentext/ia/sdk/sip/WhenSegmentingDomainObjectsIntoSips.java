@@ -5,6 +5,8 @@ package com.opentext.ia.sdk.sip;
 
 import static org.junit.Assert.*;
 
+import java.util.Collections;
+import java.util.OptionalLong;
 import java.util.function.Consumer;
 import java.util.function.Function;
 
@@ -26,10 +28,10 @@ public class WhenSegmentingDomainObjectsIntoSips extends TestCase {
 
   @Test
   public void shouldSegmentByNumberOfAius() {
-    assertMaxCountPerSip(SipMetrics.NUM_AIUS, max -> SipSegmentationStrategy.byMaxAius(max));
+    assertMaxCountPerSip(SipMetric.NUM_AIUS, max -> SipSegmentationStrategy.byMaxAius(max));
   }
 
-  private void assertMaxCountPerSip(String counter, Function<Integer, SipSegmentationStrategy<String>> factory) {
+  private void assertMaxCountPerSip(SipMetric counter, Function<Integer, SipSegmentationStrategy<String>> factory) {
     int maxCount = randomInt(2, 5);
     strategy = factory.apply(maxCount);
     assertNumSips(expected * maxCount, counters -> counters.inc(counter));
@@ -49,15 +51,15 @@ public class WhenSegmentingDomainObjectsIntoSips extends TestCase {
 
   @Test
   public void shouldSegmentByNumberOfDigitalObjects() {
-    assertMaxCountPerSip(SipMetrics.NUM_DIGITAL_OBJECTS, max -> SipSegmentationStrategy.byMaxDigitalObjects(max));
+    assertMaxCountPerSip(SipMetric.NUM_DIGITAL_OBJECTS, max -> SipSegmentationStrategy.byMaxDigitalObjects(max));
   }
 
   @Test
   public void shouldSegmentByPdiSize() {
-    assertMaxSizePerSip(SipMetrics.SIZE_PDI, max -> SipSegmentationStrategy.byMaxPdiSize(max));
+    assertMaxSizePerSip(SipMetric.SIZE_PDI, max -> SipSegmentationStrategy.byMaxPdiSize(max));
   }
 
-  private void assertMaxSizePerSip(String size, Function<Integer, SipSegmentationStrategy<String>> factory) {
+  private void assertMaxSizePerSip(SipMetric size, Function<Integer, SipSegmentationStrategy<String>> factory) {
     int sizeIncrement = randomInt(2, 5);
     int numPerSip = randomInt(3, 6);
     int maxSize = numPerSip * sizeIncrement;
@@ -73,12 +75,60 @@ public class WhenSegmentingDomainObjectsIntoSips extends TestCase {
 
   @Test
   public void shouldSegmentByDigitalObjectsSize() {
-    assertMaxSizePerSip(SipMetrics.SIZE_DIGITAL_OBJECTS, max -> SipSegmentationStrategy.byMaxDigitalObjectsSize(max));
+    assertMaxSizePerSip(SipMetric.SIZE_DIGITAL_OBJECTS, max -> SipSegmentationStrategy.byMaxDigitalObjectsSize(max));
   }
 
   @Test
   public void shouldSegmentBySipSize() {
-    assertMaxSizePerSip(SipMetrics.SIZE_SIP, max -> SipSegmentationStrategy.byMaxSipSize(max));
+    assertMaxSizePerSip(SipMetric.SIZE_SIP, max -> SipSegmentationStrategy.byMaxSipSize(max));
+  }
+
+  @Test
+  public void shouldSegmentBySipFileSizeBeforeExceedingIt() {
+    int aiuSize = randomInt(2, 5);
+    int numPerSip = randomInt(3, 6);
+    strategy = SipSegmentationStrategy.byMaxSipFileSize(numPerSip * aiuSize + aiuSize - 1);
+    assertNumSips(expected * numPerSip + 1, counters -> {
+      if (counters.get(SipMetric.NUM_AIUS) == numPerSip) {
+        counters.reset();
+      }
+      counters.inc(SipMetric.NUM_AIUS);
+      counters.inc(SipMetric.SIZE_SIP_FILE, aiuSize);
+    });
+  }
+
+  @Test
+  public void shouldOnlyNeedSipFileSizeWhenSegmentingOnIt() {
+    SipSegmentationStrategy<Object> byFileSize = SipSegmentationStrategy.byMaxSipFileSize(randomInt(1, 100));
+    SipSegmentationStrategy<Object> byAius = SipSegmentationStrategy.byMaxAius(randomInt(1, 100));
+
+    assertTrue("By SIP file size", byFileSize.needsSipFileSize());
+    assertFalse("By # AIUs", byAius.needsSipFileSize());
+    assertTrue("Combined with SIP file size", SipSegmentationStrategy.combining(byAius, byFileSize).needsSipFileSize());
+    assertFalse("Combined without SIP file size", SipSegmentationStrategy.combining(byAius).needsSipFileSize());
+  }
+
+  @Test
+  public void shouldSegmentBySipSizeBeforeAddingDomainObjectThatDoesNotFit() {
+    SipMetrics metrics = sipWithThreeAiusOfThirtyBytes();
+    SipSegmentationStrategy<OptionalLong> lookAhead = SipSegmentationStrategy.byMaxSipSize(100,
+        sizeHint -> Collections.singleton(DigitalObject.fromSupplier(randomString(), () -> null, sizeHint))
+          .iterator());
+
+    assertTrue("Too big", lookAhead.shouldStartNewSip(OptionalLong.of(20), metrics));
+    assertFalse("Fits", lookAhead.shouldStartNewSip(OptionalLong.of(4), metrics));
+    assertTrue("Unknown size", lookAhead.shouldStartNewSip(OptionalLong.empty(), metrics));
+    assertFalse("Empty SIP", lookAhead.shouldStartNewSip(OptionalLong.of(1000), new SipMetrics(new Counters())));
+  }
+
+  private SipMetrics sipWithThreeAiusOfThirtyBytes() {
+    Counters result = new Counters();
+    result.set(SipMetric.NUM_AIUS, 3);
+    result.set(SipMetric.NUM_DIGITAL_OBJECTS, 3);
+    result.set(SipMetric.SIZE_DIGITAL_OBJECTS, 75);
+    result.set(SipMetric.SIZE_PDI, 15);
+    result.set(SipMetric.SIZE_SIP, 90);
+    return new SipMetrics(result);
   }
 
   @Test
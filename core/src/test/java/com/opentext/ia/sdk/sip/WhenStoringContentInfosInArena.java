@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.sip;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.opentext.ia.sdk.support.io.EncodedHash;
+import com.opentext.ia.test.TestCase;
+
+
+public class WhenStoringContentInfosInArena extends TestCase {
+
+  private static final int NUM_CONTENT_INFOS = 100_000;
+  // Growing the array by half leaves at most a third of it unused
+  private static final int MAX_BYTES_PER_CONTENT_INFO = 92;
+
+  private final ContentInfoArena arena = new ContentInfoArena();
+
+  @Test
+  public void shouldReturnStoredContentInfos() {
+    List<ContentInfo> contentInfos = Arrays.asList(new ContentInfo(randomString(300) + "é中",
+        Arrays.asList(someHash("SHA-256"), someHash("SHA-1"))), new ContentInfo("", Collections.emptyList()),
+        contentInfo(1));
+    List<Integer> offsets = new ArrayList<>();
+    for (ContentInfo contentInfo : contentInfos) {
+      offsets.add(arena.add(contentInfo));
+    }
+
+    for (int i = 0; i < contentInfos.size(); i++) {
+      ContentInfo expected = contentInfos.get(i);
+      assertEquals("Content info", expected, arena.get(offsets.get(i)));
+      assertEquals("Reference information", expected.getReferenceInformation(),
+          arena.getReferenceInformation(offsets.get(i)));
+    }
+  }
+
+  private EncodedHash someHash(String hashFunction) {
+    return new EncodedHash(hashFunction, "base64", randomString(44));
+  }
+
+  private ContentInfo contentInfo(int index) {
+    return new ContentInfo(String.format("%08d.pdf", index), Collections.singletonList(new EncodedHash("SHA-256",
+        "base64", String.format("%044d", index))));
+  }
+
+  @Test
+  public void shouldForgetContentInfosWhenCleared() {
+    arena.add(contentInfo(1));
+
+    arena.clear();
+
+    assertEquals("Size", 0, arena.size());
+    assertEquals("Content info after clear", contentInfo(2), arena.get(arena.add(contentInfo(2))));
+  }
+
+  @Test
+  public void shouldTakeLittleMoreThanReferenceInformationAndHashValuePerContentInfo() {
+    for (int i = 0; i < NUM_CONTENT_INFOS; i++) {
+      arena.add(contentInfo(i));
+    }
+
+    // 12 bytes of reference information, 44 of hash value, and a byte for each length and index
+    assertEquals("Bytes per content info", 61, arena.size() / NUM_CONTENT_INFOS);
+    assertTrue("Allocated bytes per content info: " + arena.capacity() / NUM_CONTENT_INFOS,
+        arena.capacity() <= MAX_BYTES_PER_CONTENT_INFO * NUM_CONTENT_INFOS);
+  }
+
+}
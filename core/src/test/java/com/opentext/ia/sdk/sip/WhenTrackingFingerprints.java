@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.sip;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.opentext.ia.test.TestCase;
+
+
+public class WhenTrackingFingerprints extends TestCase {
+
+  private final FingerprintTable table = new FingerprintTable(4);
+  private final List<String> keys = new ArrayList<>();
+
+  @Test
+  public void shouldFindValuesOfKeys() {
+    for (int i = 0; i < 1000; i++) {
+      put(randomString());
+    }
+
+    assertEquals("Size", keys.size(), table.size());
+    for (int i = 0; i < keys.size(); i++) {
+      assertEquals("Value", i, find(keys.get(i)));
+    }
+    assertEquals("Value of unknown key", FingerprintTable.NOT_FOUND, find(randomString()));
+  }
+
+  private void put(String key) {
+    put(FingerprintTable.fingerprint(key), key);
+  }
+
+  private void put(long fingerprint, String key) {
+    table.put(fingerprint, keys.size());
+    keys.add(key);
+  }
+
+  private long find(String key) {
+    return find(FingerprintTable.fingerprint(key), key);
+  }
+
+  private long find(long fingerprint, String key) {
+    return table.find(fingerprint, candidate -> keys.get((int)candidate)
+      .equals(key));
+  }
+
+  @Test
+  public void shouldDistinguishKeysWithSameFingerprint() {
+    String key1 = randomString();
+    String key2 = randomString();
+    long fingerprint = randomInt(0, 1000);
+
+    put(fingerprint, key1);
+    put(fingerprint, key2);
+
+    assertEquals("Value 1", 0, find(fingerprint, key1));
+    assertEquals("Value 2", 1, find(fingerprint, key2));
+  }
+
+  @Test
+  public void shouldForgetEntriesWhenCleared() {
+    String key = randomString();
+    put(key);
+
+    table.clear();
+
+    assertEquals("Size", 0, table.size());
+    assertEquals("Value", FingerprintTable.NOT_FOUND, find(key));
+  }
+
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.sip;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Map;
+
+import javax.xml.XMLConstants;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+import com.opentext.ia.sdk.support.io.MemoryBuffer;
+import com.opentext.ia.sdk.support.xml.XmlBuilder;
+import com.opentext.ia.sdk.support.xml.XmlUtil;
+import com.opentext.ia.test.TestCase;
+
+
+public class WhenValidatingPdisWhileWriting extends TestCase {
+
+  private static final URI NAMESPACE = URI.create("urn:com.opentext.ia.sdk.test:1.0");
+  private static final String INVALID_VALUE = "not-a-number";
+
+  private final MemoryBuffer buffer = new MemoryBuffer();
+  private final Assembler<HashedContents<String>> pdiAssembler = new TestPdiAssembler(
+      new StreamingXmlSchemaValidator(testSchema()));
+
+  private InputStream testSchema() {
+    return new ByteArrayInputStream(XmlUtil.toString(XmlBuilder.newDocument()
+        .namespace(XMLConstants.W3C_XML_SCHEMA_NS_URI)
+        .element("schema")
+            .attribute("targetNamespace", NAMESPACE.toString())
+            .attribute("elementFormDefault", "qualified")
+            .element("element")
+                .attribute("name", "documents")
+                .element("complexType")
+                    .element("sequence")
+                        .element("element")
+                            .attribute("name", "document")
+                            .attribute("minOccurs", "0")
+                            .attribute("maxOccurs", "unbounded")
+                            .element("complexType")
+                                .element("sequence")
+                                    .element("element")
+                                        .attribute("name", "value")
+                                        .attribute("type", "int")
+                                    .end()
+                                .end()
+                            .end()
+                        .end()
+                    .end()
+                .end()
+            .end()
+        .end()
+      .build())
+      .getBytes(StandardCharsets.UTF_8));
+  }
+
+  @Test
+  public void shouldAcceptValidPdi() throws IOException {
+    int numAius = randomInt(10, 100);
+
+    assemblePdi(numAius, -1);
+
+    try (InputStream pdi = buffer.openForReading()) {
+      String content = IOUtils.toString(pdi, StandardCharsets.UTF_8);
+      assertTrue("Missing last AIU", content.contains("<value>" + (numAius - 1) + "</value>"));
+    }
+  }
+
+  private void assemblePdi(int numAius, int invalidAiu) throws IOException {
+    pdiAssembler.start(buffer);
+    for (int i = 0; i < numAius; i++) {
+      pdiAssembler.add(new HashedContents<>(i == invalidAiu ? INVALID_VALUE : Integer.toString(i), Collections.emptyMap()));
+    }
+    pdiAssembler.end();
+  }
+
+  @Test
+  public void shouldReportInvalidAiu() {
+    int numAius = randomInt(10, 100);
+    int invalidAiu = randomInt(0, numAius - 1);
+
+    try {
+      assemblePdi(numAius, invalidAiu);
+      fail("Missing exception");
+    } catch (IOException e) {
+      assertInvalidAiu(e, invalidAiu);
+    }
+  }
+
+  private void assertInvalidAiu(IOException exception, int expectedIndex) {
+    assertTrue("Cause", exception.getCause() instanceof StreamingValidationException);
+    StreamingValidationException cause = (StreamingValidationException)exception.getCause();
+    assertEquals("AIU index", expectedIndex, cause.getItemIndex());
+    assertTrue("Snippet", cause.getSnippet()
+      .contains(INVALID_VALUE));
+    assertTrue("Message", exception.getMessage()
+      .contains("item #" + expectedIndex));
+  }
+
+  @Test
+  public void shouldFailFastOnInvalidAiu() throws IOException {
+    int invalidAiu = randomInt(1000, 2000);
+
+    pdiAssembler.start(buffer);
+    try {
+      for (int i = 0; i < 100_000; i++) {
+        pdiAssembler.add(new HashedContents<>(i == invalidAiu ? INVALID_VALUE : Integer.toString(i), Collections.emptyMap()));
+      }
+      fail("Missing exception");
+    } catch (IOException e) {
+      assertInvalidAiu(e, invalidAiu);
+    }
+  }
+
+
+  private static class TestPdiAssembler extends XmlPdiAssembler<String> {
+
+    TestPdiAssembler(Validator validator) {
+      super(NAMESPACE, "documents", "document", validator);
+    }
+
+    @Override
+    protected void doAdd(String value, Map<String, ContentInfo> contentInfo) {
+      getBuilder().element("value", value);
+    }
+
+  }
+
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.support.io;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.opentext.ia.test.TestCase;
+
+
+public class WhenBufferingDataWithSpillingToFile extends TestCase {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void shouldKeepSmallDataInMemory() throws IOException {
+    byte[] expected = randomBytes();
+    try (SpillableBuffer buffer = new SpillableBuffer(expected.length)) {
+      write(buffer, expected);
+
+      assertFalse("Spilled", buffer.isSpilled());
+      assertEquals("Length", expected.length, buffer.length());
+      assertArrayEquals("Read bytes", expected, read(buffer));
+    }
+  }
+
+  private void write(DataBuffer buffer, byte[] data) throws IOException {
+    try (OutputStream stream = buffer.openForWriting()) {
+      int half = data.length / 2;
+      stream.write(data, 0, half);
+      for (int i = half; i < data.length; i++) {
+        stream.write(data[i]);
+      }
+    }
+  }
+
+  private byte[] read(DataBuffer buffer) throws IOException {
+    try (InputStream stream = buffer.openForReading()) {
+      return IOUtils.toByteArray(stream);
+    }
+  }
+
+  @Test
+  public void shouldMoveLargeDataToFile() throws IOException {
+    File dir = folder.newFolder();
+    byte[] expected = randomBytes();
+    try (SpillableBuffer buffer = new SpillableBuffer(expected.length / 3, dir)) {
+      write(buffer, expected);
+
+      assertTrue("Not spilled", buffer.isSpilled());
+      assertEquals("# temporary files", 1, dir.list().length);
+      assertEquals("Length", expected.length, buffer.length());
+      assertArrayEquals("Read bytes", expected, read(buffer));
+      assertArrayEquals("Read bytes again", expected, read(buffer));
+    }
+    assertEquals("# temporary files after close", 0, dir.list().length);
+  }
+
+  @Test
+  public void shouldMoveLargeDataToDefaultTemporaryDirectory() throws IOException {
+    byte[] expected = new byte[(int)SpillableBuffer.DEFAULT_THRESHOLD + 1];
+    try (SpillableBuffer buffer = new SpillableBuffer()) {
+      write(buffer, expected);
+
+      assertTrue("Not spilled", buffer.isSpilled());
+      assertArrayEquals("Content", expected, read(buffer));
+    }
+  }
+
+  @Test
+  public void shouldReplaceDataWhenWritingAgain() throws IOException {
+    File dir = folder.newFolder();
+    byte[] large = randomBytes();
+    byte[] small = Arrays.copyOf(large, 1);
+    try (SpillableBuffer buffer = new SpillableBuffer(small.length, dir)) {
+      write(buffer, large);
+      write(buffer, small);
+
+      assertFalse("Spilled", buffer.isSpilled());
+      assertEquals("# temporary files", 0, dir.list().length);
+      assertArrayEquals("Read bytes", small, read(buffer));
+    }
+  }
+
+  @Test
+  public void shouldBeEmptyInitially() throws IOException {
+    try (SpillableBuffer buffer = new SpillableBuffer()) {
+      assertEquals("Length", 0, buffer.length());
+      assertEquals("Content", 0, read(buffer).length);
+    }
+  }
+
+}
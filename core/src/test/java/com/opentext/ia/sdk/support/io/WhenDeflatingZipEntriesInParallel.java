@@ -0,0 +1,202 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.support.io;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Collection;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.opentext.ia.test.TestCase;
+
+
+public class WhenDeflatingZipEntriesInParallel extends TestCase {
+
+  private static final int BLOCK_SIZE = 32 * 1024;
+  private static final String LARGE = "large";
+  private static final String SMALL = "small";
+  private static final int ZIP64_VERSION = 45;
+  private static final int ZIP64_EXTRA_ID = 0x0001;
+  private static final long MAX_INT = 0xFFFFFFFFL;
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+  private final Random random = new Random();
+  private final ForkJoinPool pool = new ForkJoinPool(3);
+  private final ZipAssembler zip = new ParallelDeflateZipAssembler(pool, Deflater.DEFAULT_COMPRESSION, BLOCK_SIZE);
+
+  @After
+  public void shutdown() {
+    pool.shutdown();
+  }
+
+  @Test
+  public void shouldWriteStandardZip() throws IOException {
+    byte[] large = compressibleBytes(20 * BLOCK_SIZE + 17);
+    byte[] exact = randomBytes(2 * BLOCK_SIZE);
+    byte[] small = compressibleBytes(100);
+    byte[] empty = new byte[0];
+    File file = folder.newFile();
+
+    try (OutputStream output = new FileOutputStream(file)) {
+      zip.begin(output);
+      add(LARGE, large);
+      add("exact", exact);
+      add(SMALL, small);
+      add("empty", empty);
+      zip.close();
+    }
+
+    try (ZipInputStream unzip = new ZipInputStream(new FileInputStream(file))) {
+      assertEntry(unzip, LARGE, large);
+      assertEntry(unzip, "exact", exact);
+      assertEntry(unzip, SMALL, small);
+      assertEntry(unzip, "empty", empty);
+      assertNull("Additional entries", unzip.getNextEntry());
+    }
+    try (ZipFile zipFile = new ZipFile(file)) {
+      assertEquals("# entries", 4, zipFile.size());
+      ZipEntry entry = zipFile.getEntry(LARGE);
+      assertEquals("Size", large.length, entry.getSize());
+      assertEquals("CRC", crc(large), entry.getCrc());
+      assertTrue("Not compressed", entry.getCompressedSize() < large.length / 2);
+      try (InputStream content = zipFile.getInputStream(entry)) {
+        assertArrayEquals("Content", large, IOUtils.toByteArray(content));
+      }
+    }
+  }
+
+  private byte[] compressibleBytes(int length) {
+    byte[] result = new byte[length];
+    for (int i = 0; i < length; i++) {
+      result[i] = (byte)('a' + random.nextInt(4));
+    }
+    return result;
+  }
+
+  private byte[] randomBytes(int length) {
+    byte[] result = new byte[length];
+    random.nextBytes(result);
+    return result;
+  }
+
+  private Collection<EncodedHash> add(String name, byte[] content) throws IOException {
+    return zip.addEntry(name, new ByteArrayInputStream(content), new SingleHashAssembler());
+  }
+
+  private void assertEntry(ZipInputStream unzip, String expectedName, byte[] expectedContent) throws IOException {
+    ZipEntry entry = unzip.getNextEntry();
+    assertNotNull("Missing entry " + expectedName, entry);
+    assertEquals("Name", expectedName, entry.getName());
+    assertArrayEquals("Content of " + expectedName, expectedContent, IOUtils.toByteArray(unzip));
+    unzip.closeEntry();
+  }
+
+  private long crc(byte[] content) {
+    CRC32 result = new CRC32();
+    result.update(content);
+    return result.getValue();
+  }
+
+  @Test
+  public void shouldCalculateHashes() throws IOException {
+    byte[] content = compressibleBytes(5 * BLOCK_SIZE);
+    HashAssembler expected = new SingleHashAssembler();
+    expected.initialize();
+    expected.add(content, content.length);
+
+    zip.begin(new ByteArrayInputOutputStream());
+    Collection<EncodedHash> actual = add(randomString(), content);
+    zip.close();
+
+    assertEquals("Hashes", expected.get(), actual);
+  }
+
+  @Test
+  public void shouldCombineCrcs() {
+    byte[] first = randomBytes(random.nextInt(1000));
+    byte[] second = randomBytes(1 + random.nextInt(1000));
+    byte[] both = new byte[first.length + second.length];
+    System.arraycopy(first, 0, both, 0, first.length);
+    System.arraycopy(second, 0, both, first.length, second.length);
+
+    assertEquals("CRC", crc(both), Crc32Combiner.combine(crc(first), crc(second), second.length));
+  }
+
+  @Test
+  public void shouldWriteZip64SizesForEntriesOf4GbOrMore() throws IOException {
+    // Writing 4GB takes too long, so claim sizes that the written data doesn't have and only check the headers
+    byte[] data = randomBytes(100);
+    long crc = crc(data);
+    long compressedSize = 5L << 30;
+    long size = 6L << 30;
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+    try (ZipFileWriter writer = new ZipFileWriter(output)) {
+      writer.beginEntry(LARGE, true);
+      writer.write(data, 0, data.length);
+      writer.endEntry(crc, compressedSize, size);
+    }
+
+    ByteBuffer zipFile = ByteBuffer.wrap(output.toByteArray()).order(ByteOrder.LITTLE_ENDIAN);
+    assertEquals("Local header", 0x04034b50, zipFile.getInt(0));
+    assertEquals("Local version", ZIP64_VERSION, zipFile.getShort(4));
+    assertEquals("Local name length", LARGE.length(), zipFile.getShort(26));
+    assertEquals("Local extra length", 4 + 16, zipFile.getShort(28));
+    int localExtra = 30 + LARGE.length();
+    assertEquals("Local extra ID", ZIP64_EXTRA_ID, zipFile.getShort(localExtra));
+    assertEquals("Local extra size", 16, zipFile.getShort(localExtra + 2));
+
+    int descriptor = localExtra + 4 + 16 + data.length;
+    assertEquals("Data descriptor", 0x08074b50, zipFile.getInt(descriptor));
+    assertEquals("Descriptor CRC", crc, zipFile.getInt(descriptor + 4) & MAX_INT);
+    assertEquals("Descriptor compressed size", compressedSize, zipFile.getLong(descriptor + 8));
+    assertEquals("Descriptor size", size, zipFile.getLong(descriptor + 16));
+
+    int central = descriptor + 24;
+    assertEquals("Central header", 0x02014b50, zipFile.getInt(central));
+    assertEquals("Central version", ZIP64_VERSION, zipFile.getShort(central + 6));
+    assertEquals("Central compressed size", MAX_INT, zipFile.getInt(central + 20) & MAX_INT);
+    assertEquals("Central size", MAX_INT, zipFile.getInt(central + 24) & MAX_INT);
+    assertEquals("Central extra length", 4 + 16, zipFile.getShort(central + 30));
+    int centralExtra = central + 46 + LARGE.length();
+    assertEquals("Central extra ID", ZIP64_EXTRA_ID, zipFile.getShort(centralExtra));
+    assertEquals("Central extra size", 16, zipFile.getShort(centralExtra + 2));
+    assertEquals("Central extra size field", size, zipFile.getLong(centralExtra + 4));
+    assertEquals("Central extra compressed size field", compressedSize, zipFile.getLong(centralExtra + 12));
+
+    int end = centralExtra + 4 + 16;
+    assertEquals("End of central directory", 0x06054b50, zipFile.getInt(end));
+    assertEquals("Central directory offset", central, zipFile.getInt(end + 16));
+    assertEquals("ZIP length", end + 22, zipFile.limit());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldRejectSmallBlocks() {
+    new ParallelDeflateZipAssembler(pool, Deflater.DEFAULT_COMPRESSION, 1024);
+  }
+
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.support.io;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+import com.opentext.ia.test.TestCase;
+
+
+public class WhenEncodingUtf8 extends TestCase {
+
+  private static final String TEXT = "<a b=\"c\">ASCII, \u00e9t\u00e9, \u20ac, \ud83d\ude00 &amp; more</a>";
+
+  private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+  @Test
+  public void shouldEncodeLikeOutputStreamWriter() throws IOException {
+    assertEncoded(TEXT);
+  }
+
+  private void assertEncoded(String text) throws IOException {
+    try (Writer writer = new Utf8Writer(output, randomInt(4, 16), false)) {
+      int offset = 0;
+      while (offset < text.length()) {
+        int count = Math.min(text.length() - offset, randomInt(1, 5));
+        if (count == 1) {
+          writer.write(text.charAt(offset));
+        } else if (count % 2 == 0) {
+          writer.write(text, offset, count);
+        } else {
+          writer.write(text.toCharArray(), offset, count);
+        }
+        offset += count;
+      }
+    }
+    assertArrayEquals("Bytes", expected(text), output.toByteArray());
+  }
+
+  private byte[] expected(String text) throws IOException {
+    ByteArrayOutputStream result = new ByteArrayOutputStream();
+    try (Writer writer = new OutputStreamWriter(result, StandardCharsets.UTF_8)) {
+      writer.write(text);
+    }
+    return result.toByteArray();
+  }
+
+  @Test
+  public void shouldReplaceMalformedSurrogates() throws IOException {
+    assertEncoded("a\ud83db\ude00c\ud83d");
+  }
+
+  @Test
+  public void shouldEncodeRandomText() throws IOException {
+    StringBuilder text = new StringBuilder();
+    for (int i = 0; i < 1000; i++) {
+      text.appendCodePoint(randomInt(1, Character.MAX_CODE_POINT));
+    }
+    assertEncoded(text.toString());
+  }
+
+  @Test
+  public void shouldIgnoreFlushWhenForcingChunks() throws IOException {
+    int chunkSize = 16;
+    Writer writer = new Utf8Writer(output, chunkSize, true);
+
+    writer.write("0123456789");
+    writer.flush();
+    assertEquals("# bytes after flush", 0, output.size());
+
+    writer.write("0123456789");
+    assertEquals("# bytes after full chunk", chunkSize, output.size());
+
+    writer.close();
+    assertEquals("# bytes after close", 20, output.size());
+  }
+
+  @Test
+  public void shouldCountBytesWritten() throws IOException {
+    Utf8Writer writer = new Utf8Writer(output);
+
+    writer.write(TEXT);
+
+    assertEquals("# bytes", expected(TEXT).length, writer.numBytesWritten());
+  }
+
+}
@@ -5,11 +5,16 @@ package com.opentext.ia.sdk.support.io;
 
 import static org.junit.Assert.*;
 
+import java.nio.ByteBuffer;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
+import java.util.Random;
 
 import org.apache.commons.codec.binary.Base64;
+import org.apache.commons.codec.binary.Hex;
 import org.junit.Test;
 
 import com.opentext.ia.test.TestCase;
@@ -50,4 +55,34 @@ public class WhenHashing extends TestCase {
     assertEquals("Size after initializing", 0, hashAssembler.numBytesHashed());
   }
 
+  @Test
+  public void shouldAssembleMultipleHashesInOnePass() throws NoSuchAlgorithmException {
+    byte[] small = randomBytes();
+    byte[] large = new byte[2 * MultiHashAssembler.DEFAULT_PARALLEL_THRESHOLD];
+    new Random().nextBytes(large);
+    HashAssembler multiHashAssembler = new MultiHashAssembler(Encoding.HEX, HashFunction.SHA256, HashFunction.MD5);
+
+    multiHashAssembler.initialize();
+    multiHashAssembler.add(small, small.length);
+    multiHashAssembler.add(large, large.length);
+    multiHashAssembler.add(ByteBuffer.wrap(large));
+    List<EncodedHash> actual = new ArrayList<>(multiHashAssembler.get());
+
+    assertEquals("# hashes", 2, actual.size());
+    assertEquals("# bytes hashed", small.length + 2 * large.length, multiHashAssembler.numBytesHashed());
+    assertHash(actual.get(0), EXPECTED_HASH_FUNCTION, small, large, large);
+    assertHash(actual.get(1), "MD5", small, large, large);
+  }
+
+  private void assertHash(EncodedHash actual, String expectedHashFunction, byte[]... content)
+      throws NoSuchAlgorithmException {
+    MessageDigest digest = MessageDigest.getInstance(expectedHashFunction);
+    for (byte[] bytes : content) {
+      digest.update(bytes);
+    }
+    assertEquals("Algorithm", expectedHashFunction, actual.getHashFunction());
+    assertEquals("Encoding", "hex", actual.getEncoding());
+    assertEquals("Digest of " + expectedHashFunction, Hex.encodeHexString(digest.digest()), actual.getValue());
+  }
+
 }
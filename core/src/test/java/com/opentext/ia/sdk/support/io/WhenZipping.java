@@ -8,15 +8,20 @@ import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.*;
 
 import java.io.ByteArrayInputStream;
+import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Random;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 
 import org.apache.commons.io.IOUtils;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.mockito.ArgumentCaptor;
 
 import com.opentext.ia.test.TestCase;
@@ -24,6 +29,8 @@ import com.opentext.ia.test.TestCase;
 
 public class WhenZipping extends TestCase {
 
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
   private final ZipAssembler zip = new DefaultZipAssembler();
   private final ByteArrayInputOutputStream output = new ByteArrayInputOutputStream();
 
@@ -79,6 +86,195 @@ public class WhenZipping extends TestCase {
     assertEquals("Hash", expected, actual);
   }
 
+  @Test
+  public void shouldStoreEntriesThatAreAlreadyCompressed() throws IOException {
+    ZipAssembler storingZip = new DefaultZipAssembler(ZipCompressionPolicy.exceptForCompressedFormats());
+    byte[] jpeg = { (byte)0xFF, (byte)0xD8, (byte)0xFF, (byte)0xE0, 0, 0x10, 'J', 'F', 'I', 'F' };
+    byte[] text = compressibleBytes();
+
+    storingZip.begin(output);
+    storingZip.addEntry("image", new ByteArrayInputStream(jpeg), new NoHashAssembler());
+    storingZip.addEntry("document.pdf", new ByteArrayInputStream(text), new NoHashAssembler());
+    storingZip.addEntry("document.txt", new ByteArrayInputStream(text), new NoHashAssembler());
+    storingZip.close();
+
+    try (ZipInputStream unzip = new ZipInputStream(output.getInputStream())) {
+      assertEntry(unzip, "image", ZipEntry.STORED, jpeg);
+      assertEntry(unzip, "document.pdf", ZipEntry.STORED, text);
+      assertEntry(unzip, "document.txt", ZipEntry.DEFLATED, text);
+    }
+  }
+
+  private byte[] compressibleBytes() {
+    byte[] result = new byte[3 * CompressedFormats.PROBE_SIZE];
+    for (int i = 0; i < result.length; i++) {
+      result[i] = (byte)('a' + i % 7);
+    }
+    return result;
+  }
+
+  private void assertEntry(ZipInputStream unzip, String expectedName, int expectedMethod, byte[] expectedContent)
+      throws IOException {
+    ZipEntry entry = unzip.getNextEntry();
+    assertNotNull("Missing entry " + expectedName, entry);
+    assertEquals("Name", expectedName, entry.getName());
+    assertEquals("Method of " + expectedName, expectedMethod, entry.getMethod());
+    assertArrayEquals("Content of " + expectedName, expectedContent, IOUtils.toByteArray(unzip));
+    unzip.closeEntry();
+  }
+
+  @Test
+  public void shouldStoreEntriesThatDontCompressWell() throws IOException {
+    ZipAssembler storingZip = new DefaultZipAssembler(ZipCompressionPolicy.byCompressibility(0.1));
+    byte[] random = new byte[2 * CompressedFormats.PROBE_SIZE];
+    new Random().nextBytes(random);
+    byte[] text = compressibleBytes();
+
+    storingZip.begin(output);
+    storingZip.addEntry("random", new ByteArrayInputStream(random), new NoHashAssembler());
+    storingZip.addEntry("text", new ByteArrayInputStream(text), new NoHashAssembler());
+    storingZip.close();
+
+    try (ZipInputStream unzip = new ZipInputStream(output.getInputStream())) {
+      assertEntry(unzip, "random", ZipEntry.STORED, random);
+      assertEntry(unzip, "text", ZipEntry.DEFLATED, text);
+    }
+  }
+
+  @Test
+  public void shouldMeasureTimeSpentOnEntry() throws IOException {
+    DefaultZipAssembler timedZip = new DefaultZipAssembler();
+    byte[] content = compressibleBytes();
+
+    timedZip.begin(output);
+    timedZip.addEntry(someName(), new ByteArrayInputStream(content), new SingleHashAssembler());
+    timedZip.close();
+
+    assertTrue("Read time", timedZip.readTime() > 0);
+    assertTrue("Hash time", timedZip.hashTime() > 0);
+    assertTrue("Write time", timedZip.writeTime() > 0);
+  }
+
+  @Test
+  public void shouldCalculateHashesOfStoredEntries() throws IOException {
+    ZipAssembler storingZip = new DefaultZipAssembler(ZipCompressionPolicy.never());
+    byte[] content = compressibleBytes();
+    Collection<EncodedHash> expected = hash(content);
+
+    storingZip.begin(output);
+    Collection<EncodedHash> actual = storingZip.addEntry(someName(), new ByteArrayInputStream(content),
+        new SingleHashAssembler());
+    storingZip.close();
+
+    assertEquals("Hash", expected, actual);
+  }
+
+  @Test
+  public void shouldWriteLargeStoredEntriesWithoutCompressingThem() throws IOException {
+    ZipAssembler storingZip = new DefaultZipAssembler(ZipCompressionPolicy.never());
+    byte[] content = new byte[2 * DefaultZipAssembler.MAX_BUFFERED_SIZE];
+    Arrays.fill(content, (byte)'a');
+    byte[] text = compressibleBytes();
+
+    storingZip.begin(output);
+    Collection<EncodedHash> actual = storingZip.addEntry("large", new ByteArrayInputStream(content),
+        new SingleHashAssembler());
+    storingZip.addEntry("small", new ByteArrayInputStream(text), new NoHashAssembler());
+    storingZip.close();
+
+    assertEquals("Hash", hash(content), actual);
+    assertTrue("Compressed", output.size() > content.length + text.length);
+    try (ZipInputStream unzip = new ZipInputStream(output.getInputStream())) {
+      assertEntry(unzip, "large", ZipEntry.DEFLATED, content);
+      assertEntry(unzip, "small", ZipEntry.STORED, text);
+    }
+  }
+
+  private Collection<EncodedHash> hash(byte[] content) {
+    HashAssembler result = new SingleHashAssembler();
+    result.initialize();
+    result.add(content, content.length);
+    return result.get();
+  }
+
+  @Test
+  public void shouldUseCompressionLevel() throws IOException {
+    byte[] content = compressibleBytes();
+
+    DefaultZipAssembler fastZip = new DefaultZipAssembler(ZipCompressionPolicy.always(), 0);
+    fastZip.begin(output);
+    fastZip.addEntry(someName(), new ByteArrayInputStream(content), new NoHashAssembler());
+    fastZip.close();
+    long uncompressedSize = output.size();
+
+    ByteArrayInputOutputStream compressed = new ByteArrayInputOutputStream();
+    fastZip.setLevel(9);
+    fastZip.begin(compressed);
+    fastZip.addEntry(someName(), new ByteArrayInputStream(content), new NoHashAssembler());
+    fastZip.close();
+
+    assertTrue("Level not applied", compressed.size() < uncompressedSize);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldRejectInvalidCompressionLevel() {
+    new DefaultZipAssembler(ZipCompressionPolicy.always(), 10);
+  }
+
+  @Test
+  public void shouldAddEntriesFromFiles() throws IOException {
+    ZipAssembler storingZip = new DefaultZipAssembler(ZipCompressionPolicy.exceptForCompressedFormats());
+    byte[] content = compressibleBytes();
+    File file = folder.newFile();
+    Files.write(file.toPath(), content);
+    Collection<EncodedHash> expected = hash(content);
+
+    storingZip.begin(output);
+    Collection<EncodedHash> actualStored = storingZip.addEntry("stored.zip", file.toPath(), new SingleHashAssembler());
+    Collection<EncodedHash> actualDeflated = storingZip.addEntry("deflated.txt", file.toPath(),
+        new SingleHashAssembler());
+    storingZip.close();
+
+    assertEquals("Hash of stored entry", expected, actualStored);
+    assertEquals("Hash of deflated entry", expected, actualDeflated);
+    try (ZipInputStream unzip = new ZipInputStream(output.getInputStream())) {
+      assertEntry(unzip, "stored.zip", ZipEntry.STORED, content);
+      assertEntry(unzip, "deflated.txt", ZipEntry.DEFLATED, content);
+    }
+  }
+
+  @Test
+  public void shouldStoreEntriesFromFilesLargerThanBuffer() throws IOException {
+    ZipAssembler storingZip = new DefaultZipAssembler(ZipCompressionPolicy.never());
+    byte[] content = new byte[randomInt(200_000, 300_000)];
+    new Random().nextBytes(content);
+    File file = folder.newFile();
+    Files.write(file.toPath(), content);
+
+    storingZip.begin(output);
+    Collection<EncodedHash> actual = storingZip.addEntry("file.bin", file.toPath(), new SingleHashAssembler());
+    storingZip.close();
+
+    assertEquals("Hash of file", hash(content), actual);
+    try (ZipInputStream unzip = new ZipInputStream(output.getInputStream())) {
+      assertEntry(unzip, "file.bin", ZipEntry.STORED, content);
+    }
+  }
+
+  @Test
+  public void shouldAddEmptyEntryFromFile() throws IOException {
+    ZipAssembler storingZip = new DefaultZipAssembler(ZipCompressionPolicy.never());
+    File file = folder.newFile();
+
+    storingZip.begin(output);
+    storingZip.addEntry("empty", file.toPath(), new NoHashAssembler());
+    storingZip.close();
+
+    try (ZipInputStream unzip = new ZipInputStream(output.getInputStream())) {
+      assertEntry(unzip, "empty", ZipEntry.STORED, new byte[0]);
+    }
+  }
+
   private EncodedHash someHash() {
     return new EncodedHash(someName(), someName(), someName());
   }
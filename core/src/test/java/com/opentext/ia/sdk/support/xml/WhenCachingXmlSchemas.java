@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.support.xml;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.validation.ValidationException;
+import javax.xml.XMLConstants;
+import javax.xml.transform.stream.StreamSource;
+import javax.xml.validation.Validator;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.xml.sax.SAXException;
+
+import com.opentext.ia.test.TestCase;
+
+
+public class WhenCachingXmlSchemas extends TestCase {
+
+  private static final int NUM_THREADS = 4;
+  private static final int NUM_VALIDATIONS = 50;
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private final String elementName = randomString(8);
+
+  @Test
+  public void shouldCompileSameSchemaOnlyOnce() {
+    ValidatorPool validators = XmlSchemas.validatorsFor(schema(elementName));
+
+    assertSame("Validators", validators, XmlSchemas.validatorsFor(schema(elementName)));
+    assertNotSame("Validators for other schema", validators, XmlSchemas.validatorsFor(schema(randomString(8))));
+  }
+
+  private InputStream schema(String name) {
+    return toStream(XmlUtil.toString(XmlBuilder.newDocument()
+        .namespace(XMLConstants.W3C_XML_SCHEMA_NS_URI)
+        .element("schema")
+            .element("element")
+                .attribute("name", name)
+                .attribute("type", "string")
+        .build()));
+  }
+
+  private InputStream toStream(String text) {
+    return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+  }
+
+  @Test
+  public void shouldCacheSchemaByLocation() throws IOException {
+    File file = temporaryFolder.newFile();
+    Files.copy(schema(elementName), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+
+    ValidatorPool validators = XmlSchemas.validatorsFor(file.toURI().toURL());
+
+    assertSame("Validators", validators, XmlSchemas.validatorsFor(file.toURI().toURL()));
+  }
+
+  @Test
+  public void shouldReuseReleasedValidators() {
+    ValidatorPool validators = XmlSchemas.validatorsFor(schema(elementName));
+    Validator validator = validators.acquire();
+
+    assertNotSame("Validator in use is handed out", validator, validators.acquire());
+    validators.release(validator);
+    assertSame("Released validator", validator, validators.acquire());
+  }
+
+  @Test
+  public void shouldValidateConcurrently() throws Exception {
+    ValidatorPool validators = XmlSchemas.validatorsFor(schema(elementName));
+    ExecutorService executor = Executors.newFixedThreadPool(NUM_THREADS);
+    try {
+      Collection<Future<Boolean>> results = new ArrayList<>();
+      for (int i = 0; i < NUM_VALIDATIONS; i++) {
+        boolean valid = i % 2 == 0;
+        String xml = String.format("<%s/>", valid ? elementName : randomString(8));
+        results.add(executor.submit(() -> isValid(validators, xml) == valid));
+      }
+      for (Future<Boolean> result : results) {
+        assertTrue("Validation result", result.get());
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private boolean isValid(ValidatorPool validators, String xml) throws IOException {
+    try {
+      validators.validate(new StreamSource(toStream(xml)));
+      return true;
+    } catch (SAXException e) {
+      return false;
+    }
+  }
+
+  @Test(expected = ValidationException.class)
+  public void shouldRejectInvalidSchema() {
+    XmlSchemas.validatorsFor(toStream("<" + elementName + "/>"));
+  }
+
+  @Test(expected = ValidationException.class)
+  public void shouldRejectMissingSchema() {
+    XmlSchemas.validatorsFor((InputStream)null);
+  }
+
+}
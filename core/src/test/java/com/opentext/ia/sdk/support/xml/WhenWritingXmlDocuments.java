@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sdk.support.xml;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.StringWriter;
+
+import org.junit.Test;
+
+
+public class WhenWritingXmlDocuments extends XmlBuilderTestCase<Void> {
+
+  private final StringWriter output = new StringWriter();
+
+  @Override
+  protected XmlBuilder<Void> newBuilder() {
+    return new WriterXmlBuilder(output);
+  }
+
+  @Override
+  protected String getOutput() {
+    getBuilder().build();
+    return output.toString();
+  }
+
+  @Test
+  public void shouldWriteWithoutIndentation() {
+    String namespace = randomUri();
+    WriterXmlBuilder builder = WriterXmlBuilder.unindented(output);
+
+    builder.element("root")
+        .attribute("a", "<&>", namespace)
+        .element("child", "text")
+        .element("empty")
+    .build();
+
+    assertEquals("XML", "<root xmlns:ns1=\"" + namespace + "\" ns1:a=\"&lt;&amp;&gt;\">"
+        + "<child>text</child><empty/></root>", output.toString());
+  }
+
+  @Test
+  public void shouldBuildDocumentsInSequence() {
+    String namespace = randomUri();
+    WriterXmlBuilder builder = WriterXmlBuilder.unindented(output);
+
+    for (int i = 0; i < 2; i++) {
+      builder.element("item")
+          .attribute("a", Integer.toString(i), namespace)
+      .build();
+    }
+
+    String expected = "<item xmlns:ns1=\"" + namespace + "\" ns1:a=\"%d\"/>";
+    assertEquals("XML", String.format(expected + expected, 0, 1), output.toString());
+  }
+
+  @Test
+  public void shouldIndentDeeplyNestedElements() {
+    int depth = randomInt(20, 40);
+    WriterXmlBuilder builder = new WriterXmlBuilder(output);
+    for (int i = 0; i < depth; i++) {
+      builder.element("e");
+    }
+    builder.build();
+
+    String[] lines = output.toString().split(System.lineSeparator());
+    assertEquals("Indentation of innermost element", 2 * (depth - 1), lines[depth - 1].indexOf('<'));
+  }
+
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sip.assembly.stringtemplate;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.stringtemplate.v4.Interpreter;
+import org.stringtemplate.v4.ST;
+import org.stringtemplate.v4.misc.ObjectModelAdaptor;
+import org.stringtemplate.v4.misc.STNoSuchPropertyException;
+
+
+/**
+ * {@linkplain ObjectModelAdaptor} that looks up properties in the same way, but without synchronizing every property
+ * access. Members are looked up once per type and property, and then cached in a concurrent map.
+ */
+class ConcurrentObjectModelAdaptor extends ObjectModelAdaptor {
+
+  private final Map<Class<?>, Map<String, Member>> membersByType = new ConcurrentHashMap<>();
+
+  @Override
+  public Object getProperty(Interpreter interpreter, ST template, Object model, Object property, String propertyName)
+      throws STNoSuchPropertyException {
+    Class<?> type = model.getClass();
+    if (property == null) {
+      return throwNoSuchProperty(type, propertyName, null);
+    }
+    Member member = memberOf(type, propertyName);
+    try {
+      if (member instanceof Method) {
+        return ((Method)member).invoke(model);
+      }
+      if (member instanceof Field && member != INVALID_MEMBER) {
+        return ((Field)member).get(model);
+      }
+    } catch (ReflectiveOperationException e) {
+      return throwNoSuchProperty(type, propertyName, e);
+    }
+    return throwNoSuchProperty(type, propertyName, null);
+  }
+
+  private Member memberOf(Class<?> type, String name) {
+    Map<String, Member> members = membersByType.get(type);
+    if (members == null) {
+      members = membersByType.computeIfAbsent(type, key -> new ConcurrentHashMap<>());
+    }
+    Member result = members.get(name);
+    if (result == null) {
+      Member member = findMember(type, name);
+      result = member == null ? INVALID_MEMBER : member;
+      members.put(name, result);
+    }
+    return result;
+  }
+
+}
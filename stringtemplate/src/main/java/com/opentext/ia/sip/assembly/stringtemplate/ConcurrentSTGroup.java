@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sip.assembly.stringtemplate;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.stringtemplate.v4.AttributeRenderer;
+import org.stringtemplate.v4.ModelAdaptor;
+import org.stringtemplate.v4.STGroup;
+
+
+/**
+ * {@linkplain STGroup} that can be shared by many threads. StringTemplate looks up the model adaptor and renderer for
+ * every attribute it renders, and the group synchronizes those lookups. This group caches the results in concurrent
+ * maps instead, and uses a {@linkplain ConcurrentObjectModelAdaptor} for domain objects. The group registers the same
+ * adaptors and renderers as {@linkplain StringTemplate} does by default, and must not be changed after that.
+ */
+class ConcurrentSTGroup extends STGroup {
+
+  private static final AttributeRenderer NO_RENDERER = (value, formatString, locale) -> null;
+
+  private final Map<Class<?>, ModelAdaptor> adaptorsByType = new ConcurrentHashMap<>();
+  private final Map<Class<?>, AttributeRenderer> renderersByType = new ConcurrentHashMap<>();
+
+  ConcurrentSTGroup(char delimiterStart, char delimiterEnd) {
+    super(delimiterStart, delimiterEnd);
+    registerModelAdaptor(Object.class, new ConcurrentObjectModelAdaptor());
+    registerModelAdaptor(Map.class, new MapModelAdaptor());
+    registerRenderer(Date.class, new XmlDateRenderer());
+  }
+
+  @Override
+  public ModelAdaptor getModelAdaptor(Class<?> attributeType) {
+    ModelAdaptor result = adaptorsByType.get(attributeType);
+    if (result == null) {
+      result = super.getModelAdaptor(attributeType);
+      adaptorsByType.put(attributeType, result);
+    }
+    return result;
+  }
+
+  @Override
+  public AttributeRenderer getAttributeRenderer(Class<?> attributeType) {
+    AttributeRenderer result = renderersByType.get(attributeType);
+    if (result == null) {
+      AttributeRenderer renderer = super.getAttributeRenderer(attributeType);
+      result = renderer == null ? NO_RENDERER : renderer;
+      renderersByType.put(attributeType, result);
+    }
+    return result == NO_RENDERER ? null : result;
+  }
+
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sip.assembly.stringtemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.stringtemplate.v4.NoIndentWriter;
+import org.stringtemplate.v4.ST;
+import org.stringtemplate.v4.STGroup;
+
+import com.opentext.ia.sdk.sip.ContentInfo;
+import com.opentext.ia.sdk.sip.DigitalObject;
+import com.opentext.ia.sdk.sip.FixedHeaderAndFooterTemplate;
+import com.opentext.ia.sdk.sip.Template;
+
+
+/**
+ * {@linkplain Template} using the <a href="http://www.stringtemplate.org/">StringTemplate</a> template engine that is
+ * meant to be shared by many concurrent assemblers. It produces the same output as {@linkplain StringTemplate}, but:
+ * <ul>
+ * <li>compiles every row template only once per JVM, into a shared group</li>
+ * <li>reuses template instances from a pool rather than cloning the template for every row</li>
+ * <li>caches the lookup of model adaptors and renderers, so that concurrent rendering doesn't block on them</li>
+ * </ul>
+ * Templates have access to the following objects:
+ * <dl>
+ * <dt><code>model</code></dt>
+ * <dd>The domain object (of type D)</dd>
+ * <dt><code>content</code></dt>
+ * <dd>The reference information and the encoded hashes of the {@linkplain DigitalObject}s associated with the domain
+ * object, if any</dd>
+ * </dl>
+ * Unlike {@linkplain StringTemplate}, this class doesn't allow adding renderers or adaptors, since its group is shared.
+ * @param <D> The type of domain object to replace with text
+ */
+public class ConcurrentStringTemplate<D> extends FixedHeaderAndFooterTemplate<D> {
+
+  private static final char DEFAULT_DELIMITER = '$';
+  private static final String TEMPLATE_NAME = "template";
+  private static final String MODEL_VARIABLE = "model";
+  private static final String CONTENT_VARIABLE = "content";
+  private static final Map<String, STPool> POOLS = new ConcurrentHashMap<>();
+
+  private final STPool templates;
+
+  /**
+   * Create an instance with the default delimiters.
+   * @param header The fixed header
+   * @param footer The fixed footer
+   * @param row The template for the rows
+   */
+  public ConcurrentStringTemplate(InputStream header, InputStream footer, InputStream row) {
+    this(toString(header), toString(footer), toString(row));
+  }
+
+  /**
+   * Create an instance with the default delimiters.
+   * @param header The fixed header
+   * @param footer The fixed footer
+   * @param row The template for the rows
+   */
+  public ConcurrentStringTemplate(String header, String footer, String row) {
+    this(header, footer, row, DEFAULT_DELIMITER, DEFAULT_DELIMITER);
+  }
+
+  /**
+   * Create an instance.
+   * @param header The fixed header
+   * @param footer The fixed footer
+   * @param row The template for the rows
+   * @param delimiterStart The character that starts a StringTemplate expression
+   * @param delimiterEnd The character that ends a StringTemplate expression
+   */
+  public ConcurrentStringTemplate(String header, String footer, String row, char delimiterStart, char delimiterEnd) {
+    super(header, footer);
+    this.templates = POOLS.computeIfAbsent(new StringBuilder().append(delimiterStart).append(delimiterEnd).append(row)
+        .toString(), key -> new STPool(compile(row, delimiterStart, delimiterEnd)));
+  }
+
+  private static ST compile(String row, char delimiterStart, char delimiterEnd) {
+    STGroup group = new ConcurrentSTGroup(delimiterStart, delimiterEnd);
+    group.defineTemplate(TEMPLATE_NAME, MODEL_VARIABLE + ',' + CONTENT_VARIABLE, row);
+    return group.getInstanceOf(TEMPLATE_NAME);
+  }
+
+  @Override
+  public void writeRow(D domainObject, Map<String, ContentInfo> contentInfo, PrintWriter writer) throws IOException {
+    ST template = templates.acquire();
+    try {
+      template.add(MODEL_VARIABLE, domainObject);
+      template.add(CONTENT_VARIABLE, contentInfo);
+      template.write(new NoIndentWriter(writer));
+    } finally {
+      template.remove(MODEL_VARIABLE);
+      template.remove(CONTENT_VARIABLE);
+      templates.release(template);
+    }
+  }
+
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sip.assembly.stringtemplate;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import org.stringtemplate.v4.ST;
+
+
+/**
+ * Pool of instances of a compiled template. An {@linkplain ST} holds the attributes to render, so it can't be used by
+ * multiple threads at the same time. This pool hands out an instance to one thread at a time, and keeps a limited
+ * number of released instances around for reuse.
+ */
+class STPool {
+
+  private static final int MAX_IDLE = 2 * Runtime.getRuntime().availableProcessors();
+
+  private final ST prototype;
+  private final BlockingQueue<ST> idle = new ArrayBlockingQueue<>(MAX_IDLE);
+
+  STPool(ST prototype) {
+    this.prototype = prototype;
+  }
+
+  ST acquire() {
+    ST result = idle.poll();
+    return result == null ? new ST(prototype) : result;
+  }
+
+  void release(ST template) {
+    idle.offer(template);
+  }
+
+}
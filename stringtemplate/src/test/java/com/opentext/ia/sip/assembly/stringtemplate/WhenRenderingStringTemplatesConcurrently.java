@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sip.assembly.stringtemplate;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+import com.opentext.ia.sdk.sip.ContentInfo;
+import com.opentext.ia.sdk.sip.Template;
+import com.opentext.ia.test.TestCase;
+
+
+public class WhenRenderingStringTemplatesConcurrently extends TestCase {
+
+  private static final int NUM_THREADS = 4;
+  private static final int NUM_ROWS = 200;
+  private static final String ROW = "<name>$model.name$</name><when>$model.when$</when><tags>$model.tags$</tags>"
+      + "<missing>$model.missing$</missing><ri>$content.doc.referenceInformation$</ri>\n";
+
+  private final Map<String, ContentInfo> content = Collections.singletonMap("doc",
+      new ContentInfo(randomString(), Collections.emptyList()));
+
+  @Test
+  public void shouldRenderSameRowsAsStringTemplate() throws IOException {
+    Template<Object> expected = new StringTemplate<>("", "", ROW);
+    Template<Object> actual = new ConcurrentStringTemplate<>("", "", ROW);
+
+    for (Object model : Arrays.asList(new Document(randomString()), map(randomString()))) {
+      assertEquals(model.getClass().getSimpleName(), writeRow(expected, model), writeRow(actual, model));
+    }
+  }
+
+  private Map<String, Object> map(String name) {
+    Map<String, Object> result = new HashMap<>();
+    result.put("name", name);
+    result.put("when", new Date());
+    result.put("tags", Arrays.asList("a", "b"));
+    return result;
+  }
+
+  private String writeRow(Template<Object> template, Object model) throws IOException {
+    StringWriter result = new StringWriter();
+    template.writeRow(model, content, new PrintWriter(result));
+    return result.toString();
+  }
+
+  @Test
+  public void shouldNotRetainAttributesBetweenRows() throws IOException {
+    Template<Object> template = new ConcurrentStringTemplate<>("", "", ROW);
+    Map<String, Object> model = map(randomString());
+
+    writeRow(template, new Document(randomString()));
+
+    assertEquals("Row", writeRow(new StringTemplate<>("", "", ROW), model), writeRow(template, model));
+  }
+
+  @Test
+  public void shouldRenderRowsConcurrently() throws Exception {
+    Template<Object> expected = new StringTemplate<>("", "", ROW);
+    ExecutorService executor = Executors.newFixedThreadPool(NUM_THREADS);
+    try {
+      Collection<Future<Boolean>> results = new ArrayList<>();
+      for (int i = 0; i < NUM_ROWS; i++) {
+        Document document = new Document(randomString());
+        results.add(executor.submit(() -> writeRow(new ConcurrentStringTemplate<>("", "", ROW), document)
+            .equals(writeRow(expected, document))));
+      }
+      for (Future<Boolean> result : results) {
+        assertTrue("Row", result.get());
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+
+  public static class Document {
+
+    private final String name;
+    private final Date when = new Date();
+
+    public Document(String name) {
+      this.name = name;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public Date getWhen() {
+      return when;
+    }
+
+    public boolean hasTags() {
+      return true;
+    }
+
+  }
+
+}
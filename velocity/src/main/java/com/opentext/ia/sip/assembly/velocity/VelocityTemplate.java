@@ -10,10 +10,6 @@ import java.util.Map;
 
 import org.apache.velocity.Template;
 import org.apache.velocity.VelocityContext;
-import org.apache.velocity.app.Velocity;
-import org.apache.velocity.app.VelocityEngine;
-import org.apache.velocity.runtime.resource.loader.StringResourceLoader;
-import org.apache.velocity.runtime.resource.util.StringResourceRepository;
 
 import com.opentext.ia.sdk.sip.ContentInfo;
 import com.opentext.ia.sdk.sip.DigitalObject;
@@ -30,11 +26,13 @@ import com.opentext.ia.sdk.sip.FixedHeaderAndFooterTemplate;
  * <dt><code>isodate</code></dt>
  *   <dd>A utility class to format a date in ISO 8601 format using the <code>format()</code> function</dd>
  * </dl>
+ * The row template is parsed by a shared engine and cached by {@linkplain VelocityTemplates}, so that instances with
+ * the same row template share the parsed version. Instances are thread-safe.
  * @param <D> The type of domain object to replace with text
  */
 public class VelocityTemplate<D> extends FixedHeaderAndFooterTemplate<D> {
 
-  private static final String TEMPLATE_NAME = VelocityTemplate.class.getName();
+  private static final DatesTool DATES = new DatesTool();
 
   private final Template template;
 
@@ -56,22 +54,14 @@ public class VelocityTemplate<D> extends FixedHeaderAndFooterTemplate<D> {
    */
   public VelocityTemplate(String header, String footer, String row) {
     super(header, footer);
-    VelocityEngine engine = new VelocityEngine();
-    engine.setProperty(Velocity.RESOURCE_LOADER, "string");
-    engine.addProperty("string.resource.loader.class", StringResourceLoader.class.getName());
-    engine.addProperty("string.resource.loader.repository.static", "false");
-    engine.init();
-    StringResourceRepository repository = (StringResourceRepository)engine.getApplicationAttribute(
-        StringResourceLoader.REPOSITORY_NAME_DEFAULT);
-    repository.putStringResource(TEMPLATE_NAME, row);
-    template = engine.getTemplate(TEMPLATE_NAME);
+    template = VelocityTemplates.get(row);
   }
 
   @Override
   public void writeRow(D domainObject, Map<String, ContentInfo> contentInfo, PrintWriter writer)
       throws IOException {
     VelocityContext context = new VelocityContext();
-    context.put("isodate", new DatesTool());
+    context.put("isodate", DATES);
     context.put("model", domainObject);
     context.put("content", contentInfo);
     template.merge(context, writer);
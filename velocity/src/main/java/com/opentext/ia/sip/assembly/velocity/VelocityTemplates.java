@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sip.assembly.velocity;
+
+import java.io.StringReader;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.velocity.Template;
+import org.apache.velocity.exception.ParseErrorException;
+import org.apache.velocity.runtime.RuntimeInstance;
+import org.apache.velocity.runtime.parser.ParseException;
+
+
+/**
+ * Process-wide cache of parsed Velocity templates.
+ * <p>
+ * Initializing a Velocity engine is expensive and takes a fair amount of memory, while a parsed {@linkplain Template}
+ * can be merged by multiple threads at the same time. This cache parses all templates using a single, shared engine,
+ * and parses every template only once. Templates are identified by their content, so that the same template used by
+ * many {@linkplain VelocityTemplate}s is shared between them.
+ */
+public final class VelocityTemplates {
+
+  private static final String TEMPLATE_NAME = VelocityTemplate.class.getName();
+  private static final RuntimeInstance ENGINE = newEngine();
+  private static final Map<String, Template> TEMPLATES = new ConcurrentHashMap<>();
+  private static final LongAdder LOOKUPS = new LongAdder();
+  private static final LongAdder MISSES = new LongAdder();
+
+  private VelocityTemplates() {
+    // Utility class
+  }
+
+  private static RuntimeInstance newEngine() {
+    RuntimeInstance result = new RuntimeInstance();
+    result.init();
+    return result;
+  }
+
+  /**
+   * Return the parsed version of a Velocity template, parsing the template if this is the first time it's seen.
+   * @param template The Velocity template
+   * @return The parsed template
+   * @throws ParseErrorException When the template is invalid
+   */
+  public static Template get(String template) {
+    LOOKUPS.increment();
+    Template result = TEMPLATES.get(template);
+    if (result == null) {
+      result = TEMPLATES.computeIfAbsent(template, VelocityTemplates::parse);
+    }
+    return result;
+  }
+
+  private static Template parse(String template) {
+    MISSES.increment();
+    Template result = new Template();
+    result.setRuntimeServices(ENGINE);
+    result.setName(TEMPLATE_NAME);
+    try {
+      result.setData(ENGINE.parse(new StringReader(template), TEMPLATE_NAME));
+    } catch (ParseException e) {
+      throw new ParseErrorException(e, TEMPLATE_NAME);
+    }
+    result.initDocument();
+    return result;
+  }
+
+  /**
+   * Return the number of cached templates.
+   * @return The number of cached templates
+   */
+  public static int size() {
+    return TEMPLATES.size();
+  }
+
+  /**
+   * Return the number of times a requested template was found in the cache.
+   * @return The number of cache hits
+   */
+  public static long hits() {
+    return LOOKUPS.sum() - MISSES.sum();
+  }
+
+  /**
+   * Return the number of times a requested template had to be parsed.
+   * @return The number of cache misses
+   */
+  public static long misses() {
+    return MISSES.sum();
+  }
+
+  /**
+   * Forget all cached templates. Templates that are in use remain valid.
+   */
+  public static void clear() {
+    TEMPLATES.clear();
+  }
+
+}
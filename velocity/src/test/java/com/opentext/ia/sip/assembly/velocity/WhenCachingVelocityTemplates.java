@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2016-2017 by OpenText Corporation. All Rights Reserved.
+ */
+package com.opentext.ia.sip.assembly.velocity;
+
+import static org.junit.Assert.*;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.velocity.Template;
+import org.apache.velocity.exception.ParseErrorException;
+import org.junit.Test;
+
+import com.opentext.ia.test.TestCase;
+
+
+public class WhenCachingVelocityTemplates extends TestCase {
+
+  private static final int NUM_THREADS = 4;
+  private static final int NUM_ROWS = 200;
+
+  private final String row = "<" + randomString(8) + ">$model</" + randomString(8) + ">";
+
+  @Test
+  public void shouldParseSameTemplateOnlyOnce() {
+    long misses = VelocityTemplates.misses();
+    long hits = VelocityTemplates.hits();
+
+    Template template = VelocityTemplates.get(row);
+
+    assertSame("Template", template, VelocityTemplates.get(row));
+    assertNotSame("Other template", template, VelocityTemplates.get(row + ' '));
+    assertEquals("Misses", misses + 2, VelocityTemplates.misses());
+    assertEquals("Hits", hits + 1, VelocityTemplates.hits());
+  }
+
+  @Test
+  public void shouldWriteRowsConcurrently() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(NUM_THREADS);
+    try {
+      Collection<Future<Boolean>> results = new ArrayList<>();
+      for (int i = 0; i < NUM_ROWS; i++) {
+        String value = randomString(randomInt(1, 20));
+        results.add(executor.submit(() -> writeRow(new VelocityTemplate<>("", "", row), value)
+            .equals(row.replace("$model", value))));
+      }
+      for (Future<Boolean> result : results) {
+        assertTrue("Row", result.get());
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private String writeRow(VelocityTemplate<String> template, String value) throws Exception {
+    StringWriter result = new StringWriter();
+    template.writeRow(value, Collections.emptyMap(), new PrintWriter(result));
+    return result.toString();
+  }
+
+  @Test(expected = ParseErrorException.class)
+  public void shouldRejectInvalidTemplate() {
+    VelocityTemplates.get("#if($model)" + row);
+  }
+
+}